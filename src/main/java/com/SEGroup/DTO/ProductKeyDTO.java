@@ -0,0 +1,6 @@
+package com.SEGroup.DTO;
+
+/**
+ * Identifies a product offered by a store, for bulk product lookups.
+ */
+public record ProductKeyDTO(String storeName, String productId) {}
@@ -1,3 +1,7 @@
 package com.SEGroup.DTO;
 
-public record StoreCardDto(String name, String owner, double rating, String description) {}
\ No newline at end of file
+/**
+ * Summary of a store for listings: store-level columns plus its product count and average rating,
+ * without the products, reviews or staff of the store.
+ */
+public record StoreCardDto(String name, String owner, double rating, String description, int productCount) {}
@@ -2,9 +2,10 @@ package com.SEGroup.Domain.Conditions;
 
 import com.SEGroup.Domain.Store.ShoppingProduct;
 
+import java.io.Serializable;
 import java.util.List;
 
-public interface Condition {
+public interface Condition extends Serializable {
     /**
      * Determines if the condition is satisfied by the given products and their quantities.
      *
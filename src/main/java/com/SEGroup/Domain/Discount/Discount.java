@@ -2,7 +2,9 @@ package com.SEGroup.Domain.Discount;
 
 import com.SEGroup.Domain.Store.ShoppingProduct;
 
-public abstract class Discount {
+import java.io.Serializable;
+
+public abstract class Discount implements Serializable {
     /**
      * Level at which the discount is applied.
      */
@@ -4,13 +4,14 @@ import com.SEGroup.Domain.Discount.ConditionalDiscount;
 import com.SEGroup.Domain.Discount.Discount;
 import com.SEGroup.Domain.Store.ShoppingProduct;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Abstract base class for numeric composite operations on discounts.
  */
-public abstract class NumericalComposite {
+public abstract class NumericalComposite implements Serializable {
     protected final List<Discount> discounts;
 
     protected NumericalComposite(List<Discount> discounts) {
@@ -0,0 +1,27 @@
+package com.SEGroup.Domain;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A payment gateway whose calls do not block the calling thread, and whose payments can be
+ * cancelled, so that a payment can be taken while other checkout steps are still running.
+ */
+public interface IAsyncPaymentGateway extends IPaymentGateway {
+
+    /**
+     * Processes a payment.
+     *
+     * @param paymentDetails The details of the payment method.
+     * @param amount         The amount to be paid.
+     * @return A future completed with the transaction id, or failed if the payment was refused.
+     */
+    CompletableFuture<Integer> processPaymentAsync(String paymentDetails, double amount);
+
+    /**
+     * Cancels a payment.
+     *
+     * @param transactionId The id returned when the payment was processed.
+     * @return A future completed with true if the payment was cancelled.
+     */
+    CompletableFuture<Boolean> cancelPaymentAsync(int transactionId);
+}
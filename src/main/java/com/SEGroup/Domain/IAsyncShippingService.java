@@ -0,0 +1,29 @@
+package com.SEGroup.Domain;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.SEGroup.DTO.AddressDTO;
+
+/**
+ * A shipping service whose calls do not block the calling thread, so that the shipments of
+ * several baskets can be requested at once.
+ */
+public interface IAsyncShippingService extends IShippingService {
+
+    /**
+     * Requests a shipment.
+     *
+     * @param address_detail The address to ship to.
+     * @param name           The name of the recipient.
+     * @return A future completed with the shipping id, or failed if the shipment was refused.
+     */
+    CompletableFuture<Integer> shipAsync(AddressDTO address_detail, String name);
+
+    /**
+     * Cancels a shipment.
+     *
+     * @param shippingId The id returned when the shipment was requested.
+     * @return A future completed with true if the shipment was cancelled.
+     */
+    CompletableFuture<Boolean> cancelShippingAsync(int shippingId);
+}
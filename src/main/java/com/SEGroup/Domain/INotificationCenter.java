@@ -34,5 +34,18 @@ public interface INotificationCenter {
     void sendSystemNotification(String receiverId, String msg)
             throws AuthenticationException;
 
+    /**
+     * Sends several system notifications at once.
+     *
+     * @param notifications The notifications, each with its receiver and message.
+     * @throws AuthenticationException if authentication fails.
+     */
+    default void sendSystemNotifications(List<Notification> notifications)
+            throws AuthenticationException {
+        for (Notification n : notifications) {
+            sendSystemNotification(n.getReceiverId(), n.getMessage());
+        }
+    }
+
     List<Notification> getUserNotifications(String userEmail);
 }
\ No newline at end of file
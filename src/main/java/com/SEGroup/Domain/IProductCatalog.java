@@ -1,8 +1,15 @@
 package com.SEGroup.Domain;
 
 import java.util.List;
+import java.util.Map;
 
+import com.SEGroup.DTO.ProductKeyDTO;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 /**
  * Interface for managing a product catalog, including adding products, store entries,
@@ -74,6 +81,57 @@ public interface IProductCatalog {
      */
     List<StoreSearchEntry> search(String query, List<String> searchFilters, String storeName, List<String> categories);
 
+    /**
+     * Searches for products with a query compiled once for the whole request.
+     *
+     * @param query The compiled query, e.g. {@code SearchQuery.from(productSearchOptions)}.
+     * @return A list of StoreSearchEntry objects representing the search results.
+     */
+    List<StoreSearchEntry> search(SearchQuery query);
+
+    /**
+     * Returns one page of search results in the given order. Only the requested page
+     * is built; pass the returned cursor back to get the page after it.
+     *
+     * @param query    The compiled query.
+     * @param sort     The order of the results.
+     * @param pageSize The maximum number of results on the page; must be positive.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @return The page and the cursor of the next one.
+     * @throws IllegalArgumentException if the page size is not positive or the cursor is invalid.
+     */
+    SearchPage<StoreSearchEntry> searchPage(SearchQuery query, SearchSort sort, int pageSize, String cursor);
+
+    /**
+     * Ranked search: scores every match as it is produced and keeps only the best K,
+     * so memory stays O(K) and time O(n log K) however many offers match.
+     *
+     * @param query  The compiled query.
+     * @param k      The number of results to keep; must be positive.
+     * @param scorer The ranking function; higher scores come first.
+     * @return At most K matches with their scores, best first.
+     * @throws IllegalArgumentException if k is not positive.
+     */
+    List<ScoredEntry> searchTopK(SearchQuery query, int k, SearchScorer scorer);
+
+    /**
+     * Suggests completions for a partly typed search: product names and brands whose text,
+     * or one of whose words, starts with the prefix, most offered first.
+     *
+     * @param prefix The typed text; case is ignored.
+     * @param limit  The maximum number of suggestions.
+     * @return Up to {@code limit} names or brands.
+     */
+    List<String> autocomplete(String prefix, int limit);
+
+    /**
+     * Looks up the pictures of several store offers at once.
+     *
+     * @param keys The offers, by store name and product ID.
+     * @return The image URL of each offer that has one; offers without an image are left out.
+     */
+    Map<ProductKeyDTO, String> getOfferImages(List<ProductKeyDTO> keys);
+
     /**
      * Checks if a product exists in the catalog.
      *
@@ -3,8 +3,10 @@ package com.SEGroup.Domain;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.SEGroup.DTO.*;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
 import com.SEGroup.Domain.Store.*;
 
 /**
@@ -207,6 +209,9 @@ public interface IStoreRepository {
 
         /**
          * Removes items from stores based on a list of basket items.
+         * All or nothing: each product's stock is checked and taken in one atomic step, and if
+         * any product is missing or short, what was already taken is put back and the call fails.
+         * Concurrent calls can never sell more units than a product has.
          *
          * @param basketDTOList The list of items to remove from the stores.
          * @return A map of basket items to their prices.
@@ -231,6 +236,16 @@ public interface IStoreRepository {
          */
         ShoppingProductDTO getProduct(String storeName, String productID);
 
+        /**
+         * Retrieves many products at once. The keys are grouped by store so each store is
+         * resolved once, however many of its products are requested.
+         *
+         * @param keys The (store, product) pairs to retrieve.
+         * @return The product details in the order of the keys; keys whose store or product
+         *         does not exist are skipped.
+         */
+        List<ShoppingProductDTO> getProducts(List<ProductKeyDTO> keys);
+
         Integer submitBidToShoppingItem(String Email, String storeName, String productId, double bidAmount);
 
         void sendAuctionOffer(String Email, String storeName, String productId, double bidAmount);
@@ -239,6 +254,15 @@ public interface IStoreRepository {
 
         String getStoreFounder(String storeName);
 
+        /**
+         * The founders of several stores, read together without loading the stores.
+         *
+         * @param storeNames The stores.
+         * @return store name → founder email.
+         * @throws IllegalArgumentException if one of the stores does not exist.
+         */
+        Map<String, String> getStoreFounders(Set<String> storeNames);
+
         List<String> getAllBidManagers(String storeName);
 
         List<BidDTO> getAllBids(String owner, String storeName);
@@ -265,6 +289,31 @@ public interface IStoreRepository {
 
         List<StoreDTO> getStoresOwnedBy(String ownerEmail);
 
+        /**
+         * Lists store summaries one page at a time, ordered by store name. Only store-level
+         * data and the product count and average rating are read, not the store aggregates.
+         *
+         * @param page The zero-based page number.
+         * @param size The page size; must be positive.
+         * @return The store cards of the page; empty past the last page.
+         */
+        List<StoreCardDto> listStores(int page, int size);
+
+        /**
+         * All products of the open stores, ordered by store name and product id. Served from a
+         * view kept up to date by this repository's writes rather than from the store aggregates.
+         */
+        List<ShoppingProductDTO> getAllProducts();
+
+        /**
+         * One page of {@link #getAllProducts()}, in O(page size).
+         *
+         * @param page The zero-based page number.
+         * @param size The page size; must be positive.
+         * @return The products of the page; empty past the last page.
+         */
+        List<ShoppingProductDTO> getAllProducts(int page, int size);
+
         List<ShoppingProductDTO> getStoreProducts(String storeName);
 
         List<RatingDto> getStoreRatings(String storeName);
@@ -275,7 +324,26 @@ public interface IStoreRepository {
 
         void giveStoreReview(String storeName, String userId, String review, String rating);
 
-        List<Review> getStoreReviews(String storeName);
+        /**
+         * One page of a store's reviews, newest first, read without loading the store.
+         *
+         * @param storeName The name of the store.
+         * @param cursor    The cursor of the previous page, or null for the first page.
+         * @param size      The page size; must be positive.
+         * @return The reviews of the page and the cursor of the next one.
+         */
+        SearchPage<Review> getStoreReviews(String storeName, String cursor, int size);
+
+        /**
+         * Like {@link #getStoreReviews}, for the reviews one user wrote about the store.
+         *
+         * @param storeName The name of the store.
+         * @param userEmail The reviewer.
+         * @param cursor    The cursor of the previous page, or null for the first page.
+         * @param size      The page size; must be positive.
+         * @return The reviews of the page and the cursor of the next one.
+         */
+        SearchPage<Review> getStoreReviewsByUser(String storeName, String userEmail, String cursor, int size);
 
         void giveStoreComment(String userName,String storeName,String reviewId,String comment);
 
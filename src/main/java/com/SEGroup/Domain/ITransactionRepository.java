@@ -1,8 +1,12 @@
 package com.SEGroup.Domain;
 
 import java.util.List;
+import java.util.Map;
 
+import com.SEGroup.DTO.BasketDTO;
 import com.SEGroup.DTO.TransactionDTO;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Domain.Transaction.Transaction;
 
 /**
@@ -21,6 +25,13 @@ public interface ITransactionRepository {
      */
     void addTransaction(List<String> shoppingProductIds, double cost, String buyersEmail, String storeName);
 
+    /**
+     * Adds several new transactions in one write.
+     *
+     * @param transactions The transactions to add; each is given its ID.
+     */
+    void addTransactions(List<Transaction> transactions);
+
     /**
      * Retrieves a transaction by its ID.
      *
@@ -57,4 +68,87 @@ public interface ITransactionRepository {
      * @return A list of TransactionDTO objects related to the specified user.
      */
     List<TransactionDTO> getTransactionsByUserEmail(String userEmail);
+
+    /**
+     * Logs the start of a checkout whose stock was just taken.
+     *
+     * @param buyer         The buyer checking out.
+     * @param basketToPrice The baskets taken, with the price of each.
+     * @return The saga of the checkout.
+     */
+    CheckoutSaga beginCheckout(String buyer, Map<BasketDTO, Double> basketToPrice);
+
+    /**
+     * Logs a stock hold whose stock was just taken, so that it is given back even if the
+     * application stops before the hold is converted or expires.
+     *
+     * @param buyer         The buyer holding the stock.
+     * @param basketToPrice The baskets held, with the price of each.
+     * @param expiresAt     When the hold expires, in milliseconds since the epoch.
+     * @return The saga of the checkout, still HELD.
+     */
+    CheckoutSaga holdStock(String buyer, Map<BasketDTO, Double> basketToPrice, long expiresAt);
+
+    /**
+     * Records that the purchase converted a hold: its stock is now the checkout's.
+     *
+     * @throws RuntimeException if the hold was already converted or given back.
+     */
+    void takeHeldStock(CheckoutSaga saga);
+
+    /**
+     * Records that every shipment of a checkout was confirmed, with the shipping service's ids.
+     *
+     * @throws RuntimeException if the checkout is not at that step any more.
+     */
+    void recordShipped(CheckoutSaga saga, List<Integer> shipmentIds);
+
+    /**
+     * Records that the payment of a checkout went through, with the gateway's id if it gives one.
+     *
+     * @throws RuntimeException if the checkout is not at that step any more.
+     */
+    void recordPaid(CheckoutSaga saga, Integer paymentId);
+
+    /**
+     * Commits a checkout in one write: a transaction per basket, the saga's completion, and
+     * the side effects still to carry out.
+     *
+     * @param saga     The saga of the checkout.
+     * @param messages The side effects of the purchase, to carry out after the commit.
+     * @return The messages as stored, to delete with {@link #deleteOutboxMessages} once carried out.
+     * @throws RuntimeException if the checkout was already completed or compensated.
+     */
+    List<OutboxMessage> completeCheckout(CheckoutSaga saga, List<OutboxMessage> messages);
+
+    /**
+     * Records that a checkout or a hold was undone and its stock given back, together with the
+     * cancellations of the shipments and payment it recorded, in one write.
+     *
+     * @return The cancellations as stored, to delete with {@link #deleteOutboxMessages} once carried out.
+     * @throws RuntimeException if the checkout was already completed or compensated.
+     */
+    List<OutboxMessage> compensateCheckout(CheckoutSaga saga);
+
+    /**
+     * @return The checkouts and holds that took stock but were neither completed nor compensated.
+     */
+    List<CheckoutSaga> getUnfinishedCheckouts();
+
+    /**
+     * @param limit The most messages to return.
+     * @return The side effects of completed checkouts not carried out yet, oldest first.
+     */
+    List<OutboxMessage> getOutboxMessages(int limit);
+
+    /**
+     * Stores side effects to carry out apart from any checkout commit, e.g. a cancellation
+     * that failed when first tried.
+     */
+    void queueOutboxMessages(List<OutboxMessage> messages);
+
+    /**
+     * Deletes outbox messages that were carried out.
+     */
+    void deleteOutboxMessages(List<Long> ids);
 }
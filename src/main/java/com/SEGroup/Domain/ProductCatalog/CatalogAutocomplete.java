@@ -0,0 +1,220 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix autocomplete over catalog product names and brands.
+ *
+ * Every name and brand is a suggestion term. A term is reachable in a character trie from
+ * its whole lower-cased text and from the start of each of its words, so "mou" suggests
+ * both "Mouse Pad" and "Gaming Mouse". Terms are ranked by the number of store offers of
+ * the catalog products that carry them (ties alphabetically).
+ *
+ * Each trie node caches its best {@link #CACHED} terms; a change to a term's weight only
+ * invalidates the nodes on that term's paths, so a lookup is a walk down the prefix plus,
+ * at most, one rebuild of that node's cache. Lookups never touch offer lists.
+ * All methods are synchronized; each call is a short walk over the trie.
+ */
+public class CatalogAutocomplete {
+
+    /** How many suggestions each trie node keeps ready. Larger limits are computed on demand. */
+    static final int CACHED = 10;
+
+    private static final Comparator<Term> BEST_FIRST =
+            Comparator.comparingInt((Term t) -> t.offers).reversed()
+                    .thenComparing(t -> t.text);
+
+    private static final class Term {
+        final String text;
+        final String key;
+        int offers;
+        int products;
+
+        Term(String text, String key) {
+            this.text = text;
+            this.key = key;
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        // terms whose text (or one of its words) ends exactly at this node
+        final List<Term> terms = new ArrayList<>(1);
+        List<Term> top;
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Term> termsByKey = new HashMap<>();
+    private final Map<String, List<Term>> termsByCatalogId = new HashMap<>();
+    // offers are counted per catalog product even before the product itself is registered
+    private final Map<String, Integer> offersByCatalogId = new HashMap<>();
+
+    /**
+     * Registers the name and brand of a catalog product. Registering the same catalog ID
+     * again replaces its previous name and brand and keeps its offer count.
+     *
+     * @param product The catalog product.
+     */
+    public synchronized void addProduct(CatalogProduct product) {
+        String catalogID = product.getCatalogID();
+        int own = offersByCatalogId.getOrDefault(catalogID, 0);
+        List<Term> previous = termsByCatalogId.remove(catalogID);
+        if (previous != null) {
+            for (Term term : previous) release(term, own);
+        }
+        List<Term> terms = new ArrayList<>(2);
+        for (String text : new String[] {product.getName(), product.getBrand()}) {
+            if (text == null || text.isBlank()) continue;
+            Term term = termsByKey.computeIfAbsent(text.trim().toLowerCase(), key -> insert(text.trim(), key));
+            if (terms.contains(term)) continue;
+            term.products++;
+            adjust(term, own);
+            terms.add(term);
+        }
+        termsByCatalogId.put(catalogID, terms);
+    }
+
+    /**
+     * Records that a store offer of the given catalog product was added.
+     *
+     * @param catalogID The catalog ID of the offer.
+     */
+    public synchronized void offerAdded(String catalogID) {
+        changeOffers(catalogID, 1);
+    }
+
+    /**
+     * Records that a store offer of the given catalog product was removed.
+     *
+     * @param catalogID The catalog ID of the offer.
+     */
+    public synchronized void offerRemoved(String catalogID) {
+        changeOffers(catalogID, -1);
+    }
+
+    /**
+     * Returns the best completions for a prefix, most offered first.
+     *
+     * @param prefix The typed text; case is ignored. A blank prefix suggests the most offered terms overall.
+     * @param limit  The maximum number of suggestions.
+     * @return Up to {@code limit} product names or brands, in their original case.
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        if (limit <= 0) return List.of();
+        Node node = root;
+        String p = prefix == null ? "" : prefix.trim().toLowerCase();
+        for (int i = 0; i < p.length() && node != null; i++) {
+            node = node.children.get(p.charAt(i));
+        }
+        if (node == null) return List.of();
+
+        List<Term> best;
+        if (limit <= CACHED) {
+            if (node.top == null) node.top = collect(node, CACHED);
+            best = node.top;
+        } else {
+            best = collect(node, limit);
+        }
+        List<String> out = new ArrayList<>(Math.min(limit, best.size()));
+        for (int i = 0; i < best.size() && i < limit; i++) {
+            out.add(best.get(i).text);
+        }
+        return out;
+    }
+
+    private void changeOffers(String catalogID, int delta) {
+        offersByCatalogId.merge(catalogID, delta, Integer::sum);
+        List<Term> terms = termsByCatalogId.get(catalogID);
+        if (terms == null) return;
+        for (Term term : terms) adjust(term, delta);
+    }
+
+    private void release(Term term, int offers) {
+        term.products--;
+        adjust(term, -offers);
+        if (term.products == 0) {
+            termsByKey.remove(term.key);
+            for (Node node : endNodes(term)) {
+                node.terms.remove(term);
+            }
+            invalidate(term);
+        }
+    }
+
+    private void adjust(Term term, int delta) {
+        if (delta == 0) return;
+        term.offers += delta;
+        invalidate(term);
+    }
+
+    private Term insert(String text, String key) {
+        Term term = new Term(text, key);
+        for (int start : wordStarts(key)) {
+            Node node = root;
+            node.top = null;
+            for (int i = start; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                node.top = null;
+            }
+            node.terms.add(term);
+        }
+        return term;
+    }
+
+    private void invalidate(Term term) {
+        String key = term.key;
+        for (int start : wordStarts(key)) {
+            Node node = root;
+            node.top = null;
+            for (int i = start; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                if (node != null) node.top = null;
+            }
+        }
+    }
+
+    private List<Node> endNodes(Term term) {
+        List<Node> ends = new ArrayList<>();
+        String key = term.key;
+        for (int start : wordStarts(key)) {
+            Node node = root;
+            for (int i = start; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) ends.add(node);
+        }
+        return ends;
+    }
+
+    private static List<Integer> wordStarts(String key) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 1; i < key.length(); i++) {
+            if (key.charAt(i - 1) == ' ' && key.charAt(i) != ' ') starts.add(i);
+        }
+        return starts;
+    }
+
+    // best `limit` terms in the subtree, each term once even if several of its words lead here
+    private static List<Term> collect(Node from, int limit) {
+        TopK<Term> best = new TopK<>(limit, BEST_FIRST);
+        Set<Term> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Node> stack = new ArrayList<>();
+        stack.add(from);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            for (Term term : node.terms) {
+                if (seen.add(term)) best.offer(term);
+            }
+            stack.addAll(node.children.values());
+        }
+        return best.toSortedList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over the free text (name, brand, description) of catalog products.
+ * Every field is lower-cased and split into all n-grams of length 1..{@link #GRAM};
+ * each n-gram maps to the set of catalog IDs that contain it.
+ *
+ * A lookup intersects the posting lists of the query's n-grams and then verifies the
+ * few surviving candidates, so the result is exactly the set of products whose name,
+ * brand or description contains the query (case-insensitive) – the same semantics as
+ * a full substring scan, without touching products that cannot match.
+ *
+ * Lookups take no lock and may run concurrently with {@link #add} / {@link #remove};
+ * writers are serialized among themselves. A lookup that races a write may miss the
+ * product being written, but never fails and never returns a product that does not match.
+ */
+public class CatalogTextIndex {
+
+    /** Longest n-gram that is indexed. Queries up to this length are answered by a single posting list. */
+    static final int GRAM = 3;
+
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private final Map<String, String[]> normalizedFields = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes a catalog product. If a product with the same catalog ID was indexed
+     * before, its old text is dropped first.
+     *
+     * @param product The catalog product to index.
+     */
+    public synchronized void add(CatalogProduct product) {
+        remove(product.getCatalogID());
+        String[] fields = {
+                normalize(product.getName()),
+                normalize(product.getBrand()),
+                normalize(product.getDescription())
+        };
+        normalizedFields.put(product.getCatalogID(), fields);
+        for (String gram : gramsOf(fields)) {
+            postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(product.getCatalogID());
+        }
+    }
+
+    /**
+     * Removes a catalog product from the index. Unknown IDs are ignored.
+     *
+     * @param catalogID The catalog ID to remove.
+     */
+    public synchronized void remove(String catalogID) {
+        String[] fields = normalizedFields.remove(catalogID);
+        if (fields == null) return;
+        for (String gram : gramsOf(fields)) {
+            Set<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(catalogID);
+                if (ids.isEmpty()) postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Returns the catalog IDs whose name, brand or description contains the query,
+     * ignoring case. An empty query matches every indexed product.
+     *
+     * @param query The free-text query.
+     * @return The matching catalog IDs.
+     */
+    public Set<String> lookup(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new HashSet<>(normalizedFields.keySet());
+        }
+        if (q.length() <= GRAM) {
+            Set<String> exact = postings.get(q);
+            return exact == null ? new HashSet<>() : new HashSet<>(exact);
+        }
+
+        List<Set<String>> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Set<String> ids = postings.get(q.substring(i, i + GRAM));
+            if (ids == null) return new HashSet<>();
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<String> result = new HashSet<>();
+        for (String id : lists.get(0)) {
+            if (inAll(id, lists) && containsQuery(normalizedFields.get(id), q)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of indexed catalog products.
+     */
+    public int size() {
+        return normalizedFields.size();
+    }
+
+    private static boolean inAll(String id, List<Set<String>> lists) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) return false;
+        }
+        return true;
+    }
+
+    private static boolean containsQuery(String[] fields, String q) {
+        if (fields == null) return false; // removed by a concurrent writer
+        for (String field : fields) {
+            if (field.contains(q)) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> gramsOf(String[] fields) {
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            for (int n = 1; n <= GRAM; n++) {
+                for (int i = 0; i + n <= field.length(); i++) {
+                    grams.add(field.substring(i, i + n));
+                }
+            }
+        }
+        return grams;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+}
@@ -0,0 +1,133 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Sorted index of store offers by price and by rating, so a range filter such as
+ * "price between 10 and 20" visits only the offers inside the range instead of
+ * post-filtering every candidate.
+ *
+ * The index holds offer keys, not offers: each value maps to the keys of the offers that
+ * currently have it, and the caller resolves a key to its current offer. Lookups take no
+ * lock and may run concurrently with writes. A writer locks only the stripes of the values
+ * it links or unlinks, so writes of offers with different prices and ratings run in
+ * parallel. A lookup that races a write may see an offer under its old value, its new
+ * value, both or, for a moment, neither, so callers must re-check the resolved offer
+ * against their bounds.
+ *
+ * @param <K> The offer key type.
+ */
+public class OfferRangeIndex<K> {
+
+    /** The indexed offer fields. */
+    public enum Field {
+        PRICE, RATING
+    }
+
+    // writers of one value share a stripe, so a key set is never dropped while a key is being added to it
+    private static final int STRIPES = 64;
+
+    private final NavigableMap<Double, Set<K>> byPrice = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Double, Set<K>> byRating = new ConcurrentSkipListMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+
+    public OfferRangeIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Indexes an offer under its current price and rating.
+     *
+     * @param key   The offer key.
+     * @param entry The offer.
+     */
+    public void add(K key, StoreSearchEntry entry) {
+        link(Field.PRICE, entry.getPrice(), key);
+        link(Field.RATING, entry.getRating(), key);
+    }
+
+    /**
+     * Removes an offer that was indexed with the given price and rating.
+     *
+     * @param key   The offer key.
+     * @param entry The offer as it was indexed.
+     */
+    public void remove(K key, StoreSearchEntry entry) {
+        unlink(Field.PRICE, entry.getPrice(), key);
+        unlink(Field.RATING, entry.getRating(), key);
+    }
+
+    /**
+     * Moves an offer from its old values to its new ones.
+     *
+     * @param key     The offer key.
+     * @param old     The offer as it was indexed.
+     * @param updated The offer now.
+     */
+    public void replace(K key, StoreSearchEntry old, StoreSearchEntry updated) {
+        remove(key, old);
+        add(key, updated);
+    }
+
+    /**
+     * Counts the offers whose field lies in [min, max], giving up once the count exceeds
+     * {@code cap}. Costs O(log n) plus the number of distinct values visited, so a planner
+     * can compare an index against a cheaper alternative without paying more than it.
+     *
+     * @return The count, or {@code cap + 1} if there are more than {@code cap}.
+     */
+    public int countAtMost(Field field, double min, double max, int cap) {
+        int count = 0;
+        for (Set<K> keys : range(field, min, max).values()) {
+            count += keys.size();
+            if (count > cap) return cap + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Visits the keys of the offers whose field lies in [min, max], in ascending order of the field.
+     */
+    public void forEachInRange(Field field, double min, double max, Consumer<K> sink) {
+        for (Set<K> keys : range(field, min, max).values()) {
+            keys.forEach(sink);
+        }
+    }
+
+    private NavigableMap<Double, Set<K>> range(Field field, double min, double max) {
+        if (min > max) return new ConcurrentSkipListMap<>();
+        return sorted(field).subMap(min, true, max, true);
+    }
+
+    private void link(Field field, double value, K key) {
+        synchronized (stripe(field, value)) {
+            sorted(field).computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void unlink(Field field, double value, K key) {
+        synchronized (stripe(field, value)) {
+            Map<Double, Set<K>> sorted = sorted(field);
+            Set<K> keys = sorted.get(value);
+            if (keys == null) return;
+            keys.remove(key);
+            if (keys.isEmpty()) sorted.remove(value);
+        }
+    }
+
+    private NavigableMap<Double, Set<K>> sorted(Field field) {
+        return field == Field.PRICE ? byPrice : byRating;
+    }
+
+    private Object stripe(Field field, double value) {
+        int hash = Double.hashCode(value) * 31 + field.ordinal();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), STRIPES)];
+    }
+}
@@ -1,15 +1,25 @@
 package com.SEGroup.Domain.ProductCatalog;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Represents the options for searching products in the catalog.
  * This class contains various filters that can be applied to a product search.
  */
 public class ProductSearchOptions {
     private String text;
-    private String category;
+    private final Set<String> categories = new LinkedHashSet<>();
     private Double minPrice;
     private Double maxPrice;
     private String brand;
+    private Double minRating;
+    private Double maxRating;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+    private String storeName;
 
     // Getters and setters
 
@@ -19,8 +29,39 @@ public class ProductSearchOptions {
     public String getText() { return text; }
     public void setText(String text) { this.text = text; }
 
-    public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    /**
+     * Returns the first category filter, or null when no category is set.
+     */
+    public String getCategory() { return categories.isEmpty() ? null : categories.iterator().next(); }
+
+    /**
+     * Replaces the category filters with the given category; null clears them.
+     */
+    public void setCategory(String category) {
+        categories.clear();
+        addCategory(category);
+    }
+
+    /**
+     * Returns the category filters; a product matches if it is in any of them.
+     */
+    public Set<String> getCategories() { return Collections.unmodifiableSet(categories); }
+
+    public void setCategories(Collection<String> categories) {
+        this.categories.clear();
+        if (categories != null) {
+            categories.forEach(this::addCategory);
+        }
+    }
+
+    /**
+     * Adds a category to the filters; null or blank categories are ignored.
+     */
+    public void addCategory(String category) {
+        if (category != null && !category.isBlank()) {
+            categories.add(category);
+        }
+    }
 
     public Double getMinPrice() { return minPrice; }
     public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
@@ -31,4 +72,19 @@ public class ProductSearchOptions {
     public String getBrand() { return brand; }
     public void setBrand(String brand) { this.brand = brand; }
 
+    public Double getMinRating() { return minRating; }
+    public void setMinRating(Double minRating) { this.minRating = minRating; }
+
+    public Double getMaxRating() { return maxRating; }
+    public void setMaxRating(Double maxRating) { this.maxRating = maxRating; }
+
+    public Integer getMinQuantity() { return minQuantity; }
+    public void setMinQuantity(Integer minQuantity) { this.minQuantity = minQuantity; }
+
+    public Integer getMaxQuantity() { return maxQuantity; }
+    public void setMaxQuantity(Integer maxQuantity) { this.maxQuantity = maxQuantity; }
+
+    public String getStoreName() { return storeName; }
+    public void setStoreName(String storeName) { this.storeName = storeName; }
+
 }
\ No newline at end of file
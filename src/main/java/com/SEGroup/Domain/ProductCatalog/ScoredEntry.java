@@ -0,0 +1,31 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.Comparator;
+
+/**
+ * A search match together with its ranking score.
+ */
+public final class ScoredEntry {
+
+    /** Highest score first; equal scores fall back to store name and product ID so ranking is deterministic. */
+    public static final Comparator<ScoredEntry> BEST_FIRST =
+            Comparator.comparingDouble(ScoredEntry::getScore).reversed()
+                    .thenComparing(s -> s.getEntry().getStoreName())
+                    .thenComparing(s -> s.getEntry().getProductID());
+
+    private final StoreSearchEntry entry;
+    private final double score;
+
+    public ScoredEntry(StoreSearchEntry entry, double score) {
+        this.entry = entry;
+        this.score = score;
+    }
+
+    public StoreSearchEntry getEntry() {
+        return entry;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,76 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Opaque continuation cursor for paged search.
+ * A cursor records the sort it was issued for and the sort position of the last
+ * result on the page (name, price, rating, store name, product ID). The next page
+ * is everything strictly after that position, which works the same whether the
+ * results come from memory or from a keyset query in the database.
+ */
+public final class SearchCursor {
+
+    private SearchCursor() {
+    }
+
+    /**
+     * Encodes the position of the last entry of a page.
+     *
+     * @param sort The sort the page was built with.
+     * @param last The last entry on the page.
+     * @return A URL-safe opaque cursor string.
+     */
+    public static String encode(SearchSort sort, StoreSearchEntry last) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(sort.name());
+            out.writeUTF(last.getName() == null ? "" : last.getName());
+            out.writeDouble(last.getPrice());
+            out.writeDouble(last.getRating());
+            out.writeUTF(last.getStoreName());
+            out.writeUTF(last.getProductID());
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor into a probe entry that sits exactly at the cursor position,
+     * so "after the cursor" is {@code sort.comparator().compare(entry, probe) > 0}.
+     *
+     * @param cursor The cursor returned with the previous page.
+     * @param sort   The sort of the current request; it must match the cursor's.
+     * @return The probe entry.
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort.
+     */
+    public static StoreSearchEntry decode(String cursor, SearchSort sort) {
+        String issuedFor;
+        StoreSearchEntry probe;
+        try {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            issuedFor = in.readUTF();
+            String name = in.readUTF();
+            double price = in.readDouble();
+            double rating = in.readDouble();
+            String storeName = in.readUTF();
+            String productID = in.readUTF();
+            probe = new StoreSearchEntry("", storeName, productID, price, 0, rating, name);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        if (!issuedFor.equals(sort.name())) {
+            throw new IllegalArgumentException("Search cursor was issued for sort " + issuedFor + ", not " + sort);
+        }
+        return probe;
+    }
+}
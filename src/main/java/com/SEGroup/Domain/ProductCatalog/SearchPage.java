@@ -0,0 +1,70 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of search results plus the opaque cursor that continues after it.
+ *
+ * @param <T> The result type (StoreSearchEntry in the catalog, ShoppingProductDTO in the service).
+ */
+public class SearchPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * @param items      The results on this page, in sort order.
+     * @param nextCursor The cursor for the following page, or null if this is the last page.
+     */
+    public SearchPage(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /** @return The cursor to pass back for the next page, or null when there are no more results. */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Builds a page from results fetched with one element of look-ahead: if more than
+     * {@code pageSize} entries were fetched, another page follows and the cursor points
+     * after the last entry that is kept.
+     *
+     * @param fetched  Up to pageSize + 1 entries in sort order.
+     * @param pageSize The page size that was requested.
+     * @param sort     The sort the entries are in.
+     * @return The page.
+     */
+    public static SearchPage<StoreSearchEntry> fromLookahead(List<StoreSearchEntry> fetched, int pageSize, SearchSort sort) {
+        if (fetched.size() <= pageSize) {
+            return new SearchPage<>(fetched, null);
+        }
+        List<StoreSearchEntry> items = new ArrayList<>(fetched.subList(0, pageSize));
+        return new SearchPage<>(items, SearchCursor.encode(sort, items.get(pageSize - 1)));
+    }
+
+    /**
+     * Converts the items of this page, keeping the cursor.
+     *
+     * @param mapper The conversion applied to every item.
+     * @return A page with the converted items.
+     */
+    public <R> SearchPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new SearchPage<>(mapped, nextCursor);
+    }
+}
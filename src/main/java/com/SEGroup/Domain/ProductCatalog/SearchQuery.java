@@ -0,0 +1,162 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A catalog search compiled once per request.
+ * Text, brand, store name and categories are normalized up front and the price,
+ * rating and quantity filters are folded into primitive inclusive bounds, so
+ * {@link #matches(StoreSearchEntry)} is a handful of comparisons with no parsing
+ * and no allocation, however many entries it is evaluated against.
+ */
+public class SearchQuery {
+
+    private final String text;
+    private final double minPrice;
+    private final double maxPrice;
+    private final double minRating;
+    private final double maxRating;
+    private final int minQuantity;
+    private final int maxQuantity;
+    private final String brand;
+    private final String storeName;
+    private final List<String> categories;
+
+    private SearchQuery(String text, double minPrice, double maxPrice, double minRating, double maxRating,
+                        int minQuantity, int maxQuantity, String brand, String storeName, List<String> categories) {
+        this.text = text == null ? "" : text.toLowerCase();
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        this.brand = isBlank(brand) ? null : brand;
+        this.storeName = isBlank(storeName) ? null : storeName;
+        List<String> cats = new ArrayList<>();
+        if (categories != null) {
+            for (String c : categories) {
+                if (!isBlank(c)) cats.add(c.toLowerCase());
+            }
+        }
+        this.categories = Collections.unmodifiableList(cats);
+    }
+
+    /**
+     * Compiles the typed search options.
+     *
+     * @param options The search options; unset fields do not restrict the search.
+     * @return The compiled query.
+     */
+    public static SearchQuery from(ProductSearchOptions options) {
+        return new SearchQuery(
+                options.getText(),
+                orElse(options.getMinPrice(), Double.NEGATIVE_INFINITY),
+                orElse(options.getMaxPrice(), Double.POSITIVE_INFINITY),
+                orElse(options.getMinRating(), Double.NEGATIVE_INFINITY),
+                orElse(options.getMaxRating(), Double.POSITIVE_INFINITY),
+                options.getMinQuantity() == null ? Integer.MIN_VALUE : options.getMinQuantity(),
+                options.getMaxQuantity() == null ? Integer.MAX_VALUE : options.getMaxQuantity(),
+                options.getBrand(),
+                options.getStoreName(),
+                new ArrayList<>(options.getCategories()));
+    }
+
+    /**
+     * Compiles the legacy string filters ("price&lt;100", "price&gt;10", "rating&gt;3",
+     * "quantity&gt;1", "quantity&lt;5"). Unknown filters are ignored; repeated filters
+     * keep the tightest bound. A bound is inclusive, as it always was.
+     *
+     * @param query      The free-text query.
+     * @param filters    The string filters, may be null.
+     * @param storeName  The store to restrict to, may be null.
+     * @param categories The categories to restrict to, may be null.
+     * @return The compiled query.
+     * @throws NumberFormatException if a filter value is not a number.
+     */
+    public static SearchQuery parse(String query, List<String> filters, String storeName, List<String> categories) {
+        double minPrice = Double.NEGATIVE_INFINITY, maxPrice = Double.POSITIVE_INFINITY;
+        double minRating = Double.NEGATIVE_INFINITY;
+        int minQuantity = Integer.MIN_VALUE, maxQuantity = Integer.MAX_VALUE;
+        if (filters != null) {
+            for (String filter : filters) {
+                if (filter.startsWith("price<")) {
+                    maxPrice = Math.min(maxPrice, Double.parseDouble(filter.substring("price<".length())));
+                } else if (filter.startsWith("price>")) {
+                    minPrice = Math.max(minPrice, Double.parseDouble(filter.substring("price>".length())));
+                } else if (filter.startsWith("rating>")) {
+                    minRating = Math.max(minRating, Double.parseDouble(filter.substring("rating>".length())));
+                } else if (filter.startsWith("quantity>")) {
+                    minQuantity = Math.max(minQuantity, Integer.parseInt(filter.substring("quantity>".length())));
+                } else if (filter.startsWith("quantity<")) {
+                    maxQuantity = Math.min(maxQuantity, Integer.parseInt(filter.substring("quantity<".length())));
+                }
+            }
+        }
+        return new SearchQuery(query, minPrice, maxPrice, minRating, Double.POSITIVE_INFINITY,
+                minQuantity, maxQuantity, null, storeName, categories);
+    }
+
+    /**
+     * Checks the offer-level predicates: price, rating and quantity ranges and the store name.
+     *
+     * @param entry The store offer.
+     * @return true if the offer is within every bound.
+     */
+    public boolean matches(StoreSearchEntry entry) {
+        double price = entry.getPrice();
+        double rating = entry.getRating();
+        int quantity = entry.getQuantity();
+        return price >= minPrice && price <= maxPrice
+                && rating >= minRating && rating <= maxRating
+                && quantity >= minQuantity && quantity <= maxQuantity
+                && (storeName == null || entry.getStoreName().equalsIgnoreCase(storeName));
+    }
+
+    /**
+     * Checks the catalog-level predicates that an offer does not carry: brand and categories.
+     * The free text is matched by the caller's text index or query.
+     *
+     * @param product The catalog product.
+     * @return true if the product has the brand and at least one of the categories.
+     */
+    public boolean matchesCatalog(CatalogProduct product) {
+        if (brand != null && (product.getBrand() == null || !product.getBrand().equalsIgnoreCase(brand))) {
+            return false;
+        }
+        if (categories.isEmpty()) return true;
+        for (String c : product.getCategories()) {
+            if (categories.contains(c.toLowerCase())) return true;
+        }
+        return false;
+    }
+
+    /** @return The lower-cased free text, empty when any text matches. */
+    public String getText() { return text; }
+
+    public double getMinPrice() { return minPrice; }
+    public double getMaxPrice() { return maxPrice; }
+    public double getMinRating() { return minRating; }
+    public double getMaxRating() { return maxRating; }
+    public int getMinQuantity() { return minQuantity; }
+    public int getMaxQuantity() { return maxQuantity; }
+
+    /** @return The brand, or null when any brand matches. */
+    public String getBrand() { return brand; }
+
+    /** @return The store name, or null when any store matches. */
+    public String getStoreName() { return storeName; }
+
+    /** @return The lower-cased categories, empty when any category matches. */
+    public List<String> getCategories() { return categories; }
+
+    private static double orElse(Double value, double fallback) {
+        return value == null ? fallback : value;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
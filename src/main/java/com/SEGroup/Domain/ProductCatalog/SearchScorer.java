@@ -0,0 +1,54 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+/**
+ * Scores a search match for ranked (top-K) search. Higher scores rank first.
+ * Scores are computed once per match as the matches stream out of the catalog,
+ * so a scorer should be cheap and must not depend on the other matches.
+ */
+@FunctionalInterface
+public interface SearchScorer {
+
+    /**
+     * @param query The compiled query the entry matched.
+     * @param entry The matching store offer.
+     * @return The score of the entry; higher is better.
+     */
+    double score(SearchQuery query, StoreSearchEntry entry);
+
+    /**
+     * A linear blend of relevance, rating and price, each normalised to [0, 1]:
+     * <ul>
+     *   <li>relevance - 1 if the offer name equals the query text, 0.75 if it starts with it,
+     *       0.5 if it contains it, 0.25 otherwise (the match came from brand or description);</li>
+     *   <li>rating - rating / 5;</li>
+     *   <li>price - 1 / (1 + ln(1 + price)), so cheaper offers score higher.</li>
+     * </ul>
+     *
+     * @param relevanceWeight Weight of the relevance term.
+     * @param ratingWeight    Weight of the rating term.
+     * @param priceWeight     Weight of the price term.
+     * @return The scorer.
+     */
+    static SearchScorer weighted(double relevanceWeight, double ratingWeight, double priceWeight) {
+        return (query, entry) -> relevanceWeight * relevance(query, entry)
+                + ratingWeight * Math.max(0.0, Math.min(entry.getRating(), 5.0)) / 5.0
+                + priceWeight / (1.0 + Math.log1p(Math.max(0.0, entry.getPrice())));
+    }
+
+    /**
+     * @return The default ranking: relevance first, then rating, then price.
+     */
+    static SearchScorer defaultScorer() {
+        return weighted(1.0, 0.5, 0.25);
+    }
+
+    private static double relevance(SearchQuery query, StoreSearchEntry entry) {
+        String text = query.getText();
+        if (text.isEmpty()) return 1.0;
+        String name = entry.getName() == null ? "" : entry.getName().toLowerCase();
+        if (name.equals(text)) return 1.0;
+        if (name.startsWith(text)) return 0.75;
+        if (name.contains(text)) return 0.5;
+        return 0.25;
+    }
+}
@@ -0,0 +1,50 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.Comparator;
+
+/**
+ * Sort keys for paged catalog search.
+ * Every order is total: ties on the sort field are broken by store name and then
+ * product ID (both ascending), so a page boundary is always a single well-defined
+ * position that a continuation cursor can point at.
+ */
+public enum SearchSort {
+    NAME_ASC("name", true,
+            Comparator.comparing(StoreSearchEntry::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))),
+    NAME_DESC("name", false,
+            Comparator.comparing(StoreSearchEntry::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed()),
+    PRICE_ASC("price", true, Comparator.comparingDouble(StoreSearchEntry::getPrice)),
+    PRICE_DESC("price", false, Comparator.comparingDouble(StoreSearchEntry::getPrice).reversed()),
+    RATING_DESC("rating", false, Comparator.comparingDouble(StoreSearchEntry::getRating).reversed());
+
+    private final String field;
+    private final boolean ascending;
+    private final Comparator<StoreSearchEntry> order;
+
+    SearchSort(String field, boolean ascending, Comparator<StoreSearchEntry> primary) {
+        this.field = field;
+        this.ascending = ascending;
+        this.order = primary.thenComparing(tieBreak());
+    }
+
+    // enum constants are built before static fields, so the tie-break cannot be a constant
+    private static Comparator<StoreSearchEntry> tieBreak() {
+        return Comparator.comparing(StoreSearchEntry::getStoreName)
+                .thenComparing(StoreSearchEntry::getProductID);
+    }
+
+    /** @return The StoreSearchEntry property this sort orders by ("name", "price" or "rating"). */
+    public String getField() {
+        return field;
+    }
+
+    /** @return true if the sort field is ordered ascending. Tie-break fields are always ascending. */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /** @return The total order of this sort, including the tie-break. */
+    public Comparator<StoreSearchEntry> comparator() {
+        return order;
+    }
+}
@@ -69,34 +69,30 @@ public class StoreSearchEntry {
         this.imageUrl = imageUrl;
     }
 
+    /**
+     * Returns a copy of this entry with the given fields replaced; null keeps the current value.
+     * Used where entries are shared with concurrent readers and must not change in place.
+     */
+    public StoreSearchEntry withChanges(Double price, Integer quantity, Double rating) {
+        StoreSearchEntry copy = new StoreSearchEntry(catalogID, storeName, productID,
+                price != null ? price : this.price,
+                quantity != null ? quantity : this.quantity,
+                rating != null ? rating : this.rating,
+                name);
+        copy.setImageUrl(imageUrl);
+        return copy;
+    }
+
     /**
      * Checks if the product matches the given search query and filters.
+     * The filters are parsed on every call; to test many entries against the same
+     * filters, compile them once with {@link SearchQuery#parse} and use {@link SearchQuery#matches}.
      *
      * @param query         The search query.
      * @param searchFilters  The list of search filters.
      * @return true if the product matches the query and filters, false otherwise.
      */
     public boolean matchesQuery(String query, List<String> searchFilters) {
-        for (String filter : searchFilters) {
-            if (filter.startsWith("price<")) {
-                double maxPrice = Double.parseDouble(filter.substring("price<".length()));
-                if (this.price > maxPrice) return false;
-            } else if (filter.startsWith("price>")) {
-                double minPrice = Double.parseDouble(filter.substring("price>".length()));
-                if (this.price < minPrice) return false;
-            } else if (filter.startsWith("rating>")) {
-                double minRating = Double.parseDouble(filter.substring("rating>".length()));
-                if (this.rating < minRating) return false;
-            } else if (filter.startsWith("quantity>") || filter.startsWith("quantity<")) {
-                if (filter.startsWith("quantity>")) {
-                    int minQuantity = Integer.parseInt(filter.substring("quantity>".length()));
-                    if (this.quantity < minQuantity) return false;
-                } else {
-                    int maxQuantity = Integer.parseInt(filter.substring("quantity<".length()));
-                    if (this.quantity > maxQuantity) return false;
-                }
-            }
-        }
-        return true;
+        return SearchQuery.parse(query, searchFilters, null, null).matches(this);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.SEGroup.Domain.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first K elements of a stream under a comparator, without sorting the stream.
+ * Backed by a max-heap of size K: memory is O(K) and offering n elements costs O(n log K).
+ *
+ * @param <T> The element type.
+ */
+public class TopK<T> {
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param k     How many elements to keep; must be positive.
+     * @param order The order in which the kept elements come first.
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K must be positive: " + k);
+        }
+        this.k = k;
+        this.order = order;
+        // the head of the heap is the worst kept element, the one to evict first
+        this.heap = new PriorityQueue<>(Math.min(k, 1024), order.reversed());
+    }
+
+    /**
+     * Offers an element; it is kept only if it belongs among the first K seen so far.
+     *
+     * @param element The element.
+     */
+    public void offer(T element) {
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (order.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /** @return The number of elements currently kept (at most K). */
+    public int size() {
+        return heap.size();
+    }
+
+    /** @return The kept elements, first element first. */
+    public List<T> toSortedList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted;
+    }
+}
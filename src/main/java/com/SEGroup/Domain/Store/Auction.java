@@ -1,7 +1,9 @@
 package com.SEGroup.Domain.Store;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
@@ -9,7 +11,8 @@ import java.util.Date;
  */
 @Entity
 @Table(name = "auctions")
-public class Auction {
+@BatchSize(size = 50)
+public class Auction implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
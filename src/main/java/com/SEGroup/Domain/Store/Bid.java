@@ -5,12 +5,14 @@ import com.SEGroup.DTO.BidState;
 
 import jakarta.persistence.*;
 
+import java.io.Serializable;
+
 /**
  * Represents a bid made by a user in an auction.
  */
 @Entity
 @Table(name = "bids")
-public class Bid {
+public class Bid implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,11 +2,13 @@ package com.SEGroup.Domain.Store;
 
 import jakarta.persistence.Embeddable;
 
+import java.io.Serializable;
+
 /**
  * Represents the buying policy of a store, including minimum quantity requirements.
  */
 @Embeddable
-public class BuyingPolicy {
+public class BuyingPolicy implements Serializable {
     private int minimumQuantity;
 
     public BuyingPolicy(int minimumQuantity) {
@@ -1,7 +1,9 @@
 package com.SEGroup.Domain.Store;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -10,7 +12,7 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "store_managers")
-public class ManagerData {
+public class ManagerData implements Serializable {
     @Id
     @Column(name = "manager_email")
     private String email;
@@ -18,7 +20,8 @@ public class ManagerData {
     @Column(name = "appointed_by")
     private String appointedBy;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "manager_permissions", joinColumns = @JoinColumn(name = "manager_email"))
     @Column(name = "permission")
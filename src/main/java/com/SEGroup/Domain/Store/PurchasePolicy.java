@@ -1,11 +1,14 @@
 package com.SEGroup.Domain.Store;
+
 import jakarta.persistence.*;
 
+import java.io.Serializable;
+
 /**
  * Represents a purchase policy for a store, including discount percentage and duration.
  */
 @Embeddable
-public class PurchasePolicy {
+public class PurchasePolicy implements Serializable {
     private double discountPercentage;
     private int durationInDays;
     public PurchasePolicy(double discountPercentage, int durationInDays) {
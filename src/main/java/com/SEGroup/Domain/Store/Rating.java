@@ -3,8 +3,10 @@ package com.SEGroup.Domain.Store;
 import jakarta.persistence.Entity;
 import jakarta.persistence.*;
 
+import java.io.Serializable;
+
 @Embeddable
-public class Rating {
+public class Rating implements Serializable {
     public int score;
     public String review ;
     public Rating() {}
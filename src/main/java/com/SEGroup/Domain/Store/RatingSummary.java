@@ -0,0 +1,42 @@
+package com.SEGroup.Domain.Store;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Running count and sum of the scores in a ratings map, so the average is an O(1) read
+ * instead of a pass over every rating. Persisted as two columns of the owning entity.
+ *
+ * Every write to the ratings map goes through {@link #put}, which updates the map and the
+ * totals under one lock, so concurrent raters never leave them out of step.
+ */
+@Embeddable
+public class RatingSummary implements Serializable {
+
+    @Column(name = "rating_count", columnDefinition = "bigint default 0 not null")
+    private long ratingCount;
+
+    @Column(name = "rating_sum", columnDefinition = "bigint default 0 not null")
+    private long ratingSum;
+
+    /**
+     * Stores a rating in the map, replacing the rater's previous rating if there is one.
+     */
+    synchronized void put(Map<String, Rating> ratings, String raterEmail, Rating rating) {
+        Rating previous = ratings.put(raterEmail, rating);
+        if (previous == null) ratingCount++;
+        else ratingSum -= previous.getScore();
+        ratingSum += rating.getScore();
+    }
+
+    public synchronized double average() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    public synchronized long count() {
+        return ratingCount;
+    }
+}
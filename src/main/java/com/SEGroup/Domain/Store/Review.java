@@ -2,9 +2,15 @@ package com.SEGroup.Domain.Store;
 
 import jakarta.persistence.*;
 
+import java.io.Serializable;
+
 @Entity
-@Table(name = "Review")
-public class Review {
+@Table(name = "Review", indexes = {
+        // newest-first pages of a store, and of one reviewer in a store, are index range scans
+        @Index(name = "idx_review_store_newest", columnList = "store_name, created_at, reviewer_id"),
+        @Index(name = "idx_review_store_reviewer", columnList = "store_name, reviewer_name, created_at, reviewer_id")
+})
+public class Review implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -12,9 +18,17 @@ public class Review {
     @Column(name = "reviewer_name", nullable = false)
     private String reviewerName;
 
+    // the review's own ID within the store (the name predates it)
     @Column(name = "reviewer_id", nullable = false)
     private String reviewerId;
 
+    @Column(name = "store_name")
+    private String storeName;
+
+    // epoch milliseconds
+    @Column(name = "created_at", columnDefinition = "bigint default 0 not null")
+    private long createdAt;
+
     @Column(name = "review_text")
     private String reviewText;
 
@@ -28,11 +42,13 @@ public class Review {
         // required by JPA
     }
 
-    public Review(String reviewerId, String reviewerName, String reviewText, int rating) {
+    public Review(String storeName, String reviewerId, String reviewerName, String reviewText, int rating, long createdAt) {
+        this.storeName = storeName;
         this.reviewerId = reviewerId;
         this.reviewerName = reviewerName;
         this.reviewText = reviewText;
         this.rating = rating;
+        this.createdAt = createdAt;
     }
     public String getReviewerName() {
         return reviewerName;
@@ -45,6 +61,14 @@ public class Review {
         return reviewerId;
     }
 
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
     public int getRating() {
         return rating;
     }
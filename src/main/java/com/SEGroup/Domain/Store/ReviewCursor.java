@@ -0,0 +1,65 @@
+package com.SEGroup.Domain.Store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in the newest-first order of a store's reviews: creation time, then review ID
+ * (descending) to order reviews written in the same millisecond. A page continues with the
+ * reviews strictly after the position of the last review of the previous page, both in
+ * memory and as a keyset query in the database.
+ *
+ * @param createdAt The creation time of the review, in epoch milliseconds.
+ * @param reviewId  The ID of the review within its store.
+ */
+public record ReviewCursor(long createdAt, String reviewId) {
+
+    /** Sits before every review, so the first page starts at the newest one. */
+    public static final ReviewCursor NEWEST = new ReviewCursor(Long.MAX_VALUE, "");
+
+    /** Newest first; the order of the review indexes and of the review queries. */
+    public static final Comparator<ReviewCursor> ORDER = Comparator
+            .comparingLong(ReviewCursor::createdAt).reversed()
+            .thenComparing(ReviewCursor::reviewId, Comparator.reverseOrder());
+
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getCreatedAt(), review.getReviewerId());
+    }
+
+    /**
+     * @return A URL-safe opaque string for this position.
+     */
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(createdAt);
+            out.writeUTF(reviewId);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode review cursor", e);
+        }
+    }
+
+    /**
+     * @param cursor A cursor returned with a previous page, or null for the first page.
+     * @return The position the cursor encodes, or {@link #NEWEST} for null.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static ReviewCursor decode(String cursor) {
+        if (cursor == null) return NEWEST;
+        try {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            return new ReviewCursor(in.readLong(), in.readUTF());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid review cursor");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.SEGroup.Domain.Store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory indexes over the reviews of one store: all of them newest first, and the
+ * reviews of each reviewer newest first. A page is a range read of a sorted map, so it
+ * costs O(log n + page size) however many reviews the store has.
+ */
+class ReviewIndex {
+    private final NavigableMap<ReviewCursor, Review> newestFirst = new ConcurrentSkipListMap<>(ReviewCursor.ORDER);
+    private final Map<String, NavigableMap<ReviewCursor, Review>> byReviewer = new ConcurrentHashMap<>();
+
+    ReviewIndex(Collection<Review> reviews) {
+        reviews.forEach(this::add);
+    }
+
+    void add(Review review) {
+        ReviewCursor position = ReviewCursor.of(review);
+        newestFirst.put(position, review);
+        byReviewer.computeIfAbsent(review.getReviewerName(), r -> new ConcurrentSkipListMap<>(ReviewCursor.ORDER))
+                .put(position, review);
+    }
+
+    /**
+     * @param reviewerName Only this reviewer's reviews, or null for everyone's.
+     * @param after        The reviews strictly after this position are returned.
+     * @param limit        The most reviews to return.
+     * @return The reviews, newest first.
+     */
+    List<Review> find(String reviewerName, ReviewCursor after, int limit) {
+        NavigableMap<ReviewCursor, Review> reviews = reviewerName == null ? newestFirst : byReviewer.get(reviewerName);
+        List<Review> found = new ArrayList<>();
+        if (reviews == null) return found;
+        for (Review review : reviews.tailMap(after, false).values()) {
+            if (found.size() == limit) break;
+            found.add(review);
+        }
+        return found;
+    }
+
+    List<Review> all() {
+        return new ArrayList<>(newestFirst.values());
+    }
+}
@@ -1,5 +1,8 @@
 package com.SEGroup.Domain.Store;
 
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -12,12 +15,23 @@ import java.util.Optional;
 import com.SEGroup.DTO.BidDTO;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 /*
  * Represents a product in a store, including its details, bidding information, and ratings.
  */
 @Entity
 @Table(name = "shopping_product")
-public class ShoppingProduct {
+public class ShoppingProduct implements Serializable {
+    private static final VarHandle QUANTITY;
+
+    static {
+        try {
+            QUANTITY = MethodHandles.lookup().findVarHandle(ShoppingProduct.class, "quantity", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Id
     @Column(name = "product_id")
     private final String productId;
@@ -34,8 +48,14 @@ public class ShoppingProduct {
     @Column(name = "price")
     private double price;
 
+    // changed by compare-and-set in memory, and by a conditional update in the database
     @Column(name = "quantity")
-    private int quantity;
+    private volatile int quantity;
+
+    // bumped by every write of the row, stock updates included, so a stale copy cannot write back an old quantity
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
 
     @Column(name = "store_name")
     private final String storeName;
@@ -43,22 +63,29 @@ public class ShoppingProduct {
     @Column(name = "image_url")
     private final String imageUrl;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // product collections are lazy and batch-loaded, so touching them for a store's products costs a few queries, not one per product
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @MapKeyColumn(name = "user_id")
     @CollectionTable(name = "product_ratings", joinColumns = @JoinColumn(name = "product_id"))
     private final Map<String, Rating> ratings = new HashMap<>();
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @Embedded
+    private RatingSummary ratingSummary = new RatingSummary();
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @CollectionTable(name = "product_categories", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "category")
     private final List<String> categories;;
 
     // Bids and auction
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JoinColumn(name = "product_id")
     private final List<Bid> bids;
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "auction_id")
     private Auction auction;
 
@@ -128,6 +155,34 @@ public class ShoppingProduct {
         this.quantity = quantity;
     }
 
+    /**
+     * Takes units out of stock if that many are left, atomically with respect to other takes
+     * and returns, so concurrent buyers can never take more than there is.
+     *
+     * @param amount The number of units to take; must not be negative.
+     * @return true if the units were taken, false (taking nothing) if fewer are left.
+     */
+    public boolean tryTakeQuantity(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Quantity to take cannot be negative");
+        }
+        int current;
+        do {
+            current = quantity;
+            if (current < amount) return false;
+        } while (!QUANTITY.compareAndSet(this, current, current - amount));
+        return true;
+    }
+
+    /**
+     * Puts back units taken by {@link #tryTakeQuantity}, atomically.
+     *
+     * @param amount The number of units to put back.
+     */
+    public void returnQuantity(int amount) {
+        QUANTITY.getAndAdd(this, amount);
+    }
+
     public void setDescription(String description) {
         this.description = description;
     }
@@ -194,7 +249,7 @@ public class ShoppingProduct {
             throw new IllegalArgumentException("Rating msut be 1-5 ");
 
         }
-        ratings.put(raterEmail, new Rating(score, review));
+        ratingSummary.put(ratings, raterEmail, new Rating(score, review));
     }
 
     //rateStore
@@ -204,11 +259,7 @@ public class ShoppingProduct {
 
      */
     public double averageRating() {
-        if (ratings.isEmpty()) return 0.0;
-        return ratings.values().stream()
-                .mapToInt(r -> r.score)
-                .average()
-                .orElse(0.0);
+        return ratingSummary.average();
     }
     public List<String> getCategories() {
         return Collections.unmodifiableList(categories);
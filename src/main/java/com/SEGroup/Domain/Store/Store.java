@@ -8,15 +8,32 @@ import com.SEGroup.Domain.Discount.Numerical.MaxDiscount;
 import com.SEGroup.Domain.Discount.Numerical.NumericalComposite;
 import com.SEGroup.Domain.Discount.SimpleDiscount;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import jakarta.persistence.*;
 /*
  * Represents a store, including its products, owners, managers, and policies.
+ * All associations are lazy; the named entity graphs below are the fetch plans of the
+ * repository's use cases (staff checks, product pages, checkout).
  */
 @Entity
 @Table(name = "stores")
-public class Store {
+@NamedEntityGraph(name = Store.STAFF_GRAPH, attributeNodes = {
+        @NamedAttributeNode("ownersAppointer"),
+        @NamedAttributeNode(value = "managers", subgraph = "manager")
+}, subgraphs = @NamedSubgraph(name = "manager", attributeNodes = @NamedAttributeNode("permissions")))
+@NamedEntityGraph(name = Store.PRODUCTS_GRAPH, attributeNodes = {
+        @NamedAttributeNode(value = "products", subgraph = "product")
+}, subgraphs = @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("categories")))
+public class Store implements Serializable {
+    /** Owners and managers (with permissions): enough for authorization checks and role changes. */
+    public static final String STAFF_GRAPH = "Store.staff";
+    /** Products with their categories: enough to show products, price a basket and take its items. */
+    public static final String PRODUCTS_GRAPH = "Store.products";
+
     //fields
     @Id
     @Column(name = "name", unique = true, nullable = false)
@@ -31,27 +48,42 @@ public class Store {
     @Column(name = "balance")
     private double balance;
 
+    // bumped by every write, so writing back an aggregate loaded before another write fails instead of overwriting it
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
+
     private final AtomicInteger inStoreProductId = new AtomicInteger(-1);
 
     @Column(name = "description")
     private String description="";
 
     //products and reviews
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @MapKeyColumn(name = "product_key")
     @JoinColumn(name = "store_name") // foreign key בטבלת ShoppingProduct
     private Map<String, ShoppingProduct> products = new java.util.concurrent.ConcurrentHashMap<>();
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-    @MapKeyColumn(name = "review_id") // המפתח במפה
+    // never loaded with the store in the database profile: reviews are queried and written one page or row at a time
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @MapKey(name = "reviewerId")
     @JoinColumn(name = "store_name")  // foreign key בטבלת Review
     private final Map<String, Review> reviewIdToReview = new java.util.concurrent.ConcurrentHashMap<>();
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // built from reviewIdToReview on first use; a copy of the store builds its own
+    @Transient
+    private transient ReviewIndex reviewIndex;
+    @Transient
+    private transient Object reviewLock = new Object();
+
+    @ElementCollection(fetch = FetchType.LAZY)
     @MapKeyColumn(name = "user_id")
     @CollectionTable(name = "store_ratings", joinColumns = @JoinColumn(name = "store_name"))
     private final Map<String, Rating> ratings = new java.util.concurrent.ConcurrentHashMap<>();
 
+    @Embedded
+    private RatingSummary ratingSummary = new RatingSummary();
+
 
 
     // Disocunt and policy fields
@@ -62,13 +94,13 @@ public class Store {
     private NumericalComposite discounts;
 
     //Owners and managers
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @MapKeyColumn(name = "email")
     @CollectionTable(name = "store_owners", joinColumns = @JoinColumn(name = "store_name"))
     @Column(name = "appointed_by")
     private final Map<String, String> ownersAppointer = new java.util.concurrent.ConcurrentHashMap<>(); // email → appointedBy
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "store_name") // foreign key בטבלת ManagerData
     @MapKey(name = "email")
     private final Map<String, ManagerData> managers = new java.util.concurrent.ConcurrentHashMap<>(); // email → metadata
@@ -98,6 +130,7 @@ public class Store {
     public String getfounderEmail() { return founderEmail; }
     public boolean isActive() { return isActive; }
     public double getBalance() { return balance; }
+    public long getVersion() { return version; }
 
 
     // Setters
@@ -106,6 +139,11 @@ public class Store {
             this.name = name;
     }
 
+    // for writes that update the row directly instead of through Hibernate's version check
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public void setBalance(double balance) {
         this.balance = balance;
     }
@@ -445,8 +483,7 @@ public class Store {
             throw new IllegalArgumentException("Rating msut be 1-5 ");
 
         }
-        ratings.put(raterEmail, new Rating(score, review));
-
+        ratingSummary.put(ratings, raterEmail, new Rating(score, review));
     }
     public ShoppingProduct rateProduct(String email,String productID, int rating, String review) {
         ShoppingProduct product = getProduct(productID);
@@ -466,11 +503,7 @@ public class Store {
         * @return The average rating of the store.
      */
     public double averageRating() {
-        if (ratings.isEmpty()) return 0.0;
-        return ratings.values().stream()
-                .mapToInt(r -> r.score)
-                .average()
-                .orElse(0.0);
+        return ratingSummary.average();
     }
 
     /*
@@ -603,8 +636,18 @@ public class Store {
         }
     }
     public void giveManagementComment(String reviewerId,String reviewId, String comment) {
-        if(isOwner(reviewerId)) {
-            Review review = reviewIdToReview.get(reviewId);
+        giveManagementComment(reviewerId, reviewIdToReview.get(reviewId), comment);
+    }
+
+    /**
+     * Sets the store's answer on one of its reviews.
+     *
+     * @param ownerEmail The owner answering.
+     * @param review     The review, or null if it was not found.
+     * @param comment    The answer.
+     */
+    public void giveManagementComment(String ownerEmail, Review review, String comment) {
+        if(isOwner(ownerEmail)) {
             if (review != null) {
                 review.setStoreComment(comment);
             } else {
@@ -614,26 +657,72 @@ public class Store {
             throw new IllegalArgumentException("Only owners can give management comments");
         }
     }
+
+    /**
+     * @param userId The email of the reviewer.
+     * @return The reviewer's reviews of this store, newest first.
+     */
     public List<Review> getStoreReviewsByUser(String userId) {
-        List<Review> userReviews = new ArrayList<>();
-        for (Review review : reviewIdToReview.values()) {
-            if (review.getReviewerId().equals(userId)) {
-                userReviews.add(review);
-            }
-        }
-        return userReviews;
+        return reviewIndex().find(userId, ReviewCursor.NEWEST, Integer.MAX_VALUE);
     }
+
+    /** @return All reviews of this store, newest first. */
     public List<Review> getAllStoreReviews() {
-        return new ArrayList<>(reviewIdToReview.values());
+        return reviewIndex().all();
     }
-    public void giveStoreReview(String reviewerName, String reviewText, int rating) {
-        String reviewerId = String.valueOf(inStoreProductId.incrementAndGet());
-        Review review = new Review(reviewerId, reviewerName, reviewText, rating);
-        reviewIdToReview.put(reviewerId, review);
+
+    /**
+     * Reviews of this store after a position of the newest-first order, read from the review indexes.
+     *
+     * @param reviewerName Only this reviewer's reviews, or null for everyone's.
+     * @param after        The position to continue after; {@link ReviewCursor#NEWEST} for the first page.
+     * @param limit        The most reviews to return.
+     * @return The reviews, newest first.
+     */
+    public List<Review> findStoreReviews(String reviewerName, ReviewCursor after, int limit) {
+        return reviewIndex().find(reviewerName, after, limit);
+    }
+
+    public Review giveStoreReview(String reviewerName, String reviewText, int rating) {
+        Review review = newStoreReview(reviewerName, reviewText, rating);
+        addStoreReview(review);
+        return review;
+    }
+
+    /**
+     * Creates a review of this store without adding it, so it can be written on its own
+     * instead of through the store aggregate. The ID is random rather than taken from the
+     * store's counter, so a review does not change the store row.
+     */
+    public Review newStoreReview(String reviewerName, String reviewText, int rating) {
+        return new Review(name, UUID.randomUUID().toString(), reviewerName, reviewText, rating, System.currentTimeMillis());
     }
+
+    /** Adds a review made by {@link #newStoreReview} to the reviews held by this store. */
+    public void addStoreReview(Review review) {
+        synchronized (reviewLock) {
+            reviewIdToReview.put(review.getReviewerId(), review);
+            if (reviewIndex != null) reviewIndex.add(review);
+        }
+    }
+
     public Review getStoreReviewById(String reviewId) {
         return reviewIdToReview.get(reviewId);
     }
+
+    private ReviewIndex reviewIndex() {
+        synchronized (reviewLock) {
+            if (reviewIndex == null) reviewIndex = new ReviewIndex(reviewIdToReview.values());
+            return reviewIndex;
+        }
+    }
+
+    // a deserialized copy gets no field initializers, so it needs a lock of its own
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        reviewLock = new Object();
+    }
+
     public void addSimpleDiscountToEntireStore(String operatorEmail,int percentage,String Coupon){
         if(!isOwnerOrHasManagerPermissions(operatorEmail))
             throw new IllegalArgumentException("Only owners can control discount");
@@ -0,0 +1,248 @@
+package com.SEGroup.Domain.Transaction;
+
+import com.SEGroup.DTO.BasketDTO;
+import jakarta.persistence.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The log of one checkout. It is written once the stock of the cart is taken, and records
+ * what the checkout took, so that a checkout cut short by a crash can be compensated later.
+ *
+ * A checkout that starts from a stock hold is logged when the hold is made: HELD, with the
+ * time the hold expires, and HELD → STOCK_TAKEN when the purchase converts the hold. Then
+ * STOCK_TAKEN → SHIPPED once every shipment is confirmed, and SHIPPED → PAID once the payment
+ * went through, each recording the gateway's ids, so that what a checkout did outside the
+ * database can be undone after a crash too.
+ *
+ * STOCK_TAKEN, SHIPPED or PAID → COMPLETED when the purchase commits, together with its
+ * transactions; any open status → COMPENSATED when the stock was given back, together with
+ * the cancellations of the recorded shipments and payment (see {@link #cancellations()}).
+ * Shipments and payments that went through but were not recorded yet are cancelled by the
+ * checkout itself as soon as it fails (see ExternalCheckout).
+ */
+@Entity
+@Table(name = "checkout_sagas", indexes = @Index(name = "idx_checkout_saga_status", columnList = "status"))
+public class CheckoutSaga {
+
+    public enum Status {
+        HELD, STOCK_TAKEN, SHIPPED, PAID, COMPLETED, COMPENSATED;
+
+        /** Whether a checkout in this status took its stock and may still complete. */
+        public boolean canComplete() {
+            return this == STOCK_TAKEN || this == SHIPPED || this == PAID;
+        }
+    }
+
+    /** The quantity of one product the checkout took from a store. */
+    @Embeddable
+    public static class Line {
+        @Column(name = "store_name", nullable = false)
+        private String storeName;
+
+        @Column(name = "product_id", nullable = false)
+        private String productId;
+
+        @Column(name = "quantity", nullable = false)
+        private int quantity;
+
+        protected Line() {}
+
+        Line(String storeName, String productId, int quantity) {
+            this.storeName = storeName;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "buyer", nullable = false)
+    private String buyer;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "checkout_saga_lines", joinColumns = @JoinColumn(name = "saga_id"))
+    @OrderColumn(name = "line_no")
+    private List<Line> lines = new ArrayList<>();
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "checkout_saga_prices", joinColumns = @JoinColumn(name = "saga_id"))
+    @MapKeyColumn(name = "store_name")
+    @Column(name = "price")
+    private Map<String, Double> basketPrices = new LinkedHashMap<>();
+
+    @Column(name = "started_at", nullable = false)
+    private long startedAt;
+
+    // when a hold gives its stock back; null for a checkout that did not start from a hold
+    @Column(name = "expires_at")
+    private Long expiresAt;
+
+    // the shipping service's ids of the confirmed shipments, comma-separated; set once SHIPPED
+    @Column(name = "shipment_ids", length = 1024)
+    private String shipmentIds;
+
+    // the payment gateway's id of the payment; set once PAID, null if the gateway gives none
+    @Column(name = "payment_id")
+    private Integer paymentId;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    protected CheckoutSaga() {}
+
+    /**
+     * @param buyer         The buyer checking out.
+     * @param basketToPrice The baskets whose stock was taken, with the price of each.
+     */
+    public CheckoutSaga(String buyer, Map<BasketDTO, Double> basketToPrice) {
+        this(buyer, basketToPrice, Status.STOCK_TAKEN, null);
+    }
+
+    /**
+     * @param buyer         The buyer holding the stock.
+     * @param basketToPrice The baskets whose stock is held, with the price of each.
+     * @param expiresAt     When the hold expires, in milliseconds since the epoch.
+     * @return The saga of a checkout that starts from a stock hold.
+     */
+    public static CheckoutSaga hold(String buyer, Map<BasketDTO, Double> basketToPrice, long expiresAt) {
+        return new CheckoutSaga(buyer, basketToPrice, Status.HELD, expiresAt);
+    }
+
+    private CheckoutSaga(String buyer, Map<BasketDTO, Double> basketToPrice, Status status, Long expiresAt) {
+        this.id = UUID.randomUUID().toString();
+        this.buyer = buyer;
+        this.status = status;
+        this.startedAt = System.currentTimeMillis();
+        this.expiresAt = expiresAt;
+        basketToPrice.forEach((basket, price) -> {
+            basket.prod2qty().forEach((productId, quantity) ->
+                    lines.add(new Line(basket.storeId(), productId, quantity)));
+            basketPrices.put(basket.storeId(), price);
+        });
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBuyer() {
+        return buyer;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public List<Integer> getShipmentIds() {
+        List<Integer> ids = new ArrayList<>();
+        if (shipmentIds == null || shipmentIds.isEmpty()) return ids;
+        for (String id : shipmentIds.split(",")) {
+            ids.add(Integer.parseInt(id));
+        }
+        return ids;
+    }
+
+    public Integer getPaymentId() {
+        return paymentId;
+    }
+
+    /**
+     * @return The baskets the checkout took, one per store.
+     */
+    public List<BasketDTO> getCart() {
+        Map<String, Map<String, Integer>> byStore = new LinkedHashMap<>();
+        for (Line line : lines) {
+            byStore.computeIfAbsent(line.storeName, s -> new LinkedHashMap<>()).merge(line.productId, line.quantity, Integer::sum);
+        }
+        List<BasketDTO> cart = new ArrayList<>();
+        byStore.forEach((store, products) -> cart.add(new BasketDTO(store, products)));
+        return cart;
+    }
+
+    /**
+     * @return The baskets the checkout took, with the price each had when the stock was taken.
+     */
+    public Map<BasketDTO, Double> getBasketToPrice() {
+        Map<BasketDTO, Double> basketToPrice = new LinkedHashMap<>();
+        for (BasketDTO basket : getCart()) {
+            basketToPrice.put(basket, basketPrices.get(basket.storeId()));
+        }
+        return basketToPrice;
+    }
+
+    /**
+     * @return One transaction per basket, at the price it had when the stock was taken.
+     */
+    public List<Transaction> toTransactions() {
+        List<Transaction> transactions = new ArrayList<>();
+        getBasketToPrice().forEach((basket, price) ->
+                transactions.add(new Transaction(basket.getBasketProducts(), price, buyer, basket.storeId())));
+        return transactions;
+    }
+
+    /** The purchase converts the hold: the held stock is now the checkout's. */
+    public void take() {
+        moveTo(Status.STOCK_TAKEN, Status.HELD);
+    }
+
+    /** Every shipment was confirmed. */
+    public void shipped(List<Integer> ids) {
+        moveTo(Status.SHIPPED, Status.STOCK_TAKEN);
+        this.shipmentIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /** The payment went through; its id is null when the gateway gives none. */
+    public void paid(Integer id) {
+        moveTo(Status.PAID, Status.SHIPPED);
+        this.paymentId = id;
+    }
+
+    public void complete() {
+        moveTo(Status.COMPLETED, Status.STOCK_TAKEN, Status.SHIPPED, Status.PAID);
+    }
+
+    public void compensate() {
+        moveTo(Status.COMPENSATED, Status.HELD, Status.STOCK_TAKEN, Status.SHIPPED, Status.PAID);
+    }
+
+    /**
+     * @return The outbox messages that undo what the checkout recorded outside the database:
+     *         one per shipment, and one for the payment if the gateway gave its id.
+     */
+    public List<OutboxMessage> cancellations() {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (int shipmentId : getShipmentIds()) {
+            messages.add(OutboxMessage.cancelShipment(id, buyer, shipmentId));
+        }
+        if (paymentId != null) messages.add(OutboxMessage.cancelPayment(id, buyer, paymentId));
+        return messages;
+    }
+
+    private void moveTo(Status next, Status... from) {
+        if (!List.of(from).contains(status)) {
+            throw new IllegalStateException("Checkout " + id + " is already " + status);
+        }
+        this.status = next;
+    }
+}
@@ -0,0 +1,86 @@
+package com.SEGroup.Domain.Transaction;
+
+import jakarta.persistence.*;
+
+/**
+ * A side effect of a checkout that is not part of its database commit: a notification, or
+ * clearing the buyer's cart, for a completed checkout; cancelling a shipment or a payment,
+ * for a compensated one. It is written in the same commit as the checkout's outcome and
+ * deleted once carried out, so each one is carried out at least once even if the
+ * application stops right after the commit.
+ */
+@Entity
+@Table(name = "outbox_messages")
+public class OutboxMessage {
+
+    public enum Type { NOTIFY, CLEAR_CART, CANCEL_SHIPMENT, CANCEL_PAYMENT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "saga_id", nullable = false, length = 36)
+    private String sagaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "body", length = 2048)
+    private String body;
+
+    protected OutboxMessage() {}
+
+    private OutboxMessage(String sagaId, Type type, String recipient, String body) {
+        this.sagaId = sagaId;
+        this.type = type;
+        this.recipient = recipient;
+        this.body = body;
+    }
+
+    public static OutboxMessage notify(String sagaId, String recipient, String body) {
+        return new OutboxMessage(sagaId, Type.NOTIFY, recipient, body);
+    }
+
+    public static OutboxMessage clearCart(String sagaId, String buyer) {
+        return new OutboxMessage(sagaId, Type.CLEAR_CART, buyer, null);
+    }
+
+    public static OutboxMessage cancelShipment(String sagaId, String buyer, int shipmentId) {
+        return new OutboxMessage(sagaId, Type.CANCEL_SHIPMENT, buyer, String.valueOf(shipmentId));
+    }
+
+    public static OutboxMessage cancelPayment(String sagaId, String buyer, int paymentId) {
+        return new OutboxMessage(sagaId, Type.CANCEL_PAYMENT, buyer, String.valueOf(paymentId));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // Needed for InMemoryTransactionData
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
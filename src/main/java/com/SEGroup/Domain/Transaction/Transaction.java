@@ -12,8 +12,10 @@ import java.util.List;
 @Table(name = "transactions")
 public class Transaction {
 
+    // ids from a pooled sequence rather than an identity column, so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private int id;
 
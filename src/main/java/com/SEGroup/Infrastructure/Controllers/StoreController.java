@@ -2,6 +2,7 @@ package com.SEGroup.Infrastructure.Controllers;
 
 import com.SEGroup.Service.StoreService;
 import com.SEGroup.Service.Result;
+import com.SEGroup.DTO.StoreCardDto;
 import com.SEGroup.DTO.StoreDTO;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
 import com.SEGroup.DTO.ShoppingProductDTO;
@@ -55,10 +56,13 @@ public class StoreController {
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
-    /** 3. List all public stores */
+    /** 3. List public stores, one page of store cards at a time */
     @GetMapping("/all")
-    public ResponseEntity<List<StoreDTO>> viewAllStores() {
-        Result<List<StoreDTO>> r = storeService.viewAllStores();
+    public ResponseEntity<List<StoreCardDto>> viewAllStores(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        Result<List<StoreCardDto>> r = storeService.listStores(page, size);
         return r.isSuccess()
                 ? ResponseEntity.ok(r.getData())
                 : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -42,14 +42,17 @@ public class TransactionController {
      * 2. Purchase the current shopping cart (charges card and records transactions)
      *    POST /api/transaction/purchase
      *      body-form: sessionKey, userEmail, paymentDetails
+     *      optional header: Idempotency-Key — resend the same key on a retry and the cart is
+     *      bought only once; the retry gets the original answer
      */
     @PostMapping("/purchase")
     public ResponseEntity<Void> purchaseShoppingCart(
             @RequestParam String sessionKey,
             @RequestParam String userEmail,
-            @RequestParam String paymentDetails
+            @RequestParam String paymentDetails,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        Result<Void> r = transactionService.purchaseShoppingCart(sessionKey, userEmail, paymentDetails);
+        Result<Void> r = transactionService.purchaseShoppingCart(sessionKey, userEmail, paymentDetails, idempotencyKey);
         if (r.isSuccess()) {
             // 200 OK means “all done”
             return ResponseEntity.ok().build();
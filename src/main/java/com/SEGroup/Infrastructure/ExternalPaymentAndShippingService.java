@@ -1,15 +1,14 @@
 package com.SEGroup.Infrastructure;
 
 import com.SEGroup.DTO.AddressDTO;
-import com.SEGroup.Domain.IPaymentGateway;
-import com.SEGroup.Domain.IShippingService;
+import com.SEGroup.Domain.IAsyncPaymentGateway;
+import com.SEGroup.Domain.IAsyncShippingService;
 import com.SEGroup.Service.LoggerWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -20,37 +19,78 @@ import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static java.lang.Integer.parseInt;
 
 //create a new enum
 @Service
 @Component
-public class ExternalPaymentAndShippingService implements IPaymentGateway , IShippingService {
-    private static String SERVER_URL = "https://damp-lynna-wsep-1984852e.koyeb.app/";
-    private static final HttpClient CLIENT = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_1_1)
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+public class ExternalPaymentAndShippingService implements IAsyncPaymentGateway, IAsyncShippingService {
+    private static final String DEFAULT_SERVER_URL = "https://damp-lynna-wsep-1984852e.koyeb.app/";
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
 
+    private final String serverUrl;
+    private final HttpClient client;
+    private final GatewayGuard guard;
 
+    public ExternalPaymentAndShippingService() {
+        this(DEFAULT_SERVER_URL, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param serverUrl The URL of the external service.
+     * @param timeout   The longest wait for connecting and for each response.
+     */
+    public ExternalPaymentAndShippingService(String serverUrl, Duration timeout) {
+        this(serverUrl, GatewayGuard.Settings.defaults(timeout));
+    }
+
+    /**
+     * @param serverUrl The URL of the external service.
+     * @param settings  How the calls to the service are guarded.
+     */
+    public ExternalPaymentAndShippingService(String serverUrl, GatewayGuard.Settings settings) {
+        this.serverUrl = serverUrl;
+        this.guard = new GatewayGuard(settings);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.maxTimeout())
+                .build();
+        LoggerWrapper.info("ExternalPaymentAndShippingService initialized with server URL: " + serverUrl);
+    }
 
-    //constructor
-//    public ExternalPaymentAndShippingService(String serverUrl) {
-//        if (serverUrl != null && !serverUrl.isEmpty()) {
-//            SERVER_URL = serverUrl;
-//        }
-//        LoggerWrapper.info("ExternalPaymentAndShippingService initialized with server URL: " + SERVER_URL);
-//    }
+    /**
+     * @return The state of the circuit breaker, the calls in flight and the latencies of the calls made.
+     */
+    public GatewayGuard.Stats stats() {
+        return guard.stats();
+    }
 
     @Override
     public Boolean cancelShipping(int shippingId) {
+        return await(cancelShippingAsync(shippingId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelShippingAsync(int shippingId) {
         LoggerWrapper.info("cancelShipping called with shippingId=" + shippingId);
-        return null;
+        return sendPostAsync(Map.of(
+                "action_type", Action.CANCEL_SUPPLY.value(),
+                "transaction_id", String.valueOf(shippingId)), true)
+                .thenApply(result -> "1".equals(result.trim()));
     }
 
     @Override
     public Integer ship(AddressDTO address_detail, String name) {
+        return await(shipAsync(address_detail, name));
+    }
+
+    @Override
+    public CompletableFuture<Integer> shipAsync(AddressDTO address_detail, String name) {
         LoggerWrapper.info("ship called with address=" + address_detail + ", name=" + name);
         Map<String, String> toSend = new LinkedHashMap<>();
         toSend.put("name", name);
@@ -60,16 +100,10 @@ public class ExternalPaymentAndShippingService implements IPaymentGateway , IShi
         toSend.put("country", address_detail.getCountry());
         toSend.put("zip", address_detail.getZip());
         LoggerWrapper.info("sending shipping request to external service: " + toSend);
-        String result=sendPost(toSend);
-        LoggerWrapper.info("Received response for shipping request: " + result);
-        int ok = parseInt(result);
-        if (ok < 0){
-            RuntimeException e = new RuntimeException("The transaction has failed");
-            LoggerWrapper.error("The transaction has failed with response: " + result, e);
-            throw e;
-        }
-        LoggerWrapper.info("Shipping request successful, response: " + result);
-        return ok;
+        return sendPostAsync(toSend).thenApply(result -> {
+            LoggerWrapper.info("Received response for shipping request: " + result);
+            return transactionId(result);
+        });
     }
 
     public enum Action {
@@ -92,17 +126,44 @@ public class ExternalPaymentAndShippingService implements IPaymentGateway , IShi
 
     @Override
     public void processPayment(String paymentDetails, double amount) {
+        await(processPaymentAsync(paymentDetails, amount));
+    }
+
+    @Override
+    public CompletableFuture<Integer> processPaymentAsync(String paymentDetails, double amount) {
         LoggerWrapper.info("processPayment called with amount=" + amount + ", rawDetails=" + paymentDetails);
         Map<String, String> toSend = parsePayment(paymentDetails);
         LoggerWrapper.debug("Parsed payment details: " + toSend);
-        String result=sendPost(toSend);
-        LoggerWrapper.info("Payment gateway response: " + result);
-        int ok = parseInt(result);
-        if (ok < 0){
+        return sendPostAsync(toSend).thenApply(result -> {
+            LoggerWrapper.info("Payment gateway response: " + result);
+            return transactionId(result);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelPaymentAsync(int transactionId) {
+        LoggerWrapper.info("cancelPayment called with transactionId=" + transactionId);
+        return sendPostAsync(Map.of(
+                "action_type", Action.CANCEL_PAY.value(),
+                "transaction_id", String.valueOf(transactionId)), true)
+                .thenApply(result -> "1".equals(result.trim()));
+    }
+
+    // the external service answers a pay or supply request with a transaction id, or -1 if refused
+    private static int transactionId(String result) {
+        int ok;
+        try {
+            ok = parseInt(result.trim());
+        } catch (NumberFormatException e) {
+            LoggerWrapper.error("Unexpected response from external service: " + result, e);
+            throw new RuntimeException("Unexpected response from external service", e);
+        }
+        if (ok < 0) {
             RuntimeException e = new RuntimeException("The transaction has failed");
-            LoggerWrapper.error("Payment transaction failed with response: " + result, e);
+            LoggerWrapper.error("The transaction has failed with response: " + result, e);
             throw e;
         }
+        return ok;
     }
 
     @Override
@@ -162,27 +223,56 @@ public class ExternalPaymentAndShippingService implements IPaymentGateway , IShi
         }
     }
 
-    private static String sendPost(Map<String, String> formParams) {
+    private String sendPost(Map<String, String> formParams) {
+        return await(sendPostAsync(formParams));
+    }
+
+    private CompletableFuture<String> sendPostAsync(Map<String, String> formParams) {
+        return sendPostAsync(formParams, false);
+    }
+
+    // a compensating post (a cancellation) is never turned away by the breaker or the bulkhead
+    private CompletableFuture<String> sendPostAsync(Map<String, String> formParams, boolean compensating) {
         LoggerWrapper.debug("sendPost called with params: " + formParams);
         StringJoiner body = new StringJoiner("&");
         formParams.forEach((k, v) ->
                 body.add(URLEncoder.encode(k, StandardCharsets.UTF_8) + "=" +
                         URLEncoder.encode(v, StandardCharsets.UTF_8)));
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(SERVER_URL))
-                .header("Content-Type", "application/x-www-form-urlencoded")
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
-                .timeout(Duration.ofSeconds(10))
-                .build();
+        Function<Duration, CompletableFuture<String>> post = timeout -> {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(serverUrl))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .timeout(timeout)
+                    .build();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(resp -> {
+                        LoggerWrapper.debug("HTTP POST response (status " + resp.statusCode() + "): " + resp.body());
+                        if (resp.statusCode() >= 500) {
+                            throw new RuntimeException("External service answered with status " + resp.statusCode());
+                        }
+                        return resp.body();
+                    });
+        };
+        return (compensating ? guard.compensate(post) : guard.call(post)).handle((answer, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                String reason = cause instanceof TimeoutException ? "no answer in time" : cause.getMessage();
+                LoggerWrapper.error("Failed contacting external payment service", cause);
+                throw new RuntimeException("Failed contacting external payment service: " + reason, cause);
+            }
+            return answer;
+        });
+    }
+
+    // waits for a call, failing with the exception the call failed with
+    private static <T> T await(CompletableFuture<T> call) {
         try {
-            HttpResponse<String> resp = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-            LoggerWrapper.debug("HTTP POST response (status " + resp.statusCode() + "): " + resp.body());
-            return resp.body();
-        } catch (IOException | InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LoggerWrapper.error("Failed contacting external payment service", e);
-            throw new RuntimeException("Failed contacting external payment service", e);
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
         }
     }
 }
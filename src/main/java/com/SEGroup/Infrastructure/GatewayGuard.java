@@ -0,0 +1,291 @@
+package com.SEGroup.Infrastructure;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.SEGroup.Service.LoggerWrapper;
+
+/**
+ * Guards the calls to an external service, so that a slow or failing service costs callers
+ * little time instead of holding every checkout thread for the full timeout:
+ * <ul>
+ *   <li>a circuit breaker, which fails calls at once while the recent calls mostly failed or
+ *       were slow, and lets a single probe call through once the open period is over;</li>
+ *   <li>a bulkhead, which fails calls at once while too many are already in flight;</li>
+ *   <li>a timeout taken from the observed latencies (a high percentile times a margin), kept
+ *       between a floor and the configured maximum.</li>
+ * </ul>
+ * A guarded call only fails here for the service's own faults (no answer, a timeout, an error
+ * status); a refused payment is a normal answer and is left to the caller.
+ *
+ * Compensations (cancelling a shipment or a payment) must not be turned away while the service
+ * is struggling, since that is exactly when they are needed: they skip the breaker and the
+ * bulkhead, get the longest timeout, and do not count toward the breaker's window.
+ */
+public class GatewayGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * @param maxConcurrentCalls    The most calls in flight at once.
+     * @param windowSize            How many of the latest calls the breaker looks at.
+     * @param minimumCalls          How many calls the window needs before the breaker can open.
+     * @param failureRateThreshold  The share of failed calls that opens the breaker.
+     * @param slowCallThreshold     How long a call takes to count as slow.
+     * @param slowCallRateThreshold The share of slow calls that opens the breaker.
+     * @param openDuration          How long the breaker stays open before a probe call.
+     * @param minTimeout            The shortest timeout given to a call.
+     * @param maxTimeout            The longest timeout, used until enough latencies were seen.
+     * @param timeoutPercentile     The latency percentile the timeout is taken from, e.g. 0.99.
+     * @param timeoutMultiplier     The margin over that percentile.
+     */
+    /** The default bulkhead size; also bounds the pool that runs blocking gateway calls. */
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 32;
+
+    public record Settings(int maxConcurrentCalls, int windowSize, int minimumCalls,
+                           double failureRateThreshold, Duration slowCallThreshold, double slowCallRateThreshold,
+                           Duration openDuration, Duration minTimeout, Duration maxTimeout,
+                           double timeoutPercentile, double timeoutMultiplier) {
+
+        public static Settings defaults(Duration maxTimeout) {
+            return new Settings(DEFAULT_MAX_CONCURRENT_CALLS, 50, 10, 0.5, maxTimeout.dividedBy(2), 0.8,
+                    Duration.ofSeconds(30), Duration.ofMillis(500), maxTimeout, 0.99, 3.0);
+        }
+    }
+
+    /** A snapshot of the guard, for monitoring. */
+    public record Stats(State state, double failureRate, double slowCallRate, int inFlight,
+                        long calls, long failures, long rejectedOpen, long rejectedBusy,
+                        long timeoutMillis, long p50Millis, long p99Millis,
+                        Map<Long, Long> latencyHistogram) {
+    }
+
+    // upper bounds of the latency histogram buckets, in milliseconds; the last one is open-ended
+    private static final long[] BUCKET_BOUNDS = {5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, Long.MAX_VALUE};
+    private static final int TIMEOUT_SAMPLES = 200;
+
+    private final Settings settings;
+    private final Semaphore bulkhead;
+
+    // breaker state and its window of outcomes; guarded by this
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private final boolean[] failedWindow;
+    private final boolean[] slowWindow;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlow;
+
+    // recent latencies for the adaptive timeout; guarded by this
+    private final long[] recentLatencies = new long[TIMEOUT_SAMPLES];
+    private int recentNext;
+    private int recentCount;
+    private volatile long timeoutMillis;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS.length);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedBusy = new LongAdder();
+
+    public GatewayGuard(Settings settings) {
+        if (settings.maxConcurrentCalls() <= 0 || settings.windowSize() <= 0) {
+            throw new IllegalArgumentException("Concurrency and window size must be positive");
+        }
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.maxConcurrentCalls());
+        this.failedWindow = new boolean[settings.windowSize()];
+        this.slowWindow = new boolean[settings.windowSize()];
+        this.timeoutMillis = settings.maxTimeout().toMillis();
+    }
+
+    /**
+     * Makes a guarded call.
+     *
+     * @param call Starts the call, given the timeout it must answer within.
+     * @return The call's outcome; failed at once if the breaker is open or the bulkhead is full.
+     */
+    public <T> CompletableFuture<T> call(Function<Duration, CompletableFuture<T>> call) {
+        if (!allowCall()) {
+            rejectedOpen.increment();
+            return CompletableFuture.failedFuture(new RuntimeException("External service unavailable, try again later"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            rejectedBusy.increment();
+            releaseProbe();
+            return CompletableFuture.failedFuture(new RuntimeException("External service busy, try again later"));
+        }
+        long timeout = timeoutMillis;
+        long start = System.nanoTime();
+        CompletableFuture<T> started;
+        try {
+            started = call.apply(Duration.ofMillis(timeout));
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        return started.orTimeout(timeout, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            bulkhead.release();
+            record((System.nanoTime() - start) / 1_000_000, e != null);
+        });
+    }
+
+    /**
+     * Makes a compensating call, which the breaker and the bulkhead never reject.
+     *
+     * @param call Starts the call, given the timeout it must answer within.
+     * @return The call's outcome.
+     */
+    public <T> CompletableFuture<T> compensate(Function<Duration, CompletableFuture<T>> call) {
+        long timeout = settings.maxTimeout().toMillis();
+        long start = System.nanoTime();
+        CompletableFuture<T> started;
+        try {
+            started = call.apply(Duration.ofMillis(timeout));
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        return started.orTimeout(timeout, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            calls.increment();
+            if (e != null) failures.increment();
+            histogram.incrementAndGet(bucket((System.nanoTime() - start) / 1_000_000));
+        });
+    }
+
+    private synchronized boolean allowCall() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < settings.openDuration().toMillis()) return false;
+            state = State.HALF_OPEN;
+            LoggerWrapper.info("External service circuit half open, probing");
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) return false;
+            probing = true;
+        }
+        return true;
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) probing = false;
+    }
+
+    private void record(long latencyMillis, boolean failed) {
+        calls.increment();
+        if (failed) failures.increment();
+        histogram.incrementAndGet(bucket(latencyMillis));
+        boolean slow = latencyMillis >= settings.slowCallThreshold().toMillis();
+        synchronized (this) {
+            if (!failed) addLatency(latencyMillis);
+            if (state == State.HALF_OPEN) {
+                probing = false;
+                if (failed || slow) {
+                    open();
+                } else {
+                    state = State.CLOSED;
+                    clearWindow();
+                    LoggerWrapper.info("External service circuit closed");
+                }
+                return;
+            }
+            if (state == State.OPEN) return; // a call from before the breaker opened
+            addOutcome(failed, slow);
+            if (windowCount >= settings.minimumCalls()
+                    && (failureRate() >= settings.failureRateThreshold() || slowCallRate() >= settings.slowCallRateThreshold())) {
+                open();
+            }
+        }
+    }
+
+    // guarded by this
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        clearWindow();
+        LoggerWrapper.info("External service circuit opened for " + settings.openDuration().toMillis() + " ms");
+    }
+
+    // guarded by this
+    private void addOutcome(boolean failed, boolean slow) {
+        if (windowCount == failedWindow.length) {
+            if (failedWindow[windowNext]) windowFailures--;
+            if (slowWindow[windowNext]) windowSlow--;
+        } else {
+            windowCount++;
+        }
+        failedWindow[windowNext] = failed;
+        slowWindow[windowNext] = slow;
+        if (failed) windowFailures++;
+        if (slow) windowSlow++;
+        windowNext = (windowNext + 1) % failedWindow.length;
+    }
+
+    // guarded by this
+    private void clearWindow() {
+        Arrays.fill(failedWindow, false);
+        Arrays.fill(slowWindow, false);
+        windowNext = windowCount = windowFailures = windowSlow = 0;
+    }
+
+    // guarded by this
+    private double failureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+
+    // guarded by this
+    private double slowCallRate() {
+        return windowCount == 0 ? 0 : (double) windowSlow / windowCount;
+    }
+
+    // guarded by this; the timeout follows the latencies once there are enough of them
+    private void addLatency(long latencyMillis) {
+        recentLatencies[recentNext] = latencyMillis;
+        recentNext = (recentNext + 1) % recentLatencies.length;
+        if (recentCount < recentLatencies.length) recentCount++;
+        if (recentCount >= settings.minimumCalls()) {
+            long adaptive = (long) (percentile(settings.timeoutPercentile()) * settings.timeoutMultiplier());
+            timeoutMillis = Math.max(settings.minTimeout().toMillis(), Math.min(settings.maxTimeout().toMillis(), adaptive));
+        }
+    }
+
+    // guarded by this
+    private long percentile(double p) {
+        if (recentCount == 0) return 0;
+        long[] sorted = Arrays.copyOf(recentLatencies, recentCount);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static int bucket(long latencyMillis) {
+        int i = 0;
+        while (latencyMillis > BUCKET_BOUNDS[i]) i++;
+        return i;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public synchronized Stats stats() {
+        Map<Long, Long> latencies = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            latencies.put(BUCKET_BOUNDS[i], histogram.get(i));
+        }
+        return new Stats(state, failureRate(), slowCallRate(),
+                settings.maxConcurrentCalls() - bulkhead.availablePermits(),
+                calls.sum(), failures.sum(), rejectedOpen.sum(), rejectedBusy.sum(),
+                timeoutMillis, percentile(0.5), percentile(0.99), latencies);
+    }
+}
@@ -56,6 +56,16 @@ public class NotificationCenter implements Runnable, INotificationCenter {
         enqueue(new Notification(msg, receiverId));
     }
 
+    /** Enqueues all of them under one lock, waking the dispatcher once. */
+    @Override
+    public void sendSystemNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) return;
+        synchronized (lock) {
+            queue.addAll(notifications);
+            lock.notifyAll();
+        }
+    }
+
     /* ------------ core loop ------------ */
 
     @Override
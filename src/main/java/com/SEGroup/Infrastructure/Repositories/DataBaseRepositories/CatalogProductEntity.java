@@ -22,7 +22,8 @@ public class CatalogProductEntity {
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(
             name = "catalog_product_categories",
-            joinColumns = @JoinColumn(name = "catalog_id")
+            joinColumns = @JoinColumn(name = "catalog_id"),
+            indexes = @Index(name = "idx_catalog_product_category", columnList = "category")
     )
     @Column(name = "category")
     private List<String> categories = new ArrayList<>();
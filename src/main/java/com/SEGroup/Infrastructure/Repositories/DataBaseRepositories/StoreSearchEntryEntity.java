@@ -4,7 +4,12 @@ import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "store_products")
+@Table(name = "store_products", indexes = {
+        @Index(name = "idx_store_products_offer",  columnList = "catalog_id, store_name, product_id"),
+        @Index(name = "idx_store_products_store",  columnList = "store_name"),
+        @Index(name = "idx_store_products_price",  columnList = "price"),
+        @Index(name = "idx_store_products_rating", columnList = "rating")
+})
 public class StoreSearchEntryEntity {
 
     @Id
@@ -0,0 +1,13 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JpaCheckoutSagaRepository extends JpaRepository<CheckoutSaga, String>, JpaCheckoutSagaRepositoryCustom {
+
+    List<CheckoutSaga> findByStatus(CheckoutSaga.Status status);
+}
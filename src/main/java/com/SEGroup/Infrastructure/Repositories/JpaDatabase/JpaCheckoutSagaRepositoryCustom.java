@@ -0,0 +1,35 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Domain.Transaction.Transaction;
+
+import java.util.List;
+
+/**
+ * Checkout writes that need the EntityManager directly; implemented by {@link JpaCheckoutSagaRepositoryImpl}.
+ * Each write commits in a transaction of its own, whether or not the caller has one.
+ */
+public interface JpaCheckoutSagaRepositoryCustom {
+
+    /**
+     * Inserts a new saga with its lines and prices, without selecting it first.
+     */
+    void writeStarted(CheckoutSaga saga);
+
+    /**
+     * Saves the saga's move to its current status, with the gateway ids it recorded, if the
+     * stored saga is still in {@code from}; the messages are inserted in the same transaction.
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException if it is not.
+     */
+    void writeMoved(CheckoutSaga saga, CheckoutSaga.Status from, List<OutboxMessage> messages);
+
+    /**
+     * Commits a completed checkout in one transaction: the saga's new status, its transactions
+     * and its outbox messages. Nothing is read, and the outbox inserts are JDBC-batched.
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the saga is no longer open.
+     */
+    void writeCompleted(CheckoutSaga saga, List<Transaction> transactions, List<OutboxMessage> messages);
+}
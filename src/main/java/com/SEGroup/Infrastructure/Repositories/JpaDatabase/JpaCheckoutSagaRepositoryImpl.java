@@ -0,0 +1,75 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Domain.Transaction.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every write commits on its own, even when called inside a caller's transaction: the saga is
+ * the record of what a checkout did at the gateways, so it must be stored before the next
+ * gateway call, and survive the caller rolling back.
+ */
+class JpaCheckoutSagaRepositoryImpl implements JpaCheckoutSagaRepositoryCustom {
+
+    private static final List<CheckoutSaga.Status> OPEN = Arrays.stream(CheckoutSaga.Status.values())
+            .filter(CheckoutSaga.Status::canComplete).toList();
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void writeStarted(CheckoutSaga saga) {
+        // the id is assigned, so save() would select the row first to tell an insert from an update
+        em.persist(saga);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void writeMoved(CheckoutSaga saga, CheckoutSaga.Status from, List<OutboxMessage> messages) {
+        // a saga moves several times (held, taken, shipped, paid, compensated); merging the same
+        // detached object each time would trip its stale version, so the move is checked on the status
+        int updated = em.createQuery("""
+                update CheckoutSaga s set s.status = :to, s.shipmentIds = :shipments, s.paymentId = :payment,
+                    s.version = s.version + 1
+                where s.id = :id and s.status = :from
+                """)
+                .setParameter("to", saga.getStatus())
+                .setParameter("shipments", String.join(",", saga.getShipmentIds().stream().map(String::valueOf).toList()))
+                .setParameter("payment", saga.getPaymentId())
+                .setParameter("from", from)
+                .setParameter("id", saga.getId())
+                .executeUpdate();
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Checkout " + saga.getId() + " is no longer " + from);
+        }
+        messages.forEach(em::persist);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void writeCompleted(CheckoutSaga saga, List<Transaction> transactions, List<OutboxMessage> messages) {
+        // only an open saga completes, so a second completion or a racing compensation fails the whole commit
+        int updated = em.createQuery("""
+                update CheckoutSaga s set s.status = :completed, s.version = s.version + 1
+                where s.id = :id and s.status in :open
+                """)
+                .setParameter("completed", CheckoutSaga.Status.COMPLETED)
+                .setParameter("open", OPEN)
+                .setParameter("id", saga.getId())
+                .executeUpdate();
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Checkout " + saga.getId() + " is no longer open");
+        }
+        transactions.forEach(em::persist);
+        messages.forEach(em::persist);
+    }
+}
@@ -0,0 +1,25 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface JpaOutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findAllByOrderByIdAsc(Pageable page);
+
+    /**
+     * Inserts messages in a transaction of their own, like the saga writes, so a caller
+     * rolling back does not lose a cancellation queued for a gateway call that went through.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    default void writeQueued(List<OutboxMessage> messages) {
+        saveAll(messages);
+    }
+}
@@ -1,10 +1,27 @@
 package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
 
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Infrastructure.Repositories.DataBaseRepositories.CatalogProductEntity;
 import com.SEGroup.Infrastructure.Repositories.DataBaseRepositories.StoreSearchEntryEntity;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,12 +31,131 @@ import java.util.List;
 @Repository
 @Profile({"db","prod"})
 public interface JpaStoreEntryRepository
-        extends JpaRepository<StoreSearchEntryEntity, Long> {
+        extends JpaRepository<StoreSearchEntryEntity, Long>,
+                JpaSpecificationExecutor<StoreSearchEntryEntity> {
 
-    void deleteByCatalogIdAndStoreNameAndProductId(
+    long deleteByCatalogIdAndStoreNameAndProductId(
             String catalogId, String storeName, String productId);
 
+    /**
+     * (catalogId, number of offers) for every catalog product that has offers.
+     */
+    @Query("select o.catalogId, count(o) from StoreSearchEntryEntity o group by o.catalogId")
+    List<Object[]> countOffersByCatalogId();
+
     List<StoreSearchEntryEntity> findByCatalogId(String catalogId);
 
     List<StoreSearchEntryEntity> findByStoreName(String storeName);
+
+    /**
+     * (storeName, productId, imageUrl) of the offers of the given stores and products that have an image.
+     */
+    @Query("select o.storeName, o.productId, o.imageUrl from StoreSearchEntryEntity o " +
+           "where o.storeName in :storeNames and o.productId in :productIds and o.imageUrl <> ''")
+    List<Object[]> findImages(@Param("storeNames") Collection<String> storeNames,
+                              @Param("productIds") Collection<String> productIds);
+
+    /**
+     * All offers whose catalog product is tagged with the given category, in one query.
+     */
+    @Query("select o from StoreSearchEntryEntity o where o.catalogId in " +
+           "(select p.catalogId from CatalogProductEntity p join p.categories c where c = :category)")
+    List<StoreSearchEntryEntity> findByCategory(@Param("category") String category);
+
+    /**
+     * Builds the catalog search as a single SQL statement: the text, brand and category
+     * restrictions run as a sub-select on the catalog tables, and the price / rating /
+     * quantity ranges and the store name are applied to the offer rows.
+     * Unbounded ranges and unset fields of the query add no predicate.
+     *
+     * @param query The compiled search query.
+     * @return A specification to pass to {@link #findAll(Specification)}.
+     */
+    static Specification<StoreSearchEntryEntity> matching(SearchQuery query) {
+        return (root, cq, cb) -> {
+            Subquery<String> catalogIds = cq.subquery(String.class);
+            Root<CatalogProductEntity> p = catalogIds.from(CatalogProductEntity.class);
+            catalogIds.select(p.get("catalogId"));
+
+            List<Predicate> onCatalog = new ArrayList<>();
+            if (!query.getText().isEmpty()) {
+                String pattern = "%" + escapeLike(query.getText()) + "%";
+                onCatalog.add(cb.or(
+                        cb.like(cb.lower(p.get("name")), pattern, '\\'),
+                        cb.like(cb.lower(p.get("brand")), pattern, '\\'),
+                        cb.like(cb.lower(p.get("description")), pattern, '\\')));
+            }
+            if (query.getBrand() != null) {
+                onCatalog.add(cb.equal(cb.lower(p.get("brand")), query.getBrand().toLowerCase()));
+            }
+            if (!query.getCategories().isEmpty()) {
+                Join<CatalogProductEntity, String> c = p.join("categories");
+                onCatalog.add(cb.lower(c).in(query.getCategories()));
+            }
+            catalogIds.where(onCatalog.toArray(new Predicate[0]));
+
+            List<Predicate> onOffer = new ArrayList<>();
+            onOffer.add(root.get("catalogId").in(catalogIds));
+            if (query.getMinPrice() > Double.NEGATIVE_INFINITY) onOffer.add(cb.ge(root.get("price"), query.getMinPrice()));
+            if (query.getMaxPrice() < Double.POSITIVE_INFINITY) onOffer.add(cb.le(root.get("price"), query.getMaxPrice()));
+            if (query.getMinRating() > Double.NEGATIVE_INFINITY) onOffer.add(cb.ge(root.get("rating"), query.getMinRating()));
+            if (query.getMaxRating() < Double.POSITIVE_INFINITY) onOffer.add(cb.le(root.get("rating"), query.getMaxRating()));
+            if (query.getMinQuantity() > Integer.MIN_VALUE) onOffer.add(cb.ge(root.get("quantity"), query.getMinQuantity()));
+            if (query.getMaxQuantity() < Integer.MAX_VALUE) onOffer.add(cb.le(root.get("quantity"), query.getMaxQuantity()));
+            if (query.getStoreName() != null) {
+                onOffer.add(cb.equal(cb.lower(root.get("storeName")), query.getStoreName().toLowerCase()));
+            }
+            return cb.and(onOffer.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * The ORDER BY of a search sort, including the (storeName, productId) tie-break,
+     * so it matches {@link SearchSort#comparator()} row for row.
+     */
+    static Sort orderOf(SearchSort sort) {
+        Sort.Direction direction = sort.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(new Sort.Order(direction, sort.getField()), Sort.Order.asc("storeName"), Sort.Order.asc("productId"));
+    }
+
+    /**
+     * Keyset predicate for the rows strictly after the given position in the sort order:
+     * {@code key beyond k OR (key = k AND (storeName, productId) > (s, p))}.
+     * Combined with {@link #orderOf(SearchSort)} and a row limit this reads a single page
+     * from the index without an OFFSET or a count query.
+     *
+     * @param sort     The sort of the page.
+     * @param position The decoded cursor position.
+     */
+    static Specification<StoreSearchEntryEntity> after(SearchSort sort, StoreSearchEntry position) {
+        return (root, cq, cb) -> {
+            Predicate beyond;
+            Predicate same;
+            if ("name".equals(sort.getField())) {
+                Expression<String> key = root.get("name");
+                beyond = beyond(cb, key, position.getName(), sort.isAscending());
+                same = cb.equal(key, position.getName());
+            } else {
+                Expression<Double> key = root.get(sort.getField());
+                Double value = "price".equals(sort.getField()) ? position.getPrice() : position.getRating();
+                beyond = beyond(cb, key, value, sort.isAscending());
+                same = cb.equal(key, value);
+            }
+            Expression<String> store = root.get("storeName");
+            Expression<String> product = root.get("productId");
+            Predicate tieBeyond = cb.or(
+                    cb.greaterThan(store, position.getStoreName()),
+                    cb.and(cb.equal(store, position.getStoreName()), cb.greaterThan(product, position.getProductID())));
+            return cb.or(beyond, cb.and(same, tieBeyond));
+        };
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate beyond(
+            CriteriaBuilder cb, Expression<? extends Y> key, Y value, boolean ascending) {
+        return ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
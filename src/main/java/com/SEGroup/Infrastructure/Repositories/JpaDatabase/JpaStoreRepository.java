@@ -1,23 +1,229 @@
 package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
 
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ShoppingProduct;
 import com.SEGroup.Domain.Store.Store;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @Profile({"db", "prod"})
-public interface JpaStoreRepository extends JpaRepository<Store, String> {
+public interface JpaStoreRepository extends JpaRepository<Store, String>, JpaStoreRepositoryCustom {
     Store findByName(String name);
     boolean existsByName(String name);
+
+    /**
+     * Names of the stores the email founded or co-owns.
+     */
+    @Query("""
+    select distinct s.name from Store s left join s.ownersAppointer o
+    where s.founderEmail = :ownerEmail or key(o) = :ownerEmail
+    """)
+    List<String> findNamesOwnedBy(String ownerEmail);
+
+    @Query("select s.name from Store s")
+    List<String> findAllNames();
+
+    /**
+     * (name, founder email) pairs of the given stores.
+     */
+    @Query("select s.name, s.founderEmail from Store s where s.name in :storeNames")
+    List<Object[]> findFounders(Collection<String> storeNames);
+
+    /* ---------- fetch plans: a store row plus exactly the associations a use case reads ---------- */
+
+    @EntityGraph(Store.STAFF_GRAPH)
+    Store findWithStaffByName(String name);
+
+    @EntityGraph(Store.PRODUCTS_GRAPH)
+    Store findWithProductsByName(String name);
+
+    /**
+     * Fills the rating count and sum columns of stores and products rated before those columns
+     * existed, from their ratings tables. Rows that already have a count are left alone.
+     */
+    @Transactional
+    default void backfillRatingSummaries() {
+        backfillStoreRatingSummaries();
+        backfillProductRatingSummaries();
+    }
+
+    @Modifying
     @Query(value = """
-    SELECT s.* FROM stores s
-    JOIN store_owners o ON s.name = o.store_name
-    WHERE o.email = :ownerEmail
+    update stores s set
+        rating_count = (select count(*) from store_ratings r where r.store_name = s.name),
+        rating_sum = (select coalesce(sum(r.score), 0) from store_ratings r where r.store_name = s.name)
+    where s.rating_count = 0 and exists (select 1 from store_ratings r where r.store_name = s.name)
     """, nativeQuery = true)
-    List<Store>  getStoresOwnedBy(String OwnerEmail);
+    int backfillStoreRatingSummaries();
+
+    @Modifying
+    @Query(value = """
+    update shopping_product p set
+        rating_count = (select count(*) from product_ratings r where r.product_id = p.product_id),
+        rating_sum = (select coalesce(sum(r.score), 0) from product_ratings r where r.product_id = p.product_id)
+    where p.rating_count = 0 and exists (select 1 from product_ratings r where r.product_id = p.product_id)
+    """, nativeQuery = true)
+    int backfillProductRatingSummaries();
+
+    /* ---------- stock: checked and changed by the database in one statement ---------- */
+
+    /**
+     * Takes units of a product only if that many are left. The version is bumped like any
+     * other write of the row, so a copy loaded before cannot write its old quantity back.
+     *
+     * @return 1 if the units were taken, 0 if the product is missing or short.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+    update ShoppingProduct p set p.quantity = p.quantity - :amount, p.version = p.version + 1
+    where p.storeName = :storeName and p.productId = :productId and p.quantity >= :amount
+    """)
+    int takeQuantity(String storeName, String productId, int amount);
+
+    @Modifying
+    @Transactional
+    @Query("""
+    update ShoppingProduct p set p.quantity = p.quantity + :amount, p.version = p.version + 1
+    where p.storeName = :storeName and p.productId = :productId
+    """)
+    int returnQuantity(String storeName, String productId, int amount);
+
+    /**
+     * Loads whole store aggregates in one read-only transaction: one query per association for
+     * all the stores together, so the cost does not grow with the number of stores or products,
+     * and no query joins two sibling collections, so rows are never multiplied.
+     */
+    @Transactional(readOnly = true)
+    default List<Store> loadAggregates(Collection<String> names) {
+        if (names.isEmpty()) return List.of();
+        List<Store> stores = fetchOwners(names);
+        fetchManagers(names);
+        fetchRatings(names);
+        fetchProducts(names);
+        fetchProductCategories(names);
+        fetchProductRatings(names);
+        fetchProductBids(names);
+        fetchProductAuctions(names);
+        return stores;
+    }
+
+    @Query("select distinct s from Store s left join fetch s.ownersAppointer where s.name in :names")
+    List<Store> fetchOwners(Collection<String> names);
+
+    @Query("select distinct s from Store s left join fetch s.managers m left join fetch m.permissions where s.name in :names")
+    List<Store> fetchManagers(Collection<String> names);
+
+    @Query("select distinct s from Store s left join fetch s.ratings where s.name in :names")
+    List<Store> fetchRatings(Collection<String> names);
+
+    @Query("select distinct s from Store s left join fetch s.products where s.name in :names")
+    List<Store> fetchProducts(Collection<String> names);
+
+    @Query("select distinct p from ShoppingProduct p left join fetch p.categories where p.storeName in :names")
+    List<ShoppingProduct> fetchProductCategories(Collection<String> names);
+
+    @Query("select distinct p from ShoppingProduct p left join fetch p.ratings where p.storeName in :names")
+    List<ShoppingProduct> fetchProductRatings(Collection<String> names);
+
+    @Query("select distinct p from ShoppingProduct p left join fetch p.bids where p.storeName in :names")
+    List<ShoppingProduct> fetchProductBids(Collection<String> names);
+
+    @Query("select p from ShoppingProduct p left join fetch p.auction a left join fetch a.highestBid where p.storeName in :names")
+    List<ShoppingProduct> fetchProductAuctions(Collection<String> names);
+
+    /* ---------- reviews: read on their own, never with the store aggregate ---------- */
+
+    /**
+     * Reviews of a store strictly after a position of the newest-first order (creation time,
+     * then review ID, both descending): a keyset range of the store_name/created_at index.
+     */
+    @Query("""
+    select r from Review r
+    where r.storeName = :storeName
+      and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.reviewerId < :reviewId))
+    order by r.createdAt desc, r.reviewerId desc
+    """)
+    List<Review> findReviewsAfter(String storeName, long createdAt, String reviewId, Pageable pageable);
+
+    /**
+     * Like {@link #findReviewsAfter}, for the reviews of one reviewer.
+     */
+    @Query("""
+    select r from Review r
+    where r.storeName = :storeName and r.reviewerName = :reviewerName
+      and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.reviewerId < :reviewId))
+    order by r.createdAt desc, r.reviewerId desc
+    """)
+    List<Review> findReviewerReviewsAfter(String storeName, String reviewerName, long createdAt, String reviewId,
+                                          Pageable pageable);
+
+    @Query("select r from Review r where r.storeName = :storeName and r.reviewerId = :reviewId")
+    Review findReview(String storeName, String reviewId);
+
+    /**
+     * Column projection of shopping products, read straight from the shopping_product table
+     * (the average rating comes from the product's rating totals) without loading the owning Store aggregates.
+     */
+    interface ProductRow {
+        String getStoreName();
+        String getCatalogId();
+        String getProductId();
+        String getName();
+        String getDescription();
+        double getPrice();
+        int getQuantity();
+        String getImageUrl();
+        Double getAvgRating();
+    }
+
+    @Query("""
+    select p.storeName as storeName, p.catalogID as catalogId, p.productId as productId,
+           p.name as name, p.description as description, p.price as price,
+           p.quantity as quantity, p.imageUrl as imageUrl,
+           case when p.ratingSummary.ratingCount = 0 then 0.0
+                else 1.0 * p.ratingSummary.ratingSum / p.ratingSummary.ratingCount end as avgRating
+    from ShoppingProduct p
+    where p.storeName in :storeNames and p.productId in :productIds
+    """)
+    List<ProductRow> findProductRows(Collection<String> storeNames, Collection<String> productIds);
+
+    /**
+     * (productId, category) pairs of the given products.
+     */
+    @Query("select p.productId, c from ShoppingProduct p join p.categories c where p.productId in :productIds")
+    List<Object[]> findProductCategories(Collection<String> productIds);
+
+    /**
+     * Store-level columns plus product count and average rating, for store listings.
+     * Aggregates are computed in the query, so no product, review or staff row is loaded.
+     */
+    interface StoreCardRow {
+        String getName();
+        String getFounderEmail();
+        String getDescription();
+        long getProductCount();
+        Double getAvgRating();
+    }
+
+    @Query("""
+    select s.name as name, s.founderEmail as founderEmail, s.description as description,
+           (select count(p) from ShoppingProduct p where p.storeName = s.name) as productCount,
+           case when s.ratingSummary.ratingCount = 0 then 0.0
+                else 1.0 * s.ratingSummary.ratingSum / s.ratingSummary.ratingCount end as avgRating
+    from Store s
+    order by s.name
+    """)
+    List<StoreCardRow> findStoreCards(Pageable pageable);
 
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+
+import java.util.Collection;
+
+/**
+ * Store writes that need the EntityManager directly; implemented by {@link JpaStoreRepositoryImpl}.
+ */
+public interface JpaStoreRepositoryCustom {
+
+    /**
+     * Writes the given parts of a detached store in one transaction: its own row if
+     * {@code storeRow} is set, the given products with their ratings, bids and auction, and the
+     * given new or edited reviews. Rows that did not actually change are not written, and the
+     * updates are JDBC-batched. The store version is bumped when the store row or a product is
+     * written; reviews are not part of the loaded aggregate and leave it alone.
+     *
+     * @return The store version after the write.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the store row
+     *         was written since the store was loaded; nothing is written then.
+     */
+    long writeChanges(Store store, boolean storeRow, Collection<ShoppingProduct> products, Collection<Review> reviews);
+}
@@ -0,0 +1,67 @@
+package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
+
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+class JpaStoreRepositoryImpl implements JpaStoreRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional
+    public long writeChanges(Store store, boolean storeRow, Collection<ShoppingProduct> products, Collection<Review> reviews) {
+        // the store version moves with any change to the aggregate, product rows included, and only
+        // from the version the store was loaded with: a store changed meanwhile is not overwritten
+        long version = store.getVersion();
+        if (storeRow || !products.isEmpty()) {
+            Query update = storeRow
+                    ? em.createQuery("""
+                            update Store s set s.balance = :balance, s.description = :description, s.isActive = :active,
+                                s.version = s.version + 1
+                            where s.name = :name and s.version = :version
+                            """)
+                            .setParameter("balance", store.getBalance())
+                            .setParameter("description", store.getDescription())
+                            .setParameter("active", store.isActive())
+                    : em.createQuery("""
+                            update Store s set s.version = s.version + 1
+                            where s.name = :name and s.version = :version
+                            """);
+            int updated = update
+                    .setParameter("name", store.getName())
+                    .setParameter("version", version)
+                    .executeUpdate();
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(Store.class, store.getName());
+            }
+            version++;
+        }
+        // a new review has no id yet, so merge inserts it; an edited one is updated
+        for (Review review : reviews) {
+            em.merge(review);
+        }
+        if (products.isEmpty()) return version;
+
+        // one query puts the current rows in the persistence context, so merge does not select them one by one;
+        // their collections are batch-loaded when merge compares them
+        List<String> ids = products.stream().map(ShoppingProduct::getProductId).toList();
+        em.createQuery("select p from ShoppingProduct p where p.productId in :ids", ShoppingProduct.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (ShoppingProduct product : products) {
+            em.merge(product);
+        }
+        // dirty checking at flush updates only the rows whose state differs, grouped into JDBC batches
+        return version;
+    }
+}
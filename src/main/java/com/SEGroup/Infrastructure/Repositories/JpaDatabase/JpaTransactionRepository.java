@@ -2,8 +2,10 @@ package com.SEGroup.Infrastructure.Repositories.JpaDatabase;
 
 import com.SEGroup.Domain.Transaction.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -18,4 +20,16 @@ public interface JpaTransactionRepository extends JpaRepository<Transaction, Int
 
     List<Transaction> findByBuyersEmail(String email);
 
+    /**
+     * Restarts the id sequence past the ids already used. Transaction ids came from an identity
+     * column before, so a database from then has rows the new sequence would run into. The
+     * margin is one allocation block, since Hibernate hands out the block below each value.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        ALTER SEQUENCE transaction_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM transactions)
+    """, nativeQuery = true)
+    void moveIdSequencePastExistingRows();
+
 }
\ No newline at end of file
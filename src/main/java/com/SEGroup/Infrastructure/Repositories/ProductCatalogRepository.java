@@ -1,7 +1,13 @@
 package com.SEGroup.Infrastructure.Repositories;
 
+import com.SEGroup.DTO.ProductKeyDTO;
 import com.SEGroup.Domain.IProductCatalog;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryProductCatalogData;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.ProductCatalogData;
@@ -9,7 +15,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ProductCatalogRepository is the top‐level repository for all product catalog operations.
@@ -148,6 +156,47 @@ public class ProductCatalogRepository implements IProductCatalog {
         return data.search(query, filters, storeName, cats);
     }
 
+    /**
+     * Search for store‐entries with a compiled query (text, ranges, brand, store, categories).
+     */
+    @Override
+    public List<StoreSearchEntry> search(SearchQuery query) {
+        return data.search(query);
+    }
+
+    /**
+     * One page of a compiled search, continuing after the given cursor (null for the first page).
+     */
+    @Override
+    public SearchPage<StoreSearchEntry> searchPage(SearchQuery query, SearchSort sort, int pageSize, String cursor) {
+        return data.searchPage(query, sort, pageSize, cursor);
+    }
+
+    /**
+     * The K best matches of a compiled search under the given scorer, best first.
+     */
+    @Override
+    public List<ScoredEntry> searchTopK(SearchQuery query, int k, SearchScorer scorer) {
+        return data.searchTopK(query, k, scorer);
+    }
+
+    /**
+     * Up to {@code limit} product names or brands completing the prefix, most offered first.
+     */
+    @Override
+    public List<String> autocomplete(String prefix, int limit) {
+        return data.autocomplete(prefix, limit);
+    }
+
+    /**
+     * The image URL of each of the offers that has one, in one lookup.
+     */
+    @Override
+    public Map<ProductKeyDTO, String> getOfferImages(List<ProductKeyDTO> keys) {
+        if (keys.isEmpty()) return new HashMap<>();
+        return data.getOfferImages(keys);
+    }
+
     /**
      * Throw an exception if the catalogID does not exist.
      */
@@ -0,0 +1,235 @@
+package com.SEGroup.Infrastructure.Repositories.RepositoryData;
+
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ReviewCursor;
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Service.LoggerWrapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of whole store aggregates in front of another StoreData, so the
+ * repeated lookups of one service call do not each go to the database.
+ *
+ * Only FULL loads are cached; a lighter plan is answered from the cache when the store is
+ * there and goes to the underlying data otherwise. The cache keeps the most recently used
+ * {@code maxStores} stores. It holds a serialized snapshot of each store as it was loaded,
+ * and every hit gets a copy of its own, so changes a caller makes and does not write never
+ * reach other callers. A load inside a transaction is cached only once the transaction
+ * commits. Every write through this object evicts the store, whether it succeeds or not, and
+ * bumps a per-store write counter so that a load that started before the write cannot put
+ * its older aggregate back. A copy carries the Store version it was loaded with, so writing
+ * it back after the store was changed meanwhile is rejected by the version check.
+ */
+public class CachedStoreData implements StoreData {
+
+    /** Cache counters since creation. */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private final StoreData delegate;
+    private final int maxStores;
+    private final LinkedHashMap<String, byte[]> stores;
+    // store name -> number of writes seen; guarded by this, like stores
+    private final Map<String, Long> writes = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachedStoreData(StoreData delegate, int maxStores) {
+        if (maxStores <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.delegate = delegate;
+        this.maxStores = maxStores;
+        this.stores = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                if (size() <= CachedStoreData.this.maxStores) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Store findByName(String storeName) {
+        return findByName(storeName, StoreFetchPlan.FULL);
+    }
+
+    @Override
+    public Store findByName(String storeName, StoreFetchPlan plan) {
+        byte[] cached;
+        long writesBefore;
+        synchronized (this) {
+            cached = stores.get(storeName);
+            writesBefore = writes.getOrDefault(storeName, 0L);
+        }
+        if (cached != null) {
+            hits.increment();
+            return thaw(cached);
+        }
+        misses.increment();
+        Store loaded = delegate.findByName(storeName, plan);
+        if (loaded != null && plan == StoreFetchPlan.FULL) {
+            // taken now, before the caller changes the store it gets
+            byte[] snapshot = freeze(loaded);
+            if (snapshot != null) {
+                afterCommit(() -> cache(storeName, snapshot, writesBefore));
+            }
+        }
+        return loaded;
+    }
+
+    private synchronized void cache(String storeName, byte[] snapshot, long writesBefore) {
+        if (writes.getOrDefault(storeName, 0L) == writesBefore) {
+            stores.put(storeName, snapshot);
+        }
+    }
+
+    // a load inside a transaction may see writes that are later rolled back, so it waits for the commit
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // null when the store cannot be serialized; it is then simply not cached
+    private static byte[] freeze(Store store) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(store);
+        } catch (IOException e) {
+            LoggerWrapper.error("Failed to snapshot store " + store.getName() + " for the cache: " + e.getMessage(), e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Store thaw(byte[] snapshot) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(snapshot))) {
+            return (Store) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to copy a cached store: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void saveStore(Store store) {
+        try {
+            delegate.saveStore(store);
+        } finally {
+            invalidate(store.getName());
+        }
+    }
+
+    @Override
+    public void updateStore(Store store) {
+        try {
+            delegate.updateStore(store);
+        } finally {
+            invalidate(store.getName());
+        }
+    }
+
+    // also evicted when the write fails: the cached instance may hold the changes that were not written
+    @Override
+    public void saveChanges(StoreChanges changes) {
+        try {
+            delegate.saveChanges(changes);
+        } finally {
+            invalidate(changes.store().getName());
+        }
+    }
+
+    @Override
+    public boolean takeQuantity(String storeName, String productId, int amount) {
+        try {
+            return delegate.takeQuantity(storeName, productId, amount);
+        } finally {
+            invalidate(storeName);
+        }
+    }
+
+    @Override
+    public void returnQuantity(String storeName, String productId, int amount) {
+        try {
+            delegate.returnQuantity(storeName, productId, amount);
+        } finally {
+            invalidate(storeName);
+        }
+    }
+
+    private synchronized void invalidate(String storeName) {
+        writes.merge(storeName, 1L, Long::sum);
+        stores.remove(storeName);
+    }
+
+    @Override
+    public List<Store> getAllStores() {
+        return delegate.getAllStores();
+    }
+
+    @Override
+    public boolean isStoreExist(String storeName) {
+        synchronized (this) {
+            if (stores.containsKey(storeName)) return true;
+        }
+        return delegate.isStoreExist(storeName);
+    }
+
+    @Override
+    public List<Store> getStoresOwnedBy(String ownerEmail) {
+        return delegate.getStoresOwnedBy(ownerEmail);
+    }
+
+    @Override
+    public List<ShoppingProductDTO> findProducts(Map<String, Set<String>> productIdsByStore) {
+        return delegate.findProducts(productIdsByStore);
+    }
+
+    @Override
+    public Map<String, String> findFounders(Set<String> storeNames) {
+        return delegate.findFounders(storeNames);
+    }
+
+    @Override
+    public List<StoreCardDto> listStoreCards(int page, int size) {
+        return delegate.listStoreCards(page, size);
+    }
+
+    @Override
+    public List<Review> findReviews(String storeName, String reviewerName, ReviewCursor after, int limit) {
+        return delegate.findReviews(storeName, reviewerName, after, limit);
+    }
+
+    @Override
+    public Review findReview(String storeName, String reviewId) {
+        return delegate.findReview(storeName, reviewId);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), stores.size());
+    }
+}
@@ -1,7 +1,16 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.DTO.ProductKeyDTO;
+import com.SEGroup.Domain.ProductCatalog.CatalogAutocomplete;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchCursor;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Domain.ProductCatalog.TopK;
 import com.SEGroup.Infrastructure.Repositories.DataBaseRepositories.CatalogProductEntity;
 import com.SEGroup.Infrastructure.Repositories.DataBaseRepositories.StoreSearchEntryEntity;
 import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaCatalogRepository;
@@ -9,12 +18,14 @@ import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaStoreEntryReposito
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -29,6 +40,8 @@ public class DbProductCatalog implements ProductCatalogData {
 
     private final JpaCatalogRepository products;
     private final JpaStoreEntryRepository offers;
+    // built from the tables on first use, then kept current by this instance's writes
+    private volatile CatalogAutocomplete autocomplete;
 
     @Autowired
     public DbProductCatalog(
@@ -45,6 +58,10 @@ public class DbProductCatalog implements ProductCatalogData {
             products.save(new CatalogProductEntity(catalogID, name, brand, description, categories));
             return null;
         });
+        CatalogAutocomplete suggestions = autocomplete;
+        if (suggestions != null) {
+            suggestions.addProduct(new CatalogProduct(catalogID, name, brand, description, categories));
+        }
     }
 
     @Override
@@ -53,6 +70,7 @@ public class DbProductCatalog implements ProductCatalogData {
             offers.save(new StoreSearchEntryEntity(catalogID, storeName, productID, price, quantity, rating, name, null));
             return null;
         });
+        if (autocomplete != null) autocomplete.offerAdded(catalogID);
     }
 
     @Override
@@ -61,14 +79,16 @@ public class DbProductCatalog implements ProductCatalogData {
             offers.save(new StoreSearchEntryEntity(catalogID, storeName, productID, price, quantity, rating, name, imageUrl));
             return null;
         });
+        if (autocomplete != null) autocomplete.offerAdded(catalogID);
     }
 
     @Override
     public void deleteStoreProductEntry(String catalogID, String storeName, String productID) {
-        DbSafeExecutor.safeExecute("deleteStoreProductEntry", () -> {
-            offers.deleteByCatalogIdAndStoreNameAndProductId(catalogID, storeName, productID);
-            return null;
-        });
+        long deleted = DbSafeExecutor.safeExecute("deleteStoreProductEntry", () ->
+                offers.deleteByCatalogIdAndStoreNameAndProductId(catalogID, storeName, productID));
+        if (autocomplete != null) {
+            for (long i = 0; i < deleted; i++) autocomplete.offerRemoved(catalogID);
+        }
     }
 
     @Override
@@ -95,12 +115,30 @@ public class DbProductCatalog implements ProductCatalogData {
         );
     }
 
+    @Override
+    public Map<ProductKeyDTO, String> getOfferImages(List<ProductKeyDTO> keys) {
+        Set<String> storeNames = new HashSet<>();
+        Set<String> productIds = new HashSet<>();
+        for (ProductKeyDTO key : keys) {
+            storeNames.add(key.storeName());
+            productIds.add(key.productId());
+        }
+        Set<ProductKeyDTO> wanted = new HashSet<>(keys);
+        return DbSafeExecutor.safeExecute("getOfferImages", () -> {
+            Map<ProductKeyDTO, String> images = new HashMap<>();
+            for (Object[] row : offers.findImages(storeNames, productIds)) {
+                // the IN lists cross stores and products; keep only the pairs that were asked for
+                ProductKeyDTO key = new ProductKeyDTO((String) row[0], (String) row[1]);
+                if (wanted.contains(key)) images.put(key, (String) row[2]);
+            }
+            return images;
+        });
+    }
+
     @Override
     public List<StoreSearchEntry> getAllProductsByCategory(String category) {
         return DbSafeExecutor.safeExecute("getAllProductsByCategory", () ->
-                products.findAll().stream()
-                        .filter(e -> e.getCategories().contains(category.toLowerCase()))
-                        .flatMap(e -> offers.findByCatalogId(e.getCatalogId()).stream())
+                offers.findByCategory(category.toLowerCase()).stream()
                         .map(StoreSearchEntryEntity::toDomain)
                         .collect(Collectors.toList())
         );
@@ -108,39 +146,84 @@ public class DbProductCatalog implements ProductCatalogData {
 
     @Override
     public List<StoreSearchEntry> search(String query, List<String> filters, String storeName, List<String> cats) {
-        return DbSafeExecutor.safeExecute("search", () -> {
-            Set<String> firstPassCatalogIds = products.findAll().stream()
-                    .filter(p -> p.getName().toLowerCase().contains(query.toLowerCase()) ||
-                            p.getBrand().toLowerCase().contains(query.toLowerCase()) ||
-                            p.getDescription().toLowerCase().contains(query.toLowerCase()))
-                    .map(CatalogProductEntity::getCatalogId)
-                    .collect(Collectors.toSet());
-
-            List<StoreSearchEntry> pass2 = offers.findAll().stream()
-                    .filter(e -> firstPassCatalogIds.contains(e.getCatalogId()))
+        // parse outside safeExecute so a malformed filter is reported as such, not as a DB outage
+        return search(SearchQuery.parse(query, filters, storeName, cats));
+    }
+
+    @Override
+    public List<StoreSearchEntry> search(SearchQuery query) {
+        return DbSafeExecutor.safeExecute("search", () ->
+                offers.findAll(JpaStoreEntryRepository.matching(query)).stream()
+                        .map(StoreSearchEntryEntity::toDomain)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @Override
+    public SearchPage<StoreSearchEntry> searchPage(SearchQuery query, SearchSort sort, int pageSize, String cursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        // decode outside safeExecute so a bad cursor is reported as such, not as a DB outage
+        StoreSearchEntry after = (cursor == null) ? null : SearchCursor.decode(cursor, sort);
+        return DbSafeExecutor.safeExecute("searchPage", () -> {
+            Specification<StoreSearchEntryEntity> spec = JpaStoreEntryRepository.matching(query);
+            if (after != null) {
+                spec = spec.and(JpaStoreEntryRepository.after(sort, after));
+            }
+            // one row of look-ahead tells whether a next page exists, without a count query
+            List<StoreSearchEntry> fetched = offers.findBy(spec, q -> q
+                            .sortBy(JpaStoreEntryRepository.orderOf(sort))
+                            .limit(pageSize + 1)
+                            .all())
+                    .stream()
                     .map(StoreSearchEntryEntity::toDomain)
-                    .filter(e -> e.matchesQuery(query, filters))
                     .collect(Collectors.toList());
+            return SearchPage.fromLookahead(fetched, pageSize, sort);
+        });
+    }
 
-            if (storeName != null && !storeName.isBlank()) {
-                pass2 = pass2.stream()
-                        .filter(e -> e.getStoreName().equalsIgnoreCase(storeName))
-                        .collect(Collectors.toList());
+    @Override
+    public List<ScoredEntry> searchTopK(SearchQuery query, int k, SearchScorer scorer) {
+        TopK<ScoredEntry> best = new TopK<>(k, ScoredEntry.BEST_FIRST);
+        // the scorer is arbitrary Java, so the filtered rows are streamed and ranked here
+        // instead of being collected into a list first
+        DbSafeExecutor.safeExecute("searchTopK", () -> {
+            try (Stream<StoreSearchEntryEntity> rows = offers.findBy(JpaStoreEntryRepository.matching(query), q -> q.stream())) {
+                rows.forEach(row -> {
+                    StoreSearchEntry entry = row.toDomain();
+                    best.offer(new ScoredEntry(entry, scorer.score(query, entry)));
+                });
             }
+            return null;
+        });
+        return best.toSortedList();
+    }
 
-            if (cats != null && !cats.isEmpty()) {
-                Set<String> validCatalogs = cats.stream()
-                        .flatMap(cat -> products.findById(cat.toLowerCase()).stream())
-                        .map(CatalogProductEntity::getCatalogId)
-                        .collect(Collectors.toSet());
+    @Override
+    public List<String> autocomplete(String prefix, int limit) {
+        return suggestions().suggest(prefix, limit);
+    }
 
-                pass2 = pass2.stream()
-                        .filter(e -> validCatalogs.contains(e.getCatalogID()))
-                        .collect(Collectors.toList());
+    private CatalogAutocomplete suggestions() {
+        CatalogAutocomplete built = autocomplete;
+        if (built != null) return built;
+        synchronized (this) {
+            if (autocomplete == null) {
+                autocomplete = DbSafeExecutor.safeExecute("autocomplete", () -> {
+                    CatalogAutocomplete fresh = new CatalogAutocomplete();
+                    for (CatalogProductEntity p : products.findAll()) {
+                        fresh.addProduct(p.toDomain());
+                    }
+                    for (Object[] row : offers.countOffersByCatalogId()) {
+                        long count = (Long) row[1];
+                        for (long i = 0; i < count; i++) fresh.offerAdded((String) row[0]);
+                    }
+                    return fresh;
+                });
             }
-
-            return pass2;
-        });
+            return autocomplete;
+        }
     }
 
     @Override
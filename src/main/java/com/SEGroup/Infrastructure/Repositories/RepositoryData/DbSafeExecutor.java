@@ -1,14 +1,19 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+
 import java.util.function.Supplier;
 
 public class DbSafeExecutor {
     public static <T> T safeExecute(String operation, Supplier<T> action) {
         try {
             return action.get();
+        } catch (OptimisticLockingFailureException e) {
+            throw new RuntimeException("The data was changed by another operation. " +
+                    "Unable to perform operation: " + operation + ". Please try again.");
         } catch (Exception e) {
             throw new RuntimeException("Database is currently unavailable. " +
                     "Unable to perform operation: " + operation + ". Please try again later.");
         }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,20 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ReviewCursor;
 import com.SEGroup.Domain.Store.Store;
 import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaStoreRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 public class DbStoreData implements StoreData {
@@ -15,7 +27,20 @@ public class DbStoreData implements StoreData {
 
     @Override
     public Store findByName(String storeName) {
-        return DbSafeExecutor.safeExecute("findByName", () -> jpaStoreRepository.findByName(storeName));
+        return findByName(storeName, StoreFetchPlan.FULL);
+    }
+
+    /**
+     * Loads the store with the entity graph of the plan; the rest of the aggregate stays
+     * unloaded. FULL loads every association with one query each.
+     */
+    @Override
+    public Store findByName(String storeName, StoreFetchPlan plan) {
+        return DbSafeExecutor.safeExecute("findByName", () -> switch (plan) {
+            case STAFF -> jpaStoreRepository.findWithStaffByName(storeName);
+            case PRODUCTS -> jpaStoreRepository.findWithProductsByName(storeName);
+            case FULL -> jpaStoreRepository.loadAggregates(List.of(storeName)).stream().findFirst().orElse(null);
+        });
     }
 
     @Override
@@ -33,7 +58,8 @@ public class DbStoreData implements StoreData {
 
     @Override
     public List<Store> getStoresOwnedBy(String ownerEmail) {
-        return DbSafeExecutor.safeExecute("getStoresOwnedBy", () -> jpaStoreRepository.getStoresOwnedBy(ownerEmail));
+        return DbSafeExecutor.safeExecute("getStoresOwnedBy",
+                () -> jpaStoreRepository.loadAggregates(jpaStoreRepository.findNamesOwnedBy(ownerEmail)));
     }
 
     @Override
@@ -44,11 +70,121 @@ public class DbStoreData implements StoreData {
         });
     }
 
+    @Override
+    public void saveChanges(StoreChanges changes) {
+        if (changes.isEmpty()) return;
+        DbSafeExecutor.safeExecute("saveChanges", () -> {
+            Store store = changes.store();
+            // the row is written by a bulk update, which leaves the detached store's version behind
+            store.setVersion(jpaStoreRepository.writeChanges(store, changes.isStoreRowChanged(),
+                    changes.changedProducts(), changes.changedReviews()));
+            return null;
+        });
+    }
+
     @Override
     public List<Store> getAllStores() {
-        return DbSafeExecutor.safeExecute("getAllStores", jpaStoreRepository::findAll);
+        return DbSafeExecutor.safeExecute("getAllStores",
+                () -> jpaStoreRepository.loadAggregates(jpaStoreRepository.findAllNames()));
+    }
+
+    /**
+     * One conditional update of the product row: the database checks the stock and takes it in
+     * the same statement, so two checkouts cannot both take the last unit.
+     */
+    @Override
+    public boolean takeQuantity(String storeName, String productId, int amount) {
+        return DbSafeExecutor.safeExecute("takeQuantity",
+                () -> jpaStoreRepository.takeQuantity(storeName, productId, amount) == 1);
+    }
+
+    @Override
+    public void returnQuantity(String storeName, String productId, int amount) {
+        DbSafeExecutor.safeExecute("returnQuantity",
+                () -> jpaStoreRepository.returnQuantity(storeName, productId, amount));
     }
 
+    /**
+     * Two queries for any number of products: a column projection of the product rows
+     * and their categories. No Store aggregate (products, reviews, managers...) is loaded.
+     */
+    @Override
+    public List<ShoppingProductDTO> findProducts(Map<String, Set<String>> productIdsByStore) {
+        if (productIdsByStore.isEmpty()) return new ArrayList<>();
+        Set<String> productIds = new HashSet<>();
+        productIdsByStore.values().forEach(productIds::addAll);
+
+        return DbSafeExecutor.safeExecute("findProducts", () -> {
+            Map<String, List<String>> categories = new HashMap<>();
+            for (Object[] pair : jpaStoreRepository.findProductCategories(productIds)) {
+                categories.computeIfAbsent((String) pair[0], id -> new ArrayList<>()).add((String) pair[1]);
+            }
+            List<ShoppingProductDTO> found = new ArrayList<>();
+            for (JpaStoreRepository.ProductRow row : jpaStoreRepository.findProductRows(productIdsByStore.keySet(), productIds)) {
+                // the IN lists cross stores and products; keep only the pairs that were asked for
+                if (!productIdsByStore.get(row.getStoreName()).contains(row.getProductId())) continue;
+                found.add(new ShoppingProductDTO(
+                        row.getStoreName(),
+                        row.getCatalogId(),
+                        row.getProductId(),
+                        row.getName(),
+                        row.getDescription(),
+                        row.getPrice(),
+                        row.getQuantity(),
+                        row.getAvgRating() == null ? 0.0 : row.getAvgRating(),
+                        row.getImageUrl(),
+                        categories.getOrDefault(row.getProductId(), new ArrayList<>())));
+            }
+            return found;
+        });
+    }
+
+    // (name, founder) pairs from one projection query; the stores are not loaded
+    @Override
+    public Map<String, String> findFounders(Set<String> storeNames) {
+        if (storeNames.isEmpty()) return new HashMap<>();
+        return DbSafeExecutor.safeExecute("findFounders", () -> {
+            Map<String, String> founders = new HashMap<>();
+            for (Object[] pair : jpaStoreRepository.findFounders(storeNames)) {
+                founders.put((String) pair[0], (String) pair[1]);
+            }
+            return founders;
+        });
+    }
 
+    /**
+     * Store cards from a single projection query; aggregates are computed by the database.
+     */
+    @Override
+    public List<StoreCardDto> listStoreCards(int page, int size) {
+        Pageable pageable = PageRequest.of(page, size); // rejects a bad page before touching the database
+        return DbSafeExecutor.safeExecute("listStoreCards", () -> {
+            List<StoreCardDto> cards = new ArrayList<>();
+            for (JpaStoreRepository.StoreCardRow row : jpaStoreRepository.findStoreCards(pageable)) {
+                cards.add(new StoreCardDto(
+                        row.getName(),
+                        row.getFounderEmail(),
+                        row.getAvgRating() == null ? 0.0 : row.getAvgRating(),
+                        row.getDescription(),
+                        (int) row.getProductCount()));
+            }
+            return cards;
+        });
+    }
+
+    /**
+     * One keyset query on the review indexes; the store aggregate is not loaded.
+     */
+    @Override
+    public List<Review> findReviews(String storeName, String reviewerName, ReviewCursor after, int limit) {
+        Pageable first = PageRequest.of(0, limit);
+        return DbSafeExecutor.safeExecute("findReviews", () -> reviewerName == null
+                ? jpaStoreRepository.findReviewsAfter(storeName, after.createdAt(), after.reviewId(), first)
+                : jpaStoreRepository.findReviewerReviewsAfter(storeName, reviewerName, after.createdAt(), after.reviewId(), first));
+    }
 
+    @Override
+    public Review findReview(String storeName, String reviewId) {
+        return DbSafeExecutor.safeExecute("findReview", () -> jpaStoreRepository.findReview(storeName, reviewId));
+    }
 }
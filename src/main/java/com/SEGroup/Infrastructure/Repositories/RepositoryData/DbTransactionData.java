@@ -2,16 +2,26 @@ package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
 import java.util.List;
 
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Domain.Transaction.Transaction;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaCheckoutSagaRepository;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaOutboxRepository;
 import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaTransactionRepository;
+import org.springframework.data.domain.PageRequest;
+
 import static com.SEGroup.Infrastructure.Repositories.RepositoryData.DbSafeExecutor.safeExecute;
 
 public class DbTransactionData implements TransactionData {
 
     private final JpaTransactionRepository repo;
+    private final JpaCheckoutSagaRepository sagas;
+    private final JpaOutboxRepository outbox;
 
-    public DbTransactionData(JpaTransactionRepository repo) {
+    public DbTransactionData(JpaTransactionRepository repo, JpaCheckoutSagaRepository sagas, JpaOutboxRepository outbox) {
         this.repo = repo;
+        this.sagas = sagas;
+        this.outbox = outbox;
     }
 
     @Override
@@ -33,6 +43,14 @@ public class DbTransactionData implements TransactionData {
         });
     }
 
+    @Override
+    public void saveTransactions(List<Transaction> transactions) {
+        safeExecute("saveTransactions", () -> {
+            repo.saveAll(transactions);
+            return null;
+        });
+    }
+
     @Override
     public void updateTransaction(Transaction transaction) {
         safeExecute("updateTransaction", () -> {
@@ -54,4 +72,55 @@ public class DbTransactionData implements TransactionData {
         return safeExecute("getTransactionsByUserEmail", () ->
                 repo.findByBuyersEmail(email));
     }
+
+    @Override
+    public void startCheckout(CheckoutSaga saga) {
+        safeExecute("startCheckout", () -> {
+            sagas.writeStarted(saga);
+            return null;
+        });
+    }
+
+    @Override
+    public void moveCheckout(CheckoutSaga saga, CheckoutSaga.Status from, List<OutboxMessage> messages) {
+        safeExecute("moveCheckout", () -> {
+            sagas.writeMoved(saga, from, messages);
+            return null;
+        });
+    }
+
+    @Override
+    public void completeCheckout(CheckoutSaga saga, List<Transaction> transactions, List<OutboxMessage> messages) {
+        safeExecute("completeCheckout", () -> {
+            sagas.writeCompleted(saga, transactions, messages);
+            saga.complete();
+            return null;
+        });
+    }
+
+    @Override
+    public List<CheckoutSaga> getCheckoutsByStatus(CheckoutSaga.Status status) {
+        return safeExecute("getCheckoutsByStatus", () -> sagas.findByStatus(status));
+    }
+
+    @Override
+    public List<OutboxMessage> getOutboxMessages(int limit) {
+        return safeExecute("getOutboxMessages", () -> outbox.findAllByOrderByIdAsc(PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public void addOutboxMessages(List<OutboxMessage> messages) {
+        safeExecute("addOutboxMessages", () -> {
+            outbox.writeQueued(messages);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteOutboxMessages(List<Long> ids) {
+        safeExecute("deleteOutboxMessages", () -> {
+            outbox.deleteAllByIdInBatch(ids);
+            return null;
+        });
+    }
 }
@@ -1,39 +1,86 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.DTO.ProductKeyDTO;
+import com.SEGroup.Domain.ProductCatalog.CatalogAutocomplete;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.CatalogTextIndex;
+import com.SEGroup.Domain.ProductCatalog.OfferRangeIndex;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchCursor;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Domain.ProductCatalog.TopK;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * In‐memory implementation of ProductCatalogData.
  * Only active when “mem” profile is selected.
+ *
+ * Safe for concurrent use without locking readers: all indexes are concurrent maps, and
+ * an offer is never modified in place – an update publishes a new StoreSearchEntry – so a
+ * search always sees each offer either entirely before or entirely after a change.
+ * Writes to the same offer are serialized on its key. Writes to different offers take only
+ * the range index stripes of the prices and ratings they move between, so price, stock and
+ * rating updates of different offers rarely contend. Adding or removing an offer also
+ * updates the autocomplete weights, and adding a catalog product the text index; both are
+ * short writes serialized on those indexes.
  */
 @Repository
 @Profile("mem")
 public class InMemoryProductCatalogData implements ProductCatalogData {
 
-    // Exactly the same collections you had before for in-memory
-    private final Map<String, CatalogProduct> catalogIDtoCatalogProduct = new HashMap<>();
-    private final Map<String, List<StoreSearchEntry>> catalogIdToStoreOffers = new HashMap<>();
-    private final Map<String, List<String>> categoriesToProducts = new HashMap<>();
-    private final Map<String, List<StoreSearchEntry>> storeNameToStoreOffers = new HashMap<>();
+    // (catalogID, storeName, productID) identifies an offer
+    private record OfferKey(String catalogID, String storeName, String productID) {}
+
+    private final Map<String, CatalogProduct> catalogIDtoCatalogProduct = new ConcurrentHashMap<>();
+    private final Map<OfferKey, StoreSearchEntry> offers = new ConcurrentHashMap<>();
+    // (store, product) → its offer's key, for lookups that do not know the catalog ID
+    private final Map<ProductKeyDTO, OfferKey> offerKeysByProduct = new ConcurrentHashMap<>();
+    // per-catalog and per-store views of the offers, keyed the same way for O(1) insert / remove
+    private final Map<String, Map<OfferKey, StoreSearchEntry>> catalogIdToStoreOffers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> categoriesToProducts = new ConcurrentHashMap<>();
+    private final Map<String, Map<OfferKey, StoreSearchEntry>> storeNameToStoreOffers = new ConcurrentHashMap<>();
+    // n-gram → catalogIDs, so search only touches products that can match the query
+    private final CatalogTextIndex textIndex = new CatalogTextIndex();
+    // prefix trie over names and brands, weighted by offer count
+    private final CatalogAutocomplete autocomplete = new CatalogAutocomplete();
+    // price / rating → offer keys, over all offers and per (lower-cased) category
+    private final OfferRangeIndex<OfferKey> ranges = new OfferRangeIndex<>();
+    private final Map<String, OfferRangeIndex<OfferKey>> categoryRanges = new ConcurrentHashMap<>();
 
     @Override
     public void addCatalogProduct(String catalogID, String name, String brand,
                                   String description, List<String> categories) {
         CatalogProduct product = new CatalogProduct(catalogID, name, brand, description, categories);
         catalogIDtoCatalogProduct.put(catalogID, product);
+        textIndex.add(product);
+        autocomplete.addProduct(product);
 
         // Register categories → catalogID
         for (String category : categories) {
             categoriesToProducts
-                    .computeIfAbsent(category.toLowerCase(), k -> new ArrayList<>())
+                    .computeIfAbsent(category.toLowerCase(), k -> ConcurrentHashMap.newKeySet())
                     .add(catalogID);
         }
+        // offers listed before the product (or before a category was added) join the category ranges now,
+        // under the offer's lock in `offers` so a concurrent price or stock change cannot leave a stale entry
+        for (OfferKey key : catalogIdToStoreOffers.getOrDefault(catalogID, Map.of()).keySet()) {
+            offers.computeIfPresent(key, (k, current) -> {
+                for (String category : categories) {
+                    categoryRange(category.toLowerCase()).add(k, current);
+                }
+                return current;
+            });
+        }
     }
 
     @Override
@@ -44,12 +91,7 @@ public class InMemoryProductCatalogData implements ProductCatalogData {
         StoreSearchEntry entry = new StoreSearchEntry(
                 catalogID, storeName, productID, price, quantity, rating, name
         );
-        catalogIdToStoreOffers
-                .computeIfAbsent(catalogID, k -> new ArrayList<>())
-                .add(entry);
-        storeNameToStoreOffers
-                .computeIfAbsent(storeName, k -> new ArrayList<>())
-                .add(entry);
+        putOffer(entry);
     }
 
     @Override
@@ -61,50 +103,96 @@ public class InMemoryProductCatalogData implements ProductCatalogData {
                 catalogID, storeName, productID, price, quantity, rating, name
         );
         entry.setImageUrl(imageUrl);
+        putOffer(entry);
+    }
+
+    // re-adding an existing offer replaces it in every index
+    private void putOffer(StoreSearchEntry entry) {
+        OfferKey key = new OfferKey(entry.getCatalogID(), entry.getStoreName(), entry.getProductID());
+        // the views are written under the key's lock in `offers`, so writes to one offer cannot interleave
+        offers.compute(key, (k, old) -> {
+            putInView(catalogIdToStoreOffers, k.catalogID(), k, entry);
+            putInView(storeNameToStoreOffers, k.storeName(), k, entry);
+            if (old == null) autocomplete.offerAdded(k.catalogID());
+            offerKeysByProduct.put(new ProductKeyDTO(k.storeName(), k.productID()), k);
+            forEachRange(k, range -> {
+                if (old != null) range.remove(k, old);
+                range.add(k, entry);
+            });
+            return entry;
+        });
+    }
 
-        catalogIdToStoreOffers
-                .computeIfAbsent(catalogID, k -> new ArrayList<>())
-                .add(entry);
-        storeNameToStoreOffers
-                .computeIfAbsent(storeName, k -> new ArrayList<>())
-                .add(entry);
+    private static void putInView(Map<String, Map<OfferKey, StoreSearchEntry>> view, String bucket,
+                                  OfferKey key, StoreSearchEntry entry) {
+        view.compute(bucket, (b, entries) -> {
+            if (entries == null) entries = new ConcurrentHashMap<>();
+            entries.put(key, entry);
+            return entries;
+        });
+    }
+
+    @Override
+    public Map<ProductKeyDTO, String> getOfferImages(List<ProductKeyDTO> keys) {
+        Map<ProductKeyDTO, String> images = new HashMap<>();
+        for (ProductKeyDTO key : keys) {
+            OfferKey offerKey = offerKeysByProduct.get(key);
+            StoreSearchEntry offer = offerKey == null ? null : offers.get(offerKey);
+            if (offer != null && offer.getImageUrl() != null && !offer.getImageUrl().isBlank()) {
+                images.put(key, offer.getImageUrl());
+            }
+        }
+        return images;
     }
 
     @Override
     public void deleteStoreProductEntry(String catalogID, String storeName,
                                         String productID) {
-        // Remove from “catalog → storeOffers”
-        List<StoreSearchEntry> catalogEntries = catalogIdToStoreOffers.getOrDefault(catalogID, List.of());
-        catalogEntries.removeIf(e ->
-                e.getStoreName().equalsIgnoreCase(storeName) &&
-                        e.getProductID().equals(productID)
-        );
+        offers.computeIfPresent(new OfferKey(catalogID, storeName, productID), (k, old) -> {
+            removeFromView(catalogIdToStoreOffers, k.catalogID(), k);
+            removeFromView(storeNameToStoreOffers, k.storeName(), k);
+            autocomplete.offerRemoved(k.catalogID());
+            offerKeysByProduct.remove(new ProductKeyDTO(k.storeName(), k.productID()), k);
+            forEachRange(k, range -> range.remove(k, old));
+            return null;
+        });
+    }
 
-        // Remove from “storeName → storeOffers”
-        List<StoreSearchEntry> storeEntries = storeNameToStoreOffers.getOrDefault(storeName, List.of());
-        storeEntries.removeIf(e ->
-                e.getCatalogID().equals(catalogID) &&
-                        e.getProductID().equals(productID)
-        );
+    private static void removeFromView(Map<String, Map<OfferKey, StoreSearchEntry>> view, String bucket, OfferKey key) {
+        view.computeIfPresent(bucket, (b, entries) -> {
+            entries.remove(key);
+            return entries.isEmpty() ? null : entries;
+        });
     }
 
     @Override
     public void updateStoreProductEntry(String catalogID, String storeName,
                                         String productID, Double price,
                                         Integer quantity, Double rating) {
-        List<StoreSearchEntry> storeEntries = storeNameToStoreOffers.get(storeName);
-        if (storeEntries != null) {
-            for (StoreSearchEntry e : storeEntries) {
-                if (e.getCatalogID().equals(catalogID) &&
-                        e.getProductID().equals(productID)) {
-                    if (price    != null) e.setPrice(price);
-                    if (quantity != null) e.setQuantity(quantity);
-                    if (rating   != null) e.setRating(rating);
-                }
-            }
+        // publish a changed copy instead of mutating the entry concurrent searches may be reading
+        offers.computeIfPresent(new OfferKey(catalogID, storeName, productID), (k, old) -> {
+            StoreSearchEntry updated = old.withChanges(price, quantity, rating);
+            putInView(catalogIdToStoreOffers, k.catalogID(), k, updated);
+            putInView(storeNameToStoreOffers, k.storeName(), k, updated);
+            forEachRange(k, range -> range.replace(k, old, updated));
+            return updated;
+        });
+    }
+
+    // the global range index and those of the offer's categories
+    private void forEachRange(OfferKey key, Consumer<OfferRangeIndex<OfferKey>> action) {
+        action.accept(ranges);
+        CatalogProduct product = catalogIDtoCatalogProduct.get(key.catalogID());
+        if (product == null) return;
+        for (String category : product.getCategories()) {
+            action.accept(categoryRange(category.toLowerCase()));
         }
     }
 
+    private OfferRangeIndex<OfferKey> categoryRange(String category) {
+        return categoryRanges.computeIfAbsent(category, c -> new OfferRangeIndex<>());
+    }
+
     @Override
     public List<CatalogProduct> getAllProducts() {
         return new ArrayList<>(catalogIDtoCatalogProduct.values());
@@ -112,53 +200,127 @@ public class InMemoryProductCatalogData implements ProductCatalogData {
 
     @Override
     public List<StoreSearchEntry> getAllProductsByCategory(String category) {
-        List<String> catalogIDs = categoriesToProducts.getOrDefault(category.toLowerCase(), List.of());
+        Set<String> catalogIDs = categoriesToProducts.getOrDefault(category.toLowerCase(), Set.of());
         return catalogIDs.stream()
-                .flatMap(id -> catalogIdToStoreOffers.getOrDefault(id, List.of()).stream())
+                .flatMap(id -> catalogIdToStoreOffers.getOrDefault(id, Map.of()).values().stream())
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<StoreSearchEntry> search(String query, List<String> filters,
                                          String storeName, List<String> cats) {
-        // 1st pass: filter catalog by name/brand/description
-        Set<String> firstPass = catalogIDtoCatalogProduct.values().stream()
-                .filter(p ->
-                        p.getName().toLowerCase().contains(query.toLowerCase()) ||
-                                p.getBrand().toLowerCase().contains(query.toLowerCase()) ||
-                                p.getDescription().toLowerCase().contains(query.toLowerCase())
-                )
-                .map(CatalogProduct::getCatalogID)
-                .collect(Collectors.toSet());
-
-        // 2nd pass: find all store entries whose catalogID ∈ firstPass
-        List<StoreSearchEntry> pass2 = catalogIdToStoreOffers.entrySet().stream()
-                .filter(e -> firstPass.contains(e.getKey()))
-                .flatMap(e -> e.getValue().stream())
-                .filter(entry -> entry.matchesQuery(query, filters))
-                .collect(Collectors.toList());
+        return search(SearchQuery.parse(query, filters, storeName, cats));
+    }
+
+    @Override
+    public List<StoreSearchEntry> search(SearchQuery query) {
+        List<StoreSearchEntry> result = new ArrayList<>();
+        forEachMatch(query, result::add);
+        return result;
+    }
 
-        // 3rd pass: if storeName != null, filter by storeName
-        List<StoreSearchEntry> pass3 = pass2;
-        if (storeName != null && !storeName.isBlank()) {
-            pass3 = pass2.stream()
-                    .filter(e -> e.getStoreName().equalsIgnoreCase(storeName))
-                    .collect(Collectors.toList());
+    @Override
+    public SearchPage<StoreSearchEntry> searchPage(SearchQuery query, SearchSort sort, int pageSize, String cursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
         }
+        StoreSearchEntry after = (cursor == null) ? null : SearchCursor.decode(cursor, sort);
+        Comparator<StoreSearchEntry> order = sort.comparator();
+
+        // keep only the first pageSize + 1 matches past the cursor; the extra one tells if a next page exists
+        TopK<StoreSearchEntry> page = new TopK<>(pageSize + 1, order);
+        forEachMatch(query, e -> {
+            if (after == null || order.compare(e, after) > 0) page.offer(e);
+        });
+        return SearchPage.fromLookahead(page.toSortedList(), pageSize, sort);
+    }
+
+    @Override
+    public List<ScoredEntry> searchTopK(SearchQuery query, int k, SearchScorer scorer) {
+        TopK<ScoredEntry> best = new TopK<>(k, ScoredEntry.BEST_FIRST);
+        forEachMatch(query, e -> best.offer(new ScoredEntry(e, scorer.score(query, e))));
+        return best.toSortedList();
+    }
+
+    @Override
+    public List<String> autocomplete(String prefix, int limit) {
+        return autocomplete.suggest(prefix, limit);
+    }
+
+    private void forEachMatch(SearchQuery query, Consumer<StoreSearchEntry> sink) {
+        // 1st pass: candidate catalog IDs from the text index (name/brand/description contains query)
+        Set<String> firstPass = textIndex.lookup(query.getText());
 
-        // 4th pass: if cats is nonempty, filter by categories
-        List<StoreSearchEntry> pass4 = pass3;
-        if (cats != null && !cats.isEmpty()) {
-            Set<String> validCatalogIds = cats.stream()
-                    .flatMap(cat -> categoriesToProducts.getOrDefault(cat.toLowerCase(), List.of()).stream())
+        // narrow the candidates by category and brand before touching any offer
+        if (!query.getCategories().isEmpty()) {
+            Set<String> validCatalogIds = query.getCategories().stream()
+                    .flatMap(cat -> categoriesToProducts.getOrDefault(cat, Set.of()).stream())
                     .collect(Collectors.toSet());
+            firstPass.retainAll(validCatalogIds);
+        }
+        if (query.getBrand() != null) {
+            firstPass.removeIf(id -> !query.matchesCatalog(catalogIDtoCatalogProduct.get(id)));
+        }
 
-            pass4 = pass3.stream()
-                    .filter(e -> validCatalogIds.contains(e.getCatalogID()))
-                    .collect(Collectors.toList());
+        // 2nd pass: the cheapest of scanning the candidates' offers or walking a price / rating range
+        int scanCost = 0;
+        for (String catalogID : firstPass) {
+            scanCost += catalogIdToStoreOffers.getOrDefault(catalogID, Map.of()).size();
+        }
+        RangePlan plan = planRange(query, scanCost);
+        if (plan == null) {
+            for (String catalogID : firstPass) {
+                for (StoreSearchEntry entry : catalogIdToStoreOffers.getOrDefault(catalogID, Map.of()).values()) {
+                    if (query.matches(entry)) sink.accept(entry);
+                }
+            }
+            return;
+        }
+        // an offer may be seen twice (several categories, or moved by a concurrent update)
+        Set<OfferKey> seen = new HashSet<>();
+        for (OfferRangeIndex<OfferKey> index : plan.indexes()) {
+            index.forEachInRange(plan.field(), plan.min(), plan.max(), k -> {
+                if (!firstPass.contains(k.catalogID()) || !seen.add(k)) return;
+                StoreSearchEntry entry = offers.get(k);
+                if (entry != null && query.matches(entry)) sink.accept(entry);
+            });
         }
+    }
 
-        return pass4;
+    private record RangePlan(List<OfferRangeIndex<OfferKey>> indexes, OfferRangeIndex.Field field,
+                             double min, double max) {}
+
+    // the bounded range with the fewest offers, or null when none beats scanning `scanCost` offers
+    private RangePlan planRange(SearchQuery query, int scanCost) {
+        List<OfferRangeIndex<OfferKey>> indexes;
+        if (query.getCategories().isEmpty()) {
+            indexes = List.of(ranges);
+        } else {
+            indexes = new ArrayList<>();
+            for (String category : query.getCategories()) {
+                OfferRangeIndex<OfferKey> index = categoryRanges.get(category);
+                if (index != null) indexes.add(index);
+            }
+        }
+        RangePlan best = null;
+        int bestCost = scanCost;
+        RangePlan[] candidates = {
+                new RangePlan(indexes, OfferRangeIndex.Field.PRICE, query.getMinPrice(), query.getMaxPrice()),
+                new RangePlan(indexes, OfferRangeIndex.Field.RATING, query.getMinRating(), query.getMaxRating())
+        };
+        for (RangePlan candidate : candidates) {
+            if (candidate.min() == Double.NEGATIVE_INFINITY && candidate.max() == Double.POSITIVE_INFINITY) continue;
+            int cost = 0;
+            for (OfferRangeIndex<OfferKey> index : indexes) {
+                cost += index.countAtMost(candidate.field(), candidate.min(), candidate.max(), bestCost - cost);
+                if (cost >= bestCost) break;
+            }
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
     }
 
     @Override
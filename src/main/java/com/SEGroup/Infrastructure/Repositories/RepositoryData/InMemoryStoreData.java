@@ -1,59 +1,201 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
 import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
 import com.SEGroup.DTO.StoreDTO;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ReviewCursor;
 import com.SEGroup.Domain.Store.ShoppingProduct;
 import com.SEGroup.Domain.Store.Store;
 import com.SEGroup.Mapper.StoreMapper;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
 
+/**
+ * In-memory store data.
+ *
+ * Stores are kept in a concurrent map keyed by name, so every lookup is O(1) whatever the
+ * number of stores. A reverse index maps each owner and manager email to the names of the
+ * stores they work in; it is refreshed from the store's staff whenever the store is saved or
+ * updated, which is how appointOwner, removeOwner, resignOwnership and appointManager persist.
+ */
 public class InMemoryStoreData implements StoreData {
 
-    private final List<Store> stores = new ArrayList<>();
+    private final Map<String, Store> storesByName = new ConcurrentHashMap<>();
+    // names in creation order, so getAllStores keeps listing stores the way it always did
+    private final Queue<String> creationOrder = new ConcurrentLinkedQueue<>();
+    // names in listing order, for paged store cards
+    private final Set<String> sortedNames = new ConcurrentSkipListSet<>();
+    // email → names of the stores where it is an owner or a manager
+    private final Map<String, Set<String>> storesByStaff = new ConcurrentHashMap<>();
+    // store name → the staff it is currently indexed under
+    private final Map<String, Set<String>> indexedStaff = new ConcurrentHashMap<>();
+    private final StoreMapper storeMapper = new StoreMapper();
 
     @Override
     public List<Store> getAllStores() {
+        List<Store> stores = new ArrayList<>(storesByName.size());
+        for (String name : creationOrder) {
+            stores.add(storesByName.get(name));
+        }
         return stores;
     }
     @Override
     public void saveStore(Store store) {
-        stores.add(store);
+        if (storesByName.put(store.getName(), store) == null) {
+            creationOrder.add(store.getName());
+            sortedNames.add(store.getName());
+        }
+        indexStaff(store);
     }
 
     @Override
     public Store findByName(String name) {
-        Store find_store = stores.stream()
-                .filter(store -> store.getName().equals(name))
-                .findFirst()
-                .orElse(null);
+        Store find_store = name == null ? null : storesByName.get(name);
         if (find_store == null) {
             throw new RuntimeException("Store does not exist");
         }
         return find_store;
     }
     @Override
+    public Store findByName(String name, StoreFetchPlan plan) {
+        return findByName(name);
+    }
+    @Override
     public boolean isStoreExist(String name) {
-        return stores.stream().anyMatch(store -> store.getName().equals(name));
+        return name != null && storesByName.containsKey(name);
     }
     @Override
     public List<Store> getStoresOwnedBy(String ownerEmail) {
-        return stores;
+        List<Store> owned = new ArrayList<>();
+        for (String name : storesByStaff.getOrDefault(ownerEmail, Set.of())) {
+            Store store = storesByName.get(name);
+            if (store != null && store.isOwner(ownerEmail)) owned.add(store);
+        }
+        return owned;
     }
     @Override
     public void updateStore(Store store) {
-        for (int i = 0; i < stores.size(); i++) {
-            Store existingStore = stores.get(i);
-            if (existingStore.getName().equals(store.getName())) {
-                stores.set(i, store);
-                return;
+        if (storesByName.replace(store.getName(), store) == null) {
+            throw new RuntimeException("Store to update does not exist: " + store.getName());
+        }
+        indexStaff(store);
+    }
+
+    // the stored objects are the live ones, so recorded changes are already in place; new reviews are added
+    @Override
+    public void saveChanges(StoreChanges changes) {
+        for (Review review : changes.changedReviews()) {
+            changes.store().addStoreReview(review);
+        }
+        updateStore(changes.store());
+    }
+
+    // moves the store between the staff buckets of whoever joined or left since it was last indexed
+    private void indexStaff(Store store) {
+        String name = store.getName();
+        Set<String> staff = new HashSet<>(store.getAllOwners());
+        staff.addAll(store.getAllManagers());
+        indexedStaff.compute(name, (n, previous) -> {
+            Set<String> before = previous == null ? Set.of() : previous;
+            for (String email : before) {
+                if (!staff.contains(email)) {
+                    storesByStaff.computeIfPresent(email, (e, names) -> {
+                        names.remove(n);
+                        return names.isEmpty() ? null : names;
+                    });
+                }
+            }
+            for (String email : staff) {
+                if (!before.contains(email)) {
+                    storesByStaff.compute(email, (e, names) -> {
+                        if (names == null) names = ConcurrentHashMap.newKeySet();
+                        names.add(n);
+                        return names;
+                    });
+                }
+            }
+            return staff;
+        });
+    }
+
+    @Override
+    public List<ShoppingProductDTO> findProducts(Map<String, Set<String>> productIdsByStore) {
+        List<ShoppingProductDTO> found = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : productIdsByStore.entrySet()) {
+            Store store = storesByName.get(entry.getKey());
+            if (store == null) continue;
+            for (String productId : entry.getValue()) {
+                ShoppingProduct product = store.getProduct(productId);
+                if (product != null) found.add(storeMapper.toDTO(product));
             }
         }
-        throw new RuntimeException("Store to update does not exist: " + store.getName());
+        return found;
     }
 
+    @Override
+    public Map<String, String> findFounders(Set<String> storeNames) {
+        Map<String, String> founders = new HashMap<>();
+        for (String storeName : storeNames) {
+            Store store = storesByName.get(storeName);
+            if (store != null) founders.put(storeName, store.getfounderEmail());
+        }
+        return founders;
+    }
+
+    @Override
+    public List<StoreCardDto> listStoreCards(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Invalid page " + page + " of size " + size);
+        }
+        List<StoreCardDto> cards = new ArrayList<>(size);
+        long skip = (long) page * size;
+        for (String name : sortedNames) {
+            if (skip-- > 0) continue;
+            Store store = storesByName.get(name);
+            cards.add(new StoreCardDto(store.getName(), store.getfounderEmail(), store.averageRating(),
+                    store.getDescription(), store.getAllProducts().size()));
+            if (cards.size() == size) break;
+        }
+        return cards;
+    }
+
+    @Override
+    public List<Review> findReviews(String storeName, String reviewerName, ReviewCursor after, int limit) {
+        Store store = storesByName.get(storeName);
+        return store == null ? new ArrayList<>() : store.findStoreReviews(reviewerName, after, limit);
+    }
 
+    @Override
+    public Review findReview(String storeName, String reviewId) {
+        Store store = storesByName.get(storeName);
+        return store == null ? null : store.getStoreReviewById(reviewId);
+    }
 
+    // the live product is the stock, so a compare-and-set on it is the whole write
+    @Override
+    public boolean takeQuantity(String storeName, String productId, int amount) {
+        ShoppingProduct product = liveProduct(storeName, productId);
+        return product != null && product.tryTakeQuantity(amount);
+    }
 
+    @Override
+    public void returnQuantity(String storeName, String productId, int amount) {
+        ShoppingProduct product = liveProduct(storeName, productId);
+        if (product != null) product.returnQuantity(amount);
+    }
+
+    private ShoppingProduct liveProduct(String storeName, String productId) {
+        Store store = storesByName.get(storeName);
+        return store == null ? null : store.getProduct(productId);
+    }
 }
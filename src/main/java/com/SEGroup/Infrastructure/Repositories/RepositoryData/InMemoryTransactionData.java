@@ -1,9 +1,13 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Domain.Transaction.Transaction;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.List;
 
@@ -11,6 +15,10 @@ public class InMemoryTransactionData implements TransactionData {
 
     private final Map<Integer, Transaction> transactions = new ConcurrentHashMap<>();
     private final AtomicInteger idCounter = new AtomicInteger(1);
+    private final Map<String, CheckoutSaga> sagas = new ConcurrentHashMap<>();
+    // kept in id order, so the oldest messages come first
+    private final NavigableMap<Long, OutboxMessage> outbox = new ConcurrentSkipListMap<>();
+    private final AtomicLong outboxIdCounter = new AtomicLong(1);
 
     @Override
     public Transaction getTransactionById(int id) {
@@ -29,6 +37,11 @@ public class InMemoryTransactionData implements TransactionData {
         transactions.put(id, transaction);
     }
 
+    @Override
+    public void saveTransactions(List<Transaction> transactions) {
+        transactions.forEach(this::saveTransaction);
+    }
+
     @Override
     public void updateTransaction(Transaction transaction) {
         if (!transactions.containsKey(transaction.getId()))
@@ -49,4 +62,55 @@ public class InMemoryTransactionData implements TransactionData {
                 .filter(t -> t.getBuyersEmail().equalsIgnoreCase(email))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public void startCheckout(CheckoutSaga saga) {
+        sagas.put(saga.getId(), saga);
+    }
+
+    // the stored saga is the same object, whose own transition already checked the status
+    @Override
+    public synchronized void moveCheckout(CheckoutSaga saga, CheckoutSaga.Status from, List<OutboxMessage> messages) {
+        if (!sagas.containsKey(saga.getId())) {
+            throw new RuntimeException("Checkout " + saga.getId() + " was never started");
+        }
+        sagas.put(saga.getId(), saga);
+        addOutboxMessages(messages);
+    }
+
+    @Override
+    public synchronized void completeCheckout(CheckoutSaga saga, List<Transaction> transactions, List<OutboxMessage> messages) {
+        CheckoutSaga stored = sagas.get(saga.getId());
+        if (stored == null || !stored.getStatus().canComplete()) {
+            throw new RuntimeException("Checkout " + saga.getId() + " is no longer open");
+        }
+        saveTransactions(transactions);
+        addOutboxMessages(messages);
+        stored.complete();
+    }
+
+    @Override
+    public void addOutboxMessages(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            message.setId(outboxIdCounter.getAndIncrement());
+            outbox.put(message.getId(), message);
+        }
+    }
+
+    @Override
+    public List<CheckoutSaga> getCheckoutsByStatus(CheckoutSaga.Status status) {
+        return sagas.values().stream()
+                .filter(s -> s.getStatus() == status)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<OutboxMessage> getOutboxMessages(int limit) {
+        return outbox.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteOutboxMessages(List<Long> ids) {
+        ids.forEach(outbox::remove);
+    }
 }
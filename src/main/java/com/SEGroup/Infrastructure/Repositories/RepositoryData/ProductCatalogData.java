@@ -1,9 +1,16 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.DTO.ProductKeyDTO;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Lower‐level persistence abstraction for product catalog.
@@ -73,6 +80,21 @@ public interface ProductCatalogData {
             List<String> cats
     );
 
+    // Typed search: filters already compiled into a SearchQuery
+    List<StoreSearchEntry> search(SearchQuery query);
+
+    // One page of a typed search in the given order, continuing after the cursor (null = first page)
+    SearchPage<StoreSearchEntry> searchPage(SearchQuery query, SearchSort sort, int pageSize, String cursor);
+
+    // The K best matches under the scorer, best first, kept in a bounded heap while scanning
+    List<ScoredEntry> searchTopK(SearchQuery query, int k, SearchScorer scorer);
+
+    // Names / brands starting with the prefix (or with a word starting with it), most offered first
+    List<String> autocomplete(String prefix, int limit);
+
+    // Image URL of each of the offers that has one, looked up together; offers without an image are left out
+    Map<ProductKeyDTO, String> getOfferImages(List<ProductKeyDTO> keys);
+
     // Throw an exception if the catalogID does not exist
     void isProductExist(String catalogID) throws Exception;
 
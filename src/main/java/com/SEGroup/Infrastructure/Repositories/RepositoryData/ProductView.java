@@ -0,0 +1,137 @@
+package com.SEGroup.Infrastructure.Repositories.RepositoryData;
+
+import com.SEGroup.DTO.ShoppingProductDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Materialized list of the products of every open store, ordered by store name and then
+ * product id. The owner keeps it up to date after each write instead of rebuilding it from
+ * all stores on every read.
+ *
+ * Readers take the current immutable snapshot without locking, so a page costs O(page size).
+ * Writers are serialized and copy the snapshot array. Each product is held as a private copy
+ * and every read returns fresh copies, so callers may modify what they get.
+ */
+public class ProductView {
+
+    private static final Comparator<ShoppingProductDTO> ORDER = Comparator
+            .comparing(ShoppingProductDTO::getStoreName)
+            .thenComparing(ShoppingProductDTO::getProductId);
+
+    private volatile ShoppingProductDTO[] snapshot = new ShoppingProductDTO[0];
+    // guarded by this; until built, updates are skipped because the build reads the current data
+    private boolean built;
+
+    /**
+     * Builds the view from the given products unless it is built already. Updates wait for the
+     * build, so a write that races the build is applied on top of it rather than lost.
+     */
+    public synchronized void ensureBuilt(Supplier<Collection<ShoppingProductDTO>> allProducts) {
+        if (built) return;
+        snapshot = sorted(allProducts.get());
+        built = true;
+    }
+
+    /**
+     * Replaces every product of a store, e.g. after products were added or removed, or the store
+     * was closed (no products) or reopened (all of them).
+     */
+    public synchronized void replaceStore(String storeName, Collection<ShoppingProductDTO> products) {
+        if (!built) return;
+        ShoppingProductDTO[] current = snapshot;
+        int from = firstOfStore(current, storeName);
+        int to = from;
+        while (to < current.length && current[to].getStoreName().equals(storeName)) to++;
+
+        ShoppingProductDTO[] store = sorted(products);
+        ShoppingProductDTO[] next = new ShoppingProductDTO[current.length - (to - from) + store.length];
+        System.arraycopy(current, 0, next, 0, from);
+        System.arraycopy(store, 0, next, from, store.length);
+        System.arraycopy(current, to, next, from + store.length, current.length - to);
+        snapshot = next;
+    }
+
+    /**
+     * Replaces products already in the view with their new state. Products that are not in the
+     * view, such as those of a closed store, are ignored.
+     */
+    public synchronized void updateProducts(Collection<ShoppingProductDTO> products) {
+        if (!built || products.isEmpty()) return;
+        ShoppingProductDTO[] next = snapshot.clone();
+        for (ShoppingProductDTO product : products) {
+            int at = Arrays.binarySearch(next, product, ORDER);
+            if (at >= 0) next[at] = copy(product);
+        }
+        snapshot = next;
+    }
+
+    /**
+     * Like {@link #updateProducts}, reading the products while holding the view, so that
+     * refreshes racing each other are applied in the order they read. Nothing is read while
+     * the view is not built.
+     */
+    public synchronized void refreshProducts(Supplier<Collection<ShoppingProductDTO>> products) {
+        if (!built) return;
+        updateProducts(products.get());
+    }
+
+    /**
+     * One page of the view.
+     *
+     * @param page The zero-based page number.
+     * @param size The page size; must be positive.
+     * @return The products of the page; empty past the last page.
+     */
+    public List<ShoppingProductDTO> page(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Page must be non-negative and size positive");
+        }
+        ShoppingProductDTO[] current = snapshot;
+        long from = (long) page * size;
+        if (from >= current.length) return List.of();
+        return copies(current, (int) from, (int) Math.min(current.length, from + size));
+    }
+
+    public List<ShoppingProductDTO> all() {
+        ShoppingProductDTO[] current = snapshot;
+        return copies(current, 0, current.length);
+    }
+
+    public int size() {
+        return snapshot.length;
+    }
+
+    private static int firstOfStore(ShoppingProductDTO[] products, String storeName) {
+        int low = 0, high = products.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (products[mid].getStoreName().compareTo(storeName) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static ShoppingProductDTO[] sorted(Collection<ShoppingProductDTO> products) {
+        ShoppingProductDTO[] array = products.stream().map(ProductView::copy).toArray(ShoppingProductDTO[]::new);
+        Arrays.sort(array, ORDER);
+        return array;
+    }
+
+    private static List<ShoppingProductDTO> copies(ShoppingProductDTO[] products, int from, int to) {
+        List<ShoppingProductDTO> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) page.add(copy(products[i]));
+        return page;
+    }
+
+    private static ShoppingProductDTO copy(ShoppingProductDTO product) {
+        return new ShoppingProductDTO(product.getStoreName(), product.getCatalogID(), product.getProductId(),
+                product.getName(), product.getDescription(), product.getPrice(), product.getQuantity(),
+                product.getAvgRating(), product.getImageUrl(), product.getCategories());
+    }
+}
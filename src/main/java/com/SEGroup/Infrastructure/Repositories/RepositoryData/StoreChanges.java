@@ -0,0 +1,66 @@
+package com.SEGroup.Infrastructure.Repositories.RepositoryData;
+
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unit of work for one loaded store: records which parts of it an operation changed,
+ * so the store data writes those rows only instead of merging the whole aggregate.
+ * Reviews are rows of their own and are recorded here whether added or edited. Other changes
+ * that add or remove children (products, staff, store ratings) are not tracked here and still
+ * go through {@link StoreData#updateStore(Store)}.
+ */
+public class StoreChanges {
+    private final Store store;
+    private boolean storeRow;
+    private final Map<String, ShoppingProduct> products = new LinkedHashMap<>();
+    private final Map<String, Review> reviews = new LinkedHashMap<>();
+
+    public StoreChanges(Store store) {
+        this.store = store;
+    }
+
+    /** Marks the store's own columns (balance, description, active flag) as changed. */
+    public StoreChanges storeRow() {
+        this.storeRow = true;
+        return this;
+    }
+
+    /** Marks a product as changed: its columns, ratings, bids or auction. */
+    public StoreChanges product(ShoppingProduct product) {
+        products.put(product.getProductId(), product);
+        return this;
+    }
+
+    /** Marks a review of the store as added or edited. */
+    public StoreChanges review(Review review) {
+        reviews.put(review.getReviewerId(), review);
+        return this;
+    }
+
+    public Store store() {
+        return store;
+    }
+
+    public boolean isStoreRowChanged() {
+        return storeRow;
+    }
+
+    public Collection<ShoppingProduct> changedProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    public Collection<Review> changedReviews() {
+        return Collections.unmodifiableCollection(reviews.values());
+    }
+
+    public boolean isEmpty() {
+        return !storeRow && products.isEmpty() && reviews.isEmpty();
+    }
+}
@@ -1,14 +1,38 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ReviewCursor;
 import com.SEGroup.Domain.Store.Store;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface StoreData {
     Store findByName(String storeName);
+    // Only the part of the store the plan names is guaranteed to be loaded
+    Store findByName(String storeName, StoreFetchPlan plan);
     void saveStore(Store store);
     void updateStore(Store store);
+    // Writes only what the unit of work recorded as changed, not the whole aggregate
+    void saveChanges(StoreChanges changes);
     List<Store> getAllStores();
     boolean isStoreExist(String storeName);
     public List<Store> getStoresOwnedBy(String ownerEmail);
+    // Products of several stores, each store resolved once; missing stores/products are skipped, order is unspecified
+    List<ShoppingProductDTO> findProducts(Map<String, Set<String>> productIdsByStore);
+    // Founder email by store name for several stores, without loading them; missing stores are left out
+    Map<String, String> findFounders(Set<String> storeNames);
+    // One page of store summaries ordered by store name, without loading products, reviews or staff
+    List<StoreCardDto> listStoreCards(int page, int size);
+    // Takes amount units of a product in one atomic step if that many are left; false (taking nothing) if not, or if there is no such product
+    boolean takeQuantity(String storeName, String productId, int amount);
+    // Puts back units taken by takeQuantity, in one atomic step
+    void returnQuantity(String storeName, String productId, int amount);
+    // Up to limit reviews of a store strictly after the cursor, newest first; only reviewerName's unless it is null
+    List<Review> findReviews(String storeName, String reviewerName, ReviewCursor after, int limit);
+    // One review of a store, or null
+    Review findReview(String storeName, String reviewId);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.SEGroup.Infrastructure.Repositories.RepositoryData;
+
+/**
+ * What part of a store aggregate a repository operation reads.
+ * The database loads only that part; the in-memory data always has the whole store.
+ */
+public enum StoreFetchPlan {
+    /** Store row with owners and managers: authorization checks and role changes. */
+    STAFF,
+    /** Store row with products and their categories: product pages, pricing and taking basket items. */
+    PRODUCTS,
+    /** The whole aggregate, including reviews, ratings, bids and auctions. */
+    FULL
+}
@@ -1,5 +1,7 @@
 package com.SEGroup.Infrastructure.Repositories.RepositoryData;
 
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Domain.Transaction.Transaction;
 
 import java.util.List;
@@ -8,7 +10,28 @@ public interface TransactionData {
     Transaction getTransactionById(int id);
     List<Transaction> getAllTransactions();
     void saveTransaction(Transaction transaction);
+    /** Inserts several transactions in one write (JDBC batches for the database). */
+    void saveTransactions(List<Transaction> transactions);
     void updateTransaction(Transaction transaction);
     void deleteTransaction(int id);
     List<Transaction> getTransactionsByUserEmail(String email);
+
+    /** Inserts a new checkout saga. */
+    void startCheckout(CheckoutSaga saga);
+    /**
+     * Saves a saga's move to its current status, with the gateway ids it recorded, and inserts
+     * the messages in the same write; fails, writing nothing, if the stored saga is no longer
+     * in {@code from}.
+     */
+    void moveCheckout(CheckoutSaga saga, CheckoutSaga.Status from, List<OutboxMessage> messages);
+    /**
+     * Atomically marks an open saga completed (the given object too) and saves its transactions
+     * and outbox messages; fails, writing nothing, if the saga is no longer open.
+     */
+    void completeCheckout(CheckoutSaga saga, List<Transaction> transactions, List<OutboxMessage> messages);
+    List<CheckoutSaga> getCheckoutsByStatus(CheckoutSaga.Status status);
+    /** The oldest outbox messages first. */
+    List<OutboxMessage> getOutboxMessages(int limit);
+    void addOutboxMessages(List<OutboxMessage> messages);
+    void deleteOutboxMessages(List<Long> ids);
 }
@@ -4,6 +4,7 @@ import java.util.Date;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -12,9 +13,13 @@ import com.SEGroup.DTO.*;
 import com.SEGroup.Domain.Discount.Discount;
 import com.SEGroup.Domain.Discount.DiscountType;
 import com.SEGroup.Domain.IStoreRepository;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
 import com.SEGroup.Domain.Store.*;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.ProductView;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreChanges;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreFetchPlan;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.UserData;
 import com.SEGroup.Mapper.StoreMapper;
 import org.springframework.context.annotation.Profile;
@@ -33,6 +38,7 @@ import org.springframework.stereotype.Repository;;
 public class StoreRepository implements IStoreRepository {
     private final StoreData storeData;
     private StoreMapper storeMapper = new StoreMapper();
+    private final ProductView productView = new ProductView();
 
     public StoreRepository(StoreData storeData) {
         this.storeData = storeData;
@@ -99,7 +105,8 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("Only the founder or Admin can close the store");
         }
         store.close();
-        storeData.updateStore(store);
+        save(new StoreChanges(store).storeRow());
+        refreshProductView(store);
         return store.getAllWorkers();
     }
 
@@ -117,7 +124,8 @@ public class StoreRepository implements IStoreRepository {
         }
 
         store.open();
-        storeData.updateStore(store);
+        save(new StoreChanges(store).storeRow());
+        refreshProductView(store);
         return store.getAllWorkers();
     }
 
@@ -138,8 +146,9 @@ public class StoreRepository implements IStoreRepository {
         if (!store.isOwnerOrHasManagerPermissions(email)) {
             throw new RuntimeException("User is not authorized to update product");
         }
-        ShoppingProductDTO productDTO = convertProductToDTO(store.updateShoppingProduct(catalogID, price, description));
-        storeData.updateStore(store);
+        ShoppingProduct product = store.updateShoppingProduct(catalogID, price, description);
+        save(new StoreChanges(store).product(product));
+        ShoppingProductDTO productDTO = convertProductToDTO(product);
         return productDTO;
     }
 
@@ -164,6 +173,7 @@ public class StoreRepository implements IStoreRepository {
             String productid = store.addProductToStore(email, storeName, catalogID, product_name, description, price,
                     quantity, isAdmin, imageURL, categories);
             storeData.updateStore(store);
+            refreshProductView(store);
             return productid;
         }
 
@@ -181,6 +191,11 @@ public class StoreRepository implements IStoreRepository {
         return storeData.findByName(name);
     }
 
+    // loads only the part of the store the operation reads (see StoreFetchPlan)
+    private Store findByName(String name, StoreFetchPlan plan) {
+        return storeData.findByName(name, plan);
+    }
+
     /**
      * Checks if a store with the specified name exists.
      *
@@ -201,7 +216,7 @@ public class StoreRepository implements IStoreRepository {
      */
     @Override
     public void appointOwner(String storeName, String appointerEmail, String newOwnerEmail, boolean isAdmin) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         store.appointOwner(appointerEmail, newOwnerEmail, isAdmin);
         storeData.updateStore(store);
     }
@@ -215,7 +230,7 @@ public class StoreRepository implements IStoreRepository {
      */
     @Override
     public void removeOwner(String storeName, String removerEmail, String ownerToRemove, boolean isAdmin) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         store.removeOwner(removerEmail, ownerToRemove, isAdmin);
         storeData.updateStore(store);
     }
@@ -228,7 +243,7 @@ public class StoreRepository implements IStoreRepository {
      */
     @Override
     public void resignOwnership(String storeName, String ownerEmail) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         store.resignOwnership(ownerEmail);
         storeData.updateStore(store);
     }
@@ -244,7 +259,7 @@ public class StoreRepository implements IStoreRepository {
     @Override
     public void appointManager(String storeName, String ownerEmail, String managerEmail, List<String> permissions,
             boolean isAdmin) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         Set<ManagerPermission> permissionSet = new HashSet<>();
         for (String perm : permissions) {
             permissionSet.add(ManagerPermission.valueOf(perm));
@@ -266,7 +281,7 @@ public class StoreRepository implements IStoreRepository {
     @Override
     public void updateManagerPermissions(String storeName, String ownerEmail, String managerEmail,
             List<String> newPermissions) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         Set<ManagerPermission> permissionSet = new HashSet<>();
         for (String perm : newPermissions) {
             permissionSet.add(ManagerPermission.valueOf(perm));
@@ -287,7 +302,7 @@ public class StoreRepository implements IStoreRepository {
 
     @Override
     public List<String> getManagerPermissions(String storeName, String operatorEmail, String managerEmail) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         if (!store.isOwnerOrHasManagerPermissions(operatorEmail)
                 && !store.hasManagerPermission(operatorEmail, ManagerPermission.MANAGE_ROLES)) {
             throw new RuntimeException("User is not authorized to view manager permissions");
@@ -304,7 +319,7 @@ public class StoreRepository implements IStoreRepository {
      */
     @Override
     public List<String> getAllOwners(String storeName, String operatorEmail) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         // —> Authorization guard removed so any caller can retrieve the owner list
         return store.getAllOwners();
     }
@@ -318,7 +333,7 @@ public class StoreRepository implements IStoreRepository {
      */
     @Override
     public List<String> getAllManagers(String storeName, String operatorEmail) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
 
         if (!store.isOwner(operatorEmail)
                 && !store.hasManagerPermission(operatorEmail, ManagerPermission.MANAGE_ROLES)) {
@@ -344,6 +359,7 @@ public class StoreRepository implements IStoreRepository {
             store.removeProduct(productID);
         }
         storeData.updateStore(store);
+        refreshProductView(store);
         return product;
     }
 
@@ -360,8 +376,9 @@ public class StoreRepository implements IStoreRepository {
     @Override
     public ShoppingProductDTO rateProduct(String email, String storeName, String productID, int rating, String review) {
         Store store = findByName(storeName);
-        ShoppingProductDTO productDTO = convertProductToDTO(store.rateProduct(email, productID, rating, review));
-        storeData.updateStore(store);
+        ShoppingProduct product = store.rateProduct(email, productID, rating, review);
+        save(new StoreChanges(store).product(product));
+        ShoppingProductDTO productDTO = convertProductToDTO(product);
         return productDTO;
     }
 
@@ -398,7 +415,7 @@ public class StoreRepository implements IStoreRepository {
 
         if (amount <= 0)
             throw new IllegalArgumentException("Amount must be positive");
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         boolean authorised = store.isOwner(operatorEmail) ||
                 store.isOwnerOrHasManagerBidPermission(operatorEmail,
                         ManagerPermission.MANAGE_ROLES);
@@ -406,7 +423,40 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("User is not allowed to modify balance");
 
         store.addToBalance(amount);
-        storeData.updateStore(store);
+        save(new StoreChanges(store).storeRow());
+    }
+
+    // writes the recorded changes and brings the product view up to date with them
+    private void save(StoreChanges changes) {
+        storeData.saveChanges(changes);
+        productView.updateProducts(changes.changedProducts().stream().map(this::convertProductToDTO).toList());
+    }
+
+    // after products were added or removed, or the store was opened or closed; needs the store's products loaded
+    private void refreshProductView(Store store) {
+        productView.replaceStore(store.getName(), store.isActive()
+                ? store.getAllProducts().stream().map(this::convertProductToDTO).toList()
+                : List.of());
+    }
+
+    private void buildProductView() {
+        productView.ensureBuilt(() -> storeData.getAllStores().stream()
+                .filter(Store::isActive)
+                .flatMap(store -> store.getAllProducts().stream())
+                .map(this::convertProductToDTO)
+                .toList());
+    }
+
+    @Override
+    public List<ShoppingProductDTO> getAllProducts() {
+        buildProductView();
+        return productView.all();
+    }
+
+    @Override
+    public List<ShoppingProductDTO> getAllProducts(int page, int size) {
+        buildProductView();
+        return productView.page(page, size);
     }
 
     /**
@@ -430,41 +480,43 @@ public class StoreRepository implements IStoreRepository {
                 product.getCategories());
     }
 
+    // no store-wide lock: the store data takes each product's stock atomically (see StoreData#takeQuantity)
     @Override
     public Map<BasketDTO, Double> removeItemsFromStores(List<BasketDTO> basketDTOList) {
         Map<BasketDTO, Double> basketToTotalPrice = new HashMap<>();
-        List<BasketDTO> succeededRemovals = new ArrayList<>();
+        List<BasketDTO> taken = new ArrayList<>();
 
         try {
             for (BasketDTO basketDTO : basketDTOList) {
-                Store store = findByName(basketDTO.storeId());
+                Store store = findByName(basketDTO.storeId(), StoreFetchPlan.PRODUCTS);
+                if (store == null) {
+                    throw new RuntimeException("Store not found: " + basketDTO.storeId());
+                }
                 double storeTotal = 0;
 
                 for (Map.Entry<String, Integer> entry : basketDTO.prod2qty().entrySet()) {
                     String productId = entry.getKey();
                     int quantityToRemove = entry.getValue();
-
                     ShoppingProduct product = store.getProduct(productId);
                     if (product == null) {
                         throw new RuntimeException("Product not found: " + productId);
                     }
-
-                    if (product.getQuantity() < quantityToRemove) {
+                    if (quantityToRemove < 0) {
+                        throw new RuntimeException("Invalid quantity for product: " + productId);
+                    }
+                    if (!storeData.takeQuantity(store.getName(), productId, quantityToRemove)) {
                         throw new RuntimeException("Not enough quantity for product: " + productId);
                     }
-
-                    product.setQuantity(product.getQuantity() - quantityToRemove);
+                    taken.add(new BasketDTO(store.getName(), Map.of(productId, quantityToRemove)));
                     storeTotal += product.getPrice() * quantityToRemove;
                 }
-
-                succeededRemovals.add(basketDTO);
                 basketToTotalPrice.put(basketDTO, storeTotal);
-                storeData.updateStore(store);
             }
         } catch (Exception e) {
-            rollBackItemsToStores(succeededRemovals);
+            rollBackItemsToStores(taken);
             throw new RuntimeException("Failed to remove items from stores: " + e.getMessage());
         }
+        refreshStock(taken);
         return basketToTotalPrice;
     }
 
@@ -473,7 +525,7 @@ public class StoreRepository implements IStoreRepository {
         Map<String, Double> discountedPrices = new HashMap<>();
 
         for (BasketDTO basketDTO : basketDTOList) {
-            Store store = findByName(basketDTO.storeId());
+            Store store = findByName(basketDTO.storeId(), StoreFetchPlan.PRODUCTS);
 
             // Prepare input for the calculateDiscountForBasket method
             Map<ShoppingProduct, Integer> productsWithQuantities = new HashMap<>();
@@ -529,36 +581,54 @@ public class StoreRepository implements IStoreRepository {
     @Override
     public void rollBackItemsToStores(List<BasketDTO> basketDTOList) {
         for (BasketDTO basketDTO : basketDTOList) {
-            Store store = findByName(basketDTO.storeId());
-
             for (Map.Entry<String, Integer> entry : basketDTO.prod2qty().entrySet()) {
-                String productId = entry.getKey();
-                int quantityToAddBack = entry.getValue();
-
-                ShoppingProduct product = store.getProduct(productId);
-                if (product != null) {
-                    product.setQuantity(product.getQuantity() + quantityToAddBack);
-                }
+                storeData.returnQuantity(basketDTO.storeId(), entry.getKey(), entry.getValue());
             }
-            storeData.updateStore(store);
         }
+        refreshStock(basketDTOList);
+    }
+
+    // reads back the stock of the products of the baskets, for the product view
+    private void refreshStock(List<BasketDTO> basketDTOList) {
+        if (basketDTOList.isEmpty()) return;
+        Map<String, Set<String>> productIdsByStore = new LinkedHashMap<>();
+        for (BasketDTO basketDTO : basketDTOList) {
+            productIdsByStore.computeIfAbsent(basketDTO.storeId(), s -> new HashSet<>()).addAll(basketDTO.prod2qty().keySet());
+        }
+        productView.refreshProducts(() -> storeData.findProducts(productIdsByStore));
     }
 
     @Override
     public ShoppingProductDTO getProduct(String storeName, String productID) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.PRODUCTS);
         ShoppingProduct product = store.getProduct(productID);
         return convertProductToDTO(product);
     }
 
+    @Override
+    public List<ShoppingProductDTO> getProducts(List<ProductKeyDTO> keys) {
+        Map<String, Set<String>> productIdsByStore = new LinkedHashMap<>();
+        for (ProductKeyDTO key : keys) {
+            productIdsByStore.computeIfAbsent(key.storeName(), s -> new HashSet<>()).add(key.productId());
+        }
+        Map<ProductKeyDTO, ShoppingProductDTO> byKey = new HashMap<>();
+        for (ShoppingProductDTO product : storeData.findProducts(productIdsByStore)) {
+            byKey.put(new ProductKeyDTO(product.getStoreName(), product.getProductId()), product);
+        }
+        List<ShoppingProductDTO> products = new ArrayList<>(keys.size());
+        for (ProductKeyDTO key : keys) {
+            ShoppingProductDTO product = byKey.get(key);
+            if (product != null) products.add(product);
+        }
+        return products;
+    }
+
     @Override
     public Integer submitBidToShoppingItem(String Email, String storeName, String productId, double bidAmount) {
         Store store = findByName(storeName);
         Integer bidId = store.submitBidToShoppingItem(productId, bidAmount, Email);
-        
-        
-        storeData.updateStore(store);
-        
+        save(new StoreChanges(store).product(store.getProduct(productId)));
+
         return bidId;
     }
 
@@ -583,7 +653,7 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("The bid amount is less than the Starting Price");
         }
         store.submitAuctionOffer(productId, bidAmount, email);
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     public void closeAuction(String storeName, String userId, String productId) {
@@ -597,13 +667,13 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("Auction not found for product: " + productId);
         }
         store.closeAuction(productId);
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
 
     }
 
     @Override
     public Integer getProductQuantity(String storeName, String productId) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.PRODUCTS);
         ShoppingProduct product = store.getProduct(productId);
         if (product == null) {
             throw new RuntimeException("Product not found in store ");
@@ -613,13 +683,25 @@ public class StoreRepository implements IStoreRepository {
 
     @Override
     public String getStoreFounder(String storeName) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         return store.getfounderEmail();
     }
 
+    @Override
+    public Map<String, String> getStoreFounders(Set<String> storeNames) {
+        if (storeNames.isEmpty()) return new HashMap<>();
+        Map<String, String> founders = storeData.findFounders(storeNames);
+        for (String storeName : storeNames) {
+            if (!founders.containsKey(storeName)) {
+                throw new IllegalArgumentException("Store does not exist: " + storeName);
+            }
+        }
+        return founders;
+    }
+
     @Override
     public List<String> getAllBidManagers(String storeName) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         return store.getAllBidManagers();
     }
 
@@ -688,7 +770,7 @@ public class StoreRepository implements IStoreRepository {
             product.setQuantity(product.getQuantity() - 1);
             store.updateProduct(productId, product);
         }
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     public void executeAuctionBid(String email, String storeName, BidDTO bidDTO) {
@@ -725,6 +807,7 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("Bidder is not the highest bidder");
         }
         storeData.updateStore(store);
+        refreshProductView(store);
 
     }
 
@@ -740,7 +823,7 @@ public class StoreRepository implements IStoreRepository {
         }
         product.setQuantity(product.getQuantity() + 1);
         store.updateProduct(bidDTO.getProductId(), product);
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     @Override
@@ -777,7 +860,7 @@ public class StoreRepository implements IStoreRepository {
         } else {
             throw new RuntimeException("User is not authorized to start auction");
         }
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     @Override
@@ -808,20 +891,20 @@ public class StoreRepository implements IStoreRepository {
             throw new RuntimeException("Product not found in store ");
         }
         product.removeBid(bidDTO.getOriginalBidderEmail(), bidDTO.getPrice());
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     @Override
     public void updateStoreDescription(String storeName, String operatorEmail, String description) {
         // Use findByName instead of stores.get(storeName)
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
 
         if (!store.isOwner(operatorEmail)) {
             throw new IllegalArgumentException("User is not authorized to update store description");
         }
 
         store.setDescription(description);
-        storeData.updateStore(store);
+        save(new StoreChanges(store).storeRow());
     }
 
     @Override
@@ -833,9 +916,14 @@ public class StoreRepository implements IStoreRepository {
                 .toList(); // Java 16 + (Collectors.toList() for older)
     }
 
+    @Override
+    public List<StoreCardDto> listStores(int page, int size) {
+        return storeData.listStoreCards(page, size);
+    }
+
     @Override
     public List<ShoppingProductDTO> getStoreProducts(String storeName) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.PRODUCTS);
         List<ShoppingProductDTO> dtos = new ArrayList<>();
         for (ShoppingProduct product : store.getAllProducts()) {
             dtos.add(convertProductToDTO(product));
@@ -873,35 +961,60 @@ public class StoreRepository implements IStoreRepository {
 
     @Override
     public Review getReviewById(String storeName, String reviewId) {
-        Store store = findByName(storeName);
-        if (store == null) {
+        if (!storeData.isStoreExist(storeName)) {
             throw new RuntimeException("Store not found");
         }
-        return store.getStoreReviewById(reviewId);
+        return storeData.findReview(storeName, reviewId);
     }
 
     @Override
-    public List<Review> getStoreReviews(String storeName) {
-        Store store = findByName(storeName);
-        if (store == null) {
+    public SearchPage<Review> getStoreReviews(String storeName, String cursor, int size) {
+        return reviewPage(storeName, null, cursor, size);
+    }
+
+    @Override
+    public SearchPage<Review> getStoreReviewsByUser(String storeName, String userEmail, String cursor, int size) {
+        if (userEmail == null || userEmail.isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        return reviewPage(storeName, userEmail, cursor, size);
+    }
+
+    // fetches one review past the page, so a next cursor is only issued when more reviews exist
+    private SearchPage<Review> reviewPage(String storeName, String reviewerName, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        ReviewCursor after = ReviewCursor.decode(cursor);
+        if (!storeData.isStoreExist(storeName)) {
             throw new RuntimeException("Store not found");
         }
-        return store.getAllStoreReviews();
+        List<Review> fetched = storeData.findReviews(storeName, reviewerName, after, size + 1);
+        if (fetched.size() <= size) {
+            return new SearchPage<>(fetched, null);
+        }
+        List<Review> items = new ArrayList<>(fetched.subList(0, size));
+        return new SearchPage<>(items, ReviewCursor.of(items.get(size - 1)).encode());
     }
 
     @Override
     public void giveStoreComment(String userName, String storeName, String reviewId, String comment) {
-        Store store = findByName(storeName);
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
         if (store == null) {
             throw new RuntimeException("Store not found");
         }
-        store.giveManagementComment(userName, reviewId, comment);
-        storeData.updateStore(store);
+        Review review = storeData.findReview(storeName, reviewId);
+        store.giveManagementComment(userName, review, comment);
+        storeData.saveChanges(new StoreChanges(store).review(review));
     }
 
     @Override
     public void giveStoreReview(String storeName, String userId, String review, String rating) {
-        Store store = findByName(storeName);
+        // the review is written as a row of its own; only the store row is read, for the active check
+        Store store = findByName(storeName, StoreFetchPlan.STAFF);
+        if (store == null) {
+            throw new RuntimeException("Store not found");
+        }
         if (!store.isActive()) {
             throw new RuntimeException("Store is closed - cannot be rated ");
         }
@@ -917,11 +1030,8 @@ public class StoreRepository implements IStoreRepository {
         if (userId == null || userId.isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be null or empty");
         }
-        if (store == null) {
-            throw new RuntimeException("Store not found");
-        }
-        store.giveStoreReview(userId, review, Integer.parseInt(rating));
-        storeData.updateStore(store);
+        Review newReview = store.newStoreReview(userId, review, Integer.parseInt(rating));
+        storeData.saveChanges(new StoreChanges(store).review(newReview));
     }
 
     @Override
@@ -1041,7 +1151,7 @@ public class StoreRepository implements IStoreRepository {
         }
         bid.setState(BidState.PENDINGFORCOSTUMER);
         bid.setAmount(bidDTO.getPrice());
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
     @Override
@@ -1066,7 +1176,7 @@ public class StoreRepository implements IStoreRepository {
         // Update the bid state to COUNTEROFFERED
         bid.setState(BidState.PENDINGFORSELLER);
         bid.setAmount(bidDTO.getPrice());
-        storeData.updateStore(store);
+        save(new StoreChanges(store).product(product));
     }
 
 
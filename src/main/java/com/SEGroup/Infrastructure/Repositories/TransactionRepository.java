@@ -6,8 +6,11 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.SEGroup.DTO.BasketDTO;
 import com.SEGroup.DTO.TransactionDTO;
 import com.SEGroup.Domain.ITransactionRepository;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Domain.Transaction.Transaction;
 import com.SEGroup.Mapper.TransactionMapper;
 import org.springframework.stereotype.Repository;
@@ -41,6 +44,12 @@ public class TransactionRepository implements ITransactionRepository {
         transactionData.saveTransaction(transaction);
     }
 
+    @Override
+    public void addTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) return;
+        transactionData.saveTransactions(transactions);
+    }
+
     @Override
     public TransactionDTO getTransactionById(int id) {
         Transaction transaction = transactionData.getTransactionById(id);
@@ -76,4 +85,80 @@ public class TransactionRepository implements ITransactionRepository {
                 .map(TransactionMapper::toDTO)
                 .toList();
     }
+
+    @Override
+    public CheckoutSaga beginCheckout(String buyer, Map<BasketDTO, Double> basketToPrice) {
+        CheckoutSaga saga = new CheckoutSaga(buyer, basketToPrice);
+        transactionData.startCheckout(saga);
+        return saga;
+    }
+
+    @Override
+    public CheckoutSaga holdStock(String buyer, Map<BasketDTO, Double> basketToPrice, long expiresAt) {
+        CheckoutSaga saga = CheckoutSaga.hold(buyer, basketToPrice, expiresAt);
+        transactionData.startCheckout(saga);
+        return saga;
+    }
+
+    @Override
+    public void takeHeldStock(CheckoutSaga saga) {
+        CheckoutSaga.Status from = saga.getStatus();
+        saga.take();
+        transactionData.moveCheckout(saga, from, List.of());
+    }
+
+    @Override
+    public void recordShipped(CheckoutSaga saga, List<Integer> shipmentIds) {
+        CheckoutSaga.Status from = saga.getStatus();
+        saga.shipped(shipmentIds);
+        transactionData.moveCheckout(saga, from, List.of());
+    }
+
+    @Override
+    public void recordPaid(CheckoutSaga saga, Integer paymentId) {
+        CheckoutSaga.Status from = saga.getStatus();
+        saga.paid(paymentId);
+        transactionData.moveCheckout(saga, from, List.of());
+    }
+
+    @Override
+    public List<OutboxMessage> completeCheckout(CheckoutSaga saga, List<OutboxMessage> messages) {
+        transactionData.completeCheckout(saga, saga.toTransactions(), messages);
+        return messages;
+    }
+
+    @Override
+    public List<OutboxMessage> compensateCheckout(CheckoutSaga saga) {
+        CheckoutSaga.Status from = saga.getStatus();
+        saga.compensate();
+        List<OutboxMessage> cancellations = saga.cancellations();
+        transactionData.moveCheckout(saga, from, cancellations);
+        return cancellations;
+    }
+
+    @Override
+    public List<CheckoutSaga> getUnfinishedCheckouts() {
+        List<CheckoutSaga> unfinished = new ArrayList<>(transactionData.getCheckoutsByStatus(CheckoutSaga.Status.HELD));
+        for (CheckoutSaga.Status status : CheckoutSaga.Status.values()) {
+            if (status.canComplete()) unfinished.addAll(transactionData.getCheckoutsByStatus(status));
+        }
+        return unfinished;
+    }
+
+    @Override
+    public List<OutboxMessage> getOutboxMessages(int limit) {
+        return transactionData.getOutboxMessages(limit);
+    }
+
+    @Override
+    public void queueOutboxMessages(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) return;
+        transactionData.addOutboxMessages(messages);
+    }
+
+    @Override
+    public void deleteOutboxMessages(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        transactionData.deleteOutboxMessages(ids);
+    }
 }
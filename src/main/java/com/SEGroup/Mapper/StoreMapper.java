@@ -26,18 +26,7 @@ public class StoreMapper {
 
         // Convert each product from the store into a ShoppingProductDTO
         for (ShoppingProduct product : domainInstance.getAllProducts()) {
-            productDTOs.add(new ShoppingProductDTO(
-                    product.getStoreName(),
-                    product.getCatalogID(),
-                    product.getProductId(),
-                    product.getName(),
-                    product.getDescription(),
-                    product.getPrice(),
-                    product.getQuantity(),
-                    product.averageRating(),
-                    product.getImageUrl(),
-                    product.getCategories()
-            ));
+            productDTOs.add(toDTO(product));
         }
 
         // Convert the Store domain object to a StoreDTO
@@ -54,6 +43,27 @@ public class StoreMapper {
         return storeDTO;
     }
 
+    /**
+     * Converts a single ShoppingProduct domain object to a ShoppingProductDTO.
+     *
+     * @param product The ShoppingProduct domain object to convert.
+     * @return A ShoppingProductDTO representing the product.
+     */
+    public ShoppingProductDTO toDTO(ShoppingProduct product) {
+        return new ShoppingProductDTO(
+                product.getStoreName(),
+                product.getCatalogID(),
+                product.getProductId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getQuantity(),
+                product.averageRating(),
+                product.getImageUrl(),
+                product.getCategories()
+        );
+    }
+
     /**
      * Converts a list of Store domain objects to a list of StoreDTOs.
      *
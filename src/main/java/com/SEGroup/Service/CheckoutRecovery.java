@@ -0,0 +1,295 @@
+package com.SEGroup.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.SEGroup.Domain.INotificationCenter;
+import com.SEGroup.Domain.IStoreRepository;
+import com.SEGroup.Domain.ITransactionRepository;
+import com.SEGroup.Domain.IUserRepository;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Infrastructure.NotificationCenter.Notification;
+
+/**
+ * Finishes what checkouts leave behind. A checkout that failed, or was cut short before it
+ * committed, is compensated: its saga is closed together with the cancellations of the
+ * shipments and payment it recorded, its stock given back, and the cancellations carried out.
+ * A checkout that committed has its outbox carried out: the store founders notified in one
+ * batch and the buyer's cart cleared, the messages deleted together once done.
+ *
+ * A cancellation is retried until the service answers, since giving up would leave the buyer
+ * charged for a purchase that failed; a refusal is final and is logged for a person to follow
+ * up. Notifications and cart clears are dropped after a few tries.
+ *
+ * {@link #start()} relays the outbox in the background, and compensates the sagas no running
+ * checkout will finish: those left open by the previous run, including the stock holds it left
+ * (no ledger tracks them any more), and those of this run that have been open far longer than
+ * a checkout takes, e.g. because compensating them failed when their checkout did. It assumes
+ * one application instance per database: a saga still open at startup belongs to no running
+ * checkout.
+ */
+public class CheckoutRecovery {
+
+    private static final int OUTBOX_BATCH = 100;
+    private static final long OUTBOX_INTERVAL_MILLIS = 5_000;
+    private static final long RECOVERY_INTERVAL_MILLIS = 60_000;
+    // a message that keeps failing is dropped after this many tries, so it cannot clog the outbox
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ITransactionRepository transactionRepository;
+    private final IStoreRepository storeRepository;
+    private final IUserRepository userRepository;
+    private final INotificationCenter notificationService;
+    private final ExternalCheckout externalCheckout;
+    private final long staleCheckoutMillis;
+    // message id → failed tries
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+    // sagas whose checkout is committing or compensating and delivering its own messages; the relay leaves them alone
+    private final Set<String> committing = ConcurrentHashMap.newKeySet();
+    private final Object relayLock = new Object();
+    private volatile ScheduledExecutorService relay;
+    // sagas started before this are from an earlier run
+    private final long createdAt = System.currentTimeMillis();
+
+    /**
+     * @param externalCheckout    Cancels the shipments and payments of compensated checkouts.
+     * @param staleCheckoutMillis How long after it started (or after its hold expired) an open
+     *                            saga of this run is taken as abandoned and compensated.
+     */
+    public CheckoutRecovery(ITransactionRepository transactionRepository, IStoreRepository storeRepository,
+            IUserRepository userRepository, INotificationCenter notificationService,
+            ExternalCheckout externalCheckout, long staleCheckoutMillis) {
+        this.transactionRepository = transactionRepository;
+        this.storeRepository = storeRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.externalCheckout = externalCheckout;
+        this.staleCheckoutMillis = staleCheckoutMillis;
+    }
+
+    /**
+     * Closes a checkout that will not complete, together with the cancellations of the
+     * shipments and payment it recorded, gives its stock back, and carries out the
+     * cancellations; those that fail are retried by the relay. The saga is closed first, so
+     * neither the stock nor the cancellations are ever given twice.
+     *
+     * @throws RuntimeException if the saga could not be closed; nothing was undone then.
+     */
+    public void compensate(CheckoutSaga saga) {
+        committing.add(saga.getId());
+        try {
+            List<OutboxMessage> cancellations = transactionRepository.compensateCheckout(saga);
+            storeRepository.rollBackItemsToStores(saga.getCart());
+            LoggerWrapper.info("Checkout " + saga.getId() + " of " + saga.getBuyer() + " compensated");
+            deliverNow(cancellations);
+        } finally {
+            synchronized (relayLock) {
+                committing.remove(saga.getId());
+            }
+        }
+    }
+
+    /**
+     * Completes a checkout: commits it with its outbox messages, then carries them out right
+     * away, so the buyer sees the cart cleared and the founders are notified before the
+     * purchase returns. Messages left over if this fails midway are carried out by the relay.
+     *
+     * @throws RuntimeException if the commit failed; nothing was written then.
+     */
+    public void complete(CheckoutSaga saga, List<OutboxMessage> messages) {
+        committing.add(saga.getId());
+        try {
+            List<OutboxMessage> stored = transactionRepository.completeCheckout(saga, messages);
+            deliverNow(stored);
+        } finally {
+            // the relay reads and delivers under this lock, so it either saw the saga as
+            // committing or reads the outbox after these messages were deleted
+            synchronized (relayLock) {
+                committing.remove(saga.getId());
+            }
+        }
+    }
+
+    /**
+     * Queues the cancellation of a shipment or payment of the checkout that could not be
+     * cancelled when it failed, for the relay to retry.
+     */
+    public void cancelLater(CheckoutSaga saga, OutboxMessage.Type type, int id) {
+        OutboxMessage message = type == OutboxMessage.Type.CANCEL_PAYMENT
+                ? OutboxMessage.cancelPayment(saga.getId(), saga.getBuyer(), id)
+                : OutboxMessage.cancelShipment(saga.getId(), saga.getBuyer(), id);
+        transactionRepository.queueOutboxMessages(List.of(message));
+    }
+
+    // the outcome is already committed, so a failure here is only logged: the relay carries out what is left
+    private void deliverNow(List<OutboxMessage> messages) {
+        try {
+            deliver(messages);
+        } catch (Exception e) {
+            LoggerWrapper.error("Failed to carry out the outbox now, the relay will: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compensates every open checkout and stock hold that no running checkout will finish:
+     * those of an earlier run, and those of this run open for longer than a checkout takes.
+     *
+     * @return The number of checkouts and holds compensated.
+     */
+    public int recoverUnfinished() {
+        int compensated = 0;
+        long now = System.currentTimeMillis();
+        for (CheckoutSaga saga : transactionRepository.getUnfinishedCheckouts()) {
+            if (!isAbandoned(saga, now)) continue;
+            try {
+                compensate(saga);
+                compensated++;
+            } catch (Exception e) {
+                LoggerWrapper.error("Failed to compensate checkout " + saga.getId() + ": " + e.getMessage(), e);
+            }
+        }
+        return compensated;
+    }
+
+    // from an earlier run, or open for long after it started, or after its hold expired
+    private boolean isAbandoned(CheckoutSaga saga, long now) {
+        if (saga.getStartedAt() < createdAt) return true;
+        long since = saga.getExpiresAt() != null ? Math.max(saga.getStartedAt(), saga.getExpiresAt()) : saga.getStartedAt();
+        return now - since > staleCheckoutMillis;
+    }
+
+    /**
+     * Carries out the oldest outbox messages.
+     *
+     * @return The number of messages carried out.
+     */
+    public int deliverOutbox() {
+        synchronized (relayLock) {
+            List<OutboxMessage> pending = new ArrayList<>();
+            for (OutboxMessage message : transactionRepository.getOutboxMessages(OUTBOX_BATCH)) {
+                if (!committing.contains(message.getSagaId())) pending.add(message);
+            }
+            return deliver(pending);
+        }
+    }
+
+    // carries out the messages, all notifications in one batch, and deletes the done ones in one write
+    private int deliver(List<OutboxMessage> messages) {
+        List<Long> done = new ArrayList<>();
+        List<OutboxMessage> notifications = new ArrayList<>();
+        List<OutboxMessage> cartClears = new ArrayList<>();
+        List<OutboxMessage> cancellations = new ArrayList<>();
+        for (OutboxMessage message : messages) {
+            switch (message.getType()) {
+                case NOTIFY -> notifications.add(message);
+                case CLEAR_CART -> cartClears.add(message);
+                case CANCEL_SHIPMENT, CANCEL_PAYMENT -> cancellations.add(message);
+            }
+        }
+        int delivered = 0;
+        if (!notifications.isEmpty()) {
+            List<Notification> batch = new ArrayList<>();
+            notifications.forEach(m -> batch.add(new Notification(m.getBody(), m.getRecipient())));
+            delivered += attempt(notifications, () -> notificationService.sendSystemNotifications(batch), done);
+        }
+        for (OutboxMessage message : cartClears) {
+            delivered += attempt(List.of(message), () -> userRepository.clearUserCart(message.getRecipient()), done);
+        }
+        for (OutboxMessage message : cancellations) {
+            delivered += cancel(message, done);
+        }
+        transactionRepository.deleteOutboxMessages(done);
+        return delivered;
+    }
+
+    // a cancellation stays until the service answers it, however many tries that takes
+    private int cancel(OutboxMessage message, List<Long> done) {
+        int id = Integer.parseInt(message.getBody());
+        boolean cancelled;
+        try {
+            cancelled = message.getType() == OutboxMessage.Type.CANCEL_PAYMENT
+                    ? externalCheckout.cancelPayment(id)
+                    : externalCheckout.cancelShipment(id);
+        } catch (Exception e) {
+            int attempts = failedAttempts.merge(message.getId(), 1, Integer::sum);
+            LoggerWrapper.error("Failed to carry out " + message.getType() + " " + id + " of checkout "
+                    + message.getSagaId() + " (try " + attempts + "), will retry: " + e.getMessage(), e);
+            return 0;
+        }
+        if (!cancelled) {
+            LoggerWrapper.error("The service refused " + message.getType() + " " + id + " of checkout "
+                    + message.getSagaId() + " for " + message.getRecipient() + "; it must be undone by hand",
+                    new IllegalStateException(message.getType() + " refused"));
+        }
+        done.add(message.getId());
+        failedAttempts.remove(message.getId());
+        return 1;
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    // runs the step that carries out the messages; if it fails they stay for the next relay, up to MAX_ATTEMPTS tries
+    private int attempt(List<OutboxMessage> messages, Step step, List<Long> done) {
+        try {
+            step.run();
+        } catch (Exception e) {
+            for (OutboxMessage message : messages) {
+                int attempts = failedAttempts.merge(message.getId(), 1, Integer::sum);
+                LoggerWrapper.error("Failed to carry out " + message.getType() + " of checkout " + message.getSagaId()
+                        + " (try " + attempts + "): " + e.getMessage(), e);
+                if (attempts >= MAX_ATTEMPTS) {
+                    done.add(message.getId());
+                    failedAttempts.remove(message.getId());
+                }
+            }
+            return 0;
+        }
+        for (OutboxMessage message : messages) {
+            done.add(message.getId());
+            failedAttempts.remove(message.getId());
+        }
+        return messages.size();
+    }
+
+    /**
+     * On a background thread, compensates the checkouts no running checkout will finish (at
+     * first, those left open by the previous run) every minute, and relays the outbox every
+     * few seconds. Only the first call does anything.
+     */
+    public void start() {
+        if (relay != null) return;
+        synchronized (this) {
+            if (relay != null) return;
+            ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "checkout-recovery");
+                thread.setDaemon(true);
+                return thread;
+            });
+            started.scheduleWithFixedDelay(() -> {
+                try {
+                    int compensated = recoverUnfinished();
+                    if (compensated > 0) LoggerWrapper.info("Compensated " + compensated + " interrupted checkouts");
+                } catch (Exception e) {
+                    LoggerWrapper.error("Failed to recover interrupted checkouts: " + e.getMessage(), e);
+                }
+            }, 0, RECOVERY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            started.scheduleWithFixedDelay(() -> {
+                try {
+                    deliverOutbox();
+                } catch (Exception e) {
+                    LoggerWrapper.error("Failed to relay the checkout outbox: " + e.getMessage(), e);
+                }
+            }, 0, OUTBOX_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            relay = started;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.SEGroup.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.SEGroup.DTO.AddressDTO;
+import com.SEGroup.Domain.IAsyncPaymentGateway;
+import com.SEGroup.Domain.IAsyncShippingService;
+import com.SEGroup.Domain.IPaymentGateway;
+import com.SEGroup.Domain.IShippingService;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Infrastructure.GatewayGuard;
+
+/**
+ * The external calls of a checkout: one shipment per basket, and the payment for the cart.
+ * The shipments are requested all at once, and when the gateway can cancel a payment, the
+ * payment is taken alongside them; otherwise it is taken once every shipment is confirmed,
+ * so that a refused shipment never leaves the buyer charged.
+ *
+ * The checkout fails as soon as any call fails, without waiting for the others. Calls still
+ * in flight are left to finish, and every shipment or payment that went through is then
+ * cancelled as it lands.
+ *
+ * The caller is told of each step through {@link Steps}: once every shipment is confirmed,
+ * and once the payment went through. A step it was told of is the caller's to undo from then
+ * on (the checkout saga records it and cancels it on compensation); only the steps not
+ * reported yet are cancelled here.
+ *
+ * Services without the async API are called on a pool, so their calls overlap too. The pool
+ * is bounded like the gateway's bulkhead: once that many calls are blocked in it, a further
+ * call fails at once as busy instead of starting another thread.
+ */
+public class ExternalCheckout {
+
+    /** What a checkout reports as it goes, so that what went through can be undone later. */
+    public interface Steps {
+
+        /** Reports nothing; the checkout cancels whatever went through if it fails. */
+        Steps NONE = new Steps() {
+            @Override
+            public void shipped(List<Integer> shipmentIds) {
+            }
+
+            @Override
+            public void paid(Integer paymentId) {
+            }
+
+            @Override
+            public void cancelFailed(OutboxMessage.Type type, int id) {
+            }
+        };
+
+        /** Every shipment was confirmed; undoing them is the caller's from now on. */
+        void shipped(List<Integer> shipmentIds);
+
+        /** The payment went through, with the gateway's id or null; undoing it is the caller's from now on. */
+        void paid(Integer paymentId);
+
+        /** Cancelling a shipment or payment that went through before the checkout failed did not reach the service. */
+        void cancelFailed(OutboxMessage.Type type, int id);
+    }
+
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    private final IShippingService shippingService;
+    private final IPaymentGateway paymentGateway;
+    private final ExecutorService blockingCalls;
+
+    public ExternalCheckout(IShippingService shippingService, IPaymentGateway paymentGateway) {
+        this(shippingService, paymentGateway, GatewayGuard.DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    /**
+     * @param maxBlockingCalls The most calls to services without the async API in flight at once.
+     */
+    public ExternalCheckout(IShippingService shippingService, IPaymentGateway paymentGateway, int maxBlockingCalls) {
+        if (maxBlockingCalls <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.shippingService = shippingService;
+        this.paymentGateway = paymentGateway;
+        // no queue: a call either gets a thread or is rejected
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxBlockingCalls, maxBlockingCalls,
+                IDLE_THREAD_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                    Thread thread = new Thread(r, "external-checkout");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.blockingCalls = pool;
+    }
+
+    /**
+     * Ships the baskets of a cart and pays for it.
+     *
+     * @param shipments      The number of shipments, one per basket.
+     * @param address        The address to ship to.
+     * @param buyer          The name the shipments are made out to.
+     * @param paymentDetails The details of the payment method.
+     * @param amount         The amount to pay.
+     * @return The shipping ids.
+     * @throws RuntimeException "Shipping failed: ..." or "Payment failed: ..." if a call failed;
+     *                          whatever went through is cancelled then.
+     */
+    public List<Integer> shipAndPay(int shipments, AddressDTO address, String buyer, String paymentDetails, double amount) {
+        return shipAndPay(shipments, address, buyer, paymentDetails, amount, Steps.NONE);
+    }
+
+    /**
+     * Ships the baskets of a cart and pays for it, reporting each step as it is done.
+     *
+     * @param steps Told when the shipments and when the payment went through; if it fails, the
+     *              checkout fails as if the call had.
+     * @return The shipping ids.
+     * @throws RuntimeException "Shipping failed: ..." or "Payment failed: ..." if a call failed,
+     *                          or whatever {@code steps} threw; whatever went through and was
+     *                          not reported is cancelled then.
+     */
+    public List<Integer> shipAndPay(int shipments, AddressDTO address, String buyer, String paymentDetails, double amount,
+            Steps steps) {
+        List<CompletableFuture<Integer>> shipping = new ArrayList<>();
+        for (int i = 0; i < shipments; i++) {
+            shipping.add(ship(address, buyer));
+        }
+        boolean payAlongside = paymentGateway instanceof IAsyncPaymentGateway;
+        CompletableFuture<Integer> payment = payAlongside ? pay(paymentDetails, amount) : null;
+
+        List<Integer> shipmentIds = null;
+        boolean paid = false;
+        try {
+            List<CompletableFuture<?>> calls = new ArrayList<>();
+            shipping.forEach(call -> calls.add(labelled(call, "Shipping failed: ")));
+            if (payment != null) calls.add(labelled(payment, "Payment failed: "));
+            await(firstFailureOrAll(calls));
+            List<Integer> confirmed = shipping.stream().map(CompletableFuture::join).toList();
+            steps.shipped(confirmed);
+            shipmentIds = confirmed;
+            if (payment == null) {
+                payment = pay(paymentDetails, amount);
+                await(labelled(payment, "Payment failed: "));
+            }
+            steps.paid(payment.join());
+            paid = true;
+        } catch (RuntimeException e) {
+            if (shipmentIds == null) cancelShipments(shipping, steps);
+            if (payment != null && !paid) cancelPayment(payment, steps);
+            throw e;
+        }
+        return shipmentIds;
+    }
+
+    /**
+     * Cancels a shipment, waiting for the answer.
+     *
+     * @return Whether the service cancelled it; false if it refused.
+     * @throws RuntimeException if the service could not be reached.
+     */
+    public boolean cancelShipment(int shipmentId) {
+        if (shippingService instanceof IAsyncShippingService async) {
+            return Boolean.TRUE.equals(await(async.cancelShippingAsync(shipmentId)));
+        }
+        return Boolean.TRUE.equals(shippingService.cancelShipping(shipmentId));
+    }
+
+    /**
+     * Cancels a payment, waiting for the answer. Only a gateway with the async API gives
+     * payment ids, so only its payments can be cancelled.
+     *
+     * @return Whether the gateway cancelled it; false if it refused or cannot cancel payments.
+     * @throws RuntimeException if the gateway could not be reached.
+     */
+    public boolean cancelPayment(int paymentId) {
+        if (!(paymentGateway instanceof IAsyncPaymentGateway async)) return false;
+        return Boolean.TRUE.equals(await(async.cancelPaymentAsync(paymentId)));
+    }
+
+    private CompletableFuture<Integer> ship(AddressDTO address, String buyer) {
+        if (shippingService instanceof IAsyncShippingService async) {
+            return async.shipAsync(address, buyer);
+        }
+        return blocking(() -> shippingService.ship(address, buyer));
+    }
+
+    private CompletableFuture<Integer> pay(String paymentDetails, double amount) {
+        if (paymentGateway instanceof IAsyncPaymentGateway async) {
+            return async.processPaymentAsync(paymentDetails, amount);
+        }
+        return blocking(() -> {
+            paymentGateway.processPayment(paymentDetails, amount);
+            return null;
+        });
+    }
+
+    // a call to a blocking service on the bounded pool; fails as busy when the pool is full
+    private <T> CompletableFuture<T> blocking(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, blockingCalls);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("External service busy, try again later", e));
+        }
+    }
+
+    private void cancelShipments(List<CompletableFuture<Integer>> shipping, Steps steps) {
+        for (CompletableFuture<Integer> shipment : shipping) {
+            shipment.thenAccept(id -> {
+                try {
+                    if (shippingService instanceof IAsyncShippingService async) {
+                        async.cancelShippingAsync(id).exceptionally(e ->
+                                cancelFailed(steps, OutboxMessage.Type.CANCEL_SHIPMENT, id, e));
+                    } else {
+                        shippingService.cancelShipping(id);
+                    }
+                } catch (RuntimeException e) {
+                    cancelFailed(steps, OutboxMessage.Type.CANCEL_SHIPMENT, id, e);
+                }
+            });
+        }
+    }
+
+    // only an async gateway's payment has an id, so only it can be cancelled
+    private void cancelPayment(CompletableFuture<Integer> payment, Steps steps) {
+        if (!(paymentGateway instanceof IAsyncPaymentGateway async)) return;
+        payment.thenAccept(id -> async.cancelPaymentAsync(id).exceptionally(e ->
+                cancelFailed(steps, OutboxMessage.Type.CANCEL_PAYMENT, id, e)));
+    }
+
+    private static Boolean cancelFailed(Steps steps, OutboxMessage.Type type, int id, Throwable e) {
+        LoggerWrapper.error("Failed to carry out " + type + " " + id + ": " + e.getMessage(), e);
+        try {
+            steps.cancelFailed(type, id);
+        } catch (RuntimeException reportFailure) {
+            LoggerWrapper.error("Failed to queue " + type + " " + id + " for retry: " + reportFailure.getMessage(),
+                    reportFailure);
+        }
+        return false;
+    }
+
+    // the same call, failing with the reason prefixed by what failed
+    private static <T> CompletableFuture<T> labelled(CompletableFuture<T> call, String prefix) {
+        return call.handle((value, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                throw new RuntimeException(prefix + cause.getMessage(), cause);
+            }
+            return value;
+        });
+    }
+
+    // completes when every call has succeeded, or fails as soon as one of them fails
+    private static CompletableFuture<Void> firstFailureOrAll(List<CompletableFuture<?>> calls) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        for (CompletableFuture<?> call : calls) {
+            call.whenComplete((value, e) -> {
+                if (e != null) outcome.completeExceptionally(e);
+            });
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).thenRun(() -> outcome.complete(null));
+        return outcome;
+    }
+
+    private static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.SEGroup.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of each operation by the idempotency key the client sent with it, so a
+ * retried request gets the original result back instead of running the operation again. A
+ * duplicate that arrives while the first request is still running waits for it and gets its
+ * result; the operation runs once.
+ *
+ * Only successful results are kept, each for a limited time, expired through a
+ * {@link TimingWheel}. A failed operation is forgotten as soon as it finishes: the purchase
+ * undoes everything when it fails, so a retry with the same key may safely try again.
+ *
+ * @param <T> The type of the results.
+ */
+public class IdempotencyStore<T> {
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private final long ttlMillis;
+    private final TimingWheel<String> wheel;
+    // key → result of the operation, running or done
+    private final Map<String, CompletableFuture<Result<T>>> results = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService ticker;
+
+    /**
+     * @param ttlMillis  How long a successful result is kept.
+     * @param tickMillis The expiry resolution; results are forgotten up to one tick late.
+     * @param clock      The current time in milliseconds.
+     */
+    public IdempotencyStore(long ttlMillis, long tickMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SLOTS, results::remove, clock);
+    }
+
+    /**
+     * Runs the operation once per key: returns the kept result if the key was seen, waits for
+     * the running operation if the key is in flight, and runs it otherwise.
+     *
+     * @param key       The idempotency key, already scoped to the caller.
+     * @param operation The operation.
+     * @return The result of the one run of the operation for this key.
+     */
+    public Result<T> execute(String key, Supplier<Result<T>> operation) {
+        CompletableFuture<Result<T>> mine = new CompletableFuture<>();
+        CompletableFuture<Result<T>> running = results.putIfAbsent(key, mine);
+        if (running != null) {
+            LoggerWrapper.info("Duplicate request for idempotency key " + key + ", returning the original result");
+            return running.join();
+        }
+
+        Result<T> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            results.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        if (result.isSuccess()) {
+            wheel.schedule(key, ttlMillis);
+            startTicker();
+        } else {
+            results.remove(key, mine);
+        }
+        mine.complete(result);
+        return result;
+    }
+
+    /**
+     * Forgets the results whose time is up. Runs every tick once a result was kept; also callable directly.
+     *
+     * @return The number of results forgotten.
+     */
+    public int expireDue() {
+        return wheel.expireDue();
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    private void startTicker() {
+        if (ticker != null) return;
+        synchronized (this) {
+            if (ticker != null) return;
+            ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "idempotency-keys");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long tick = wheel.getTickMillis();
+            started.scheduleAtFixedRate(() -> {
+                try {
+                    expireDue();
+                } catch (Exception e) {
+                    LoggerWrapper.error("Failed to expire idempotency keys: " + e.getMessage(), e);
+                }
+            }, tick, tick, TimeUnit.MILLISECONDS);
+            ticker = started;
+        }
+    }
+}
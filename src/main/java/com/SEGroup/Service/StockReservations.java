@@ -0,0 +1,206 @@
+package com.SEGroup.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.Domain.IStoreRepository;
+import com.SEGroup.Domain.ITransactionRepository;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+
+/**
+ * Ledger of time-boxed stock holds, one per buyer. A hold takes the stock of the buyer's cart
+ * when checkout starts, so buyers racing for scarce units find out before they pay, and the
+ * purchase then converts the hold instead of taking the stock again. A hold that is not
+ * converted or released within its time to live expires and gives its stock back.
+ *
+ * Stock is taken and returned through {@link IStoreRepository#removeItemsFromStores} and
+ * {@link IStoreRepository#rollBackItemsToStores}, so a hold is all or nothing like a purchase.
+ * Expiry goes through a {@link TimingWheel}: only the holds that expire are visited, never
+ * the other holds or the stores.
+ *
+ * The ledger itself lives in memory, so each hold is also logged as a HELD checkout saga with
+ * its expiry: a hold the application stops with is given back by {@link CheckoutRecovery} at
+ * the next startup. Giving a hold back closes its saga first, so its stock is never returned
+ * twice; if the saga cannot be closed, the stock stays taken until that recovery.
+ */
+public class StockReservations {
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private static final class Hold {
+        private final String buyer;
+        private final List<BasketDTO> cart;
+        private final CheckoutSaga saga;
+        // set by whichever of convert, release and expiry comes first; only that one acts
+        private final AtomicBoolean settled = new AtomicBoolean();
+        // set right after scheduling; the hold may already have expired by then
+        private volatile TimingWheel.Timeout<Hold> timeout;
+
+        private void cancelTimeout() {
+            TimingWheel.Timeout<Hold> scheduled = timeout;
+            if (scheduled != null) scheduled.cancel();
+        }
+
+        private Hold(String buyer, List<BasketDTO> cart, CheckoutSaga saga) {
+            this.buyer = buyer;
+            this.cart = List.copyOf(cart);
+            this.saga = saga;
+        }
+    }
+
+    private final IStoreRepository storeRepository;
+    private final ITransactionRepository transactionRepository;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final TimingWheel<Hold> wheel;
+    // buyer → current hold
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService ticker;
+
+    /**
+     * @param storeRepository       The stores the stock is held in.
+     * @param transactionRepository Where the holds are logged as checkout sagas.
+     * @param ttlMillis             How long a hold lasts.
+     * @param tickMillis            The expiry resolution; holds expire up to one tick late.
+     * @param clock                 The current time in milliseconds.
+     */
+    public StockReservations(IStoreRepository storeRepository, ITransactionRepository transactionRepository,
+            long ttlMillis, long tickMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Hold time must be positive");
+        }
+        this.storeRepository = storeRepository;
+        this.transactionRepository = transactionRepository;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SLOTS, this::expire, clock);
+    }
+
+    /**
+     * Holds the stock of a cart, replacing the buyer's previous hold if any.
+     *
+     * @param buyer The buyer holding the stock.
+     * @param cart  The cart to hold.
+     * @throws RuntimeException if some product is missing or short; nothing is held then.
+     */
+    public void hold(String buyer, List<BasketDTO> cart) {
+        release(buyer);
+        Map<BasketDTO, Double> prices = storeRepository.removeItemsFromStores(cart);
+        CheckoutSaga saga;
+        try {
+            saga = transactionRepository.holdStock(buyer, prices, clock.getAsLong() + ttlMillis);
+        } catch (RuntimeException e) {
+            storeRepository.rollBackItemsToStores(cart);
+            throw e;
+        }
+        Hold hold = new Hold(buyer, cart, saga);
+        hold.timeout = wheel.schedule(hold, ttlMillis);
+        Hold replaced = holds.put(buyer, hold);
+        if (replaced != null) giveBack(replaced); // a racing hold of the same buyer
+        startTicker();
+    }
+
+    /**
+     * Converts the buyer's hold into a sale: its stock stays taken.
+     *
+     * @param buyer The buyer.
+     * @param cart  The cart being bought; the hold is only used if it holds exactly this cart.
+     * @return The hold's saga, now STOCK_TAKEN, with the price each basket had when the hold
+     *         was made; or null if there is no live hold for this cart (in which case any other
+     *         hold of the buyer is released).
+     * @throws RuntimeException if the conversion could not be logged; the hold is given back then.
+     */
+    public CheckoutSaga convert(String buyer, List<BasketDTO> cart) {
+        Hold hold = holds.remove(buyer);
+        if (hold == null) return null;
+        if (!hold.cart.equals(cart)) {
+            giveBack(hold);
+            return null;
+        }
+        if (!hold.settled.compareAndSet(false, true)) return null; // expired meanwhile
+        hold.cancelTimeout();
+        try {
+            transactionRepository.takeHeldStock(hold.saga);
+        } catch (RuntimeException e) {
+            returnStock(hold);
+            throw e;
+        }
+        return hold.saga;
+    }
+
+    /**
+     * Releases the buyer's hold, if any, and gives its stock back.
+     */
+    public void release(String buyer) {
+        Hold hold = holds.remove(buyer);
+        if (hold != null) giveBack(hold);
+    }
+
+    /**
+     * Expires the holds whose time is up. Runs every tick once a hold was made; also callable directly.
+     *
+     * @return The number of holds that expired.
+     */
+    public int expireDue() {
+        return wheel.expireDue();
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    private void expire(Hold hold) {
+        holds.remove(hold.buyer, hold);
+        giveBack(hold);
+    }
+
+    private void giveBack(Hold hold) {
+        if (!hold.settled.compareAndSet(false, true)) return;
+        hold.cancelTimeout();
+        returnStock(hold);
+    }
+
+    // closes the hold's saga, then returns its stock; left to startup recovery if the saga cannot be closed
+    private void returnStock(Hold hold) {
+        try {
+            transactionRepository.compensateCheckout(hold.saga);
+        } catch (Exception e) {
+            LoggerWrapper.error("Failed to close stock hold " + hold.saga.getId() + ", its stock returns at the next startup: "
+                    + e.getMessage(), e);
+            return;
+        }
+        try {
+            storeRepository.rollBackItemsToStores(hold.cart);
+        } catch (Exception e) {
+            LoggerWrapper.error("Failed to return held stock: " + e.getMessage(), e);
+        }
+    }
+
+    private void startTicker() {
+        if (ticker != null) return;
+        synchronized (this) {
+            if (ticker != null) return;
+            ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "stock-reservations");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long tick = wheel.getTickMillis();
+            started.scheduleAtFixedRate(() -> {
+                try {
+                    expireDue();
+                } catch (Exception e) {
+                    LoggerWrapper.error("Failed to expire stock holds: " + e.getMessage(), e);
+                }
+            }, tick, tick, TimeUnit.MILLISECONDS);
+            ticker = started;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.SEGroup.Service;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.SEGroup.DTO.*;
@@ -12,6 +13,12 @@ import com.SEGroup.Domain.IProductCatalog;
 import com.SEGroup.Domain.IStoreRepository;
 import com.SEGroup.Domain.IUserRepository;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 import com.SEGroup.Domain.Store.Review;
 
@@ -24,6 +31,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class StoreService {
 
+    // store cards fetched per query when listing every store
+    private static final int STORE_CARD_PAGE = 200;
+
     private final IStoreRepository storeRepository;
     private final IProductCatalog productCatalog;
     private final IUserRepository userRepository;
@@ -617,10 +627,8 @@ public class StoreService {
     public Result<List<ShoppingProductDTO>> searchProducts(String query, List<String> searchFilters, String storeName,
             List<String> categories) {
         try {
-            List<ShoppingProductDTO> searchResults = new ArrayList<>();
-            for (StoreSearchEntry spe : productCatalog.search(query, searchFilters, storeName, categories)) {
-                searchResults.add(storeRepository.getProduct(spe.getStoreName(), spe.getProductID()));
-            }
+            List<ShoppingProductDTO> searchResults =
+                    resolveHits(productCatalog.search(query, searchFilters, storeName, categories));
             LoggerWrapper.info("Searched products in store: " + storeName + ", Query: " + query); // Log product search
             return Result.success(searchResults);
         } catch (Exception e) {
@@ -629,6 +637,106 @@ public class StoreService {
         }
     }
 
+    /**
+     * Searches for products using typed search options (text, price / rating / quantity
+     * ranges, brand, category and store). The options are compiled once per search.
+     *
+     * @param options The search options; unset fields do not restrict the search.
+     * @return A Result object containing a list of found products if successful, or
+     *         an error message.
+     */
+    @Transactional
+    public Result<List<ShoppingProductDTO>> searchProducts(ProductSearchOptions options) {
+        try {
+            List<ShoppingProductDTO> searchResults = resolveHits(productCatalog.search(SearchQuery.from(options)));
+            LoggerWrapper.info("Searched products in store: " + options.getStoreName() + ", Query: " + options.getText());
+            return Result.success(searchResults);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error searching products: " + e.getMessage(), e); // Log error on failure
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns one page of search results in the given order. Only the products on the
+     * page are loaded from their stores; pass the returned cursor back for the next page.
+     *
+     * @param options  The search options; unset fields do not restrict the search.
+     * @param sort     The order of the results.
+     * @param pageSize The maximum number of products on the page.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @return A Result object containing the page if successful, or an error message.
+     */
+    @Transactional
+    public Result<SearchPage<ShoppingProductDTO>> searchProductsPage(ProductSearchOptions options,
+            SearchSort sort,
+            int pageSize,
+            String cursor) {
+        try {
+            SearchPage<StoreSearchEntry> page = productCatalog.searchPage(SearchQuery.from(options), sort, pageSize, cursor);
+            SearchPage<ShoppingProductDTO> products =
+                    new SearchPage<>(resolveHits(page.getItems()), page.getNextCursor());
+            LoggerWrapper.info("Searched products page, Query: " + options.getText() + ", Sort: " + sort
+                    + ", Results: " + products.getItems().size());
+            return Result.success(products);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error searching products: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} products for a search, ranked by relevance,
+     * rating and price. Only the returned products are loaded from their stores.
+     *
+     * @param options The search options; unset fields do not restrict the search.
+     * @param limit   The maximum number of products to return.
+     * @return A Result object containing the products, best first, if successful, or
+     *         an error message.
+     */
+    @Transactional
+    public Result<List<ShoppingProductDTO>> searchTopProducts(ProductSearchOptions options, int limit) {
+        try {
+            List<StoreSearchEntry> hits = new ArrayList<>();
+            for (ScoredEntry hit : productCatalog.searchTopK(SearchQuery.from(options), limit, SearchScorer.defaultScorer())) {
+                hits.add(hit.getEntry());
+            }
+            List<ShoppingProductDTO> searchResults = resolveHits(hits);
+            LoggerWrapper.info("Searched top " + limit + " products, Query: " + options.getText());
+            return Result.success(searchResults);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error searching products: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * Suggests completions for a partly typed search query.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of suggestions.
+     * @return A Result object containing product names and brands, most offered first,
+     *         if successful, or an error message.
+     */
+    @Transactional(readOnly = true)
+    public Result<List<String>> autocomplete(String prefix, int limit) {
+        try {
+            return Result.success(productCatalog.autocomplete(prefix, limit));
+        } catch (Exception e) {
+            LoggerWrapper.error("Error completing search: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    // resolves catalog hits to store products with one bulk lookup, keeping the hit order
+    private List<ShoppingProductDTO> resolveHits(List<StoreSearchEntry> hits) {
+        List<ProductKeyDTO> keys = new ArrayList<>(hits.size());
+        for (StoreSearchEntry spe : hits) {
+            keys.add(new ProductKeyDTO(spe.getStoreName(), spe.getProductID()));
+        }
+        return storeRepository.getProducts(keys);
+    }
+
     // 3.9
     @Transactional
     public Result<Void> submitBidToShoppingItem(String sessionKey,
@@ -810,40 +918,58 @@ public class StoreService {
             return Result.failure(e.getMessage());
         }
     }
-    @Transactional
+    /**
+     * Retrieves the products of all open stores from the repository's product view.
+     *
+     * @return A Result object containing the products if successful, or an error message.
+     */
+    @Transactional(readOnly = true)
     public Result<List<ShoppingProductDTO>> getAllProducts() {
         try {
             LoggerWrapper.info("Fetching all products from all stores");
+            return Result.success(withCatalogImages(storeRepository.getAllProducts()));
+        } catch (Exception e) {
+            LoggerWrapper.error("Error getting all products: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
 
-            List<ShoppingProductDTO> allProducts = new ArrayList<>();
-
-            // Get all stores
-            List<StoreDTO> stores = storeRepository.getAllStores();
+    /**
+     * Retrieves one page of the products of all open stores, ordered by store name and product ID.
+     *
+     * @param page The zero-based page number.
+     * @param size The page size.
+     * @return A Result object containing the products of the page if successful,
+     *         or an error message.
+     */
+    @Transactional(readOnly = true)
+    public Result<List<ShoppingProductDTO>> getAllProducts(int page, int size) {
+        try {
+            return Result.success(withCatalogImages(storeRepository.getAllProducts(page, size)));
+        } catch (Exception e) {
+            LoggerWrapper.error("Error getting products page: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
 
-            // For each store, get its products
-            for (StoreDTO store : stores) {
-                allProducts.addAll(store.getProducts());
+    // products stored without an image take the picture of their catalog offer, if it has one;
+    // the offers of all of them are looked up together
+    private List<ShoppingProductDTO> withCatalogImages(List<ShoppingProductDTO> products) {
+        List<ProductKeyDTO> missing = new ArrayList<>();
+        for (ShoppingProductDTO p : products) {
+            if (p.getImageUrl() == null || p.getImageUrl().isBlank()) {
+                missing.add(new ProductKeyDTO(p.getStoreName(), p.getProductId()));
             }
-            for (ShoppingProductDTO p : allProducts) {
-                List<StoreSearchEntry> entries = productCatalog.search(
-                        p.getName(), List.of(), p.getStoreName(), null);
-
-                for (StoreSearchEntry e : entries) {
-                    if (e.getProductID().equals(p.getProductId()) &&
-                            e.getStoreName().equals(p.getStoreName()) &&
-                            e.getImageUrl() != null && !e.getImageUrl().isBlank()) {
-
-                        p.setImageUrl(e.getImageUrl());
-                        break;                 // picture found → stop inner loop
-                    }
-                }
+        }
+        if (missing.isEmpty()) return products;
+        Map<ProductKeyDTO, String> images = productCatalog.getOfferImages(missing);
+        for (ShoppingProductDTO p : products) {
+            String image = images.get(new ProductKeyDTO(p.getStoreName(), p.getProductId()));
+            if (image != null && (p.getImageUrl() == null || p.getImageUrl().isBlank())) {
+                p.setImageUrl(image);
             }
-
-            return Result.success(allProducts);
-        } catch (Exception e) {
-            LoggerWrapper.error("Error getting all products: " + e.getMessage(), e);
-            return Result.failure(e.getMessage());
         }
+        return products;
     }
 
     /**
@@ -868,19 +994,41 @@ public class StoreService {
                 dto.getName(),
                 dto.getFounderEmail(),
                 dto.getAvgRating(),
-                dto.getDescription());
+                dto.getDescription(),
+                dto.getProducts().size());
     }
     /**
      * Lists all stores for display in the card view.
+     * Reads store summaries page by page instead of loading every store with its products.
      *
      * @return List of store card DTOs for all stores
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<StoreCardDto> listAllStores() {
-        return storeRepository.getAllStores()
-                .stream()
-                .map(this::toCard)
-                .toList();
+        List<StoreCardDto> cards = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            List<StoreCardDto> batch = storeRepository.listStores(page, STORE_CARD_PAGE);
+            cards.addAll(batch);
+            if (batch.size() < STORE_CARD_PAGE) return cards;
+        }
+    }
+
+    /**
+     * Lists one page of store summaries, ordered by store name.
+     *
+     * @param page The zero-based page number.
+     * @param size The page size.
+     * @return A Result object containing the store cards of the page if successful,
+     *         or an error message.
+     */
+    @Transactional(readOnly = true)
+    public Result<List<StoreCardDto>> listStores(int page, int size) {
+        try {
+            return Result.success(storeRepository.listStores(page, size));
+        } catch (Exception e) {
+            LoggerWrapper.error("Error listing stores: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
     }
     /**
      * Fetches a single catalog product by its catalog ID.
@@ -947,17 +1095,49 @@ public class StoreService {
         try {
             authenticationService.checkSessionKey(sessionKey);
             userRepository.checkUserSuspension(authenticationService.getUserBySession(sessionKey));
-            storeRepository.giveStoreReview(authenticationService.getUserBySession(sessionKey), storeName, reviewText, rating);
+            storeRepository.giveStoreReview(storeName, authenticationService.getUserBySession(sessionKey), reviewText, rating);
             return Result.success(null);
         } catch (Exception e) {
             return Result.failure(e.getMessage());
         }
     }
-    @Transactional
-    public Result<List<Review>> getStoreReviews(String sessionKey, String storeName) {
+    /**
+     * Lists one page of a store's reviews, newest first.
+     *
+     * @param sessionKey The session key of the user.
+     * @param storeName  The name of the store.
+     * @param cursor     The cursor returned with the previous page, or null for the first page.
+     * @param size       The page size.
+     * @return A Result object containing the reviews of the page and the next cursor if successful,
+     *         or an error message.
+     */
+    @Transactional(readOnly = true)
+    public Result<SearchPage<Review>> getStoreReviews(String sessionKey, String storeName, String cursor, int size) {
+        try {
+            authenticationService.checkSessionKey(sessionKey);
+            return Result.success(storeRepository.getStoreReviews(storeName, cursor, size));
+        } catch (Exception e) {
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * Lists one page of the reviews a user wrote about a store, newest first.
+     *
+     * @param sessionKey The session key of the user.
+     * @param storeName  The name of the store.
+     * @param userEmail  The reviewer.
+     * @param cursor     The cursor returned with the previous page, or null for the first page.
+     * @param size       The page size.
+     * @return A Result object containing the reviews of the page and the next cursor if successful,
+     *         or an error message.
+     */
+    @Transactional(readOnly = true)
+    public Result<SearchPage<Review>> getStoreReviewsByUser(String sessionKey, String storeName, String userEmail,
+                                                            String cursor, int size) {
         try {
             authenticationService.checkSessionKey(sessionKey);
-            return Result.success(storeRepository.getStoreReviews(storeName));
+            return Result.success(storeRepository.getStoreReviewsByUser(storeName, userEmail, cursor, size));
         } catch (Exception e) {
             return Result.failure(e.getMessage());
         }
@@ -0,0 +1,130 @@
+package com.SEGroup.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel: timeouts are dropped into one of {@code slots} buckets by their
+ * deadline tick, and each tick only looks at its own bucket. Scheduling and cancelling are
+ * O(1), and expiring costs the number of timeouts in the bucket, not the number pending.
+ * A deadline more than one revolution away waits in its bucket until the wheel comes round
+ * to it on the right revolution.
+ *
+ * {@link #expireDue()} fires everything due by the clock; the owner calls it every tick.
+ *
+ * @param <T> The item a timeout carries.
+ */
+public class TimingWheel<T> {
+
+    /** A scheduled timeout; cancelling it keeps it from firing. */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> buckets;
+    private final Consumer<T> onExpire;
+    private final LongSupplier clock;
+    // the last tick whose bucket was expired; guarded by this
+    private long expiredTick;
+
+    /**
+     * @param tickMillis The length of a tick; deadlines are rounded up to whole ticks.
+     * @param slots      The number of buckets in one revolution.
+     * @param onExpire   Called with the item of each timeout that fires.
+     * @param clock      The current time in milliseconds.
+     */
+    public TimingWheel(long tickMillis, int slots, Consumer<T> onExpire, LongSupplier clock) {
+        if (tickMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Tick and slot count must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.onExpire = onExpire;
+        this.clock = clock;
+        this.buckets = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            buckets.add(ConcurrentHashMap.newKeySet());
+        }
+        this.expiredTick = clock.getAsLong() / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire after a delay.
+     *
+     * @param item        The item to pass to the expiry callback.
+     * @param delayMillis The delay from now.
+     * @return The timeout, for cancelling.
+     */
+    public Timeout<T> schedule(T item, long delayMillis) {
+        long deadline = clock.getAsLong() + Math.max(0, delayMillis);
+        long deadlineTick = (deadline + tickMillis - 1) / tickMillis;
+        Timeout<T> timeout;
+        synchronized (this) {
+            // a tick that was already expired is never looked at again
+            timeout = new Timeout<>(item, Math.max(deadlineTick, expiredTick + 1));
+            bucket(timeout.deadlineTick).add(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * Fires every timeout whose deadline has passed, visiting only the buckets of the ticks
+     * that went by since the last call.
+     *
+     * @return The number of timeouts that fired.
+     */
+    public int expireDue() {
+        List<Timeout<T>> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong() / tickMillis;
+            // after a long pause, one revolution visits every bucket
+            long from = Math.max(expiredTick + 1, now - buckets.size() + 1);
+            for (long tick = from; tick <= now; tick++) {
+                Iterator<Timeout<T>> it = bucket(tick).iterator();
+                while (it.hasNext()) {
+                    Timeout<T> timeout = it.next();
+                    if (timeout.cancelled) {
+                        it.remove();
+                    } else if (timeout.deadlineTick <= now) {
+                        it.remove();
+                        due.add(timeout);
+                    }
+                }
+            }
+            expiredTick = Math.max(expiredTick, now);
+        }
+        // callbacks run outside the lock, so they may schedule again
+        for (Timeout<T> timeout : due) {
+            onExpire.accept(timeout.item);
+        }
+        return due.size();
+    }
+
+    private Set<Timeout<T>> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+}
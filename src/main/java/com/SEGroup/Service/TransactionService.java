@@ -1,11 +1,13 @@
 package com.SEGroup.Service;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import com.SEGroup.DTO.AddressDTO;
 import com.SEGroup.Domain.*;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
 import com.SEGroup.Infrastructure.Repositories.GuestRepository;
-import org.checkerframework.checker.units.qual.t;
 
 import com.SEGroup.DTO.BasketDTO;
 import com.SEGroup.DTO.BidDTO;
@@ -23,6 +25,15 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Service
 public class TransactionService {
+    // how long the stock of a cart stays held once checkout starts, and how often holds are expired
+    private static final long CHECKOUT_HOLD_MILLIS = 10 * 60 * 1000;
+    private static final long HOLD_TICK_MILLIS = 1000;
+    // an open checkout saga this old (or this long past its hold) belongs to no running checkout
+    private static final long STALE_CHECKOUT_MILLIS = 15 * 60 * 1000;
+    // how long the result of a purchase is kept for retries carrying the same idempotency key
+    private static final long IDEMPOTENCY_TTL_MILLIS = 24 * 60 * 60 * 1000;
+    private static final long IDEMPOTENCY_TICK_MILLIS = 10_000;
+
     private final IAuthenticationService authenticationService;
     private final IPaymentGateway paymentGateway;
     private final ITransactionRepository transactionRepository;
@@ -31,6 +42,10 @@ public class TransactionService {
     private final IShippingService shippingService; // Added ShippingService
     private final INotificationCenter notificationService;
     private final IGuestRepository guestRepository;
+    private final StockReservations reservations;
+    private final ExternalCheckout externalCheckout;
+    private final CheckoutRecovery checkoutRecovery;
+    private final IdempotencyStore<Void> purchases;
 
     /**
      * Constructs a new TransactionService instance with the provided dependencies.
@@ -58,6 +73,65 @@ public class TransactionService {
         this.shippingService = shippingService; // Initialize ShippingService
         this.notificationService = notificationService;
         this.guestRepository = guestRepository;
+        this.reservations = new StockReservations(storeRepository, transactionRepository, CHECKOUT_HOLD_MILLIS,
+                HOLD_TICK_MILLIS, System::currentTimeMillis);
+        this.externalCheckout = new ExternalCheckout(shippingService, paymentGateway);
+        this.checkoutRecovery = new CheckoutRecovery(transactionRepository, storeRepository, userRepository,
+                notificationService, externalCheckout, STALE_CHECKOUT_MILLIS);
+        this.purchases = new IdempotencyStore<>(IDEMPOTENCY_TTL_MILLIS, IDEMPOTENCY_TICK_MILLIS,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Holds the stock of the user's cart for a limited time, so that items that run out while
+     * the user fills in the checkout form are reported now, before any payment or shipping
+     * call. The purchase then uses the held stock. A new hold replaces the user's previous one.
+     *
+     * @param sessionKey The session key of the user (or guest) checking out.
+     * @return A Result object indicating success, or the reason the cart cannot be held.
+     */
+    public Result<Void> reserveCart(String sessionKey) {
+        try {
+            authenticationService.checkSessionKey(sessionKey);
+            String buyer = authenticationService.getUserBySession(sessionKey);
+            reservations.hold(buyer, userRepository.getUserCart(buyer));
+            LoggerWrapper.info("Stock held for checkout of user: " + buyer);
+            return Result.success(null);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error holding stock for checkout: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * Gives back the stock held for the user's checkout, e.g. when the checkout is cancelled.
+     * Does nothing if there is no hold, or the purchase already used it.
+     *
+     * @param sessionKey The session key of the user (or guest) checking out.
+     * @return A Result object indicating success or failure of the operation.
+     */
+    public Result<Void> releaseCart(String sessionKey) {
+        try {
+            authenticationService.checkSessionKey(sessionKey);
+            reservations.release(authenticationService.getUserBySession(sessionKey));
+            return Result.success(null);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error releasing checkout stock: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+    }
+
+    // the checkout's saga: the hold made when checkout started, or the stock taken and logged now if there is no live hold for this cart
+    private CheckoutSaga takeStock(String buyer, List<BasketDTO> cart) {
+        CheckoutSaga held = reservations.convert(buyer, cart);
+        if (held != null) return held;
+        Map<BasketDTO, Double> basketToPrice = storeRepository.removeItemsFromStores(cart);
+        try {
+            return transactionRepository.beginCheckout(buyer, basketToPrice);
+        } catch (RuntimeException e) {
+            storeRepository.rollBackItemsToStores(cart);
+            throw e;
+        }
     }
 
     /**
@@ -89,74 +163,21 @@ public class TransactionService {
     /**
      * Processes the purchase of a shopping cart.
      * Logs the purchase process and any errors.
+     * The purchase runs as a logged checkout saga (see {@link #checkout}); if shipping or
+     * payment fails, the stock is given back.
      *
      * @param sessionKey     The session key of the authenticated user.
      * @param userEmail      The email of the user making the purchase.
      * @param paymentDetails The payment details used for the transaction.
      * @return A Result object indicating success or failure of the operation.
      */
-    @Transactional
     public Result<Void> purchaseShoppingCart(String sessionKey, String userEmail, String paymentDetails) {
         try {
-            List<Integer> shippingIds = new ArrayList<>();
             authenticationService.checkSessionKey(sessionKey);
             userRepository.checkUserSuspension(authenticationService.getUserBySession(sessionKey));
             LoggerWrapper.info("Initiating purchase for user: " + userEmail); // Log the start of the purchase
 
-            List<BasketDTO> cart = userRepository.getUserCart(userEmail);
-            Map<BasketDTO, Double> basketToPrice = storeRepository.removeItemsFromStores(cart);
-            double totalCost = basketToPrice.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .sum();
-            try {
-                for (BasketDTO basket : cart) {
-                    AddressDTO addressDTO = userRepository.getAddress(userEmail);
-                    // to do need to create a address DTO from the user address and use the same one
-                    // for each shipping
-                    Integer ShipingId = shippingService.ship(addressDTO, userEmail);
-                    shippingIds.add(ShipingId);
-                    // to do need to save all shipping id's so we can cancel them
-                }
-                try {
-
-                    paymentGateway.processPayment(paymentDetails, totalCost);
-                    LoggerWrapper.info("Payment processed for user: " + userEmail + ", Amount: " + totalCost); // Log
-                                                                                                               // successful
-                                                                                                               // payment
-                                                                                                               // processing
-                } catch (Exception e) {
-                    storeRepository.rollBackItemsToStores(cart);
-                    LoggerWrapper.error("Payment failed for user: " + userEmail + ", Error: " + e.getMessage(), e); // Log
-                                                                                                                    // payment
-                                                                                                                    // failure
-                    throw new RuntimeException("Payment failed: " + e.getMessage());
-                }
-            } catch (Exception e) {
-                for (BasketDTO basket : cart) {
-                    // to do need to save all shipping id's so we can cancel them
-                    for (Integer shippingId : shippingIds) {
-                        shippingService.cancelShipping(shippingId);
-                    }
-                }
-                return Result.failure(e.getMessage());
-            }
-
-            for (Map.Entry<BasketDTO, Double> entry : basketToPrice.entrySet()) {
-                BasketDTO basket = entry.getKey();
-                double storeCost = entry.getValue();
-                String storeFounder = storeRepository.getStoreFounder(basket.storeId());
-                notificationService.sendSystemNotification(
-                        storeFounder,
-                        "A product has been purchased from your store '" + basket.getBasketProducts() + "'.");
-                transactionRepository.addTransaction(basket.getBasketProducts(), storeCost, userEmail,
-                        basket.storeId());
-                LoggerWrapper.info("Transaction added for user: " + userEmail + ", Store: " + basket.storeId()); // Log
-                                                                                                                 // successful
-                                                                                                                 // transaction
-                                                                                                                 // addition
-            }
-
-            userRepository.clearUserCart(userEmail);
+            checkout(userEmail, () -> userRepository.getAddress(userEmail), paymentDetails);
             return Result.success(null);
         } catch (Exception e) {
             LoggerWrapper.error(
@@ -166,68 +187,14 @@ public class TransactionService {
         }
     }
 
-    @Transactional
     public Result<Void> purchaseShoppingCartWithAddress(String sessionKey, String userEmail, String paymentDetails,
             AddressDTO address) {
         try {
-            List<Integer> shippingIds = new ArrayList<>();
             authenticationService.checkSessionKey(sessionKey);
             userRepository.checkUserSuspension(authenticationService.getUserBySession(sessionKey));
             LoggerWrapper.info("Initiating purchase for user: " + userEmail); // Log the start of the purchase
 
-            List<BasketDTO> cart = userRepository.getUserCart(userEmail);
-            Map<BasketDTO, Double> basketToPrice = storeRepository.removeItemsFromStores(cart);
-            double totalCost = basketToPrice.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .sum();
-            try {
-                for (BasketDTO basket : cart) {
-                    // to do need to create a address DTO from the user address and use the same one
-                    // for each shipping
-                    Integer ShipingId = shippingService.ship(address, userEmail);
-                    shippingIds.add(ShipingId);
-                    // to do need to save all shipping id's so we can cancel them
-                }
-                try {
-
-                    paymentGateway.processPayment(paymentDetails, totalCost);
-                    LoggerWrapper.info("Payment processed for user: " + userEmail + ", Amount: " + totalCost); // Log
-                    // successful
-                    // payment
-                    // processing
-                } catch (Exception e) {
-                    storeRepository.rollBackItemsToStores(cart);
-                    LoggerWrapper.error("Payment failed for user: " + userEmail + ", Error: " + e.getMessage(), e); // Log
-                    // payment
-                    // failure
-                    throw new RuntimeException("Payment failed: " + e.getMessage());
-                }
-            } catch (Exception e) {
-                for (BasketDTO basket : cart) {
-                    // to do need to save all shipping id's so we can cancel them
-                    for (Integer shippingId : shippingIds) {
-                        shippingService.cancelShipping(shippingId);
-                    }
-                }
-                return Result.failure(e.getMessage());
-            }
-
-            for (Map.Entry<BasketDTO, Double> entry : basketToPrice.entrySet()) {
-                BasketDTO basket = entry.getKey();
-                double storeCost = entry.getValue();
-                String storeFounder = storeRepository.getStoreFounder(basket.storeId());
-                notificationService.sendSystemNotification(
-                        storeFounder,
-                        "A product has been purchased from your store '" + basket.getBasketProducts() + "'.");
-                transactionRepository.addTransaction(basket.getBasketProducts(), storeCost, userEmail,
-                        basket.storeId());
-                LoggerWrapper.info("Transaction added for user: " + userEmail + ", Store: " + basket.storeId()); // Log
-                // successful
-                // transaction
-                // addition
-            }
-
-            userRepository.clearUserCart(userEmail);
+            checkout(userEmail, () -> address, paymentDetails);
             return Result.success(null);
         } catch (Exception e) {
             LoggerWrapper.error(
@@ -237,67 +204,13 @@ public class TransactionService {
         }
     }
 
-    @Transactional
     public Result<Void> purchaseGuestShoppingCart(String sessionKey, String paymentDetails, AddressDTO address) {
         try {
-            List<Integer> shippingIds = new ArrayList<>();
             authenticationService.checkSessionKey(sessionKey);
             String userEmail = authenticationService.getUserBySession(sessionKey);
             LoggerWrapper.info("Initiating purchase for user: " + userEmail); // Log the start of the purchase
 
-            List<BasketDTO> cart = userRepository.getUserCart(userEmail);
-            Map<BasketDTO, Double> basketToPrice = storeRepository.removeItemsFromStores(cart);
-            double totalCost = basketToPrice.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .sum();
-            try {
-                for (BasketDTO basket : cart) {
-                    // to do need to create a address DTO from the user address and use the same one
-                    // for each shipping
-                    Integer ShipingId = shippingService.ship(address, userEmail);
-                    shippingIds.add(ShipingId);
-                    // to do need to save all shipping id's so we can cancel them
-                }
-                try {
-
-                    paymentGateway.processPayment(paymentDetails, totalCost);
-                    LoggerWrapper.info("Payment processed for user: " + userEmail + ", Amount: " + totalCost); // Log
-                    // successful
-                    // payment
-                    // processing
-                } catch (Exception e) {
-                    storeRepository.rollBackItemsToStores(cart);
-                    LoggerWrapper.error("Payment failed for user: " + userEmail + ", Error: " + e.getMessage(), e); // Log
-                    // payment
-                    // failure
-                    throw new RuntimeException("Payment failed: " + e.getMessage());
-                }
-            } catch (Exception e) {
-                for (BasketDTO basket : cart) {
-                    // to do need to save all shipping id's so we can cancel them
-                    for (Integer shippingId : shippingIds) {
-                        shippingService.cancelShipping(shippingId);
-                    }
-                }
-                return Result.failure(e.getMessage());
-            }
-
-            for (Map.Entry<BasketDTO, Double> entry : basketToPrice.entrySet()) {
-                BasketDTO basket = entry.getKey();
-                double storeCost = entry.getValue();
-                String storeFounder = storeRepository.getStoreFounder(basket.storeId());
-                notificationService.sendSystemNotification(
-                        storeFounder,
-                        "A product has been purchased from your store '" + basket.getBasketProducts() + "'.");
-                transactionRepository.addTransaction(basket.getBasketProducts(), storeCost, userEmail,
-                        basket.storeId());
-                LoggerWrapper.info("Transaction added for user: " + userEmail + ", Store: " + basket.storeId()); // Log
-                // successful
-                // transaction
-                // addition
-            }
-
-            userRepository.clearUserCart(userEmail);
+            checkout(userEmail, () -> address, paymentDetails);
             return Result.success(null);
         } catch (Exception e) {
             LoggerWrapper.error(
@@ -307,6 +220,145 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Purchases the shopping cart at most once per idempotency key: a retry carrying the key
+     * of a purchase that went through gets its result back without paying or shipping again,
+     * and a retry sent while that purchase is still running waits for it.
+     *
+     * @param idempotencyKey A key the client picks for this purchase and resends on retries;
+     *                       null purchases without one.
+     * @see #purchaseShoppingCart(String, String, String)
+     */
+    public Result<Void> purchaseShoppingCart(String sessionKey, String userEmail, String paymentDetails,
+            String idempotencyKey) {
+        return once(sessionKey, idempotencyKey, () -> purchaseShoppingCart(sessionKey, userEmail, paymentDetails));
+    }
+
+    /**
+     * {@link #purchaseShoppingCartWithAddress} at most once per idempotency key; see
+     * {@link #purchaseShoppingCart(String, String, String, String)}.
+     */
+    public Result<Void> purchaseShoppingCartWithAddress(String sessionKey, String userEmail, String paymentDetails,
+            AddressDTO address, String idempotencyKey) {
+        return once(sessionKey, idempotencyKey,
+                () -> purchaseShoppingCartWithAddress(sessionKey, userEmail, paymentDetails, address));
+    }
+
+    /**
+     * {@link #purchaseGuestShoppingCart} at most once per idempotency key; see
+     * {@link #purchaseShoppingCart(String, String, String, String)}.
+     */
+    public Result<Void> purchaseGuestShoppingCart(String sessionKey, String paymentDetails, AddressDTO address,
+            String idempotencyKey) {
+        return once(sessionKey, idempotencyKey,
+                () -> purchaseGuestShoppingCart(sessionKey, paymentDetails, address));
+    }
+
+    // keys are scoped to the buyer, so two buyers picking the same key never see each other's purchase
+    private Result<Void> once(String sessionKey, String idempotencyKey, Supplier<Result<Void>> purchase) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return purchase.get();
+        }
+        String buyer;
+        try {
+            authenticationService.checkSessionKey(sessionKey);
+            buyer = authenticationService.getUserBySession(sessionKey);
+        } catch (Exception e) {
+            LoggerWrapper.error("Error processing shopping cart purchase: " + e.getMessage(), e);
+            return Result.failure(e.getMessage());
+        }
+        return purchases.execute(buyer + "/" + idempotencyKey, purchase);
+    }
+
+    /**
+     * The steps of a purchase, each with its compensation:
+     * <ol>
+     *   <li>take the stock of the cart (or convert the checkout hold), and log the checkout's
+     *       saga, so a crash from here on is compensated at the next startup;</li>
+     *   <li>ship every basket and pay, recording the shipments and then the payment in the
+     *       saga as each is confirmed; if that fails, the checkout already cancelled what went
+     *       through unrecorded, and the saga is compensated here, cancelling what it recorded
+     *       and giving the stock back;</li>
+     *   <li>commit the transactions, the saga's completion and the outbox in one write, then
+     *       carry out the outbox: notify the founders and clear the cart. If the commit fails,
+     *       the saga is compensated just the same.</li>
+     * </ol>
+     * A compensation that fails leaves the saga open; the recovery compensates it once it is stale.
+     * <p>
+     * The purchase runs without an enclosing transaction: the stock, the saga and the outbox
+     * each commit as their step completes, so what a gateway call did is stored before the next
+     * call, and a later failure cannot roll the record back while the call stands.
+     */
+    private void checkout(String buyer, Supplier<AddressDTO> address, String paymentDetails) {
+        List<BasketDTO> cart = userRepository.getUserCart(buyer);
+        // read before anything is taken, in one query for all the stores of the cart
+        Set<String> storeNames = new HashSet<>();
+        cart.forEach(basket -> storeNames.add(basket.storeId()));
+        Map<String, String> founders = storeRepository.getStoreFounders(storeNames);
+        CheckoutSaga saga = takeStock(buyer, cart);
+        Map<BasketDTO, Double> basketToPrice = saga.getBasketToPrice();
+        double totalCost = basketToPrice.values().stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
+        try {
+            externalCheckout.shipAndPay(cart.size(), address.get(), buyer, paymentDetails, totalCost,
+                    new ExternalCheckout.Steps() {
+                        @Override
+                        public void shipped(List<Integer> shipmentIds) {
+                            transactionRepository.recordShipped(saga, shipmentIds);
+                        }
+
+                        @Override
+                        public void paid(Integer paymentId) {
+                            transactionRepository.recordPaid(saga, paymentId);
+                        }
+
+                        @Override
+                        public void cancelFailed(OutboxMessage.Type type, int id) {
+                            checkoutRecovery.cancelLater(saga, type, id);
+                        }
+                    });
+            LoggerWrapper.info("Payment processed for user: " + buyer + ", Amount: " + totalCost);
+        } catch (RuntimeException e) {
+            LoggerWrapper.error("Checkout failed for user: " + buyer + ", Error: " + e.getMessage(), e);
+            compensate(saga);
+            throw e;
+        }
+
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (BasketDTO basket : basketToPrice.keySet()) {
+            messages.add(OutboxMessage.notify(saga.getId(), founders.get(basket.storeId()),
+                    "A product has been purchased from your store '" + basket.getBasketProducts() + "'."));
+        }
+        messages.add(OutboxMessage.clearCart(saga.getId(), buyer));
+        try {
+            checkoutRecovery.complete(saga, messages);
+        } catch (RuntimeException e) {
+            LoggerWrapper.error("Failed to commit checkout of user: " + buyer + ", Error: " + e.getMessage(), e);
+            compensate(saga);
+            throw e;
+        }
+        LoggerWrapper.info("Transactions added for user: " + buyer + ", Stores: " + basketToPrice.size());
+    }
+
+    // the checkout failed: undo it, or leave it to the recovery if that fails too, keeping the checkout's own error
+    private void compensate(CheckoutSaga saga) {
+        try {
+            checkoutRecovery.compensate(saga);
+        } catch (RuntimeException e) {
+            LoggerWrapper.error("Failed to compensate checkout " + saga.getId() + ", the recovery will: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compensates the checkouts a previous run left unfinished, and starts carrying out the
+     * outbox of completed checkouts in the background.
+     */
+    public void startCheckoutRecovery() {
+        checkoutRecovery.start();
+    }
+
     /**
      * Views the purchase history for a given user.
      * Logs the process of viewing the purchase history.
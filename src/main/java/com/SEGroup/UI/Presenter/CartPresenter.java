@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class CartPresenter {
     private final CartView view;
@@ -27,6 +28,8 @@ public class CartPresenter {
     private final TransactionService transactionService;
     private List<CartView.ShoppingCartProduct> currentCartProducts = new ArrayList<>();
     private double cartTotal = 0.0;
+    // idempotency key of the checkout dialog that is open, so a double-clicked pay buys the cart once
+    private String checkoutKey;
 
     public CartPresenter(CartView view) {
         this.view = view;
@@ -307,6 +310,18 @@ public class CartPresenter {
             // return;
             // }
 
+            // hold the stock while the form is filled in, so sold-out items are reported before payment
+            String token = SecurityContextHolder.token();
+            if (token != null && !token.isEmpty()) {
+                Result<Void> held = transactionService.reserveCart(token);
+                if (!held.isSuccess()) {
+                    view.showError("Some items are no longer available: " + held.getErrorMessage());
+                    loadCart();
+                    return;
+                }
+            }
+
+            checkoutKey = UUID.randomUUID().toString();
             CheckoutDialog dialog = new CheckoutDialog(this);
             dialog.open();
         } catch (Exception e) {
@@ -314,6 +329,16 @@ public class CartPresenter {
         }
     }
 
+    /**
+     * Gives back the stock held for an unfinished checkout; called when the checkout dialog closes.
+     */
+    public void onCheckoutClosed() {
+        String token = SecurityContextHolder.token();
+        if (token != null && !token.isEmpty()) {
+            transactionService.releaseCart(token);
+        }
+    }
+
     /**
      * Processes the checkout with the provided credit card details.
      *
@@ -337,7 +362,8 @@ public class CartPresenter {
             Result<Void> result = transactionService.purchaseShoppingCart(
                     token,
                     email,
-                    paymentDetails);
+                    paymentDetails,
+                    checkoutKey);
 
             if (result.isSuccess()) {
                 view.showSuccess("Order placed successfully!");
@@ -441,12 +467,14 @@ public class CartPresenter {
                         token,
                         email,
                         paymentDetails,
-                        addressDTO);
+                        addressDTO,
+                        checkoutKey);
             else
                 result = transactionService.purchaseGuestShoppingCart(
                         token,
                         paymentDetails,
-                        addressDTO);
+                        addressDTO,
+                        checkoutKey);
 
             if (result.isSuccess()) {
                 view.showSuccess("Order placed successfully!");
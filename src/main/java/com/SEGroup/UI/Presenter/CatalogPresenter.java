@@ -1,7 +1,9 @@
 package com.SEGroup.UI.Presenter;
 
-import com.SEGroup.DTO.CatalogProductDTO;
 import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Service.Result;
 import com.SEGroup.Service.StoreService;
 import com.SEGroup.Service.UserService;
@@ -10,13 +12,20 @@ import com.SEGroup.UI.ServiceLocator;
 import com.SEGroup.UI.Views.CatalogView;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CatalogPresenter {
     private final CatalogView view;
     private final StoreService storeService;
     private final UserService userService;
-    private List<ShoppingProductDTO> currentProducts = new ArrayList<>();
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SUGGESTIONS = 6;
+    private ProductSearchOptions currentOptions;
+    private SearchSort currentSort = SearchSort.NAME_ASC;
+    private final List<ShoppingProductDTO> loadedProducts = new ArrayList<>();
+    private String nextCursor;
+    private boolean searchExhausted;
 
     public CatalogPresenter(CatalogView view) {
         this.view = view;
@@ -25,261 +34,146 @@ public class CatalogPresenter {
     }
 
     /**
-     * Loads all products initially.
-     */
-    /**
-     * Loads all products initially.
+     * Loads the first products of an unfiltered search; the rest are fetched from the
+     * catalog as the grid scrolls, like any other search.
      */
-// Fix for displayBaseCatalog method in GeneralCatalogView.java
-// Enhancement for CatalogPresenter.java to better handle categories
-// Update the loadProducts method
     public void loadProducts() {
-        try {
-            Result<List<ShoppingProductDTO>> result = storeService.getAllProducts();
-
-            if (result.isSuccess()) {
-                List<ShoppingProductDTO> products = result.getData();
-
-                // Ensure non-null category lists
-                for (ShoppingProductDTO product : products) {
-                    if (product.getCategories() == null) {
-                        product.setCategories(new ArrayList<>());
-                    }
-                }
-
-                // Enrich each product with its master-catalog categories
-                enrichProductCategories(products);
-
-                // Save and display
-                currentProducts = products;
-                view.displayProducts(currentProducts);
-
-            } else {
-                view.showError("Failed to load products: " + result.getErrorMessage());
-                view.displayProducts(new ArrayList<>());
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading products: " + e.getMessage());
-            e.printStackTrace();
-            view.showError("Error loading products: " + e.getMessage());
-            view.displayProducts(new ArrayList<>());
-        }
+        currentOptions = new ProductSearchOptions();
+        currentOptions.setText("");
+        refreshSearch();
     }
 
-
-    // Category-specific filter method for the CatalogView
+    /**
+     * Searches for the products in the given category; an empty category shows all products.
+     */
     public void filterByCategory(String category) {
         if (category == null || category.isEmpty()) {
-            // If no category selected, show all products
-            view.displayProducts(currentProducts);
+            loadProducts();
             return;
         }
-
-        System.out.println("Filtering by category: " + category);
-
-        List<ShoppingProductDTO> filteredProducts = currentProducts.stream()
-                .filter(product -> {
-                    if (product.getCategories() == null) {
-                        System.out.println("Warning: Product " + product.getName() + " has null categories");
-                        return false;
-                    }
-                    boolean contains = product.getCategories().contains(category);
-                    if (contains) {
-                        System.out.println("Product " + product.getName() + " matches category " + category);
-                    }
-                    return contains;
-                })
-                .collect(Collectors.toList());
-
-        System.out.println("Found " + filteredProducts.size() + " products in category " + category);
-        view.displayProducts(filteredProducts);
-
-        if (filteredProducts.isEmpty()) {
-            view.showInfo("No products found in category: " + category);
-        }
+        searchProducts("", List.of("category=" + category));
     }
+
     /**
      * Searches for products with the given query and filters.
+     * Results are fetched from the catalog one page at a time as the grid scrolls.
      */
-    // In CatalogPresenter.java - Update the searchProducts method
-// In CatalogPresenter.java - Update the searchProducts method
-// In CatalogPresenter.java - Enhance searchProducts method
-    // In CatalogPresenter.java - Improve searchProducts method
     public void searchProducts(String query, List<String> filters) {
         try {
-            System.out.println("Searching for: " + query + " with filters: " + String.join(", ", filters));
-
-            // Extract filter criteria
-            String storeName = null;
-            List<String> categories = new ArrayList<>();
-            List<String> otherFilters = new ArrayList<>();
-            Double minRating = null;
-            Double minPrice = null;
-            Double maxPrice = null;
-
-            // Process filters
-            for (String filter : filters) {
-                if (filter.startsWith("category=")) {
-                    categories.add(filter.substring("category=".length()));
-                } else if (filter.startsWith("store=")) {
-                    storeName = filter.substring("store=".length());
-                } else if (filter.startsWith("rating>")) {
-                    minRating = Double.parseDouble(filter.substring("rating>".length()));
-                } else if (filter.startsWith("price>")) {
-                    minPrice = Double.parseDouble(filter.substring("price>".length()));
-                } else if (filter.startsWith("price<")) {
-                    maxPrice = Double.parseDouble(filter.substring("price<".length()));
-                } else {
-                    otherFilters.add(filter);
-                }
-            }
-
-            // Get all products as a base
-            Result<List<ShoppingProductDTO>> allProductsResult = storeService.getAllProducts();
-            List<ShoppingProductDTO> enriched = allProductsResult.getData();
-            for (ShoppingProductDTO p : enriched) {
-                if (p.getCategories() == null) {
-                    p.setCategories(new ArrayList<>());
-                }
-            }
-            enrichProductCategories(enriched);
-            currentProducts = enriched;
-
-
-
-            if (allProductsResult.isSuccess()) {
-                List<ShoppingProductDTO> filteredProducts = new ArrayList<>(currentProducts);
-
-                System.out.println("Initial product count: " + filteredProducts.size());
-
-                // Apply text search if provided
-                if (query != null && !query.trim().isEmpty()) {
-                    String lowerQuery = query.toLowerCase().trim();
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p ->
-                                    // Search by name
-                                    (p.getName() != null && p.getName().toLowerCase().contains(lowerQuery)) ||
-                                            // Search by description
-                                            (p.getDescription() != null && p.getDescription().toLowerCase().contains(lowerQuery)) ||
-                                            // Search by ID (catalog ID or product ID)
-                                            (p.getProductId() != null && p.getProductId().toLowerCase().contains(lowerQuery)) ||
-                                            (p.getCatalogID() != null && p.getCatalogID().toLowerCase().contains(lowerQuery)) ||
-                                            // Search by store name
-                                            (p.getStoreName() != null && p.getStoreName().toLowerCase().contains(lowerQuery))
-                            )
-                            .collect(Collectors.toList());
-                    System.out.println("After text search: " + filteredProducts.size() + " products");
-                }
-
-                if (!categories.isEmpty()) {
-                    final Set<String> categorySet = new HashSet<>(categories);
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p -> p.getCategories() != null &&
-                                    p.getCategories().stream().anyMatch(categorySet::contains))
-                            .collect(Collectors.toList());
-                    System.out.println("After category filter: " + filteredProducts.size() + " products");
-                }
-
-                // Apply store filter
-                if (storeName != null && !storeName.isEmpty()) {
-                    final String storeNameFinal = storeName;
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p -> p.getStoreName().equals(storeNameFinal))
-                            .collect(Collectors.toList());
-                    System.out.println("After store filter: " + filteredProducts.size() + " products");
-                }
-
-                // Apply price filters
-                if (minPrice != null) {
-                    final Double finalMinPrice = minPrice;
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p -> p.getPrice() >= finalMinPrice)
-                            .collect(Collectors.toList());
-                    System.out.println("After min price filter: " + filteredProducts.size() + " products");
-                }
-
-                if (maxPrice != null) {
-                    final Double finalMaxPrice = maxPrice;
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p -> p.getPrice() <= finalMaxPrice)
-                            .collect(Collectors.toList());
-                    System.out.println("After max price filter: " + filteredProducts.size() + " products");
-                }
-
-                // Apply rating filter
-                if (minRating != null) {
-                    final Double finalMinRating = minRating;
-                    filteredProducts = filteredProducts.stream()
-                            .filter(p -> p.getAvgRating() >= finalMinRating)
-                            .collect(Collectors.toList());
-                    System.out.println("After rating filter: " + filteredProducts.size() + " products");
-                }
-
-                // Update current products and view
-                currentProducts = filteredProducts;
-                view.displayProducts(currentProducts);
+            currentOptions = toSearchOptions(query, filters);
+        } catch (NumberFormatException e) {
+            view.showError("Invalid filter value: " + e.getMessage());
+            return;
+        }
+        refreshSearch();
+    }
 
-                if (filteredProducts.isEmpty()) {
-                    view.showInfo("No products found matching your criteria");
-                }
-            } else {
-                view.showError("Failed to search products: " + allProductsResult.getErrorMessage());
-                view.displayProducts(new ArrayList<>());
-            }
-        } catch (Exception e) {
-            System.err.println("Error searching products: " + e.getMessage());
-            e.printStackTrace();
-            view.showError("Error searching products: " + e.getMessage());
-            view.displayProducts(new ArrayList<>());
+    /**
+     * Shows name / brand completions for the text typed so far.
+     */
+    public void suggest(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            view.showSuggestions(List.of());
+            return;
         }
+        Result<List<String>> result = storeService.autocomplete(prefix, SUGGESTIONS);
+        view.showSuggestions(result.isSuccess() ? result.getData() : List.of());
     }
+
     /**
-     * Sorts the current products by name
+     * Sorts the results by name
      * @param ascending true for A-Z, false for Z-A
      */
     public void sortByName(boolean ascending) {
-        try {
-            List<ShoppingProductDTO> sortedProducts = new ArrayList<>(currentProducts);
-            if (ascending) {
-                sortedProducts.sort(Comparator.comparing(ShoppingProductDTO::getName));
-            } else {
-                sortedProducts.sort(Comparator.comparing(ShoppingProductDTO::getName).reversed());
-            }
-            view.displayProducts(sortedProducts);
-        } catch (Exception e) {
-            view.showError("Error sorting products: " + e.getMessage());
-        }
+        sortBy(ascending ? SearchSort.NAME_ASC : SearchSort.NAME_DESC);
     }
 
     /**
-     * Sorts the current products by price
+     * Sorts the results by price
      * @param ascending true for low-high, false for high-low
      */
     public void sortByPrice(boolean ascending) {
-        try {
-            List<ShoppingProductDTO> sortedProducts = new ArrayList<>(currentProducts);
-            if (ascending) {
-                sortedProducts.sort(Comparator.comparing(ShoppingProductDTO::getPrice));
-            } else {
-                sortedProducts.sort(Comparator.comparing(ShoppingProductDTO::getPrice).reversed());
-            }
-            view.displayProducts(sortedProducts);
-        } catch (Exception e) {
-            view.showError("Error sorting products: " + e.getMessage());
-        }
+        sortBy(ascending ? SearchSort.PRICE_ASC : SearchSort.PRICE_DESC);
     }
 
     /**
-     * Sorts the current products by rating (highest first)
+     * Sorts the results by rating (highest first)
      */
     public void sortByRating() {
+        sortBy(SearchSort.RATING_DESC);
+    }
+
+    /**
+     * Returns the rows [offset, offset + limit) of the current search for the grid's lazy
+     * data provider. Pages are requested from the service in order and kept, so scrolling
+     * back does not hit the service again.
+     */
+    public Stream<ShoppingProductDTO> fetchProducts(int offset, int limit) {
+        while (loadedProducts.size() < offset + limit && !searchExhausted) {
+            Result<SearchPage<ShoppingProductDTO>> result =
+                    storeService.searchProductsPage(currentOptions, currentSort, PAGE_SIZE, nextCursor);
+            if (!result.isSuccess()) {
+                view.showError("Failed to search products: " + result.getErrorMessage());
+                searchExhausted = true;
+                break;
+            }
+            SearchPage<ShoppingProductDTO> page = result.getData();
+            for (ShoppingProductDTO product : page.getItems()) {
+                if (product.getCategories() == null) {
+                    product.setCategories(new ArrayList<>());
+                }
+                loadedProducts.add(product);
+            }
+            view.addFilterOptions(page.getItems());
+            nextCursor = page.getNextCursor();
+            searchExhausted = !page.hasNext();
+        }
+        int from = Math.min(offset, loadedProducts.size());
+        int to = Math.min(offset + limit, loadedProducts.size());
+        return new ArrayList<>(loadedProducts.subList(from, to)).stream();
+    }
+
+    private void sortBy(SearchSort sort) {
+        currentSort = sort;
+        if (currentOptions == null) {
+            currentOptions = new ProductSearchOptions();
+        }
+        refreshSearch();
+    }
+
+    private void refreshSearch() {
         try {
-            List<ShoppingProductDTO> sortedProducts = new ArrayList<>(currentProducts);
-            sortedProducts.sort(Comparator.comparing(ShoppingProductDTO::getAvgRating).reversed());
-            view.displayProducts(sortedProducts);
+            loadedProducts.clear();
+            nextCursor = null;
+            searchExhausted = false;
+            // load the first page eagerly so an empty result can be reported
+            fetchProducts(0, PAGE_SIZE);
+            view.displayProductPages();
+            if (loadedProducts.isEmpty()) {
+                view.showInfo("No products found matching your criteria");
+            }
         } catch (Exception e) {
-            view.showError("Error sorting products: " + e.getMessage());
+            view.showError("Error searching products: " + e.getMessage());
+        }
+    }
+
+    private static ProductSearchOptions toSearchOptions(String query, List<String> filters) {
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setText(query == null ? "" : query.trim());
+        for (String filter : filters) {
+            if (filter.startsWith("category=")) {
+                options.addCategory(filter.substring("category=".length()));
+            } else if (filter.startsWith("store=")) {
+                options.setStoreName(filter.substring("store=".length()));
+            } else if (filter.startsWith("rating>")) {
+                options.setMinRating(Double.parseDouble(filter.substring("rating>".length())));
+            } else if (filter.startsWith("price>")) {
+                options.setMinPrice(Double.parseDouble(filter.substring("price>".length())));
+            } else if (filter.startsWith("price<")) {
+                options.setMaxPrice(Double.parseDouble(filter.substring("price<".length())));
+            }
         }
+        return options;
     }
 
     /**
@@ -339,19 +233,4 @@ public class CatalogPresenter {
             view.showError("Error navigating to product: " + e.getMessage());
         }
     }
-
-    private void enrichProductCategories(List<ShoppingProductDTO> products) {
-        for (ShoppingProductDTO product : products) {
-            try {
-                Result<CatalogProductDTO> catRes = storeService.getCatalogProduct(product.getCatalogID());
-                if (catRes.isSuccess() && catRes.getData() != null) {
-                    product.setCategories(catRes.getData().getCategories());
-                } else {
-                    product.setCategories(new ArrayList<>());
-                }
-            } catch (Exception e) {
-                product.setCategories(new ArrayList<>());
-            }
-        }
-    }
-}
\ No newline at end of file
+}
@@ -78,6 +78,7 @@ public class ServiceLocator implements ApplicationContextAware {
         storeService = new StoreService(storeRepository, productCatalog, authService, userRepository, notificationCenter);
         shippingService = mock(IShippingService.class);
         transactionService = new TransactionService(authService, paymentGateway, transactionRepository, storeRepository, userRepository, shippingService, notificationCenter,guestRepository);
+        transactionService.startCheckoutRecovery();
     }
 
     public static INotificationCenter getNotificationCenter() {
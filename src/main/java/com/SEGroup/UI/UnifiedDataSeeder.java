@@ -6,6 +6,7 @@ import com.SEGroup.Infrastructure.PasswordEncoder;
 import com.SEGroup.Infrastructure.Repositories.*;
 import com.SEGroup.Infrastructure.Repositories.JpaDatabase.*;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbProductCatalog;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.CachedStoreData;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbStoreData;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbTransactionData;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbUserData;
@@ -35,6 +36,9 @@ import java.util.List;
 @Component
 public class UnifiedDataSeeder implements ApplicationListener<ApplicationReadyEvent> {
 
+    // stores whose whole aggregate stays cached between reads
+    private static final int STORE_CACHE_SIZE = 256;
+
     private  UserRepository users;
     private  StoreRepository stores;
     private  ProductCatalogRepository catalog;
@@ -63,12 +67,18 @@ public class UnifiedDataSeeder implements ApplicationListener<ApplicationReadyEv
     private JpaStoreRepository jpaStoreRepository;
     @Autowired
     private JpaTransactionRepository jpaTransactionRepository;
+    @Autowired
+    private JpaCheckoutSagaRepository jpaCheckoutSagaRepository;
+    @Autowired
+    private JpaOutboxRepository jpaOutboxRepository;
     @PostConstruct
     public void init() {
         //discount available
         this.users = new UserRepository(new DbUserData(jpaUserRepository));
-        this.stores = new StoreRepository(new DbStoreData(jpaStoreRepository));
-        this.transactions = new TransactionRepository(new DbTransactionData(jpaTransactionRepository));
+        jpaStoreRepository.backfillRatingSummaries();
+        jpaTransactionRepository.moveIdSequencePastExistingRows();
+        this.stores = new StoreRepository(new CachedStoreData(new DbStoreData(jpaStoreRepository), STORE_CACHE_SIZE));
+        this.transactions = new TransactionRepository(new DbTransactionData(jpaTransactionRepository, jpaCheckoutSagaRepository, jpaOutboxRepository));
         // קריאות ל-service/DTO/Seeder methods
     }
 
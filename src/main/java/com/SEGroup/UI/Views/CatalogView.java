@@ -28,7 +28,6 @@ import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Route(value = "catalog", layout = MainLayout.class)
 @PageTitle("Marketplace")
@@ -38,7 +37,9 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
     private final TextField searchField = new TextField();
     private final List<String> activeFilters = new ArrayList<>();
     private final Div filtersContainer = new Div();
-    private List<ShoppingProductDTO> currentProducts = new ArrayList<>();
+    private final Div suggestionsContainer = new Div();
+    private final Set<String> knownStores = new TreeSet<>();
+    private final Set<String> knownCategories = new TreeSet<>();
 
     // Advanced filters
     private final ComboBox<String> storeFilter = new ComboBox<>("Store");
@@ -71,6 +72,13 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
 
         add(searchAndFilters);
 
+        // Autocomplete suggestions for the text being typed
+        suggestionsContainer.getStyle()
+                .set("display", "flex")
+                .set("flex-wrap", "wrap")
+                .set("gap", "4px");
+        add(suggestionsContainer);
+
         // Active filters display
         filtersContainer.addClassName("active-filters");
         filtersContainer.getStyle()
@@ -110,7 +118,15 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
         searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
         searchField.setClearButtonVisible(true);
         searchField.setWidth("400px");
-        searchField.addValueChangeListener(e -> applySearch());
+        searchField.addValueChangeListener(e -> {
+            // only typing asks for suggestions; picking one sets the value from the server
+            if (e.isFromClient()) {
+                presenter.suggest(e.getValue());
+            } else {
+                showSuggestions(List.of());
+            }
+            applySearch();
+        });
         searchField.setValueChangeMode(ValueChangeMode.LAZY);
 
         Button searchButton = new Button("Search");
@@ -287,8 +303,6 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
     }
 
     public void displayProducts(List<ShoppingProductDTO> products) {
-        this.currentProducts = products;
-
         // Ensure all products have a categories list to prevent null pointer exceptions
         for (ShoppingProductDTO product : products) {
             if (product.getCategories() == null) {
@@ -299,7 +313,16 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
         grid.setItems(products);
 
         // Update filter options based on the products
-        updateFilterOptions(products);
+        addFilterOptions(products);
+    }
+
+    /**
+     * Shows the current search lazily: the grid asks the presenter only for the rows it
+     * scrolls to, and the presenter loads them from the catalog page by page.
+     * Filter options grow with the pages loaded so far, see {@link #addFilterOptions}.
+     */
+    public void displayProductPages() {
+        grid.setItems(query -> presenter.fetchProducts(query.getOffset(), query.getLimit()));
     }
 
     private Component createProductActions(ShoppingProductDTO product) {
@@ -425,10 +448,8 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
     }
 
     private void addCategoryFilter() {
-        // Collect all categories from current products
-        Set<String> categories = currentProducts.stream()
-                .flatMap(p -> p.getCategories().stream())
-                .collect(Collectors.toCollection(TreeSet::new));
+        // Offer the categories seen in the products loaded so far
+        Set<String> categories = new TreeSet<>(knownCategories);
 
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Filter by Category");
@@ -492,10 +513,8 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
     }
 
     private void addStoreFilter() {
-        // Collect all store names from current products
-        Set<String> stores = currentProducts.stream()
-                .map(ShoppingProductDTO::getStoreName)
-                .collect(Collectors.toSet());
+        // Offer the stores seen in the products loaded so far
+        Set<String> stores = new TreeSet<>(knownStores);
 
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Filter by Store");
@@ -630,21 +649,33 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
         return filter;
     }
 
-    private void updateFilterOptions(List<ShoppingProductDTO> products) {
-        // Update store filter options
-        Set<String> stores = products.stream()
-                .map(ShoppingProductDTO::getStoreName)
-                .collect(Collectors.toSet());
-        storeFilter.setItems(stores);
-
-        // Update category filter options
-        Set<String> categories = new HashSet<>();
+    /**
+     * Adds the stores and categories of newly loaded products to the filter options.
+     * The catalog is loaded lazily, so the options cover the products seen so far.
+     */
+    public void addFilterOptions(List<ShoppingProductDTO> products) {
+        boolean storesChanged = false;
+        boolean categoriesChanged = false;
         for (ShoppingProductDTO product : products) {
+            if (product.getStoreName() != null) {
+                storesChanged |= knownStores.add(product.getStoreName());
+            }
             if (product.getCategories() != null) {
-                categories.addAll(product.getCategories());
+                categoriesChanged |= knownCategories.addAll(product.getCategories());
             }
         }
-        categoryFilter.setItems(categories);
+
+        // setItems clears the selection, so keep what the user already picked
+        if (storesChanged) {
+            String selectedStore = storeFilter.getValue();
+            storeFilter.setItems(knownStores);
+            storeFilter.setValue(selectedStore);
+        }
+        if (categoriesChanged) {
+            Set<String> selectedCategories = new HashSet<>(categoryFilter.getValue());
+            categoryFilter.setItems(knownCategories);
+            categoryFilter.setValue(selectedCategories);
+        }
     }
 
     public void navigateToProduct(String productId, String storeName) {
@@ -653,6 +684,18 @@ public class CatalogView extends VerticalLayout implements HasUrlParameter<Strin
         );
     }
 
+    /**
+     * Shows completions for the search text; clicking one searches for it.
+     */
+    public void showSuggestions(List<String> suggestions) {
+        suggestionsContainer.removeAll();
+        for (String suggestion : suggestions) {
+            Button button = new Button(suggestion, e -> searchField.setValue(suggestion));
+            button.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
+            suggestionsContainer.add(button);
+        }
+    }
+
     public void showSuccess(String message) {
         Notification notification = Notification.show(message, 3000, Notification.Position.TOP_END);
         notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
@@ -47,6 +47,10 @@ public class CheckoutDialog extends Dialog {
         setWidth("500px");
         setCloseOnEsc(true);
         setCloseOnOutsideClick(false);
+        // however the dialog closes, stock still held for this checkout is given back
+        addOpenedChangeListener(e -> {
+            if (!e.isOpened()) presenter.onCheckoutClosed();
+        });
 
         // Title
         H3 title = new H3("Complete Your Purchase");
@@ -2,6 +2,7 @@ package com.SEGroup.UI.Views;
 
 import com.SEGroup.DTO.ShoppingProductDTO;
 import com.SEGroup.DTO.StoreCardDto;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
 import com.SEGroup.Service.Result;
 import com.SEGroup.Service.StoreService;
 import com.SEGroup.UI.MainLayout;
@@ -92,14 +93,10 @@ public class HomeView extends VerticalLayout {
 
         // Get featured products from service
         try {
-            Result<List<ShoppingProductDTO>> result = storeService.getAllProducts();
+            // Top 4 offers by rating (then price), ranked in the catalog without loading every product
+            Result<List<ShoppingProductDTO>> result = storeService.searchTopProducts(new ProductSearchOptions(), 4);
             if (result.isSuccess()) {
-                List<ShoppingProductDTO> allProducts = result.getData();
-                // Get top 4 products by rating
-                List<ShoppingProductDTO> featuredProducts = allProducts.stream()
-                        .sorted((p1, p2) -> Double.compare(p2.getAvgRating(), p1.getAvgRating()))
-                        .limit(4)
-                        .collect(Collectors.toList());
+                List<ShoppingProductDTO> featuredProducts = result.getData();
 
                 for (ShoppingProductDTO product : featuredProducts) {
                     productsLayout.add(createProductCard(product));
@@ -0,0 +1,178 @@
+package com.SEGroup.DBtests.Repositories;
+
+import com.SEGroup.DTO.ProductKeyDTO;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbProductCatalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("db")
+@Import(DbProductCatalog.class)
+@DisplayName("DbProductCatalog")
+class DbProductCatalogTests {
+
+    @Autowired
+    private DbProductCatalog catalog;
+
+    @BeforeEach
+    void seed() {
+        catalog.addCatalogProduct("mouse", "Gaming Mouse", "Logitech", "Fast response mouse", List.of("gaming", "accessories"));
+        catalog.addCatalogProduct("pad", "Mousepad 100%", "SteelSeries", "Cloth surface", List.of("accessories"));
+        catalog.addCatalogProduct("phone", "iPhone 13", "Apple", "Latest iPhone", List.of("phones"));
+
+        catalog.addStoreProductEntry("mouse", "GameStore", "p1", 70.0, 15, 4.7, "Mouse A");
+        catalog.addStoreProductEntry("mouse", "OtherStore", "p2", 40.0, 2, 3.0, "Mouse B");
+        catalog.addStoreProductEntry("pad", "GameStore", "p3", 20.0, 50, 4.0, "Pad");
+        catalog.addStoreProductEntry("phone", "PhoneStore", "p4", 999.0, 5, 4.9, "Phone");
+    }
+
+    private static List<String> ids(List<StoreSearchEntry> entries) {
+        return entries.stream().map(StoreSearchEntry::getProductID).toList();
+    }
+
+    @Test
+    @DisplayName("search matches name, brand and description ignoring case")
+    void searchByText() {
+        assertThat(ids(catalog.search("MOUSE", List.of(), null, null))).containsExactlyInAnyOrder("p1", "p2", "p3");
+        assertThat(ids(catalog.search("apple", List.of(), null, null))).containsExactly("p4");
+        assertThat(ids(catalog.search("printer", List.of(), null, null))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search treats LIKE wildcards in the query literally")
+    void searchEscapesWildcards() {
+        assertThat(ids(catalog.search("100%", List.of(), null, null))).containsExactly("p3");
+        assertThat(ids(catalog.search("_", List.of(), null, null))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search applies price, rating and quantity filters in the query")
+    void searchWithFilters() {
+        assertThat(ids(catalog.search("mouse", List.of("price<50"), null, null))).containsExactlyInAnyOrder("p2", "p3");
+        assertThat(ids(catalog.search("mouse", List.of("price>30", "rating>4"), null, null))).containsExactly("p1");
+        assertThat(ids(catalog.search("", List.of("quantity<10"), null, null))).containsExactlyInAnyOrder("p2", "p4");
+    }
+
+    @Test
+    @DisplayName("search restricts by store name and categories")
+    void searchByStoreAndCategory() {
+        assertThat(ids(catalog.search("mouse", List.of(), "gamestore", null))).containsExactlyInAnyOrder("p1", "p3");
+        assertThat(ids(catalog.search("", List.of(), null, List.of("Gaming")))).containsExactlyInAnyOrder("p1", "p2");
+        assertThat(ids(catalog.search("", List.of(), null, List.of("gaming", "phones")))).containsExactlyInAnyOrder("p1", "p2", "p4");
+    }
+
+    @Test
+    @DisplayName("typed search applies brand, category and ranges in the query")
+    void typedSearch() {
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setBrand("LOGITECH");
+        assertThat(ids(catalog.search(SearchQuery.from(options)))).containsExactlyInAnyOrder("p1", "p2");
+
+        options.setMinQuantity(10);
+        assertThat(ids(catalog.search(SearchQuery.from(options)))).containsExactly("p1");
+
+        options = new ProductSearchOptions();
+        options.setCategory("Accessories");
+        options.setMaxRating(4.0);
+        options.setStoreName("GameStore");
+        assertThat(ids(catalog.search(SearchQuery.from(options)))).containsExactly("p3");
+    }
+
+    @Test
+    @DisplayName("searchPage walks the results in sort order with a keyset cursor")
+    void searchPageKeyset() {
+        catalog.addStoreProductEntry("pad", "AStore", "p5", 70.0, 1, 4.7, "Pad B");
+        SearchQuery all = SearchQuery.from(new ProductSearchOptions());
+
+        SearchPage<StoreSearchEntry> first = catalog.searchPage(all, SearchSort.PRICE_DESC, 2, null);
+        assertThat(ids(first.getItems())).containsExactly("p4", "p5");
+        assertThat(first.hasNext()).isTrue();
+
+        SearchPage<StoreSearchEntry> second = catalog.searchPage(all, SearchSort.PRICE_DESC, 2, first.getNextCursor());
+        assertThat(ids(second.getItems())).containsExactly("p1", "p2");
+
+        SearchPage<StoreSearchEntry> last = catalog.searchPage(all, SearchSort.PRICE_DESC, 2, second.getNextCursor());
+        assertThat(ids(last.getItems())).containsExactly("p3");
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("searchPage by name matches the in-memory order and rejects foreign cursors")
+    void searchPageByName() {
+        SearchQuery all = SearchQuery.from(new ProductSearchOptions());
+        SearchPage<StoreSearchEntry> first = catalog.searchPage(all, SearchSort.NAME_ASC, 3, null);
+        assertThat(ids(first.getItems())).containsExactly("p1", "p2", "p3");
+        assertThat(ids(catalog.searchPage(all, SearchSort.NAME_ASC, 3, first.getNextCursor()).getItems())).containsExactly("p4");
+        assertThatThrownBy(() -> catalog.searchPage(all, SearchSort.PRICE_ASC, 3, first.getNextCursor()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("a malformed filter is rejected as invalid input, not as a database failure")
+    void malformedFilterRejected() {
+        assertThatThrownBy(() -> catalog.search("mouse", List.of("price<abc"), null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageNotContaining("Database");
+    }
+
+    @Test
+    @DisplayName("getOfferImages returns the images of the requested offers only, in one lookup")
+    void offerImages() {
+        catalog.addStoreProductEntryWithImage("phone", "GameStore", "p5", 900.0, 1, 4.0, "Phone", "phone.png");
+        catalog.addStoreProductEntryWithImage("pad", "PhoneStore", "p6", 25.0, 1, 4.0, "Pad", "pad.png");
+
+        Map<ProductKeyDTO, String> images = catalog.getOfferImages(List.of(
+                new ProductKeyDTO("GameStore", "p5"),
+                new ProductKeyDTO("GameStore", "p1"),
+                new ProductKeyDTO("PhoneStore", "p4")));
+
+        // PhoneStore/p6 matches the store and product lists but was not asked for
+        assertThat(images).containsExactly(entry(new ProductKeyDTO("GameStore", "p5"), "phone.png"));
+    }
+
+    @Test
+    @DisplayName("searchTopK keeps the best K matches under the scorer")
+    void searchTopK() {
+        SearchQuery query = SearchQuery.parse("mouse", List.of(), null, null);
+        List<ScoredEntry> cheapest = catalog.searchTopK(query, 2, (q, e) -> -e.getPrice());
+        assertThat(cheapest).extracting(s -> s.getEntry().getProductID()).containsExactly("p3", "p2");
+
+        assertThat(catalog.searchTopK(query, 10, SearchScorer.defaultScorer())).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("getAllProductsByCategory returns the offers of that category")
+    void allProductsByCategory() {
+        assertThat(ids(catalog.getAllProductsByCategory("Accessories"))).containsExactlyInAnyOrder("p1", "p2", "p3");
+        assertThat(catalog.getAllProductsByCategory("none")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("autocomplete ranks names and brands by offers and follows deletions")
+    void autocomplete() {
+        assertThat(catalog.autocomplete("mou", 10)).containsExactly("Gaming Mouse", "Mousepad 100%");
+
+        catalog.deleteStoreProductEntry("mouse", "GameStore", "p1");
+        catalog.deleteStoreProductEntry("mouse", "OtherStore", "p2");
+        assertThat(catalog.autocomplete("mou", 10)).containsExactly("Mousepad 100%", "Gaming Mouse");
+        assertThat(catalog.autocomplete("app", 10)).containsExactly("Apple");
+    }
+}
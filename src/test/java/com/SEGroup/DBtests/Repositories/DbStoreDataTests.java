@@ -0,0 +1,233 @@
+package com.SEGroup.DBtests.Repositories;
+
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.ReviewCursor;
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaStoreRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.CachedStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreChanges;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreFetchPlan;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("db")
+@DisplayName("DbStoreData")
+class DbStoreDataTests {
+
+    @Autowired
+    private JpaStoreRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private DbStoreData data;
+    private String mouseId;
+    private String padId;
+    private String phoneId;
+
+    @BeforeEach
+    void seed() {
+        data = new DbStoreData(repo);
+
+        Store games = new Store("GameStore", "owner@x.com");
+        mouseId = games.addProductToStore("owner@x.com", "GameStore", "mouse", "Gaming Mouse", "Fast", 70.0, 15, true, "img", List.of("gaming", "accessories"));
+        padId = games.addProductToStore("owner@x.com", "GameStore", "pad", "Pad", "Cloth", 20.0, 50, true, null, List.of("accessories"));
+        games.rateProduct("a@x.com", mouseId, 4, "good");
+        games.rateProduct("b@x.com", mouseId, 2, "meh");
+        games.rateStore("a@x.com", 5, "great");
+        games.rateStore("b@x.com", 4, "fine");
+        data.saveStore(games);
+
+        Store phones = new Store("PhoneStore", "phones@x.com");
+        phoneId = phones.addProductToStore("phones@x.com", "PhoneStore", "phone", "iPhone", "Latest", 999.0, 5, true, null, List.of("phones"));
+        data.saveStore(phones);
+    }
+
+    @Test
+    @DisplayName("findProducts projects only the requested products of several stores")
+    void findProductsAcrossStores() {
+        List<ShoppingProductDTO> found = data.findProducts(Map.of(
+                "GameStore", Set.of(mouseId),
+                "PhoneStore", Set.of(phoneId, "missing")));
+
+        assertThat(found).extracting(ShoppingProductDTO::getProductId).containsExactlyInAnyOrder(mouseId, phoneId);
+        ShoppingProductDTO mouse = found.stream().filter(p -> p.getProductId().equals(mouseId)).findFirst().orElseThrow();
+        assertThat(mouse.getStoreName()).isEqualTo("GameStore");
+        assertThat(mouse.getCatalogID()).isEqualTo("mouse");
+        assertThat(mouse.getPrice()).isEqualTo(70.0);
+        assertThat(mouse.getQuantity()).isEqualTo(15);
+        assertThat(mouse.getAvgRating()).isEqualTo(3.0);
+        assertThat(mouse.getImageUrl()).isEqualTo("img");
+        assertThat(mouse.getCategories()).containsExactlyInAnyOrder("gaming", "accessories");
+    }
+
+    @Test
+    @DisplayName("findProducts ignores a product asked for under the wrong store")
+    void findProductsChecksStore() {
+        assertThat(data.findProducts(Map.of("PhoneStore", Set.of(padId)))).isEmpty();
+        assertThat(data.findProducts(Map.of())).isEmpty();
+        assertThat(data.findProducts(Map.of("GameStore", Set.of(padId))).get(0).getAvgRating()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("listStoreCards pages store summaries by name with product count and rating")
+    void listStoreCardsPaged() {
+        List<StoreCardDto> first = data.listStoreCards(0, 1);
+        assertThat(first).containsExactly(new StoreCardDto("GameStore", "owner@x.com", 4.5, "", 2));
+
+        List<StoreCardDto> second = data.listStoreCards(1, 1);
+        assertThat(second).extracting(StoreCardDto::name).containsExactly("PhoneStore");
+        assertThat(second.get(0).rating()).isEqualTo(0.0);
+        assertThat(second.get(0).productCount()).isEqualTo(1);
+
+        assertThat(data.listStoreCards(2, 1)).isEmpty();
+        assertThatThrownBy(() -> data.listStoreCards(0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("findFounders reads the founders of several stores in one query, leaving out missing stores")
+    void findFoundersAcrossStores() {
+        em.flush();
+        em.clear();
+
+        assertThat(data.findFounders(Set.of("GameStore", "PhoneStore", "missing")))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("GameStore", "owner@x.com", "PhoneStore", "phones@x.com"));
+    }
+
+    @Test
+    @DisplayName("writing a store loaded before another write of it is rejected by the version column")
+    void staleWriteRejected() {
+        em.flush();
+        em.clear();
+        Store first = data.findByName("PhoneStore");
+        em.clear();
+        Store second = data.findByName("PhoneStore");
+        em.clear();
+
+        first.setDescription("first");
+        data.updateStore(first);
+        em.flush();
+        em.clear();
+        assertThat(data.findByName("PhoneStore").getVersion()).isEqualTo(second.getVersion() + 1);
+
+        second.setDescription("second");
+        assertThatThrownBy(() -> data.updateStore(second))
+                .hasMessageContaining("changed by another operation");
+    }
+
+    @Test
+    @DisplayName("rating totals are persisted with the rows and backfilled for rows rated before they existed")
+    void ratingTotals() {
+        em.flush();
+        em.clear();
+        assertThat(data.findByName("GameStore").averageRating()).isEqualTo(4.5);
+
+        em.createNativeQuery("update stores set rating_count = 0, rating_sum = 0").executeUpdate();
+        em.createNativeQuery("update shopping_product set rating_count = 0, rating_sum = 0").executeUpdate();
+        repo.backfillRatingSummaries();
+        em.clear();
+
+        Store games = data.findByName("GameStore");
+        assertThat(games.averageRating()).isEqualTo(4.5);
+        assertThat(games.getProduct(mouseId).averageRating()).isEqualTo(3.0);
+        assertThat(games.getProduct(padId).averageRating()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("reviews are written as rows of their own, paged newest first, and not loaded with the store")
+    void reviewsPagedNewestFirst() {
+        Store games = data.findByName("GameStore", StoreFetchPlan.STAFF);
+        for (int i = 0; i < 5; i++) {
+            // r0 and r1, r2 and r3 share a timestamp: the ID orders them
+            String reviewer = i % 2 == 0 ? "a@x.com" : "b@x.com";
+            data.saveChanges(new StoreChanges(games).review(new Review("GameStore", "r" + i, reviewer, "text", 4, 1_000L + i / 2)));
+        }
+        em.flush();
+        em.clear();
+
+        List<Review> first = data.findReviews("GameStore", null, ReviewCursor.NEWEST, 2);
+        assertThat(first).extracting(Review::getReviewerId).containsExactly("r4", "r3");
+        assertThat(data.findReviews("GameStore", null, ReviewCursor.of(first.get(1)), 10))
+                .extracting(Review::getReviewerId).containsExactly("r2", "r1", "r0");
+        assertThat(data.findReviews("GameStore", "a@x.com", ReviewCursor.NEWEST, 10))
+                .extracting(Review::getReviewerId).containsExactly("r4", "r2", "r0");
+        assertThat(data.findReviews("PhoneStore", null, ReviewCursor.NEWEST, 10)).isEmpty();
+
+        Review r2 = data.findReview("GameStore", "r2");
+        r2.setStoreComment("thanks");
+        data.saveChanges(new StoreChanges(games).review(r2));
+        em.flush();
+        em.clear();
+        assertThat(data.findReview("GameStore", "r2").getStoreComment()).isEqualTo("thanks");
+        assertThat(data.findReview("PhoneStore", "r2")).isNull();
+
+        Store full = data.findByName("GameStore");
+        assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(full, "reviewIdToReview")).isFalse();
+    }
+
+    @Test
+    @DisplayName("stock is taken only while enough is left, and a copy loaded before cannot write its old quantity back")
+    void takeQuantityIsConditional() {
+        em.flush();
+        em.clear();
+        Store stale = data.findByName("GameStore", StoreFetchPlan.PRODUCTS);
+        em.clear();
+
+        assertThat(data.takeQuantity("GameStore", mouseId, 10)).isTrue();
+        assertThat(data.takeQuantity("GameStore", mouseId, 10)).isFalse();
+        assertThat(data.takeQuantity("PhoneStore", mouseId, 1)).isFalse();
+        data.returnQuantity("GameStore", mouseId, 2);
+        em.clear();
+        assertThat(data.findByName("GameStore", StoreFetchPlan.PRODUCTS).getProduct(mouseId).getQuantity()).isEqualTo(7);
+        em.clear();
+
+        ShoppingProduct old = stale.getProduct(mouseId);
+        old.setPrice(60.0);
+        assertThatThrownBy(() -> data.saveChanges(new StoreChanges(stale).product(old)))
+                .hasMessageContaining("changed by another operation");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("the store cache hands out copies of the committed store, and a copy that went stale is not written back")
+    void cacheHandsOutVersionedCopies() {
+        CachedStoreData cache = new CachedStoreData(data, 4);
+        try {
+            Store first = cache.findByName("GameStore");
+            Store second = cache.findByName("GameStore");
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getProduct(mouseId).averageRating()).isEqualTo(3.0);
+            assertThat(cache.stats().hits()).isEqualTo(1);
+
+            first.addToBalance(10);
+            cache.saveChanges(new StoreChanges(first).storeRow());
+            second.addToBalance(100);
+            assertThatThrownBy(() -> cache.saveChanges(new StoreChanges(second).storeRow()))
+                    .hasMessageContaining("changed by another operation");
+
+            assertThat(cache.findByName("GameStore").getBalance()).isEqualTo(10);
+            assertThat(cache.findByName("GameStore").getVersion()).isEqualTo(first.getVersion());
+        } finally {
+            repo.deleteAll();
+        }
+    }
+}
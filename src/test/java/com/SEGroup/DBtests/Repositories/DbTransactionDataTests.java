@@ -0,0 +1,229 @@
+package com.SEGroup.DBtests.Repositories;
+
+import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Domain.Transaction.Transaction;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaCheckoutSagaRepository;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaOutboxRepository;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaTransactionRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbTransactionData;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+// the saga writes commit in transactions of their own, so the tests run without one and clean up after themselves
+@DataJpaTest
+@ActiveProfiles("db")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("DbTransactionData")
+class DbTransactionDataTests {
+
+    @Autowired
+    private JpaTransactionRepository transactions;
+
+    @Autowired
+    private JpaCheckoutSagaRepository sagas;
+
+    @Autowired
+    private JpaOutboxRepository outbox;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private DbTransactionData data;
+    private CheckoutSaga saga;
+
+    @BeforeEach
+    void seed() {
+        data = new DbTransactionData(transactions, sagas, outbox);
+        Map<BasketDTO, Double> basketToPrice = new LinkedHashMap<>();
+        basketToPrice.put(new BasketDTO("GameStore", Map.of("mouse", 2)), 140.0);
+        basketToPrice.put(new BasketDTO("PhoneStore", Map.of("phone", 1)), 999.0);
+        saga = new CheckoutSaga("buyer@x.com", basketToPrice);
+        data.startCheckout(saga);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outbox.deleteAllInBatch();
+        sagas.deleteAll();
+        transactions.deleteAll();
+    }
+
+    private List<OutboxMessage> messages() {
+        return List.of(
+                OutboxMessage.notify(saga.getId(), "games@x.com", "sold"),
+                OutboxMessage.notify(saga.getId(), "phones@x.com", "sold"),
+                OutboxMessage.clearCart(saga.getId(), "buyer@x.com"));
+    }
+
+    @Test
+    @DisplayName("a started saga is read back open, with its cart")
+    void startedSagaIsOpen() {
+        List<CheckoutSaga> open = data.getCheckoutsByStatus(CheckoutSaga.Status.STOCK_TAKEN);
+
+        assertThat(open).hasSize(1);
+        assertThat(open.get(0).getBuyer()).isEqualTo("buyer@x.com");
+        assertThat(open.get(0).getCart()).containsExactly(
+                new BasketDTO("GameStore", Map.of("mouse", 2)),
+                new BasketDTO("PhoneStore", Map.of("phone", 1)));
+    }
+
+    @Test
+    @DisplayName("completing writes the transactions, the outbox and the status together, and only once")
+    void completeIsAtomicAndOnce() {
+        data.completeCheckout(saga, saga.toTransactions(), messages());
+
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.COMPLETED)).extracting(CheckoutSaga::getId)
+                .containsExactly(saga.getId());
+        assertThat(data.getTransactionsByUserEmail("buyer@x.com"))
+                .extracting(Transaction::getStoreName, Transaction::getCost)
+                .containsExactlyInAnyOrder(tuple("GameStore", 140.0), tuple("PhoneStore", 999.0));
+        assertThat(data.getOutboxMessages(10)).extracting(OutboxMessage::getType)
+                .containsExactly(OutboxMessage.Type.NOTIFY, OutboxMessage.Type.NOTIFY, OutboxMessage.Type.CLEAR_CART);
+
+        assertThatThrownBy(() -> data.completeCheckout(saga, saga.toTransactions(), messages()))
+                .hasMessageContaining("changed by another operation");
+    }
+
+    @Test
+    @DisplayName("transactions are saved together, and the id sequence is moved past rows written before it")
+    void saveTransactionsTogether() {
+        data.saveTransactions(saga.toTransactions());
+
+        assertThat(data.getTransactionsByUserEmail("buyer@x.com"))
+                .extracting(Transaction::getStoreName, t -> t.getItemsToTransact().size())
+                .containsExactlyInAnyOrder(tuple("GameStore", 2), tuple("PhoneStore", 1));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.createNativeQuery(
+                "insert into transactions (id, cost, buyers_email, store_name) values (1000, 5.0, 'old@x.com', 'GameStore')")
+                .executeUpdate());
+        transactions.moveIdSequencePastExistingRows();
+        Number next = (Number) em.createNativeQuery("select next value for transaction_seq").getSingleResult();
+        // Hibernate hands out the block of 50 ids below each sequence value
+        assertThat(next.longValue() - 50).isGreaterThanOrEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("a compensated saga can no longer complete")
+    void compensatedCannotComplete() {
+        saga.compensate();
+        data.moveCheckout(saga, CheckoutSaga.Status.STOCK_TAKEN, List.of());
+
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.STOCK_TAKEN)).isEmpty();
+        assertThatThrownBy(() -> data.completeCheckout(saga, saga.toTransactions(), messages()))
+                .hasMessageContaining("changed by another operation");
+        assertThat(data.getTransactionsByUserEmail("buyer@x.com")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a hold is stored with its expiry, converts once, and moves on like any checkout")
+    void holdMovesByStatus() {
+        Map<BasketDTO, Double> basketToPrice = Map.of(new BasketDTO("GameStore", Map.of("pad", 1)), 20.0);
+        CheckoutSaga hold = CheckoutSaga.hold("holder@x.com", basketToPrice, 123_456L);
+        data.startCheckout(hold);
+
+        CheckoutSaga stored = data.getCheckoutsByStatus(CheckoutSaga.Status.HELD).get(0);
+        assertThat(stored.getExpiresAt()).isEqualTo(123_456L);
+        assertThat(stored.getBasketToPrice()).isEqualTo(basketToPrice);
+
+        hold.take();
+        data.moveCheckout(hold, CheckoutSaga.Status.HELD, List.of());
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.HELD)).isEmpty();
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.STOCK_TAKEN)).hasSize(2);
+
+        // a second move out of HELD, e.g. a racing expiry, finds the hold already converted
+        assertThatThrownBy(() -> data.moveCheckout(hold, CheckoutSaga.Status.HELD, List.of()))
+                .hasMessageContaining("changed by another operation");
+
+        // a converted hold moves on like any checkout, however often it moved before
+        hold.compensate();
+        data.moveCheckout(hold, CheckoutSaga.Status.STOCK_TAKEN, List.of());
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.COMPENSATED)).extracting(CheckoutSaga::getId)
+                .containsExactly(hold.getId());
+    }
+
+    @Test
+    @DisplayName("shipped and paid steps keep the gateway ids, and compensating queues their cancellations in the same write")
+    void stepsKeepGatewayIds() {
+        CheckoutSaga.Status from = saga.getStatus();
+        saga.shipped(List.of(11, 12));
+        data.moveCheckout(saga, from, List.of());
+        saga.paid(21);
+        data.moveCheckout(saga, CheckoutSaga.Status.SHIPPED, List.of());
+
+        CheckoutSaga stored = data.getCheckoutsByStatus(CheckoutSaga.Status.PAID).get(0);
+        assertThat(stored.getShipmentIds()).containsExactly(11, 12);
+        assertThat(stored.getPaymentId()).isEqualTo(21);
+
+        stored.compensate();
+        data.moveCheckout(stored, CheckoutSaga.Status.PAID, stored.cancellations());
+        assertThat(data.getOutboxMessages(10)).extracting(OutboxMessage::getType, OutboxMessage::getBody)
+                .containsExactly(
+                        tuple(OutboxMessage.Type.CANCEL_SHIPMENT, "11"),
+                        tuple(OutboxMessage.Type.CANCEL_SHIPMENT, "12"),
+                        tuple(OutboxMessage.Type.CANCEL_PAYMENT, "21"));
+
+        // a second compensation, e.g. a racing recovery, finds the saga closed and queues nothing
+        assertThatThrownBy(() -> data.moveCheckout(saga, CheckoutSaga.Status.PAID, saga.cancellations()))
+                .hasMessageContaining("changed by another operation");
+        assertThat(data.getOutboxMessages(10)).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("saga and outbox writes commit on their own, so a caller rolling back keeps them and loses only its own writes")
+    void sagaSurvivesCallerRollback() {
+        CheckoutSaga.Status from = saga.getStatus();
+        CheckoutSaga hold = CheckoutSaga.hold("holder@x.com", Map.of(new BasketDTO("GameStore", Map.of("pad", 1)), 20.0), 123_456L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            data.saveTransactions(saga.toTransactions());
+            data.startCheckout(hold);
+            saga.shipped(List.of(11));
+            data.moveCheckout(saga, from, List.of());
+            data.addOutboxMessages(List.of(OutboxMessage.cancelShipment(saga.getId(), "buyer@x.com", 12)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.HELD)).extracting(CheckoutSaga::getId)
+                .containsExactly(hold.getId());
+        assertThat(data.getCheckoutsByStatus(CheckoutSaga.Status.SHIPPED)).extracting(CheckoutSaga::getShipmentIds)
+                .containsExactly(List.of(11));
+        assertThat(data.getOutboxMessages(10)).extracting(OutboxMessage::getType, OutboxMessage::getBody)
+                .containsExactly(tuple(OutboxMessage.Type.CANCEL_SHIPMENT, "12"));
+        assertThat(data.getTransactionsByUserEmail("buyer@x.com")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("outbox messages come oldest first and are deleted in one batch")
+    void outboxOldestFirst() {
+        data.completeCheckout(saga, saga.toTransactions(), messages());
+
+        List<OutboxMessage> first = data.getOutboxMessages(2);
+        assertThat(first).extracting(OutboxMessage::getRecipient).containsExactly("games@x.com", "phones@x.com");
+
+        data.deleteOutboxMessages(first.stream().map(OutboxMessage::getId).toList());
+        assertThat(data.getOutboxMessages(10)).extracting(OutboxMessage::getType)
+                .containsExactly(OutboxMessage.Type.CLEAR_CART);
+    }
+}
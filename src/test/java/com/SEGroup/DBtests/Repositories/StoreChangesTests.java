@@ -0,0 +1,163 @@
+package com.SEGroup.DBtests.Repositories;
+
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaStoreRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreChanges;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreFetchPlan;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("db")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Store unit of work")
+class StoreChangesTests {
+
+    @Autowired
+    private JpaStoreRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private DbStoreData data;
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        data = new DbStoreData(repo);
+        stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private List<String> seed(String name, String founder, int products) {
+        Store store = new Store(name, founder);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            String id = store.addProductToStore(founder, name, "c" + i, "P" + i, "d", 10.0, 5, false, null, List.of("x"));
+            store.rateProduct("r@x.com", id, 4, "ok");
+            ids.add(id);
+        }
+        data.saveStore(store);
+        em.flush();
+        em.clear();
+        return ids;
+    }
+
+    // detached store, as StoreRepository sees it outside a transaction
+    private Store detached(String name, StoreFetchPlan plan) {
+        Store store = data.findByName(name, plan);
+        em.clear();
+        return store;
+    }
+
+    private long statementsFor(Runnable write) {
+        stats.clear();
+        write.run();
+        em.flush();
+        return stats.getPrepareStatementCount();
+    }
+
+    // takes one unit of each of the first three products, the way checkout does
+    private long checkout(String storeName, List<String> ids, Consumer<Store> write) {
+        Store store = detached(storeName, StoreFetchPlan.PRODUCTS);
+        for (String id : ids.subList(0, 3)) {
+            ShoppingProduct product = store.getProduct(id);
+            product.setQuantity(product.getQuantity() - 1);
+        }
+        long statements = statementsFor(() -> write.accept(store));
+        em.clear();
+        return statements;
+    }
+
+    @Test
+    @DisplayName("writing a checkout costs the same for a small and a large store and touches only the changed rows")
+    void checkoutCostFollowsTouchedItems() {
+        List<String> small = seed("Small", "small@x.com", 5);
+        List<String> large = seed("Large", "large@x.com", 60);
+
+        Consumer<Store> saveChanges = store -> {
+            StoreChanges changes = new StoreChanges(store);
+            (store.getName().equals("Small") ? small : large).subList(0, 3)
+                    .forEach(id -> changes.product(store.getProduct(id)));
+            data.saveChanges(changes);
+        };
+        long smallStatements = checkout("Small", small, saveChanges);
+        stats.clear();
+        long largeStatements = checkout("Large", large, saveChanges);
+        long updated = stats.getEntityUpdateCount();
+        long wholeStore = checkout("Large", large, data::updateStore);
+
+        assertThat(largeStatements).isEqualTo(smallStatements).isLessThan(wholeStore);
+        assertThat(updated).isEqualTo(3);
+
+        Store reloaded = data.findByName("Large", StoreFetchPlan.PRODUCTS);
+        assertThat(large.subList(0, 3)).allSatisfy(id -> assertThat(reloaded.getProduct(id).getQuantity()).isEqualTo(3));
+        assertThat(large.subList(3, 60)).allSatisfy(id -> assertThat(reloaded.getProduct(id).getQuantity()).isEqualTo(5));
+        assertThat(reloaded.getProduct(large.get(0)).averageRating()).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("store row and product rating changes are written without the rest of the aggregate")
+    void storeRowAndRatings() {
+        List<String> ids = seed("Shop", "f@x.com", 10);
+
+        // rating needs the product's ratings, as StoreRepository.rateProduct loads them
+        Store store = detached("Shop", StoreFetchPlan.FULL);
+        store.addToBalance(25);
+        store.setDescription("open late");
+        ShoppingProduct rated = store.rateProduct("other@x.com", ids.get(1), 2, "meh");
+        data.saveChanges(new StoreChanges(store).storeRow().product(rated));
+        em.flush();
+        em.clear();
+
+        Store reloaded = data.findByName("Shop");
+        assertThat(reloaded.getBalance()).isEqualTo(25);
+        assertThat(reloaded.getDescription()).isEqualTo("open late");
+        assertThat(reloaded.getProduct(ids.get(1)).averageRating()).isEqualTo(3.0);
+        assertThat(reloaded.getProduct(ids.get(0)).averageRating()).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("a store written since it was loaded is not overwritten, and a written store can be written again")
+    void staleStoreRejected() {
+        List<String> ids = seed("Shop", "f@x.com", 2);
+        Store first = detached("Shop", StoreFetchPlan.PRODUCTS);
+        Store stale = detached("Shop", StoreFetchPlan.PRODUCTS);
+
+        first.addToBalance(10);
+        data.saveChanges(new StoreChanges(first).storeRow());
+        first.addToBalance(5);
+        data.saveChanges(new StoreChanges(first).storeRow());
+        em.clear();
+
+        stale.addToBalance(100);
+        assertThatThrownBy(() -> data.saveChanges(new StoreChanges(stale).storeRow()))
+                .hasMessageContaining("changed by another operation");
+        ShoppingProduct product = stale.getProduct(ids.get(0));
+        product.setQuantity(0);
+        assertThatThrownBy(() -> data.saveChanges(new StoreChanges(stale).product(product)))
+                .hasMessageContaining("changed by another operation");
+        em.clear();
+
+        Store reloaded = data.findByName("Shop", StoreFetchPlan.PRODUCTS);
+        assertThat(reloaded.getBalance()).isEqualTo(15);
+        assertThat(reloaded.getVersion()).isEqualTo(first.getVersion());
+        assertThat(reloaded.getProduct(ids.get(0)).getQuantity()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,146 @@
+package com.SEGroup.DBtests.Repositories;
+
+import com.SEGroup.DTO.StoreDTO;
+import com.SEGroup.Domain.Store.ManagerPermission;
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Infrastructure.Repositories.JpaDatabase.JpaStoreRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.DbStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreFetchPlan;
+import com.SEGroup.Infrastructure.Repositories.StoreRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("db")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Store fetch plans")
+class StoreFetchPlanTests {
+
+    @Autowired
+    private JpaStoreRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private DbStoreData data;
+    private Statistics stats;
+    private PersistenceUnitUtil loaded;
+
+    @BeforeEach
+    void setUp() {
+        data = new DbStoreData(repo);
+        stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        loaded = em.getEntityManagerFactory().getPersistenceUnitUtil();
+    }
+
+    private void seed(String name, String founder, int products) {
+        Store store = new Store(name, founder);
+        store.appointOwner(founder, name + "-co@x.com", false);
+        store.appointManager(founder, name + "-m@x.com", Set.of(ManagerPermission.MANAGE_BIDS, ManagerPermission.MANAGE_PRODUCTS), false);
+        for (int i = 0; i < products; i++) {
+            String id = store.addProductToStore(founder, name, "c" + i, "P" + i, "d", 1.0 + i, 5, false, null, List.of("x", "y"));
+            store.rateProduct("r1@x.com", id, 4, "ok");
+            store.rateProduct("r2@x.com", id, 3, "ok");
+        }
+        store.rateStore("r1@x.com", 5, "a");
+        data.saveStore(store);
+        em.flush();
+        em.clear();
+        stats.clear();
+    }
+
+    // statements run by the load; the whole eager aggregate used to take 2-3 per product (26 for 10 products)
+    private long statementsFor(Runnable load) {
+        em.clear();
+        stats.clear();
+        load.run();
+        return stats.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("the staff plan reads the store and its staff in one query and leaves products unloaded")
+    void staffPlan() {
+        seed("Shop", "f@x.com", 10);
+
+        Store[] store = new Store[1];
+        assertThat(statementsFor(() -> store[0] = data.findByName("Shop", StoreFetchPlan.STAFF))).isEqualTo(1);
+        assertThat(store[0].getAllOwners()).containsExactlyInAnyOrder("f@x.com", "Shop-co@x.com");
+        assertThat(store[0].hasManagerPermission("Shop-m@x.com", ManagerPermission.MANAGE_BIDS)).isTrue();
+        assertThat(loaded.isLoaded(store[0], "products")).isFalse();
+        assertThat(loaded.isLoaded(store[0], "reviewIdToReview")).isFalse();
+    }
+
+    @Test
+    @DisplayName("the products plan reads products with categories in one query, without staff or ratings")
+    void productsPlan() {
+        seed("Shop", "f@x.com", 10);
+
+        Store[] store = new Store[1];
+        assertThat(statementsFor(() -> store[0] = data.findByName("Shop", StoreFetchPlan.PRODUCTS))).isEqualTo(1);
+        assertThat(store[0].getAllProducts()).hasSize(10)
+                .allSatisfy(p -> {
+                    assertThat(p.getCategories()).containsExactlyInAnyOrder("x", "y");
+                    assertThat(p.averageRating()).isEqualTo(3.5);
+                });
+        // the average comes from the rating totals on the product row
+        assertThat(store[0].getAllProducts()).allSatisfy(p -> assertThat(loaded.isLoaded(p, "ratings")).isFalse());
+        assertThat(loaded.isLoaded(store[0], "ownersAppointer")).isFalse();
+        assertThat(loaded.isLoaded(store[0], "managers")).isFalse();
+    }
+
+    @Test
+    @DisplayName("the full plan costs the same number of queries however many products or stores there are")
+    void fullPlanIsConstant() {
+        seed("Small", "small@x.com", 2);
+        seed("Large", "large@x.com", 30);
+
+        long small = statementsFor(() -> data.findByName("Small"));
+        long large = statementsFor(() -> data.findByName("Large"));
+        long all = statementsFor(() -> data.getAllStores());
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(10);
+        assertThat(all).isLessThanOrEqualTo(small + 1);
+
+        em.clear();
+        Store store = data.findByName("Large");
+        assertThat(store.getAllProducts()).hasSize(30);
+        assertThat(store.getAllProducts()).allSatisfy(p -> assertThat(loaded.isLoaded(p, "bids")).isTrue());
+        assertThat(store.averageRating()).isEqualTo(5.0);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("without a surrounding transaction, planned loads and updates work on detached stores")
+    void detachedUse() {
+        StoreRepository stores = new StoreRepository(new DbStoreData(repo));
+        try {
+            stores.createStore("Detached", "detached@x.com");
+            String productId = stores.addProductToStore("detached@x.com", "Detached", "c1", "Lamp", "d", 9.0, 3, false, null, List.of("home"));
+            stores.appointOwner("Detached", "detached@x.com", "co@x.com", false);
+
+            assertThat(stores.getAllOwners("Detached", "detached@x.com")).containsExactlyInAnyOrder("detached@x.com", "co@x.com");
+            assertThat(stores.getProduct("Detached", productId).getCategories()).containsExactly("home");
+            StoreDTO dto = stores.getStore("Detached");
+            assertThat(dto.getProducts()).hasSize(1);
+            assertThat(stores.getStoresOwnedBy("co@x.com")).extracting(StoreDTO::getName).containsExactly("Detached");
+        } finally {
+            repo.deleteAll();
+        }
+    }
+}
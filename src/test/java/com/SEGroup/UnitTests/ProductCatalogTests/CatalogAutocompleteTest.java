@@ -0,0 +1,67 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.CatalogAutocomplete;
+import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+
+public class CatalogAutocompleteTest {
+
+    private CatalogAutocomplete autocomplete;
+
+    private static CatalogProduct product(String id, String name, String brand) {
+        return new CatalogProduct(id, name, brand, "", List.of());
+    }
+
+    @BeforeEach
+    void setUp() {
+        autocomplete = new CatalogAutocomplete();
+        autocomplete.addProduct(product("gm", "Gaming Mouse", "Logitech"));
+        autocomplete.addProduct(product("mp", "Mouse Pad", "SteelSeries"));
+        autocomplete.addProduct(product("mon", "Monitor", "Logitech"));
+    }
+
+    @Test
+    @DisplayName("Given names and brands, when a prefix is typed, then terms starting with it or with a word starting with it are suggested")
+    void GivenTerms_WhenPrefixTyped_ThenWholeTextAndWordStartsMatch() {
+        List<String> mou = autocomplete.suggest("MOU", 10);
+        assertEquals(2, mou.size());
+        assertTrue(mou.containsAll(List.of("Gaming Mouse", "Mouse Pad")));
+
+        assertEquals(List.of("Logitech"), autocomplete.suggest("log", 10));
+        assertTrue(autocomplete.suggest("ouse", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given offers, when suggesting, then the most offered terms come first and the limit is respected")
+    void GivenOffers_WhenSuggesting_ThenRankedByOfferCountAndLimited() {
+        autocomplete.offerAdded("mp");
+        autocomplete.offerAdded("mp");
+        autocomplete.offerAdded("gm");
+        assertEquals(List.of("Mouse Pad", "Gaming Mouse"), autocomplete.suggest("mo", 2));
+
+        autocomplete.offerRemoved("mp");
+        autocomplete.offerRemoved("mp");
+        assertEquals("Gaming Mouse", autocomplete.suggest("mo", 1).get(0));
+        // the shared brand carries the offers of both products
+        autocomplete.offerAdded("mon");
+        assertEquals(List.of("Logitech", "Gaming Mouse"), autocomplete.suggest("", 2));
+    }
+
+    @Test
+    @DisplayName("Given a product re-added with a new name, when suggesting, then only the new name is suggested")
+    void GivenReAddedProduct_WhenSuggesting_ThenOldNameGone() {
+        autocomplete.offerAdded("mp");
+        autocomplete.addProduct(product("mp", "Desk Mat", "SteelSeries"));
+
+        assertEquals(List.of("Gaming Mouse"), autocomplete.suggest("mouse", 10));
+        assertEquals(List.of("Desk Mat"), autocomplete.suggest("mat", 10));
+        assertEquals("Desk Mat", autocomplete.suggest("", 1).get(0));
+    }
+}
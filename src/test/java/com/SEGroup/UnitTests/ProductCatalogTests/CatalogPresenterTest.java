@@ -0,0 +1,86 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
+import com.SEGroup.Service.Result;
+import com.SEGroup.Service.StoreService;
+import com.SEGroup.Service.UserService;
+import com.SEGroup.UI.Presenter.CatalogPresenter;
+import com.SEGroup.UI.ServiceLocator;
+import com.SEGroup.UI.Views.CatalogView;
+
+public class CatalogPresenterTest {
+    private StoreService storeService;
+    private CatalogView view;
+    private MockedStatic<ServiceLocator> locator;
+    private CatalogPresenter presenter;
+
+    @BeforeEach
+    void init() {
+        storeService = mock(StoreService.class);
+        view = mock(CatalogView.class);
+        locator = mockStatic(ServiceLocator.class);
+        locator.when(ServiceLocator::getStoreService).thenReturn(storeService);
+        locator.when(ServiceLocator::getUserService).thenReturn(mock(UserService.class));
+        when(storeService.searchProductsPage(any(), any(), anyInt(), any()))
+                .thenReturn(Result.success(new SearchPage<ShoppingProductDTO>(List.of(), null)));
+        presenter = new CatalogPresenter(view);
+    }
+
+    @AfterEach
+    void close() {
+        locator.close();
+    }
+
+    @Test
+    @DisplayName("Given two category filters, when searching, then both categories reach the query")
+    void GivenTwoCategoryFilters_WhenSearching_ThenBothCategoriesQueried() {
+        presenter.searchProducts("phone", List.of("category=Phones", "category=Laptops", "price<500"));
+
+        ArgumentCaptor<ProductSearchOptions> options = ArgumentCaptor.forClass(ProductSearchOptions.class);
+        verify(storeService).searchProductsPage(options.capture(), eq(SearchSort.NAME_ASC), anyInt(), any());
+        assertEquals(Set.of("Phones", "Laptops"), options.getValue().getCategories());
+        assertEquals(List.of("phones", "laptops"), SearchQuery.from(options.getValue()).getCategories());
+        assertEquals(500.0, options.getValue().getMaxPrice());
+        verify(view).displayProductPages();
+    }
+
+    @Test
+    @DisplayName("Given the catalog opens, when loading products, then the first page comes from the lazy search")
+    void GivenCatalogOpens_WhenLoadingProducts_ThenFirstPageIsSearchedLazily() {
+        presenter.loadProducts();
+
+        ArgumentCaptor<ProductSearchOptions> options = ArgumentCaptor.forClass(ProductSearchOptions.class);
+        verify(storeService).searchProductsPage(options.capture(), eq(SearchSort.NAME_ASC), anyInt(), eq(null));
+        assertEquals("", options.getValue().getText());
+        assertTrue(options.getValue().getCategories().isEmpty());
+        verify(storeService, never()).getAllProducts();
+        verify(view, never()).displayProducts(any());
+        verify(view).displayProductPages();
+        verify(view).addFilterOptions(List.of());
+    }
+}
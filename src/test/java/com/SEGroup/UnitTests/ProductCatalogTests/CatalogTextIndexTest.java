@@ -0,0 +1,79 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.CatalogTextIndex;
+
+public class CatalogTextIndexTest {
+    private CatalogTextIndex index;
+    private List<CatalogProduct> products;
+
+    @BeforeEach
+    void init() {
+        index = new CatalogTextIndex();
+        products = new ArrayList<>();
+        add(new CatalogProduct("1", "Gaming Mouse", "Logitech", "Fast response mouse", List.of("Gaming")));
+        add(new CatalogProduct("2", "Mousepad XL", "SteelSeries", "Cloth surface", List.of("Gaming")));
+        add(new CatalogProduct("3", "iPhone 13", "Apple", "Latest iPhone", List.of("Phones")));
+        add(new CatalogProduct("4", "Keyboard", "Logitech", "Mechanical keyboard", List.of("Accessories")));
+    }
+
+    private void add(CatalogProduct p) {
+        products.add(p);
+        index.add(p);
+    }
+
+    private Set<String> scan(String query) {
+        Set<String> ids = new HashSet<>();
+        String q = query.toLowerCase();
+        for (CatalogProduct p : products) {
+            if (p.getName().toLowerCase().contains(q) ||
+                    p.getBrand().toLowerCase().contains(q) ||
+                    p.getDescription().toLowerCase().contains(q)) {
+                ids.add(p.getCatalogID());
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Given indexed products, when looking up, then results equal a substring scan")
+    void GivenIndexedProducts_WhenLookup_ThenSameAsSubstringScan() {
+        for (String q : List.of("", "m", "Mo", "mouse", "MOUSEPAD", "logitech", "phone 1", "ouse r", "zzz", "board")) {
+            assertEquals(scan(q), index.lookup(q), "query: " + q);
+        }
+    }
+
+    @Test
+    @DisplayName("Given n-grams present in different fields, when looking up, then no false positive is returned")
+    void GivenGramsSpreadAcrossFields_WhenLookup_ThenNoFalsePositive() {
+        // "logitech" is in the brand and "mouse" in the name, but "logitech mouse" is in no single field
+        assertTrue(index.lookup("logitech mouse").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given a re-added product, when looking up old text, then it is no longer found")
+    void GivenReAddedProduct_WhenLookupOldText_ThenNotFound() {
+        index.add(new CatalogProduct("3", "Pixel 7", "Google", "Android flagship", List.of("Phones")));
+        assertTrue(index.lookup("iphone").isEmpty());
+        assertEquals(Set.of("3"), index.lookup("pixel"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Given a removed product, when looking up, then it is not returned")
+    void GivenRemovedProduct_WhenLookup_ThenNotReturned() {
+        index.remove("1");
+        assertEquals(Set.of("2"), index.lookup("mouse"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.OfferRangeIndex;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Infrastructure.Repositories.ProductCatalogRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryProductCatalogData;
+
+public class ConcurrentProductCatalogStressTest {
+    private static final int WRITERS = 4;
+    private static final int SEARCHERS = 4;
+    private static final int OFFERS_PER_WRITER = 200;
+    private static final int ROUNDS = 30;
+
+    @Test
+    @DisplayName("Given concurrent writers and searchers, when they run together, then searches never fail or see a half-updated offer")
+    void GivenWritersAndSearchers_WhenRunConcurrently_ThenSearchesSeeConsistentOffers() throws Exception {
+        ProductCatalogRepository catalog = new ProductCatalogRepository();
+        catalog.addCatalogProduct("mouse", "Gaming Mouse", "BrandA", "Fast mouse", Arrays.asList("Gaming"));
+        catalog.addCatalogProduct("pad", "Mouse Pad", "BrandB", "Cloth", Arrays.asList("Gaming", "Office"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + SEARCHERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger writersLeft = new AtomicInteger(WRITERS);
+        AtomicInteger searches = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            String store = "Store" + w;
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    for (int round = 1; round <= ROUNDS; round++) {
+                        for (int i = 0; i < OFFERS_PER_WRITER; i++) {
+                            String catalogID = i % 2 == 0 ? "mouse" : "pad";
+                            if (round == 1) {
+                                // every write keeps price == quantity == rating * 10, so a torn read is detectable
+                                catalog.addStoreProductEntry(catalogID, store, "p" + i, 10.0, 10, 1.0, "n" + i);
+                            } else if (i % 10 == round % 10) {
+                                catalog.deleteStoreProductEntry(catalogID, store, "p" + i);
+                                catalog.addStoreProductEntry(catalogID, store, "p" + i, 10.0 * round, 10 * round, round, "n" + i);
+                            } else {
+                                catalog.updateStoreProductEntry(catalogID, store, "p" + i, 10.0 * round, 10 * round, (double) round);
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    if (writersLeft.decrementAndGet() == 0) writing.set(false);
+                }
+            });
+        }
+
+        for (int s = 0; s < SEARCHERS; s++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    SearchQuery all = SearchQuery.from(new ProductSearchOptions());
+                    while (writing.get()) {
+                        for (StoreSearchEntry e : catalog.search("mouse", Collections.emptyList(), null, null)) {
+                            assertConsistent(e);
+                        }
+                        String cursor = null;
+                        do {
+                            SearchPage<StoreSearchEntry> page = catalog.searchPage(all, SearchSort.PRICE_DESC, 50, cursor);
+                            page.getItems().forEach(ConcurrentProductCatalogStressTest::assertConsistent);
+                            cursor = page.getNextCursor();
+                        } while (cursor != null);
+                        catalog.getAllProductsByCategory("Office").forEach(ConcurrentProductCatalogStressTest::assertConsistent);
+                        searches.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS), "stress test did not finish");
+        assertTrue(failures.isEmpty(), () -> "concurrent access failed: " + failures.peek());
+        assertTrue(searches.get() > 0);
+
+        // every offer ends in its last written state, exactly once
+        List<StoreSearchEntry> finalState = new ArrayList<>(catalog.getAllProductsByCategory("Gaming"));
+        assertEquals(WRITERS * OFFERS_PER_WRITER, finalState.size());
+        for (StoreSearchEntry e : finalState) {
+            assertEquals(10.0 * ROUNDS, e.getPrice());
+            assertEquals(10 * ROUNDS, e.getQuantity());
+        }
+    }
+
+    @Test
+    @DisplayName("Given offers listed before their product, when the product is added during price updates, then its category range links each offer once at its current price")
+    void GivenEarlyOffers_WhenProductAddedDuringUpdates_ThenCategoryRangeIsCurrent() throws Exception {
+        int offers = 1000;
+        int passes = 5;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                InMemoryProductCatalogData catalog = new InMemoryProductCatalogData();
+                for (int i = 0; i < offers; i++) {
+                    catalog.addStoreProductEntry("lamp", "Store", "p" + i, 1.0, 1, 1.0, "n" + i);
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> tasks = List.of(
+                        pool.submit(() -> {
+                            start.await();
+                            catalog.addCatalogProduct("lamp", "Desk Lamp", "BrandC", "Lamp", List.of("Lighting"));
+                            return null;
+                        }),
+                        pool.submit(() -> {
+                            start.await();
+                            for (int pass = 2; pass <= passes; pass++) {
+                                for (int i = 0; i < offers; i++) {
+                                    catalog.updateStoreProductEntry("lamp", "Store", "p" + i, (double) pass, null, null);
+                                }
+                            }
+                            return null;
+                        }));
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get(60, TimeUnit.SECONDS);
+                }
+
+                OfferRangeIndex<?> lighting = categoryRanges(catalog).get("lighting");
+                AtomicInteger links = new AtomicInteger();
+                lighting.forEachInRange(OfferRangeIndex.Field.PRICE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        k -> links.incrementAndGet());
+                AtomicInteger current = new AtomicInteger();
+                lighting.forEachInRange(OfferRangeIndex.Field.PRICE, passes, passes, k -> current.incrementAndGet());
+                assertEquals(offers, links.get(), "stale links in round " + round);
+                assertEquals(offers, current.get(), "missing links in round " + round);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, OfferRangeIndex<?>> categoryRanges(InMemoryProductCatalogData catalog) throws Exception {
+        Field field = InMemoryProductCatalogData.class.getDeclaredField("categoryRanges");
+        field.setAccessible(true);
+        return (Map<String, OfferRangeIndex<?>>) field.get(catalog);
+    }
+
+    private static void assertConsistent(StoreSearchEntry e) {
+        if (e.getPrice() != e.getQuantity() || e.getPrice() != e.getRating() * 10) {
+            throw new AssertionError("torn offer " + e.getStoreName() + "/" + e.getProductID() + ": price=" + e.getPrice()
+                    + " quantity=" + e.getQuantity() + " rating=" + e.getRating());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.SEGroup.UnitTests.ProductCatalogTests;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
@@ -10,7 +11,14 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.SEGroup.DTO.ProductKeyDTO;
 import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
 import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
 import com.SEGroup.Infrastructure.Repositories.ProductCatalogRepository;
 
@@ -41,6 +49,21 @@ public class InMemoryProductCatalogTests {
         assertEquals("BestStore", entries.get(0).getStoreName());
     }
 
+    @Test
+    void GivenOffersWithImages_WhenGetOfferImages_ThenOnlyImagesOfRequestedOffersReturned() {
+        catalog.addCatalogProduct("123", "Phone", "BrandB", "Smartphone", Arrays.asList("Electronics"));
+        catalog.addStoreProductEntryWithImage("123", "BestStore", "p1", 500.0, 10, 4.5, "name", "phone.png");
+        catalog.addStoreProductEntryWithImage("123", "BestStore", "p2", 450.0, 3, 4.0, "name", "other.png");
+        catalog.addStoreProductEntryWithImage("123", "ThirdStore", "p1", 480.0, 3, 4.0, "name", "third.png");
+
+        Map<ProductKeyDTO, String> images = catalog.getOfferImages(List.of(
+                new ProductKeyDTO("BestStore", "p1"), new ProductKeyDTO("NoStore", "p2")));
+        assertEquals(Map.of(new ProductKeyDTO("BestStore", "p1"), "phone.png"), images);
+
+        catalog.deleteStoreProductEntry("123", "BestStore", "p1");
+        assertTrue(catalog.getOfferImages(List.of(new ProductKeyDTO("BestStore", "p1"))).isEmpty());
+    }
+
     // deleteStoreProductEntry
     @Test
     void GivenExistingEntry_WhendeleteStoreProductEntry_ThenEntryIsRemoved() {
@@ -121,6 +144,108 @@ public class InMemoryProductCatalogTests {
         assertTrue(results.isEmpty());
     }
 
+    @Test
+    void GivenTypedOptions_WhenSearch_ThenBrandCategoryAndRangesApplied() {
+        catalog.addCatalogProduct("1", "Gaming Mouse", "Logitech", "Fast mouse", Arrays.asList("Gaming"));
+        catalog.addCatalogProduct("2", "Office Mouse", "Microsoft", "Quiet mouse", Arrays.asList("Office"));
+        catalog.addStoreProductEntry("1", "StoreA", "p1", 70.0, 15, 4.7, "a");
+        catalog.addStoreProductEntry("1", "StoreB", "p2", 30.0, 15, 3.0, "b");
+        catalog.addStoreProductEntry("2", "StoreA", "p3", 20.0, 15, 4.0, "c");
+
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setText("mouse");
+        options.setBrand("logitech");
+        assertEquals(2, catalog.search(SearchQuery.from(options)).size());
+
+        options.setMaxPrice(50.0);
+        List<StoreSearchEntry> results = catalog.search(SearchQuery.from(options));
+        assertEquals(1, results.size());
+        assertEquals("p2", results.get(0).getProductID());
+
+        options.setBrand(null);
+        options.setCategory("office");
+        results = catalog.search(SearchQuery.from(options));
+        assertEquals(1, results.size());
+        assertEquals("p3", results.get(0).getProductID());
+    }
+
+    @Test
+    void GivenManyOffers_WhenSearchPageFollowsCursor_ThenEveryOfferReturnedOnceInOrder() {
+        catalog.addCatalogProduct("1", "Mouse", "BrandA", "Mouse", Arrays.asList("Gaming"));
+        catalog.addCatalogProduct("2", "Keyboard", "BrandB", "Keyboard", Arrays.asList("Gaming"));
+        double[] prices = {30.0, 10.0, 20.0, 10.0, 50.0, 20.0, 40.0};
+        for (int i = 0; i < prices.length; i++) {
+            catalog.addStoreProductEntry(i % 2 == 0 ? "1" : "2", "Store" + (i % 3), "p" + i, prices[i], 5, 4.0, "n" + i);
+        }
+        SearchQuery query = SearchQuery.from(new ProductSearchOptions());
+
+        List<String> seen = new java.util.ArrayList<>();
+        double lastPrice = Double.NEGATIVE_INFINITY;
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchPage<StoreSearchEntry> page = catalog.searchPage(query, SearchSort.PRICE_ASC, 3, cursor);
+            for (StoreSearchEntry e : page.getItems()) {
+                assertTrue(e.getPrice() >= lastPrice);
+                lastPrice = e.getPrice();
+                seen.add(e.getProductID());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(prices.length, seen.size());
+        assertEquals(prices.length, new java.util.HashSet<>(seen).size());
+    }
+
+    @Test
+    void GivenBadPageSizeOrCursor_WhenSearchPage_ThenIllegalArgument() {
+        SearchQuery query = SearchQuery.from(new ProductSearchOptions());
+        assertThrows(IllegalArgumentException.class, () -> catalog.searchPage(query, SearchSort.NAME_ASC, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> catalog.searchPage(query, SearchSort.NAME_ASC, 10, "garbage!"));
+    }
+
+    @Test
+    void GivenManyMatches_WhenSearchTopK_ThenOnlyBestKReturnedBestFirst() {
+        catalog.addCatalogProduct("1", "Mouse", "BrandA", "Mouse", Arrays.asList("Gaming"));
+        for (int i = 0; i < 20; i++) {
+            catalog.addStoreProductEntry("1", "Store", "p" + i, 10.0, 5, i / 4.0, "Mouse");
+        }
+        SearchQuery query = SearchQuery.parse("mouse", Collections.emptyList(), null, null);
+
+        // rank by rating alone: the top 3 are the highest rated offers
+        List<ScoredEntry> top = catalog.searchTopK(query, 3, (q, e) -> e.getRating());
+        assertEquals(3, top.size());
+        assertEquals("p19", top.get(0).getEntry().getProductID());
+        assertEquals("p18", top.get(1).getEntry().getProductID());
+        assertEquals("p17", top.get(2).getEntry().getProductID());
+
+        assertEquals(20, catalog.searchTopK(query, 50, SearchScorer.defaultScorer()).size());
+        assertThrows(IllegalArgumentException.class, () -> catalog.searchTopK(query, 0, SearchScorer.defaultScorer()));
+    }
+
+    @Test
+    void GivenManyOffersInStore_WhenUpdateDeleteAndReAdd_ThenOnlyTheKeyedOfferChanges() {
+        catalog.addCatalogProduct("1", "Mouse", "BrandA", "Mouse", Arrays.asList("Gaming"));
+        catalog.addCatalogProduct("2", "Pad", "BrandA", "Pad", Arrays.asList("Gaming"));
+        for (int i = 0; i < 100; i++) {
+            catalog.addStoreProductEntry(i % 2 == 0 ? "1" : "2", "BigStore", "p" + i, 10.0, 5, 3.0, "n" + i);
+        }
+
+        catalog.updateStoreProductEntry("1", "BigStore", "p42", 99.0, null, null);
+        catalog.deleteStoreProductEntry("2", "BigStore", "p43");
+        catalog.deleteStoreProductEntry("1", "BigStore", "p43"); // wrong catalog ID: no-op
+        catalog.addStoreProductEntry("1", "BigStore", "p44", 1.0, 1, 1.0, "again");
+
+        List<StoreSearchEntry> all = catalog.getAllProductsByCategory("Gaming");
+        assertEquals(99, all.size());
+        assertEquals(1, all.stream().filter(e -> e.getPrice() == 99.0).count());
+        assertTrue(all.stream().noneMatch(e -> e.getProductID().equals("p43")));
+        assertEquals(1, all.stream().filter(e -> e.getProductID().equals("p44")).count());
+        assertEquals(1.0, all.stream().filter(e -> e.getProductID().equals("p44")).findFirst().get().getPrice(), 0.0);
+    }
+
     // isProductExist
     @Test
     void GivenExistingCatalogId_WhenIsProductExist_ThenDoNotThrow() {
@@ -129,4 +254,56 @@ public class InMemoryProductCatalogTests {
     }
 
 
+
+    @Test
+    void GivenOffers_WhenAutocomplete_ThenMostOfferedCompletionFirst() {
+        catalog.addCatalogProduct("1", "Laptop Stand", "Acme", "Aluminium", List.of("Accessories"));
+        catalog.addCatalogProduct("2", "Gaming Laptop", "BrandA", "Fast", List.of("Computers"));
+        catalog.addStoreProductEntry("2", "StoreA", "p1", 900.0, 1, 4.0, "Laptop");
+        catalog.addStoreProductEntry("2", "StoreB", "p2", 950.0, 1, 4.0, "Laptop");
+        // re-adding an existing offer does not count twice
+        catalog.addStoreProductEntry("1", "StoreA", "p3", 30.0, 1, 4.0, "Stand");
+        catalog.addStoreProductEntry("1", "StoreA", "p3", 35.0, 1, 4.0, "Stand");
+
+        assertEquals(List.of("Gaming Laptop", "Laptop Stand"), catalog.autocomplete("lap", 5));
+
+        catalog.deleteStoreProductEntry("2", "StoreA", "p1");
+        catalog.deleteStoreProductEntry("2", "StoreB", "p2");
+        assertEquals(List.of("Laptop Stand", "Gaming Laptop"), catalog.autocomplete("lap", 5));
+    }
+
+    @Test
+    void GivenRangeFilters_WhenSearch_ThenSameOffersAsFullScanAfterUpdatesAndDeletes() {
+        catalog.addCatalogProduct("tv", "Smart TV", "Acme", "Screen", List.of("Electronics"));
+        catalog.addCatalogProduct("cup", "Tea Cup", "Acme", "Ceramic", List.of("Kitchen"));
+        for (int i = 0; i < 40; i++) {
+            String catalogID = i % 2 == 0 ? "tv" : "cup";
+            catalog.addStoreProductEntry(catalogID, "Store" + (i % 3), "p" + i, i, 1, (i % 11) / 2.0, "Item");
+        }
+        // an offer listed before its catalog product still joins the category range
+        catalog.addStoreProductEntry("lamp", "Store0", "early", 15.0, 1, 4.0, "Lamp");
+        catalog.addCatalogProduct("lamp", "Desk Lamp", "Acme", "Light", List.of("Electronics"));
+        catalog.updateStoreProductEntry("tv", "Store0", "p0", 12.0, null, 5.0);
+        catalog.deleteStoreProductEntry("tv", "Store1", "p10");
+
+        List<StoreSearchEntry> all = catalog.search("", Collections.emptyList(), null, null);
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setCategory("Electronics");
+        options.setMinPrice(10.0);
+        options.setMaxPrice(20.0);
+        List<String> expected = new java.util.ArrayList<>();
+        for (StoreSearchEntry e : all) {
+            if (!e.getCatalogID().equals("cup") && e.getPrice() >= 10.0 && e.getPrice() <= 20.0) expected.add(e.getProductID());
+        }
+        List<String> actual = new java.util.ArrayList<>();
+        for (StoreSearchEntry e : catalog.search(SearchQuery.from(options))) actual.add(e.getProductID());
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("p0") && actual.contains("early") && !actual.contains("p10"));
+
+        List<StoreSearchEntry> topRated = catalog.search("", List.of("rating>4.9"), null, null);
+        assertTrue(topRated.stream().allMatch(e -> e.getRating() >= 4.9));
+        assertEquals(all.stream().filter(e -> e.getRating() >= 4.9).count(), topRated.size());
+    }
 }
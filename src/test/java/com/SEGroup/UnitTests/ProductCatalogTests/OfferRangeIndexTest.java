@@ -0,0 +1,90 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.OfferRangeIndex;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+
+public class OfferRangeIndexTest {
+
+    private OfferRangeIndex<String> index;
+
+    private static StoreSearchEntry offer(String id, double price, double rating) {
+        return new StoreSearchEntry("cat", "Store", id, price, 1, rating, id);
+    }
+
+    private List<String> range(OfferRangeIndex.Field field, double min, double max) {
+        List<String> keys = new ArrayList<>();
+        index.forEachInRange(field, min, max, keys::add);
+        return keys;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new OfferRangeIndex<>();
+        for (int i = 1; i <= 10; i++) {
+            index.add("p" + i, offer("p" + i, i * 10.0, i / 2.0));
+        }
+    }
+
+    @Test
+    @DisplayName("Given indexed offers, when a range is walked, then only offers inside the inclusive bounds are visited in order")
+    void GivenOffers_WhenRangeWalked_ThenInclusiveBoundsAscending() {
+        assertEquals(List.of("p2", "p3", "p4"), range(OfferRangeIndex.Field.PRICE, 20.0, 40.0));
+        assertEquals(List.of("p9", "p10"), range(OfferRangeIndex.Field.RATING, 4.5, Double.POSITIVE_INFINITY));
+        assertTrue(range(OfferRangeIndex.Field.PRICE, 50.0, 10.0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given a cap, when counting a range, then counting stops just past the cap")
+    void GivenCap_WhenCounting_ThenStopsPastCap() {
+        assertEquals(3, index.countAtMost(OfferRangeIndex.Field.PRICE, 20.0, 40.0, 100));
+        assertEquals(3, index.countAtMost(OfferRangeIndex.Field.PRICE, 0.0, 1000.0, 2));
+    }
+
+    @Test
+    @DisplayName("Given an updated and a removed offer, when walking, then they appear only under their current values")
+    void GivenReplaceAndRemove_WhenWalking_ThenCurrentValuesOnly() {
+        index.replace("p1", offer("p1", 10.0, 0.5), offer("p1", 95.0, 5.0));
+        index.remove("p10", offer("p10", 100.0, 5.0));
+
+        assertEquals(List.of("p9", "p1"), range(OfferRangeIndex.Field.PRICE, 90.0, 100.0));
+        assertEquals(List.of("p1"), range(OfferRangeIndex.Field.RATING, 5.0, 5.0));
+        assertTrue(range(OfferRangeIndex.Field.PRICE, 0.0, 15.0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given writers moving offers between shared values at once, when they finish, then every offer is indexed once under its last values")
+    void GivenConcurrentWriters_WhenDone_ThenEveryOfferIndexedOnce() throws InterruptedException {
+        index = new OfferRangeIndex<>();
+        int writers = 8;
+        int offersPerWriter = 50;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < offersPerWriter; i++) {
+                    String key = writer + "-" + i;
+                    // few distinct values, so writers keep emptying and refilling the same key sets
+                    StoreSearchEntry old = offer(key, i % 3, 1.0);
+                    index.add(key, old);
+                    index.replace(key, old, offer(key, 7.0, i % 2));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(writers * offersPerWriter, range(OfferRangeIndex.Field.PRICE, 7.0, 7.0).size());
+        assertTrue(range(OfferRangeIndex.Field.PRICE, 0.0, 2.0).isEmpty());
+        assertEquals(writers * offersPerWriter, range(OfferRangeIndex.Field.RATING, 0.0, 1.0).size());
+    }
+}
@@ -0,0 +1,50 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.SearchCursor;
+import com.SEGroup.Domain.ProductCatalog.SearchSort;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+import com.SEGroup.Domain.ProductCatalog.TopK;
+
+public class SearchCursorTest {
+
+    @Test
+    @DisplayName("Given an entry, when its cursor is decoded, then the probe sits at the same sort position")
+    void GivenEntry_WhenCursorDecoded_ThenProbeHasSamePosition() {
+        StoreSearchEntry last = new StoreSearchEntry("cat", "Store A", "p/1+", 19.99, 3, 4.25, "Mouse é");
+        StoreSearchEntry probe = SearchCursor.decode(SearchCursor.encode(SearchSort.PRICE_DESC, last), SearchSort.PRICE_DESC);
+
+        assertEquals(0, SearchSort.PRICE_DESC.comparator().compare(last, probe));
+        assertEquals("Mouse é", probe.getName());
+        assertEquals(4.25, probe.getRating());
+    }
+
+    @Test
+    @DisplayName("Given a cursor of another sort or garbage, when decoded, then IllegalArgumentException is thrown")
+    void GivenForeignOrMalformedCursor_WhenDecoded_ThenThrows() {
+        StoreSearchEntry last = new StoreSearchEntry("cat", "Store", "p1", 10.0, 1, 3.0, "n");
+        String cursor = SearchCursor.encode(SearchSort.NAME_ASC, last);
+
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(cursor, SearchSort.PRICE_ASC));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor!", SearchSort.NAME_ASC));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("AAAA", SearchSort.NAME_ASC));
+    }
+
+    @Test
+    @DisplayName("Given more elements than K, when offered, then only the first K in order are kept")
+    void GivenMoreThanK_WhenOffered_ThenFirstKKept() {
+        TopK<Integer> top = new TopK<>(3, Integer::compare);
+        for (int i : new int[] {9, 4, 7, 1, 8, 2}) {
+            top.offer(i);
+        }
+        assertEquals(3, top.size());
+        assertEquals(List.of(1, 2, 4), top.toSortedList());
+        assertThrows(IllegalArgumentException.class, () -> new TopK<Integer>(0, Integer::compare));
+    }
+}
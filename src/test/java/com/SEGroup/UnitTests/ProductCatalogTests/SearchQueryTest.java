@@ -0,0 +1,118 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.CatalogProduct;
+import com.SEGroup.Domain.ProductCatalog.ProductSearchOptions;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+
+public class SearchQueryTest {
+    private StoreSearchEntry entry;
+
+    @BeforeEach
+    void init() {
+        entry = new StoreSearchEntry("catalogID", "StoreName", "productID", 100.0, 10, 4.5, "name");
+    }
+
+    @Test
+    @DisplayName("Given string filters, when parsed, then bounds are inclusive like matchesQuery")
+    void GivenStringFilters_WhenParsed_ThenBoundsAreInclusive() {
+        assertTrue(SearchQuery.parse("", List.of("price<100", "price>100", "rating>4.5", "quantity>10", "quantity<10"), null, null).matches(entry));
+        assertFalse(SearchQuery.parse("", List.of("price<99.99"), null, null).matches(entry));
+        assertFalse(SearchQuery.parse("", List.of("quantity>11"), null, null).matches(entry));
+    }
+
+    @Test
+    @DisplayName("Given repeated filters, when parsed, then the tightest bound wins")
+    void GivenRepeatedFilters_WhenParsed_ThenTightestBoundWins() {
+        SearchQuery q = SearchQuery.parse("", List.of("price<500", "price<200", "price>10", "price>50"), null, null);
+        assertEquals(200.0, q.getMaxPrice());
+        assertEquals(50.0, q.getMinPrice());
+    }
+
+    @Test
+    @DisplayName("Given a malformed filter, when parsed, then NumberFormatException is thrown")
+    void GivenMalformedFilter_WhenParsed_ThenThrows() {
+        assertThrows(NumberFormatException.class, () -> SearchQuery.parse("", List.of("price<abc"), null, null));
+    }
+
+    @Test
+    @DisplayName("Given a store name, when matching, then the store is compared ignoring case")
+    void GivenStoreName_WhenMatching_ThenIgnoresCase() {
+        assertTrue(SearchQuery.parse("", null, "storename", null).matches(entry));
+        assertFalse(SearchQuery.parse("", null, "other", null).matches(entry));
+        assertTrue(SearchQuery.parse("", null, "  ", null).matches(entry));
+    }
+
+    @Test
+    @DisplayName("Given search options, when compiled, then every typed field is applied")
+    void GivenSearchOptions_WhenCompiled_ThenFieldsApplied() {
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setText("IPhone");
+        options.setMinPrice(50.0);
+        options.setMaxPrice(150.0);
+        options.setMinRating(4.0);
+        options.setMaxQuantity(10);
+        options.setBrand("apple");
+        options.setCategory("Phones");
+        SearchQuery q = SearchQuery.from(options);
+
+        assertEquals("iphone", q.getText());
+        assertEquals(List.of("phones"), q.getCategories());
+        assertTrue(q.matches(entry));
+
+        options.setMaxQuantity(9);
+        assertFalse(SearchQuery.from(options).matches(entry));
+    }
+
+    @Test
+    @DisplayName("Given brand and category, when matching a catalog product, then both are checked")
+    void GivenBrandAndCategory_WhenMatchingCatalog_ThenBothChecked() {
+        CatalogProduct iphone = new CatalogProduct("1", "iPhone", "Apple", "Phone", List.of("Phones", "Electronics"));
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.setBrand("APPLE");
+        options.setCategory("electronics");
+        assertTrue(SearchQuery.from(options).matchesCatalog(iphone));
+
+        options.setBrand("Samsung");
+        assertFalse(SearchQuery.from(options).matchesCatalog(iphone));
+    }
+
+    @Test
+    @DisplayName("Given two categories, when matching a catalog product, then either one matches")
+    void GivenTwoCategories_WhenMatchingCatalog_ThenAnyMatches() {
+        CatalogProduct iphone = new CatalogProduct("1", "iPhone", "Apple", "Phone", List.of("Phones"));
+        CatalogProduct macbook = new CatalogProduct("2", "MacBook", "Apple", "Laptop", List.of("Laptops"));
+        CatalogProduct kettle = new CatalogProduct("3", "Kettle", "Bosch", "Kettle", List.of("Kitchen"));
+        ProductSearchOptions options = new ProductSearchOptions();
+        options.addCategory("Phones");
+        options.addCategory("Laptops");
+        SearchQuery q = SearchQuery.from(options);
+
+        assertEquals(List.of("phones", "laptops"), q.getCategories());
+        assertTrue(q.matchesCatalog(iphone));
+        assertTrue(q.matchesCatalog(macbook));
+        assertFalse(q.matchesCatalog(kettle));
+    }
+
+    @Test
+    @DisplayName("Given empty options, when compiled, then nothing is restricted")
+    void GivenEmptyOptions_WhenCompiled_ThenNothingRestricted() {
+        SearchQuery q = SearchQuery.from(new ProductSearchOptions());
+        assertEquals("", q.getText());
+        assertNull(q.getBrand());
+        assertNull(q.getStoreName());
+        assertTrue(q.getCategories().isEmpty());
+        assertTrue(q.matches(entry));
+    }
+}
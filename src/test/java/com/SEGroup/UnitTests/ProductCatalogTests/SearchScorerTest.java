@@ -0,0 +1,54 @@
+package com.SEGroup.UnitTests.ProductCatalogTests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.ProductCatalog.ScoredEntry;
+import com.SEGroup.Domain.ProductCatalog.SearchQuery;
+import com.SEGroup.Domain.ProductCatalog.SearchScorer;
+import com.SEGroup.Domain.ProductCatalog.StoreSearchEntry;
+
+public class SearchScorerTest {
+
+    private static StoreSearchEntry offer(String name, double price, double rating) {
+        return new StoreSearchEntry("cat", "Store", name, price, 1, rating, name);
+    }
+
+    @Test
+    @DisplayName("Given the default scorer, when names match differently, then exact beats prefix beats contains")
+    void GivenDefaultScorer_WhenRelevanceDiffers_ThenExactPrefixContainsOrder() {
+        SearchScorer scorer = SearchScorer.defaultScorer();
+        SearchQuery query = SearchQuery.parse("mouse", List.of(), null, null);
+
+        double exact = scorer.score(query, offer("Mouse", 50, 3));
+        double prefix = scorer.score(query, offer("Mouse Pro", 50, 3));
+        double contains = scorer.score(query, offer("Gaming Mouse", 50, 3));
+        double other = scorer.score(query, offer("Trackball", 50, 3));
+        assertTrue(exact > prefix && prefix > contains && contains > other);
+    }
+
+    @Test
+    @DisplayName("Given equal relevance, when scored, then higher rating and lower price rank first")
+    void GivenEqualRelevance_WhenScored_ThenRatingThenPrice() {
+        SearchScorer scorer = SearchScorer.defaultScorer();
+        SearchQuery any = SearchQuery.parse("", List.of(), null, null);
+
+        assertTrue(scorer.score(any, offer("a", 50, 5)) > scorer.score(any, offer("b", 50, 4)));
+        assertTrue(scorer.score(any, offer("a", 10, 4)) > scorer.score(any, offer("b", 500, 4)));
+    }
+
+    @Test
+    @DisplayName("Given equal scores, when ordered best first, then store and product break the tie")
+    void GivenEqualScores_WhenOrdered_ThenDeterministic() {
+        ScoredEntry a = new ScoredEntry(offer("a", 1, 1), 1.0);
+        ScoredEntry b = new ScoredEntry(offer("b", 1, 1), 1.0);
+        ScoredEntry best = new ScoredEntry(offer("z", 1, 1), 2.0);
+        List<ScoredEntry> sorted = new java.util.ArrayList<>(List.of(b, a, best));
+        sorted.sort(ScoredEntry.BEST_FIRST);
+        assertEquals(List.of(best, a, b), sorted);
+    }
+}
@@ -0,0 +1,246 @@
+package com.SEGroup.UnitTests.StoreTests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.CachedStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreChanges;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.StoreFetchPlan;
+
+public class CachedStoreDataTest {
+
+    /**
+     * Database stand-in: every load builds a new Store from the last written description,
+     * and pauses between reading and returning it, so writes can land in between.
+     */
+    private static class SnapshotStoreData extends InMemoryStoreData {
+        private final Map<String, String> descriptions = new ConcurrentHashMap<>();
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile boolean failWrites;
+
+        @Override
+        public Store findByName(String storeName) {
+            return findByName(storeName, StoreFetchPlan.FULL);
+        }
+
+        @Override
+        public Store findByName(String storeName, StoreFetchPlan plan) {
+            loads.incrementAndGet();
+            String description = descriptions.get(storeName);
+            if (description == null) return null;
+            LockSupport.parkNanos(20_000);
+            Store store = new Store(storeName, storeName + "@example.com");
+            store.setDescription(description);
+            return store;
+        }
+
+        @Override
+        public void saveStore(Store store) {
+            descriptions.put(store.getName(), store.getDescription());
+        }
+
+        @Override
+        public void updateStore(Store store) {
+            descriptions.put(store.getName(), store.getDescription());
+        }
+
+        @Override
+        public void saveChanges(StoreChanges changes) {
+            if (failWrites) throw new RuntimeException("Database is currently unavailable.");
+            updateStore(changes.store());
+        }
+    }
+
+    private SnapshotStoreData db;
+    private CachedStoreData cache;
+
+    private static Store store(String name, String description) {
+        Store store = new Store(name, name + "@example.com");
+        store.setDescription(description);
+        return store;
+    }
+
+    @BeforeEach
+    void setUp() {
+        db = new SnapshotStoreData();
+        cache = new CachedStoreData(db, 2);
+        for (String name : List.of("A", "B", "C")) {
+            cache.saveStore(store(name, "0"));
+        }
+    }
+
+    @Test
+    @DisplayName("Given a loaded store, when it is read again with any plan, then a copy comes from the cache")
+    void GivenLoadedStore_WhenReadAgain_ThenServedFromCache() {
+        Store first = cache.findByName("A");
+        Store again = cache.findByName("A");
+        assertNotSame(first, again);
+        assertEquals("0", again.getDescription());
+        assertEquals("0", cache.findByName("A", StoreFetchPlan.STAFF).getDescription());
+        assertTrue(cache.isStoreExist("A"));
+
+        assertEquals(1, db.loads.get());
+        assertEquals(new CachedStoreData.Stats(2, 1, 0, 1), cache.stats());
+    }
+
+    @Test
+    @DisplayName("Given a store handed out, when the caller changes it without writing it, then other readers do not see the change")
+    void GivenHandedOutStore_WhenChangedButNotWritten_ThenOthersUnaffected() {
+        cache.findByName("A").setDescription("loaded copy");
+        Store hit = cache.findByName("A");
+        hit.setDescription("cached copy");
+
+        assertEquals("0", cache.findByName("A").getDescription());
+        assertEquals(1, db.loads.get());
+    }
+
+    @Test
+    @DisplayName("Given a cached store, when a write of it fails, then it is evicted and the next read reloads it")
+    void GivenCachedStore_WhenWriteFails_ThenEvicted() {
+        Store store = cache.findByName("A");
+        store.setDescription("never written");
+        db.failWrites = true;
+        assertThrows(RuntimeException.class, () -> cache.saveChanges(new StoreChanges(store).storeRow()));
+
+        assertEquals(0, cache.stats().size());
+        assertEquals("0", cache.findByName("A").getDescription());
+        assertEquals(2, db.loads.get());
+    }
+
+    @Test
+    @DisplayName("Given a load inside a transaction, when the transaction ends, then it is cached only if it committed")
+    void GivenLoadInTransaction_WhenEnded_ThenCachedOnlyOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.findByName("A");
+            assertEquals(0, cache.stats().size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization(); // rolled back
+        }
+        assertEquals(0, cache.stats().size());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.findByName("A");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, cache.stats().size());
+        cache.findByName("A");
+        assertEquals(2, db.loads.get());
+    }
+
+    @Test
+    @DisplayName("Given a store with products and discounts, when a copy comes from the cache, then it prices a basket the same")
+    void GivenStoreWithDiscounts_WhenCopied_ThenPricesTheSame() {
+        CachedStoreData direct = new CachedStoreData(new InMemoryStoreData(), 2);
+        Store store = new Store("D", "d@example.com");
+        String mouse = store.addProductToStore("d@example.com", "D", "c1", "Mouse", "d", 50.0, 10, false, null, List.of("gaming"));
+        store.addConditionalDiscountToEntireStore("d@example.com", 10, 20, null);
+        store.addLogicalCompositeConditionalDiscountToEntireStore("d@example.com", 20, 0, List.of(mouse), List.of(2), null, "AND");
+        direct.saveStore(store);
+
+        Store loaded = direct.findByName("D");
+        Store copy = direct.findByName("D");
+        assertNotSame(loaded, copy);
+        ShoppingProduct copied = copy.getProduct(mouse);
+        assertEquals(10, copied.getQuantity());
+        assertEquals(loaded.calculateDiscountForBasket(Map.of(loaded.getProduct(mouse), 2)),
+                copy.calculateDiscountForBasket(Map.of(copied, 2)));
+    }
+
+    @Test
+    @DisplayName("Given a store read with a light plan, when read again, then the partial aggregate was not cached")
+    void GivenLightPlan_WhenReadAgain_ThenNotCached() {
+        cache.findByName("A", StoreFetchPlan.STAFF);
+        cache.findByName("A", StoreFetchPlan.STAFF);
+
+        assertEquals(2, db.loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Given a full cache, when another store is loaded, then the least recently used one is evicted")
+    void GivenFullCache_WhenAnotherLoaded_ThenLeastRecentlyUsedEvicted() {
+        cache.findByName("A");
+        cache.findByName("B");
+        cache.findByName("A");
+        cache.findByName("C");
+
+        assertEquals(1, cache.stats().evictions());
+        cache.findByName("A");
+        assertEquals(3, db.loads.get());
+        cache.findByName("B");
+        assertEquals(4, db.loads.get());
+    }
+
+    @Test
+    @DisplayName("Given a cached store, when it is written, then the next read loads the written aggregate")
+    void GivenCachedStore_WhenWritten_ThenNextReadReloads() {
+        Store cached = cache.findByName("A");
+        cached.setDescription("1");
+        cache.saveChanges(new StoreChanges(cached).storeRow());
+
+        Store reloaded = cache.findByName("A");
+        assertNotSame(cached, reloaded);
+        assertEquals("1", reloaded.getDescription());
+
+        cache.updateStore(store("A", "2"));
+        assertEquals("2", cache.findByName("A").getDescription());
+    }
+
+    @Test
+    @DisplayName("Given readers racing a writer, when a write has returned, then no reader gets an older aggregate")
+    void GivenReadersRacingWriter_WhenWriteReturned_ThenNoStaleRead() throws InterruptedException {
+        int writes = 2_000;
+        AtomicLong committed = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger stale = new AtomicInteger();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    long floor = committed.get();
+                    long seen = Long.parseLong(cache.findByName("A").getDescription());
+                    if (seen < floor) stale.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 1; i <= writes; i++) {
+            cache.updateStore(store("A", String.valueOf(i)));
+            committed.set(i);
+            LockSupport.parkNanos(50_000);
+        }
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+
+        CachedStoreData.Stats stats = cache.stats();
+        assertEquals(0, stale.get(), "readers saw an aggregate older than a completed write");
+        assertTrue(stats.hits() > 0);
+        assertTrue(stats.misses() > 0, "writes evict the store, so some reads go to the data");
+        assertEquals(String.valueOf(writes), cache.findByName("A").getDescription());
+    }
+}
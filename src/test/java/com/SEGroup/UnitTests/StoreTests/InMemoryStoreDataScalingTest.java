@@ -0,0 +1,77 @@
+package com.SEGroup.UnitTests.StoreTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.Store.Store;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
+
+/**
+ * Lookups in InMemoryStoreData must not grow with the number of stores. Instead of timing
+ * them, the stores count how often they are looked at: a scan would touch every store, the
+ * indexes only touch the stores a lookup returns.
+ */
+public class InMemoryStoreDataScalingTest {
+    private static final int SMALL = 1_000;
+    private static final int LARGE = 32_000;
+    private static final int STORES_PER_OWNER = 4;
+
+    // a store that counts the calls a scan over the stores would make
+    private static final class CountingStore extends Store {
+        private final AtomicInteger touches;
+
+        CountingStore(String name, String founderEmail, AtomicInteger touches) {
+            super(name, founderEmail);
+            this.touches = touches;
+        }
+
+        @Override
+        public String getName() {
+            touches.incrementAndGet();
+            return super.getName();
+        }
+
+        @Override
+        public boolean isOwner(String email) {
+            touches.incrementAndGet();
+            return super.isOwner(email);
+        }
+    }
+
+    private static InMemoryStoreData storesOf(int count, AtomicInteger touches) {
+        InMemoryStoreData data = new InMemoryStoreData();
+        for (int i = 0; i < count; i++) {
+            data.saveStore(new CountingStore("Store" + i, "owner" + (i / STORES_PER_OWNER) + "@example.com", touches));
+        }
+        return data;
+    }
+
+    // stores touched by a findByName, an isStoreExist and a getStoresOwnedBy of the last store
+    private static int touchesPerLookup(int count) {
+        AtomicInteger touches = new AtomicInteger();
+        InMemoryStoreData data = storesOf(count, touches);
+        int last = count - 1;
+        touches.set(0);
+
+        data.findByName("Store" + last);
+        assertTrue(data.isStoreExist("Store" + last));
+        assertEquals(STORES_PER_OWNER,
+                data.getStoresOwnedBy("owner" + (last / STORES_PER_OWNER) + "@example.com").size());
+        return touches.get();
+    }
+
+    @Test
+    @DisplayName("Given 1k and 32k stores, when looked up by name and owner, then only the returned stores are touched")
+    void GivenGrowingStoreCount_WhenLookedUp_ThenOnlyReturnedStoresTouched() {
+        int small = touchesPerLookup(SMALL);
+        int large = touchesPerLookup(LARGE);
+
+        assertEquals(small, large, "a lookup touched more stores as the store count grew");
+        assertTrue(large <= STORES_PER_OWNER, "a lookup touched " + large + " stores");
+    }
+}
@@ -0,0 +1,77 @@
+package com.SEGroup.UnitTests.StoreTests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.Infrastructure.Repositories.StoreRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
+
+/**
+ * Hundreds of buyers check out at once, each with a basket in two stores. Stock is checked and
+ * taken per product without a store lock, so the test checks that no unit is sold twice and that
+ * a buyer who misses the scarce product does not keep the units taken from the other store.
+ */
+public class InventoryOversellTest {
+    private static final int BUYERS = 400;
+    private static final int SCARCE_STOCK = 50;
+    private static final int PLENTIFUL_STOCK = 1_000;
+
+    @Test
+    @DisplayName("Given 400 buyers and 50 units, when all check out at once, then exactly 50 succeed and every basket is all or nothing")
+    void GivenConcurrentBuyers_WhenCheckingOut_ThenNoOversellAndNoPartialBaskets() throws InterruptedException {
+        StoreRepository repo = new StoreRepository(new InMemoryStoreData());
+        repo.createStore("Scarce", "scarce@example.com");
+        repo.createStore("Plentiful", "plentiful@example.com");
+        String scarce = repo.addProductToStore("scarce@example.com", "Scarce", "c1", "Console", "d", 500.0, SCARCE_STOCK, false, null, List.of());
+        String plentiful = repo.addProductToStore("plentiful@example.com", "Plentiful", "c2", "Cable", "d", 5.0, PLENTIFUL_STOCK, false, null, List.of());
+        repo.getAllProducts(); // build the product view, so its updates race too
+
+        // the plentiful basket comes first, so a buyer who misses the console has already taken cables
+        List<BasketDTO> cart = List.of(
+                new BasketDTO("Plentiful", Map.of(plentiful, 2)),
+                new BasketDTO("Scarce", Map.of(scarce, 1)));
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Thread> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            Thread buyer = new Thread(() -> {
+                try {
+                    start.await();
+                    repo.removeItemsFromStores(cart);
+                    sold.incrementAndGet();
+                } catch (RuntimeException e) {
+                    if (e.getMessage().contains("Not enough quantity")) refused.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            buyer.start();
+            buyers.add(buyer);
+        }
+        start.countDown();
+        for (Thread buyer : buyers) buyer.join();
+
+        assertEquals(SCARCE_STOCK, sold.get());
+        assertEquals(BUYERS - SCARCE_STOCK, refused.get());
+        assertEquals(0, repo.getProduct("Scarce", scarce).getQuantity());
+        assertEquals(PLENTIFUL_STOCK - 2 * SCARCE_STOCK, repo.getProduct("Plentiful", plentiful).getQuantity());
+
+        Map<String, Integer> viewed = new HashMap<>();
+        for (ShoppingProductDTO product : repo.getAllProducts()) {
+            viewed.put(product.getStoreName() + "/" + product.getProductId(), product.getQuantity());
+        }
+        assertEquals(0, viewed.get("Scarce/" + scarce));
+        assertEquals(PLENTIFUL_STOCK - 2 * SCARCE_STOCK, viewed.get("Plentiful/" + plentiful));
+    }
+}
@@ -0,0 +1,78 @@
+package com.SEGroup.UnitTests.StoreTests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.ProductView;
+
+public class ProductViewTest {
+
+    private ProductView view;
+
+    private static ShoppingProductDTO product(String store, String id, int quantity) {
+        return new ShoppingProductDTO(store, "c-" + id, id, "P" + id, "d", 10.0, quantity, 0.0, null, List.of("x"));
+    }
+
+    private static List<String> keys(List<ShoppingProductDTO> products) {
+        return products.stream().map(p -> p.getStoreName() + "/" + p.getProductId()).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        view = new ProductView();
+        view.ensureBuilt(() -> List.of(product("B", "2", 1), product("A", "1", 1), product("B", "1", 1)));
+    }
+
+    @Test
+    @DisplayName("Given built view, when paged, then products come by store and id and pages past the end are empty")
+    void GivenBuiltView_WhenPaged_ThenOrderedPages() {
+        assertEquals(List.of("A/1", "B/1"), keys(view.page(0, 2)));
+        assertEquals(List.of("B/2"), keys(view.page(1, 2)));
+        assertTrue(view.page(2, 2).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> view.page(0, 0));
+    }
+
+    @Test
+    @DisplayName("Given a store replaced or products updated, when read, then only that store or those products change")
+    void GivenChanges_WhenRead_ThenApplied() {
+        view.replaceStore("B", List.of(product("B", "3", 1)));
+        view.replaceStore("C", List.of(product("C", "1", 1)));
+        view.replaceStore("A", List.of());
+        assertEquals(List.of("B/3", "C/1"), keys(view.all()));
+
+        view.updateProducts(List.of(product("C", "1", 7), product("A", "1", 9)));
+        assertEquals(7, view.page(1, 1).get(0).getQuantity());
+        assertEquals(2, view.size());
+    }
+
+    @Test
+    @DisplayName("Given products read from the view, when the caller modifies them, then the view is unchanged")
+    void GivenReadProducts_WhenModified_ThenViewUnchanged() {
+        ShoppingProductDTO read = view.all().get(0);
+        read.setImageUrl("changed");
+        read.addCategory("y");
+
+        ShoppingProductDTO again = view.all().get(0);
+        assertEquals(null, again.getImageUrl());
+        assertEquals(List.of("x"), again.getCategories());
+    }
+
+    @Test
+    @DisplayName("Given a view not built yet, when updated, then the update is skipped and the build decides")
+    void GivenUnbuiltView_WhenUpdated_ThenBuildWins() {
+        ProductView fresh = new ProductView();
+        fresh.replaceStore("A", List.of(product("A", "1", 1)));
+        assertEquals(0, fresh.size());
+
+        fresh.ensureBuilt(() -> List.of(product("A", "2", 1)));
+        fresh.ensureBuilt(() -> List.of());
+        assertEquals(List.of("A/2"), keys(fresh.all()));
+    }
+}
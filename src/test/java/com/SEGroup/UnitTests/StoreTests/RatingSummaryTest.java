@@ -0,0 +1,79 @@
+package com.SEGroup.UnitTests.StoreTests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.SEGroup.Domain.Store.Rating;
+import com.SEGroup.Domain.Store.ShoppingProduct;
+import com.SEGroup.Domain.Store.Store;
+
+public class RatingSummaryTest {
+
+    private static double scanAverage(java.util.Map<String, Rating> ratings) {
+        return ratings.values().stream().mapToInt(Rating::getScore).average().orElse(0.0);
+    }
+
+    @Test
+    @DisplayName("Given raters changing their ratings, when averaged, then the running average matches the ratings")
+    void GivenRatingChanges_WhenAveraged_ThenMatchesRatings() {
+        Store store = new Store("S", "f@x.com");
+        String productId = store.addProductToStore("f@x.com", "S", "c", "P", "d", 1.0, 1, false, null, List.of());
+        ShoppingProduct product = store.getProduct(productId);
+
+        assertEquals(0.0, store.averageRating());
+        store.rateStore("a@x.com", 5, "great");
+        store.rateStore("b@x.com", 2, "meh");
+        store.rateStore("a@x.com", 3, "changed my mind");
+        assertEquals(2.5, store.averageRating());
+
+        store.rateProduct("a@x.com", productId, 4, "ok");
+        store.rateProduct("a@x.com", productId, 2, "worse");
+        assertEquals(2.0, product.averageRating());
+        assertEquals(scanAverage(product.getAllRatings()), product.averageRating());
+    }
+
+    @Test
+    @DisplayName("Given many concurrent raters, when all are done, then count and average match the stored ratings")
+    void GivenConcurrentRaters_WhenDone_ThenTotalsMatchRatings() throws InterruptedException {
+        Store store = new Store("S", "f@x.com");
+        String productId = store.addProductToStore("f@x.com", "S", "c", "P", "d", 1.0, 1, false, null, List.of());
+        int threads = 8;
+        int ratersPerThread = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ratersPerThread; i++) {
+                    // every rater rates twice, and half of them are shared with the next thread
+                    String rater = "r" + ((thread * ratersPerThread + i) % (threads * ratersPerThread / 2)) + "@x.com";
+                    int score = 2 + (i + thread) % 4;
+                    store.rateStore(rater, score, "");
+                    store.rateProduct(rater, productId, score, "");
+                    store.rateStore(rater, 1 + i % 5, "");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        ShoppingProduct product = store.getProduct(productId);
+        assertEquals(threads * ratersPerThread / 2, store.getRatings().size());
+        assertEquals(scanAverage(store.getRatings()), store.averageRating(), 1e-9);
+        assertEquals(threads * ratersPerThread / 2, product.getAllRatings().size());
+        assertEquals(scanAverage(product.getAllRatings()), product.averageRating(), 1e-9);
+    }
+}
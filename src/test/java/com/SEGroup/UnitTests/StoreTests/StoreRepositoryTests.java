@@ -1,9 +1,14 @@
 package com.SEGroup.UnitTests.StoreTests;
 
 import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.DTO.ProductKeyDTO;
 import com.SEGroup.DTO.ShoppingProductDTO;
+import com.SEGroup.DTO.StoreCardDto;
 import com.SEGroup.DTO.StoreDTO;
 
+import com.SEGroup.Domain.ProductCatalog.SearchPage;
+import com.SEGroup.Domain.Store.Review;
+import com.SEGroup.Domain.Store.ReviewCursor;
 import com.SEGroup.Domain.Store.ShoppingProduct;
 import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +20,12 @@ import com.SEGroup.Infrastructure.Repositories.StoreRepository;
 import com.SEGroup.Mapper.StoreMapper;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,8 +44,7 @@ public class StoreRepositoryTests {
         mapperField.set(repo, new StoreMapper());
 
 
-        List<Store> storeList = storeData.getAllStores();
-        storeList.add(new Store(storeName, founderEmail));
+        storeData.saveStore(new Store(storeName, founderEmail));
     }
 
     @Test
@@ -209,6 +216,25 @@ public class StoreRepositoryTests {
             () -> repo.addToBalance("other@test.com", storeName, 5.0));
     }
 
+    @Test
+    @DisplayName("Given keys across stores, when getProducts, then products return in key order and unknown keys are skipped")
+    public void testGetProductsResolvesKeysInOrder() {
+        repo.createStore("OtherStore", "other@test.com");
+        String first = repo.addProductToStore(founderEmail, storeName, "C1", "First", "Desc", 1.0, 5, false, "", List.of());
+        String second = repo.addProductToStore(founderEmail, storeName, "C2", "Second", "Desc", 2.0, 5, false, "", List.of());
+        String other = repo.addProductToStore("other@test.com", "OtherStore", "C3", "Other", "Desc", 3.0, 5, false, "", List.of());
+
+        List<ShoppingProductDTO> products = repo.getProducts(List.of(
+                new ProductKeyDTO("OtherStore", other),
+                new ProductKeyDTO(storeName, second),
+                new ProductKeyDTO("NoSuchStore", first),
+                new ProductKeyDTO(storeName, "missing"),
+                new ProductKeyDTO(storeName, first)));
+
+        assertEquals(List.of(other, second, first), products.stream().map(ShoppingProductDTO::getProductId).toList());
+        assertEquals(2.0, products.get(1).getPrice());
+    }
+
     @Test
     @DisplayName("Given baskets with valid items, when removeItemsFromStores, then returns correct totals")
     public void testRemoveItemsFromStoresReturnsTotals() {
@@ -283,4 +309,119 @@ public class StoreRepositoryTests {
 //        ShoppingProduct product = internalStore.getProduct(productId);
 //        assertEquals(1, product.getQuantity(), "Product quantity should remain unchanged after rollback");
     }
+
+    @Test
+    @DisplayName("Given owners appointed, removed and resigned, when getStoresOwnedBy, then only current owners see the store")
+    public void GivenOwnershipChanges_WhenGetStoresOwnedBy_ThenFollowsCurrentOwners() {
+        repo.createStore("OtherStore", "other@example.com");
+        repo.appointOwner(storeName, founderEmail, "a@example.com", false);
+        repo.appointOwner(storeName, "a@example.com", "b@example.com", false);
+        repo.appointOwner("OtherStore", "other@example.com", "a@example.com", false);
+        repo.appointManager(storeName, founderEmail, "m@example.com", List.of(), false);
+
+        assertEquals(List.of(storeName), repo.getStoresOwnedBy(founderEmail).stream().map(StoreDTO::getName).toList());
+        assertEquals(2, repo.getStoresOwnedBy("a@example.com").size());
+        assertTrue(repo.getStoresOwnedBy("m@example.com").isEmpty());
+
+        // removing a cascades to the owner it appointed
+        repo.removeOwner(storeName, founderEmail, "a@example.com", false);
+        assertEquals(List.of("OtherStore"), repo.getStoresOwnedBy("a@example.com").stream().map(StoreDTO::getName).toList());
+        assertTrue(repo.getStoresOwnedBy("b@example.com").isEmpty());
+
+        repo.resignOwnership("OtherStore", "a@example.com");
+        assertTrue(repo.getStoresOwnedBy("a@example.com").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given several stores, when listStores is paged, then cards come by name with product counts")
+    public void GivenStores_WhenListStoresPaged_ThenCardsByName() {
+        repo.createStore("AStore", "a@example.com");
+        repo.createStore("ZStore", "z@example.com");
+        repo.addProductToStore(founderEmail, storeName, "cat1", "Widget", "desc", 5.0, 3, false, null, List.of());
+
+        assertEquals(List.of("AStore", storeName), repo.listStores(0, 2).stream().map(StoreCardDto::name).toList());
+        List<StoreCardDto> last = repo.listStores(1, 2);
+        assertEquals(1, last.size());
+        assertEquals("ZStore", last.get(0).name());
+        assertEquals(1, repo.listStores(0, 3).get(1).productCount());
+        assertTrue(repo.listStores(5, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given the product view in use, when products are added, edited, sold, deleted and the store closes, then getAllProducts follows")
+    public void GivenProductView_WhenStoreChanges_ThenGetAllProductsFollows() {
+        repo.createStore("AStore", "a@example.com");
+        String lamp = repo.addProductToStore("a@example.com", "AStore", "c1", "Lamp", "desc", 10.0, 4, false, null, List.of());
+        assertEquals(1, repo.getAllProducts().size());
+
+        String chair = repo.addProductToStore(founderEmail, storeName, "c2", "Chair", "desc", 30.0, 2, false, null, List.of());
+        String desk = repo.addProductToStore(founderEmail, storeName, "c3", "Desk", "desc", 50.0, 1, false, null, List.of());
+        repo.updateShoppingProduct(founderEmail, storeName, chair, 25.0, "cheaper");
+        repo.removeItemsFromStores(List.of(new BasketDTO(storeName, Map.of(chair, 2))));
+        repo.rateProduct("buyer@test.com", storeName, chair, 4, "ok");
+
+        List<ShoppingProductDTO> all = repo.getAllProducts();
+        assertEquals(List.of(lamp, chair, desk), all.stream().map(ShoppingProductDTO::getProductId).toList());
+        ShoppingProductDTO chairDto = all.get(1);
+        assertEquals(25.0, chairDto.getPrice());
+        assertEquals(0, chairDto.getQuantity());
+        assertEquals(4.0, chairDto.getAvgRating());
+        assertEquals(List.of(desk), repo.getAllProducts(1, 2).stream().map(ShoppingProductDTO::getProductId).toList());
+
+        repo.deleteShoppingProduct(founderEmail, storeName, desk);
+        repo.closeStore("AStore", "a@example.com", false);
+        assertEquals(List.of(chair), repo.getAllProducts().stream().map(ShoppingProductDTO::getProductId).toList());
+
+        repo.reopenStore("AStore", "a@example.com", false);
+        assertEquals(2, repo.getAllProducts().size());
+        assertTrue(repo.getAllProducts(1, 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given many reviews, when paged by cursor, then every review is listed once, newest first, and per user")
+    public void GivenManyReviews_WhenPagedByCursor_ThenNewestFirstOncePerReview() {
+        for (int i = 0; i < 25; i++) {
+            repo.giveStoreReview(storeName, "user" + (i % 3) + "@test.com", "review " + i, "4");
+        }
+
+        List<Review> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchPage<Review> page = repo.getStoreReviews(storeName, cursor, 10);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, seen.size());
+        assertEquals(25, new HashSet<>(seen).size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(ReviewCursor.ORDER.compare(ReviewCursor.of(seen.get(i - 1)), ReviewCursor.of(seen.get(i))) < 0);
+        }
+
+        SearchPage<Review> mine = repo.getStoreReviewsByUser(storeName, "user1@test.com", null, 20);
+        assertEquals(8, mine.getItems().size());
+        assertFalse(mine.hasNext());
+        assertTrue(mine.getItems().stream().allMatch(r -> r.getReviewerName().equals("user1@test.com")));
+
+        Review answered = seen.get(3);
+        repo.giveStoreComment(founderEmail, storeName, answered.getReviewerId(), "thanks");
+        assertEquals("thanks", repo.getReviewById(storeName, answered.getReviewerId()).getStoreComment());
+
+        assertThrows(IllegalArgumentException.class, () -> repo.getStoreReviews(storeName, "not a cursor!", 10));
+        assertThrows(RuntimeException.class, () -> repo.getStoreReviews("NoSuchStore", null, 10));
+    }
+
+    @Test
+    @DisplayName("Given several stores, when getStoreFounders, then returns each founder, and fails for a missing store")
+    public void testGetStoreFoundersOfSeveralStores() {
+        repo.createStore("OtherStore", "other@test.com");
+
+        Map<String, String> founders = repo.getStoreFounders(Set.of(storeName, "OtherStore"));
+        assertEquals(Map.of(storeName, founderEmail, "OtherStore", "other@test.com"), founders);
+
+        assertThrows(IllegalArgumentException.class, () -> repo.getStoreFounders(Set.of(storeName, "NoSuchStore")));
+    }
 }
@@ -0,0 +1,254 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.Domain.INotificationCenter;
+import com.SEGroup.Domain.IUserRepository;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Infrastructure.NotificationCenter.Notification;
+import com.SEGroup.Infrastructure.Repositories.StoreRepository;
+import com.SEGroup.Infrastructure.Repositories.TransactionRepository;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
+import com.SEGroup.Service.CheckoutRecovery;
+import com.SEGroup.Service.ExternalCheckout;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class CheckoutRecoveryTest {
+    private static final String BUYER = "buyer@test.com";
+    private static final long STALE = 60 * 60 * 1000;
+
+    private StoreRepository stores;
+    private TransactionRepository transactions;
+    private IUserRepository users;
+    private INotificationCenter notifications;
+    private ExternalCheckout gateways;
+    private String lamp;
+    private List<BasketDTO> cart;
+
+    @BeforeEach
+    public void setUp() {
+        stores = new StoreRepository(new InMemoryStoreData());
+        stores.createStore("Shop", "owner@test.com");
+        lamp = stores.addProductToStore("owner@test.com", "Shop", "c1", "Lamp", "desc", 10.0, 5, false, null, List.of());
+        transactions = new TransactionRepository();
+        users = mock(IUserRepository.class);
+        notifications = mock(INotificationCenter.class);
+        gateways = mock(ExternalCheckout.class);
+        when(gateways.cancelShipment(anyInt())).thenReturn(true);
+        when(gateways.cancelPayment(anyInt())).thenReturn(true);
+        cart = List.of(new BasketDTO("Shop", Map.of(lamp, 2)));
+    }
+
+    private CheckoutRecovery recovery() {
+        return new CheckoutRecovery(transactions, stores, users, notifications, gateways, STALE);
+    }
+
+    // a checkout that shipped its two baskets and was paid, but did not commit
+    private CheckoutSaga paidCheckout() {
+        CheckoutSaga saga = startCheckout();
+        transactions.recordShipped(saga, List.of(11, 12));
+        transactions.recordPaid(saga, 21);
+        return saga;
+    }
+
+    private int lampsLeft() {
+        return stores.getProduct("Shop", lamp).getQuantity();
+    }
+
+    // takes the stock and logs the saga, as a checkout does before its external calls
+    private CheckoutSaga startCheckout() {
+        return transactions.beginCheckout(BUYER, stores.removeItemsFromStores(cart));
+    }
+
+    // the founder's "sold" notification, sent alone in its batch
+    private static List<Notification> soldToOwner() {
+        return argThat(batch -> batch.size() == 1
+                && batch.get(0).getReceiverId().equals("owner@test.com")
+                && batch.get(0).getMessage().equals("sold"));
+    }
+
+    private List<OutboxMessage> outbox(CheckoutSaga saga) {
+        return List.of(
+                OutboxMessage.notify(saga.getId(), "owner@test.com", "sold"),
+                OutboxMessage.clearCart(saga.getId(), BUYER));
+    }
+
+    @Test
+    @DisplayName("Given a paid checkout, when it completes, then its transactions are written and its outbox carried out at once")
+    public void Given_PaidCheckout_When_Completed_Then_TransactionsAndOutboxDone() throws Exception {
+        CheckoutSaga saga = startCheckout();
+
+        recovery().complete(saga, outbox(saga));
+
+        assertEquals(CheckoutSaga.Status.COMPLETED, saga.getStatus());
+        assertEquals(1, transactions.getTransactionsByUserEmail(BUYER).size());
+        assertEquals(20.0, transactions.getTransactionsByUserEmail(BUYER).get(0).getCost());
+        verify(notifications).sendSystemNotifications(soldToOwner());
+        verify(users).clearUserCart(BUYER);
+        assertTrue(transactions.getOutboxMessages(10).isEmpty());
+        assertEquals(3, lampsLeft());
+
+        assertThrows(RuntimeException.class, () -> recovery().complete(saga, outbox(saga)));
+        assertEquals(1, transactions.getTransactionsByUserEmail(BUYER).size());
+    }
+
+    @Test
+    @DisplayName("Given a checkout cut short before it committed, when the next run starts, then its stock comes back once")
+    public void Given_InterruptedCheckout_When_Recovering_Then_StockReturnedOnce() throws InterruptedException {
+        CheckoutSaga saga = startCheckout();
+        assertEquals(3, lampsLeft());
+        Thread.sleep(5); // the next run starts later
+
+        CheckoutRecovery nextRun = recovery();
+        CheckoutSaga ofThisRun = startCheckout();
+        assertEquals(1, lampsLeft());
+
+        assertEquals(1, nextRun.recoverUnfinished());
+        assertEquals(3, lampsLeft());
+        assertEquals(CheckoutSaga.Status.COMPENSATED, saga.getStatus());
+        assertEquals(List.of(ofThisRun), transactions.getUnfinishedCheckouts());
+
+        assertEquals(0, nextRun.recoverUnfinished());
+        assertEquals(3, lampsLeft());
+        assertTrue(transactions.getTransactionsByUserEmail(BUYER).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given a checkout that committed but stopped before its outbox, when the relay runs, then the outbox is carried out")
+    public void Given_CommittedCheckout_When_Relaying_Then_OutboxCarriedOut() throws Exception {
+        CheckoutSaga saga = startCheckout();
+        transactions.completeCheckout(saga, outbox(saga)); // committed, then the run stopped
+
+        CheckoutRecovery nextRun = recovery();
+        assertEquals(0, nextRun.recoverUnfinished());
+        assertEquals(2, nextRun.deliverOutbox());
+
+        verify(notifications).sendSystemNotifications(soldToOwner());
+        verify(users).clearUserCart(BUYER);
+        assertEquals(0, nextRun.deliverOutbox());
+        assertEquals(3, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given a message that keeps failing, when the relay runs, then it is retried a few times and then dropped")
+    public void Given_FailingMessage_When_Relaying_Then_RetriedThenDropped() throws Exception {
+        doThrow(new RuntimeException("offline")).when(notifications).sendSystemNotifications(anyList());
+        CheckoutSaga saga = startCheckout();
+        CheckoutRecovery recovery = recovery();
+
+        recovery.complete(saga, outbox(saga));
+        verify(users).clearUserCart(BUYER);
+        assertEquals(1, transactions.getOutboxMessages(10).size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, recovery.deliverOutbox());
+        }
+        assertEquals(1, transactions.getOutboxMessages(10).size());
+        recovery.deliverOutbox();
+        assertTrue(transactions.getOutboxMessages(10).isEmpty());
+        verify(notifications, times(5)).sendSystemNotifications(soldToOwner());
+    }
+
+    @Test
+    @DisplayName("Given a failed checkout, when it is compensated, then it cannot complete any more")
+    public void Given_FailedCheckout_When_Compensated_Then_CannotComplete() {
+        CheckoutSaga saga = startCheckout();
+        CheckoutRecovery recovery = recovery();
+
+        recovery.compensate(saga);
+        assertEquals(5, lampsLeft());
+
+        assertThrows(RuntimeException.class, () -> recovery.complete(saga, outbox(saga)));
+        assertThrows(RuntimeException.class, () -> recovery.compensate(saga));
+        assertEquals(5, lampsLeft());
+        assertTrue(transactions.getTransactionsByUserEmail(BUYER).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given a paid checkout that did not commit, when it is compensated, then its shipments and payment are cancelled and its stock comes back")
+    public void Given_PaidCheckout_When_Compensated_Then_RecordedStepsCancelled() {
+        CheckoutSaga saga = paidCheckout();
+        assertEquals(CheckoutSaga.Status.PAID, saga.getStatus());
+        assertEquals(List.of(11, 12), saga.getShipmentIds());
+
+        recovery().compensate(saga);
+
+        verify(gateways).cancelShipment(11);
+        verify(gateways).cancelShipment(12);
+        verify(gateways).cancelPayment(21);
+        assertTrue(transactions.getOutboxMessages(10).isEmpty());
+        assertEquals(5, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given a cancellation the service cannot be reached for, when the relay runs, then it is retried past the drop limit until it goes through")
+    public void Given_UnreachableService_When_Relaying_Then_CancellationRetriedUntilDone() {
+        when(gateways.cancelPayment(21)).thenThrow(new RuntimeException("offline"));
+        CheckoutSaga saga = paidCheckout();
+        CheckoutRecovery recovery = recovery();
+
+        recovery.compensate(saga);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(0, recovery.deliverOutbox());
+        }
+        assertEquals(List.of(OutboxMessage.Type.CANCEL_PAYMENT),
+                transactions.getOutboxMessages(10).stream().map(OutboxMessage::getType).toList());
+
+        doReturn(true).when(gateways).cancelPayment(21);
+        assertEquals(1, recovery.deliverOutbox());
+        assertTrue(transactions.getOutboxMessages(10).isEmpty());
+        verify(gateways, times(8)).cancelPayment(21);
+    }
+
+    @Test
+    @DisplayName("Given a refused cancellation, when the relay runs, then it is not retried")
+    public void Given_RefusedCancellation_When_Relaying_Then_NotRetried() {
+        when(gateways.cancelShipment(11)).thenReturn(false);
+        recovery().compensate(paidCheckout());
+
+        assertTrue(transactions.getOutboxMessages(10).isEmpty());
+        verify(gateways).cancelShipment(11);
+    }
+
+    @Test
+    @DisplayName("Given a paid checkout of an earlier run, when the next run recovers, then what it recorded is undone")
+    public void Given_PaidCheckoutOfEarlierRun_When_Recovering_Then_Undone() throws InterruptedException {
+        CheckoutSaga saga = paidCheckout();
+        Thread.sleep(5); // the next run starts later
+
+        assertEquals(1, recovery().recoverUnfinished());
+        assertEquals(CheckoutSaga.Status.COMPENSATED, saga.getStatus());
+        verify(gateways).cancelShipment(11);
+        verify(gateways).cancelShipment(12);
+        verify(gateways).cancelPayment(21);
+        assertEquals(5, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given a checkout of this run left open, when it becomes stale, then the recovery compensates it")
+    public void Given_OpenCheckoutOfThisRun_When_Stale_Then_Compensated() throws InterruptedException {
+        CheckoutRecovery recovery = recovery();
+        CheckoutRecovery impatient = new CheckoutRecovery(transactions, stores, users, notifications, gateways, 1);
+        CheckoutSaga saga = paidCheckout();
+
+        assertEquals(0, recovery.recoverUnfinished());
+        assertEquals(CheckoutSaga.Status.PAID, saga.getStatus());
+
+        Thread.sleep(5);
+        assertEquals(1, impatient.recoverUnfinished());
+        verify(gateways).cancelPayment(21);
+        assertEquals(5, lampsLeft());
+    }
+}
@@ -0,0 +1,171 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.SEGroup.DTO.AddressDTO;
+import com.SEGroup.Domain.IShippingService;
+import com.SEGroup.Domain.Transaction.OutboxMessage;
+import com.SEGroup.Infrastructure.ExternalPaymentAndShippingService;
+import com.SEGroup.Service.ExternalCheckout;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs checkouts against a local stub of the external payment and shipping service, which
+ * answers each action after a set delay.
+ */
+public class ExternalCheckoutTest {
+    private static final String PAYMENT = "{\"action_type\":\"pay\",\"amount\":\"40\",\"currency\":\"USD\"}";
+    private static final AddressDTO ADDRESS = new AddressDTO("1 Main St", "Haifa", "Israel", "12345");
+    private static final long LATENCY = 300;
+
+    private StubGatewayServer server;
+    private ExternalCheckout checkout;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubGatewayServer();
+        ExternalPaymentAndShippingService external = new ExternalPaymentAndShippingService(server.url(), Duration.ofSeconds(5));
+        checkout = new ExternalCheckout(external, external);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Given four baskets and a slow service, when checking out, then the shipments and the payment overlap")
+    public void Given_SlowService_When_CheckingOut_Then_CallsOverlap() {
+        server.delays.put("supply", LATENCY);
+        server.delays.put("pay", LATENCY);
+
+        long start = System.nanoTime();
+        List<Integer> shippingIds = checkout.shipAndPay(4, ADDRESS, "buyer@test.com", PAYMENT, 40.0);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(4, new HashSet<>(shippingIds).size());
+        assertEquals(4, server.count("supply"));
+        assertEquals(1, server.count("pay"));
+        // one after the other, the five calls would take five times the latency
+        assertTrue(elapsedMillis < 3 * LATENCY, "checkout took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Given a refused payment, when checking out, then it fails and every shipment is cancelled")
+    public void Given_RefusedPayment_When_CheckingOut_Then_ShipmentsCancelled() throws InterruptedException {
+        server.delays.put("supply", LATENCY);
+        server.answers.put("pay", "-1");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> checkout.shipAndPay(3, ADDRESS, "buyer@test.com", PAYMENT, 40.0));
+        assertEquals("Payment failed: The transaction has failed", e.getMessage());
+
+        server.awaitCount("cancel_supply", 3);
+        assertEquals(0, server.count("cancel_pay"));
+    }
+
+    @Test
+    @DisplayName("Given a refused shipment and a slow payment, when checking out, then it fails at once and the payment is cancelled when it lands")
+    public void Given_RefusedShipment_When_CheckingOut_Then_FailsFastAndPaymentCancelled() throws InterruptedException {
+        server.answers.put("supply", "-1");
+        server.delays.put("pay", 2 * LATENCY);
+
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> checkout.shipAndPay(2, ADDRESS, "buyer@test.com", PAYMENT, 40.0));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals("Shipping failed: The transaction has failed", e.getMessage());
+        assertTrue(elapsedMillis < 2 * LATENCY, "checkout waited " + elapsedMillis + " ms for the payment");
+
+        server.awaitCount("cancel_pay", 1);
+        assertEquals(0, server.count("cancel_supply"));
+    }
+
+    @Test
+    @DisplayName("Given a blocking shipping service and a full pool, when checking out, then it fails as busy instead of starting more threads")
+    public void Given_FullBlockingPool_When_CheckingOut_Then_FailsAsBusy() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        IShippingService blockingShipping = new IShippingService() {
+            @Override
+            public Boolean cancelShipping(int shippingId) {
+                cancelled.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public Integer ship(AddressDTO address, String name) {
+                int id = started.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }
+        };
+        ExternalPaymentAndShippingService external = new ExternalPaymentAndShippingService(server.url(), Duration.ofSeconds(5));
+        ExternalCheckout bounded = new ExternalCheckout(blockingShipping, external, 2);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> bounded.shipAndPay(3, ADDRESS, "buyer@test.com", PAYMENT, 40.0));
+        assertEquals("Shipping failed: External service busy, try again later", e.getMessage());
+
+        // the two shipments that got a thread go through and are cancelled as they land
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cancelled.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, started.get());
+        assertEquals(2, cancelled.get());
+    }
+
+    @Test
+    @DisplayName("Given a checkout that reports its steps, when recording the payment fails, then only the unreported payment is cancelled here")
+    public void Given_ReportedShipments_When_RecordingPaymentFails_Then_OnlyPaymentCancelled() throws InterruptedException {
+        List<Integer> shipped = new ArrayList<>();
+        AtomicInteger failedCancels = new AtomicInteger();
+        ExternalCheckout.Steps steps = new ExternalCheckout.Steps() {
+            @Override
+            public void shipped(List<Integer> shipmentIds) {
+                shipped.addAll(shipmentIds);
+            }
+
+            @Override
+            public void paid(Integer paymentId) {
+                assertNotNull(paymentId);
+                throw new IllegalStateException("Database unavailable");
+            }
+
+            @Override
+            public void cancelFailed(OutboxMessage.Type type, int id) {
+                failedCancels.incrementAndGet();
+            }
+        };
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> checkout.shipAndPay(2, ADDRESS, "buyer@test.com", PAYMENT, 40.0, steps));
+        assertEquals("Database unavailable", e.getMessage());
+        assertEquals(2, shipped.size());
+
+        // the reported shipments are the caller's to cancel, through its saga
+        server.awaitCount("cancel_pay", 1);
+        assertEquals(0, server.count("cancel_supply"));
+        assertEquals(0, failedCancels.get());
+    }
+}
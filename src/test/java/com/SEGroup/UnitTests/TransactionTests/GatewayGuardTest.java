@@ -0,0 +1,157 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.SEGroup.DTO.AddressDTO;
+import com.SEGroup.Infrastructure.ExternalPaymentAndShippingService;
+import com.SEGroup.Infrastructure.GatewayGuard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the guarded external service against a local stand-in that injects errors, garbage
+ * answers and latency.
+ */
+public class GatewayGuardTest {
+    private static final AddressDTO ADDRESS = new AddressDTO("1 Main St", "Haifa", "Israel", "12345");
+    private static final long OPEN_MILLIS = 200;
+    private static final int MIN_CALLS = 5;
+    private static final int WARM_UP_CALLS = 30;
+
+    private StubGatewayServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubGatewayServer();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private ExternalPaymentAndShippingService service(int maxConcurrentCalls) {
+        return new ExternalPaymentAndShippingService(server.url(), new GatewayGuard.Settings(
+                maxConcurrentCalls, 10, MIN_CALLS, 0.5, Duration.ofSeconds(2), 0.8,
+                Duration.ofMillis(OPEN_MILLIS), Duration.ofMillis(100), Duration.ofSeconds(5), 0.9, 3.0));
+    }
+
+    private static String failure(CompletableFuture<?> call) {
+        CompletionException e = assertThrows(CompletionException.class, call::join);
+        return e.getCause().getMessage();
+    }
+
+    @Test
+    @DisplayName("Given a failing service, when the failures pile up, then the breaker opens, fails fast, and closes after a good probe")
+    public void Given_FailingService_When_FailuresPileUp_Then_BreakerOpensAndRecovers() throws InterruptedException {
+        ExternalPaymentAndShippingService service = service(32);
+        server.statuses.put("supply", 503);
+
+        for (int i = 0; i < MIN_CALLS; i++) {
+            assertTrue(failure(service.shipAsync(ADDRESS, "buyer")).contains("status 503"));
+        }
+        assertEquals(GatewayGuard.State.OPEN, service.stats().state());
+
+        assertTrue(failure(service.shipAsync(ADDRESS, "buyer")).contains("unavailable"));
+        assertEquals(MIN_CALLS, server.count("supply"));
+        assertEquals(1, service.stats().rejectedOpen());
+
+        server.statuses.remove("supply");
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertNotNull(service.ship(ADDRESS, "buyer"));
+        assertEquals(GatewayGuard.State.CLOSED, service.stats().state());
+    }
+
+    @Test
+    @DisplayName("Given a full bulkhead, when more calls arrive, then they fail at once without reaching the service")
+    public void Given_FullBulkhead_When_MoreCallsArrive_Then_RejectedAtOnce() {
+        ExternalPaymentAndShippingService service = service(2);
+        server.delays.put("supply", 300L);
+
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(service.shipAsync(ADDRESS, "buyer"));
+        }
+        assertTrue(failure(calls.get(2)).contains("busy"));
+        assertTrue(failure(calls.get(3)).contains("busy"));
+        assertNotNull(calls.get(0).join());
+        assertNotNull(calls.get(1).join());
+
+        GatewayGuard.Stats stats = service.stats();
+        assertEquals(2, stats.rejectedBusy());
+        assertEquals(0, stats.inFlight());
+        assertEquals(2, server.count("supply"));
+    }
+
+    @Test
+    @DisplayName("Given an open breaker and a full bulkhead, when cancelling, then the cancellations still reach the service")
+    public void Given_OpenBreakerAndFullBulkhead_When_Cancelling_Then_CancellationsGoThrough() {
+        ExternalPaymentAndShippingService service = service(1);
+        server.statuses.put("supply", 503);
+        for (int i = 0; i < MIN_CALLS; i++) {
+            failure(service.shipAsync(ADDRESS, "buyer"));
+        }
+        assertEquals(GatewayGuard.State.OPEN, service.stats().state());
+
+        assertTrue(service.cancelShippingAsync(7).join());
+        assertTrue(service.cancelPaymentAsync(8).join());
+        assertEquals(1, server.count("cancel_supply"));
+        assertEquals(1, server.count("cancel_pay"));
+        assertEquals(GatewayGuard.State.OPEN, service.stats().state());
+        assertEquals(0, service.stats().rejectedOpen());
+
+        ExternalPaymentAndShippingService busy = service(1);
+        server.statuses.remove("supply");
+        server.delays.put("supply", 300L);
+        CompletableFuture<Integer> inFlight = busy.shipAsync(ADDRESS, "buyer");
+        assertTrue(busy.cancelShippingAsync(9).join());
+        assertNotNull(inFlight.join());
+        assertEquals(0, busy.stats().rejectedBusy());
+    }
+
+    @Test
+    @DisplayName("Given a fast service, when it suddenly hangs, then the call times out near the observed latency, not the maximum")
+    public void Given_FastService_When_ItHangs_Then_AdaptiveTimeout() {
+        ExternalPaymentAndShippingService service = service(32);
+        server.delays.put("supply", 10L);
+        // enough calls that the first, on a cold connection, is not in the percentile
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            service.ship(ADDRESS, "buyer");
+        }
+        long timeout = service.stats().timeoutMillis();
+        assertTrue(timeout < 1_000, "timeout stayed at " + timeout + " ms");
+
+        server.delays.put("supply", 3_000L);
+        long start = System.nanoTime();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.ship(ADDRESS, "buyer"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(e.getMessage().contains("no answer in time") || e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(elapsedMillis < 2_000, "waited " + elapsedMillis + " ms");
+
+        GatewayGuard.Stats stats = service.stats();
+        assertEquals(WARM_UP_CALLS + 1, stats.calls());
+        assertEquals(1, stats.failures());
+        assertEquals(WARM_UP_CALLS + 1, stats.latencyHistogram().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("Given a garbage answer, when paying, then the failure says so instead of a number format error")
+    public void Given_GarbageAnswer_When_Paying_Then_ClearFailure() {
+        ExternalPaymentAndShippingService service = service(32);
+        server.answers.put("pay", "<html>oops</html>");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.processPayment("{\"action_type\":\"pay\",\"amount\":\"5\"}", 5));
+        assertEquals("Unexpected response from external service", e.getMessage());
+    }
+}
@@ -0,0 +1,120 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.SEGroup.Service.IdempotencyStore;
+import com.SEGroup.Service.Result;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+    private static final long TTL = 60_000;
+    private static final long TICK = 1_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyStore<Void> store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new IdempotencyStore<>(TTL, TICK, clock::get);
+    }
+
+    private Result<Void> purchase() {
+        runs.incrementAndGet();
+        return Result.success(null);
+    }
+
+    @Test
+    @DisplayName("Given a purchase that went through, when it is retried with the same key, then the original result is returned without running again")
+    public void Given_DonePurchase_When_RetriedWithSameKey_Then_OriginalResultReturned() {
+        Result<Void> first = store.execute("buyer/k1", this::purchase);
+        Result<Void> retry = store.execute("buyer/k1", this::purchase);
+
+        assertTrue(first.isSuccess());
+        assertSame(first, retry);
+        assertEquals(1, runs.get());
+
+        store.execute("buyer/k2", this::purchase);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Given a purchase in flight, when duplicates arrive, then they wait for it and it runs once")
+    public void Given_PurchaseInFlight_When_DuplicatesArrive_Then_RunsOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<Result<Void>> first = pool.submit(() -> store.execute("buyer/k", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return purchase();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Result<Void>> second = pool.submit(() -> store.execute("buyer/k", this::purchase));
+            Future<Result<Void>> third = pool.submit(() -> store.execute("buyer/k", this::purchase));
+
+            Thread.sleep(50);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            Result<Void> result = first.get(5, TimeUnit.SECONDS);
+            assertSame(result, second.get(5, TimeUnit.SECONDS));
+            assertSame(result, third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Given a purchase that failed, when it is retried with the same key, then it runs again")
+    public void Given_FailedPurchase_When_RetriedWithSameKey_Then_RunsAgain() {
+        Result<Void> failed = store.execute("buyer/k", () -> {
+            runs.incrementAndGet();
+            return Result.failure("Payment failed: declined");
+        });
+        assertFalse(failed.isSuccess());
+        assertEquals(0, store.size());
+
+        assertTrue(store.execute("buyer/k", this::purchase).isSuccess());
+        assertEquals(2, runs.get());
+
+        assertThrows(IllegalStateException.class, () -> store.execute("buyer/boom", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertTrue(store.execute("buyer/boom", this::purchase).isSuccess());
+    }
+
+    @Test
+    @DisplayName("Given a kept result, when its time is up, then it is forgotten and the key runs again")
+    public void Given_KeptResult_When_Expired_Then_KeyRunsAgain() {
+        store.execute("buyer/k", this::purchase);
+
+        clock.addAndGet(TTL - TICK);
+        assertEquals(0, store.expireDue());
+        store.execute("buyer/k", this::purchase);
+        assertEquals(1, runs.get());
+
+        clock.addAndGet(2 * TICK);
+        assertEquals(1, store.expireDue());
+        assertEquals(0, store.size());
+        store.execute("buyer/k", this::purchase);
+        assertEquals(2, runs.get());
+    }
+}
@@ -0,0 +1,166 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.SEGroup.DTO.BasketDTO;
+import com.SEGroup.Domain.Transaction.CheckoutSaga;
+import com.SEGroup.Infrastructure.Repositories.RepositoryData.InMemoryStoreData;
+import com.SEGroup.Infrastructure.Repositories.StoreRepository;
+import com.SEGroup.Infrastructure.Repositories.TransactionRepository;
+import com.SEGroup.Service.CheckoutRecovery;
+import com.SEGroup.Service.StockReservations;
+import com.SEGroup.Service.TimingWheel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockReservationsTest {
+    private static final long TTL = 60_000;
+    private static final long TICK = 1_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private StoreRepository stores;
+    private TransactionRepository transactions;
+    private StockReservations reservations;
+    private String lamp;
+    private List<BasketDTO> cart;
+
+    @BeforeEach
+    public void setUp() {
+        stores = new StoreRepository(new InMemoryStoreData());
+        stores.createStore("Shop", "owner@test.com");
+        lamp = stores.addProductToStore("owner@test.com", "Shop", "c1", "Lamp", "desc", 10.0, 1, false, null, List.of());
+        transactions = new TransactionRepository();
+        reservations = new StockReservations(stores, transactions, TTL, TICK, clock::get);
+        cart = List.of(new BasketDTO("Shop", Map.of(lamp, 1)));
+    }
+
+    private int lampsLeft() {
+        return stores.getProduct("Shop", lamp).getQuantity();
+    }
+
+    @Test
+    @DisplayName("Given a held last unit, when another buyer starts checkout, then they are refused and the holder's purchase uses the hold")
+    public void Given_HeldLastUnit_When_OtherBuyerHolds_Then_RefusedAndHoldConverts() {
+        reservations.hold("a@test.com", cart);
+        assertEquals(0, lampsLeft());
+
+        assertThrows(RuntimeException.class, () -> reservations.hold("b@test.com", cart));
+
+        CheckoutSaga saga = reservations.convert("a@test.com", cart);
+        assertEquals(10.0, saga.getBasketToPrice().get(cart.get(0)));
+        assertEquals(CheckoutSaga.Status.STOCK_TAKEN, saga.getStatus());
+        assertEquals(0, lampsLeft());
+        assertEquals(0, reservations.activeHolds());
+
+        // converted holds do not expire
+        clock.addAndGet(TTL + TICK);
+        assertEquals(0, reservations.expireDue());
+        assertEquals(0, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given a hold, when its time runs out, then the stock comes back and the purchase cannot use it")
+    public void Given_Hold_When_Expired_Then_StockReturned() {
+        reservations.hold("a@test.com", cart);
+
+        clock.addAndGet(TTL - TICK);
+        assertEquals(0, reservations.expireDue());
+        assertEquals(0, lampsLeft());
+
+        clock.addAndGet(TICK);
+        assertEquals(1, reservations.expireDue());
+        assertEquals(1, lampsLeft());
+        assertNull(reservations.convert("a@test.com", cart));
+        assertEquals(0, reservations.activeHolds());
+    }
+
+    @Test
+    @DisplayName("Given a hold, when the cart changed or checkout is cancelled, then the stock comes back")
+    public void Given_Hold_When_CartChangedOrReleased_Then_StockReturned() {
+        reservations.hold("a@test.com", cart);
+        assertNull(reservations.convert("a@test.com", List.of()));
+        assertEquals(1, lampsLeft());
+
+        reservations.hold("a@test.com", cart);
+        reservations.hold("a@test.com", cart); // opening checkout again replaces the hold
+        assertEquals(0, lampsLeft());
+        reservations.release("a@test.com");
+        assertEquals(1, lampsLeft());
+
+        clock.addAndGet(TTL + TICK);
+        assertEquals(0, reservations.expireDue());
+        assertEquals(1, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given holds logged with their expiry, when they expire or are released, then their sagas are closed")
+    public void Given_LoggedHolds_When_ExpiredOrReleased_Then_SagasClosed() {
+        reservations.hold("a@test.com", cart);
+        CheckoutSaga saga = transactions.getUnfinishedCheckouts().get(0);
+        assertEquals(CheckoutSaga.Status.HELD, saga.getStatus());
+        assertEquals(clock.get() + TTL, saga.getExpiresAt());
+
+        clock.addAndGet(TTL);
+        assertEquals(1, reservations.expireDue());
+        assertEquals(CheckoutSaga.Status.COMPENSATED, saga.getStatus());
+        assertTrue(transactions.getUnfinishedCheckouts().isEmpty());
+
+        reservations.hold("a@test.com", cart);
+        reservations.release("a@test.com");
+        assertTrue(transactions.getUnfinishedCheckouts().isEmpty());
+        assertEquals(1, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given a hold when the application stopped, when the next run recovers, then its stock comes back once")
+    public void Given_HoldAtShutdown_When_NextRunRecovers_Then_StockReturnedOnce() throws InterruptedException {
+        reservations.hold("a@test.com", cart);
+        assertEquals(0, lampsLeft());
+        Thread.sleep(5); // the next run starts later, with an empty ledger
+
+        CheckoutRecovery nextRun = new CheckoutRecovery(transactions, stores, null, null, null, TTL);
+        assertEquals(1, nextRun.recoverUnfinished());
+        assertEquals(1, lampsLeft());
+        assertEquals(0, nextRun.recoverUnfinished());
+
+        // the previous run's ledger, were it still around, can no longer give the stock back
+        clock.addAndGet(TTL + TICK);
+        reservations.expireDue();
+        assertEquals(1, lampsLeft());
+    }
+
+    @Test
+    @DisplayName("Given timeouts over several revolutions, when the wheel turns, then each fires once at its deadline and cancelled ones never do")
+    public void Given_TimeoutsOverSeveralRevolutions_When_WheelTurns_Then_FireAtDeadline() {
+        AtomicLong now = new AtomicLong(0);
+        List<String> fired = new ArrayList<>();
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, fired::add, now::get);
+
+        wheel.schedule("soon", 25);
+        wheel.schedule("same-slot-next-round", 25 + 80);
+        wheel.schedule("cancelled", 25).cancel();
+        wheel.schedule("after-a-pause", 500);
+
+        now.set(29);
+        assertEquals(0, wheel.expireDue());
+        now.set(30);
+        assertEquals(1, wheel.expireDue());
+        assertEquals(List.of("soon"), fired);
+
+        now.set(100);
+        assertEquals(0, wheel.expireDue());
+        now.set(110);
+        assertEquals(1, wheel.expireDue());
+
+        now.set(10_000); // many revolutions without a tick
+        assertEquals(1, wheel.expireDue());
+        assertEquals(List.of("soon", "same-slot-next-round", "after-a-pause"), fired);
+    }
+}
@@ -0,0 +1,84 @@
+package com.SEGroup.UnitTests.TransactionTests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A local stand-in for the external payment and shipping service. Each action can be given a
+ * delay, a fixed answer or an error status; otherwise pay and supply answer a fresh transaction
+ * id and the cancel actions answer 1.
+ */
+class StubGatewayServer implements AutoCloseable {
+    final Map<String, Long> delays = new ConcurrentHashMap<>();
+    final Map<String, String> answers = new ConcurrentHashMap<>();
+    final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger(10_000);
+    private final HttpServer server;
+
+    StubGatewayServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::answer);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        String action = "";
+        for (String pair : new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("&")) {
+            String[] kv = pair.split("=", 2);
+            if (kv[0].equals("action_type")) action = URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
+        }
+        received.add(action);
+        try {
+            Thread.sleep(delays.getOrDefault(action, 0L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String body = answers.getOrDefault(action, action.startsWith("cancel") ? "1" : String.valueOf(nextId.getAndIncrement()));
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.sendResponseHeaders(statuses.getOrDefault(action, 200), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // the client gave up waiting
+        }
+    }
+
+    long count(String action) {
+        return received.stream().filter(action::equals).count();
+    }
+
+    void awaitCount(String action, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count(action) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, count(action));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}